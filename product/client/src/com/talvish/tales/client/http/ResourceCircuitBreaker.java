@@ -0,0 +1,318 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.client.http;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+import com.talvish.tales.system.status.MonitorableStatusValue;
+
+/**
+ * A circuit breaker for a method of a {@link ResourceClient}, which stops
+ * requests from being sent when a remote service is failing, so callers
+ * fail quickly instead of waiting on a service that isn't going to answer.
+ * <p>
+ * The breaker starts closed, letting requests through and recording the
+ * outcome of the most recent requests. If, after a minimum number of requests,
+ * the percentage that failed or the percentage that were slow goes past its
+ * threshold, the breaker opens and rejects requests. After the open time passes
+ * the breaker is half-open and lets a few trial requests through. If those
+ * succeed the breaker closes, otherwise it opens again for twice as long as it
+ * did before, up to the maximum open time.
+ * <p>
+ * While closed, outcomes are recorded without locking, so the breaker doesn't
+ * serialize the completions of a busy method. The breaker only locks to 
+ * change state and while half-open, when few requests are sent.
+ * @author jmolnar
+ *
+ */
+public class ResourceCircuitBreaker {
+	/**
+	 * The states of a circuit breaker.
+	 * @author jmolnar
+	 *
+	 */
+	public enum State {
+		/**
+		 * Requests are sent and their outcomes are recorded.
+		 */
+		CLOSED,
+		/**
+		 * Requests are rejected.
+		 */
+		OPEN,
+		/**
+		 * A limited number of trial requests are sent to see if the service recovered.
+		 */
+		HALF_OPEN
+	}
+
+	private final String name;
+
+	private final boolean enabled;
+	private final int minimumCalls;
+	private final int failureRate;
+	private final long slowCallTime;
+	private final int slowCallRate;
+	private final long openTime;
+	private final long maximumOpenTime;
+	private final int halfOpenCalls;
+
+	private final int windowSize;
+	private volatile Window window; // replaced, instead of cleared, when the state changes
+
+	// the following are only used while synchronized
+	private int consecutiveOpens = 0;
+	private int halfOpenPermits = 0;
+
+	private volatile State state = State.CLOSED;
+	private volatile long openUntil = 0; // the time, in milliseconds, the breaker becomes half-open
+
+	private final LongAdder rejections = new LongAdder( );
+	private final LongAdder opens = new LongAdder( );
+
+	/**
+	 * Constructor taking the name of the method the breaker is
+	 * for and the configuration that controls when it opens.
+	 * @param theName the name of the method the breaker is for
+	 * @param theConfiguration the configuration of the client
+	 */
+	ResourceCircuitBreaker( String theName, ResourceConfigurationBase<?> theConfiguration ) {
+		Preconditions.checkNotNull( theName, "need a name" );
+		Preconditions.checkNotNull( theConfiguration, "need a configuration" );
+
+		name = theName;
+		enabled = theConfiguration.getBreakerEnabled( );
+		minimumCalls = theConfiguration.getBreakerMinimumCalls( );
+		failureRate = theConfiguration.getBreakerFailureRate( );
+		slowCallTime = theConfiguration.getBreakerSlowCallTime( );
+		slowCallRate = theConfiguration.getBreakerSlowCallRate( );
+		openTime = theConfiguration.getBreakerOpenTime( );
+		maximumOpenTime = theConfiguration.getBreakerMaximumOpenTime( );
+		halfOpenCalls = theConfiguration.getBreakerHalfOpenCalls( );
+
+		windowSize = theConfiguration.getBreakerWindowSize( );
+		window = new Window( windowSize );
+	}
+
+	/**
+	 * The name of the method the breaker is for.
+	 * @return the name of the method
+	 */
+	public String getName( ) {
+		return name;
+	}
+
+	/**
+	 * Indicates if a request can be sent. If it returns true, the outcome
+	 * of the request must be given to either {@code record} or {@code release}.
+	 * @return true if the request can be sent, false if it is rejected
+	 */
+	boolean tryAcquire( ) {
+		if( !enabled || state == State.CLOSED ) {
+			return true;
+		} else {
+			synchronized( this ) {
+				if( state == State.OPEN && System.currentTimeMillis( ) >= openUntil ) {
+					state = State.HALF_OPEN;
+					halfOpenPermits = halfOpenCalls;
+					clearWindow( );
+				}
+				if( state == State.CLOSED ) {
+					return true;
+				} else if( state == State.HALF_OPEN && halfOpenPermits > 0 ) {
+					halfOpenPermits -= 1;
+					return true;
+				} else {
+					rejections.increment( );
+					return false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records the outcome of a request that was sent.
+	 * @param isFailure indicates if the request failed
+	 * @param theLatency the time, in milliseconds, the request took
+	 */
+	void record( boolean isFailure, double theLatency ) {
+		if( enabled ) {
+			boolean isSlow = slowCallTime > 0 && theLatency >= slowCallTime;
+			State currentState = state;
+
+			if( currentState == State.CLOSED ) {
+				Window currentWindow = window;
+				currentWindow.add( isFailure, isSlow );
+				if( currentWindow.calls.get( ) >= minimumCalls && isTripped( currentWindow ) ) {
+					synchronized( this ) {
+						// another request may have already opened it
+						if( state == State.CLOSED && window == currentWindow ) {
+							open( );
+						}
+					}
+				}
+			} else if( currentState == State.HALF_OPEN ) {
+				synchronized( this ) {
+					if( state == State.HALF_OPEN ) {
+						window.add( isFailure, isSlow );
+						if( isTripped( window ) ) {
+							open( );
+						} else if( window.calls.get( ) >= halfOpenCalls ) {
+							// all the trial requests were fine
+							state = State.CLOSED;
+							consecutiveOpens = 0;
+							clearWindow( );
+						}
+					}
+				}
+			}
+			// if open, the request was sent before the
+			// breaker opened, so it no longer matters
+		}
+	}
+
+	/**
+	 * Indicates that a request that was allowed to be sent, was cancelled,
+	 * so the outcome isn't known.
+	 */
+	void release( ) {
+		if( enabled && state == State.HALF_OPEN ) {
+			synchronized( this ) {
+				if( state == State.HALF_OPEN ) {
+					halfOpenPermits += 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Helper method that indicates if the outcomes recorded in the window are past the thresholds.
+	 */
+	private boolean isTripped( Window theWindow ) {
+		int calls = theWindow.calls.get( );
+		return theWindow.failures.get( ) * 100 >= failureRate * calls || ( slowCallTime > 0 && theWindow.slowCalls.get( ) * 100 >= slowCallRate * calls );
+	}
+
+	/**
+	 * Helper method that opens the breaker, for longer each time
+	 * it opens without closing in-between. Must be called while synchronized.
+	 */
+	private void open( ) {
+		long time = openTime << Math.min( consecutiveOpens, 20 );
+		openUntil = System.currentTimeMillis( ) + Math.min( time, maximumOpenTime );
+		state = State.OPEN;
+		consecutiveOpens += 1;
+		opens.increment( );
+		clearWindow( );
+	}
+
+	/**
+	 * Helper method that removes the recorded outcomes. Must be called while synchronized.
+	 * Outcomes still being recorded in the old window are dropped, which is fine
+	 * since they belong to the state being left.
+	 */
+	private void clearWindow( ) {
+		window = new Window( windowSize );
+	}
+
+	/**
+	 * The outcomes of the most recent requests, kept in a ring, with counts of 
+	 * the outcomes in the ring. Each slot is swapped atomically, so the outcome
+	 * it held is removed from the counts exactly once.
+	 * @author jmolnar
+	 *
+	 */
+	private static class Window {
+		private static final int RECORDED = 1;
+		private static final int FAILED = 2;
+		private static final int SLOW = 4;
+
+		private final AtomicIntegerArray outcomes;
+		private final AtomicLong position = new AtomicLong( 0 );
+		private final AtomicInteger calls = new AtomicInteger( 0 );
+		private final AtomicInteger failures = new AtomicInteger( 0 );
+		private final AtomicInteger slowCalls = new AtomicInteger( 0 );
+
+		private Window( int theSize ) {
+			outcomes = new AtomicIntegerArray( theSize );
+		}
+
+		/**
+		 * Adds an outcome, replacing the oldest one if the ring is full.
+		 */
+		private void add( boolean isFailure, boolean isSlow ) {
+			int outcome = RECORDED | ( isFailure ? FAILED : 0 ) | ( isSlow ? SLOW : 0 );
+			int slot = ( int )( position.getAndIncrement( ) % outcomes.length( ) );
+			int oldOutcome = outcomes.getAndSet( slot, outcome );
+
+			if( oldOutcome == 0 ) {
+				calls.incrementAndGet( );
+			}
+			int failureChange = ( isFailure ? 1 : 0 ) - ( ( oldOutcome & FAILED ) != 0 ? 1 : 0 );
+			if( failureChange != 0 ) {
+				failures.addAndGet( failureChange );
+			}
+			int slowCallChange = ( isSlow ? 1 : 0 ) - ( ( oldOutcome & SLOW ) != 0 ? 1 : 0 );
+			if( slowCallChange != 0 ) {
+				slowCalls.addAndGet( slowCallChange );
+			}
+		}
+	}
+
+	/**
+	 * Returns the current state of the breaker.
+	 * @return the state of the breaker
+	 */
+	public State getState( ) {
+		if( state == State.OPEN && System.currentTimeMillis( ) >= openUntil ) {
+			// it becomes half-open on the next request
+			return State.HALF_OPEN;
+		} else {
+			return state;
+		}
+	}
+
+	/**
+	 * Returns the current state of the breaker, as a string.
+	 * @return the state of the breaker
+	 */
+	@MonitorableStatusValue( name = "circuit_breaker_state", description = "The state of the circuit breaker, which is one of CLOSED, OPEN or HALF_OPEN." )
+	public String getStateName( ) {
+		return getState( ).name( );
+	}
+
+	/**
+	 * Returns the number of requests rejected by the breaker.
+	 * @return the number of rejected requests
+	 */
+	@MonitorableStatusValue( name = "circuit_breaker_rejections", description = "The total number of requests, since the client was created, rejected because the circuit breaker was open." )
+	public long getRejections( ) {
+		return rejections.sum( );
+	}
+
+	/**
+	 * Returns the number of times the breaker opened.
+	 * @return the number of times the breaker opened
+	 */
+	@MonitorableStatusValue( name = "circuit_breaker_opens", description = "The total number of times, since the client was created, the circuit breaker opened." )
+	public long getOpens( ) {
+		return opens.sum( );
+	}
+}
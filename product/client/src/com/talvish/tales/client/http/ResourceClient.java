@@ -23,6 +23,10 @@ import java.security.cert.X509Certificate;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
@@ -49,6 +53,9 @@ import com.talvish.tales.serialization.json.JsonTypeMap;
 import com.talvish.tales.serialization.json.translators.JsonObjectToObjectTranslator;
 import com.talvish.tales.serialization.json.translators.ObjectToJsonObjectTranslator;
 import com.talvish.tales.system.Conditions;
+import com.talvish.tales.system.ConfigurableThreadFactory;
+import com.talvish.tales.system.ExecutorManager;
+import com.talvish.tales.system.status.StatusManager;
 
 
 /**
@@ -62,8 +69,6 @@ import com.talvish.tales.system.Conditions;
  *
  */
 public class ResourceClient {
-	// TODO: for the clients we should allow a way to configure connect times and failure amount/rate and stop using until some other test point (ideally on some form of curve)
-	
 	private static final Logger logger = LoggerFactory.getLogger( ResourceClient.class );
 	
 	protected final HttpClient httpClient;
@@ -75,7 +80,11 @@ public class ResourceClient {
 	
 	protected final JsonParser jsonParser;
 	
-	protected final HttpEndpoint endpoint; 	// e.g. http://localhost:8000
+	protected final HttpEndpoint endpoint; 	// e.g. http://localhost:8000, which is the first of the endpoints
+	protected final ResourceEndpointBalancer endpointBalancer; // chooses which endpoint requests are sent to
+	protected final ResourceConfigurationBase<?> configuration; // used by methods to setup their circuit breakers
+	protected final ResourceRetryBudget retryBudget; // limits the retries of failed requests
+	protected final long requestTimeout; // the time, in milliseconds, requests can take, with zero meaning no limit
 	protected final String contractRoot;	// e.g. login
 	protected final String contractVersion;	// e.g. 20140901
 	
@@ -90,6 +99,12 @@ public class ResourceClient {
 	protected volatile Map<String,String> externalHeaderOverrides = Collections.unmodifiableMap( headerOverrides );
 	protected final Object overrideLock = new Object( );
 	
+	protected volatile boolean requestsCbor = false; // whether responses should be asked for in CBOR instead of json
+	protected volatile ResourceResponseCache responseCache = null; // if set, used to keep responses to GET requests
+	protected volatile Executor completionExecutor = null; // if set, where completable futures from requests complete
+	private volatile ThreadPoolExecutor streamReaderExecutor = null; // created when first needed, reads streamed responses
+	private final Object streamReaderLock = new Object( );
+	
 
 	/**
 	 * Creates a resource client that will create the underlying HttpClient to talk to the
@@ -127,7 +142,15 @@ public class ResourceClient {
 		theConfiguration.validate();
 		
 		// now let's start preparing the client
-		endpoint = new HttpEndpoint( theConfiguration.getEndpoint( ) ); // this will do validation on the endpoint 
+		configuration = theConfiguration;
+		endpointBalancer = new ResourceEndpointBalancer( theConfiguration ); // this will do validation on the endpoints
+		retryBudget = new ResourceRetryBudget( theConfiguration );
+		requestTimeout = theConfiguration.getRequestTimeout( );
+		endpoint = endpointBalancer.getEndpoints( ).get( 0 ).getEndpoint( );
+		boolean isSecure = false;
+		for( ResourceEndpoint balancedEndpoint : endpointBalancer.getEndpoints( ) ) {
+			isSecure |= balancedEndpoint.getEndpoint( ).isSecure( );
+		}
 		contractRoot = theContractRoot; 
 		contractVersion = theContractVersion;
 		userAgent = theUserAgent;
@@ -137,7 +160,7 @@ public class ResourceClient {
 			try {
 			    SslContextFactory sslContextFactory = null;
 	
-			    if( endpoint.isSecure( ) ) {
+			    if( isSecure ) {
 			    	if( theConfiguration.getAllowUntrustedSsl() ) {
 			    		// so we need SSL communication BUT we don't need to worry about it being valid, likley
 			    		// because the caller is self-cert'ing or in early development ... we may need to do 
@@ -262,13 +285,58 @@ public class ResourceClient {
 }
 
 	/**
-	 * The endpoint that this client will communicate with
+	 * The endpoint that this client will communicate with. If the client
+	 * has more than one endpoint, this is the first one.
 	 * @return the endpoint that this client will communicate with
 	 */
 	public final HttpEndpoint getEndpoint( ) {
 		return this.endpoint;		
 	}
 	
+	/**
+	 * The balancer that chooses which of the endpoints of the client
+	 * requests are sent to, which also has the status of the endpoints.
+	 * @return the endpoint balancer
+	 */
+	public final ResourceEndpointBalancer getEndpointBalancer( ) {
+		return this.endpointBalancer;
+	}
+	
+	/**
+	 * The budget that limits the retries of failed requests.
+	 * @return the retry budget
+	 */
+	public final ResourceRetryBudget getRetryBudget( ) {
+		return this.retryBudget;
+	}
+	
+	/**
+	 * The time, in milliseconds, requests can take before they fail.
+	 * @return the request timeout, or zero if requests do not have a time limit
+	 */
+	public final long getRequestTimeout( ) {
+		return this.requestTimeout;
+	}
+	
+	/**
+	 * Registers the status of the client with the status manager. The balancer
+	 * and retry budget use the block name given, each endpoint uses the block
+	 * name followed by '_endpoint_' and the position of the endpoint, and the
+	 * circuit breaker of each method uses the block name followed by '_method_'
+	 * and the name of the method. 
+	 * @param theStatusManager the status manager to register with
+	 * @param theBlockName the name of the status block for the client
+	 */
+	public void registerStatus( StatusManager theStatusManager, String theBlockName ) {
+		endpointBalancer.registerStatus( theStatusManager, theBlockName ); // does validation
+		theStatusManager.register( theBlockName, retryBudget );
+		if( methods != null ) {
+			for( ResourceMethod method : methods ) {
+				theStatusManager.register( theBlockName + "_method_" + method.getName( ).toLowerCase( ), method.getCircuitBreaker( ) );
+			}
+		}
+	}
+	
 	/**
 	 * The root of the contract that this client represents.
 	 * It doesn't contain the scheme, domain or port, but the starting of the URL path.
@@ -304,6 +372,112 @@ public class ResourceClient {
 		return this.defaultMaxResponseSize;
 	}
 
+	/**
+	 * Indicates if this client asks services to send responses using
+	 * the CBOR binary encoding instead of json. Services that do not
+	 * support CBOR will continue to send json, which is still handled.
+	 * @return true if CBOR is requested, false otherwise
+	 */
+	public boolean requestsCbor( ) {
+		return this.requestsCbor;
+	}
+	
+	/**
+	 * Sets whether this client asks services to send responses using
+	 * the CBOR binary encoding instead of json. CBOR responses are 
+	 * smaller and faster to read, but are not human readable.
+	 * @param shouldRequestCbor true to ask for CBOR, false to ask for json
+	 * @return the ResourceClient again, so these can be strung together
+	 */
+	public ResourceClient setRequestsCbor( boolean shouldRequestCbor ) {
+		this.requestsCbor = shouldRequestCbor;
+		return this;
+	}
+
+	/**
+	 * Returns the cache, if any, used to keep responses to GET requests.
+	 * @return the response cache, or null if responses are not kept
+	 */
+	public ResourceResponseCache getResponseCache( ) {
+		return this.responseCache;
+	}
+	
+	/**
+	 * Sets the cache used to keep responses to GET requests, based on the 
+	 * Cache-Control and ETag headers sent by the service. The cache may be 
+	 * shared with other clients.
+	 * @param theResponseCache the response cache to use, or null to not keep responses
+	 * @return the ResourceClient again, so these can be strung together
+	 */
+	public ResourceClient setResponseCache( ResourceResponseCache theResponseCache ) {
+		this.responseCache = theResponseCache;
+		return this;
+	}
+
+	/**
+	 * Returns the executor that reads streamed responses. Reading blocks while waiting 
+	 * for content, so it doesn't use the threads of the http client, which deliver the
+	 * content. The number of threads, and streamed responses waiting for one, is bounded
+	 * by the configuration, and streamed requests beyond that fail.
+	 * @return the executor reading streamed responses
+	 */
+	Executor getStreamReaderExecutor( ) {
+		ThreadPoolExecutor executor = streamReaderExecutor;
+		if( executor == null ) {
+			synchronized( streamReaderLock ) {
+				executor = streamReaderExecutor;
+				if( executor == null ) {
+					int threads = configuration.getStreamReaderThreads( );
+					executor = new ThreadPoolExecutor(
+							threads,
+							threads,
+							60l,
+							TimeUnit.SECONDS,
+							new ArrayBlockingQueue<Runnable>( configuration.getStreamReaderQueue( ) ),
+							new ConfigurableThreadFactory( "stream_reader", Thread.NORM_PRIORITY, true ) ); // daemon, since there is nothing to shutdown the client
+					executor.allowCoreThreadTimeOut( true );
+					streamReaderExecutor = executor;
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * Returns the executor, if any, that completable futures from requests complete on.
+	 * @return the completion executor, or null if they complete on the threads of the http client
+	 */
+	public Executor getCompletionExecutor( ) {
+		return this.completionExecutor;
+	}
+	
+	/**
+	 * Sets the executor that completable futures from requests complete on, 
+	 * and therefore the executor continuations run on. If not set, they
+	 * complete on the threads of the http client, which must not be blocked.
+	 * @param theExecutor the executor to use, or null to use the http client threads
+	 * @return the ResourceClient again, so these can be strung together
+	 */
+	public ResourceClient setCompletionExecutor( Executor theExecutor ) {
+		this.completionExecutor = theExecutor;
+		return this;
+	}
+
+	/**
+	 * Sets the executor, found in the executor manager, that completable futures 
+	 * from requests complete on, and therefore the executor continuations run on.
+	 * @param theExecutorManager the executor manager containing the executor
+	 * @param theExecutorName the name of the executor to use
+	 * @return the ResourceClient again, so these can be strung together
+	 */
+	public ResourceClient setCompletionExecutor( ExecutorManager theExecutorManager, String theExecutorName ) {
+		Preconditions.checkNotNull( theExecutorManager, "need an executor manager" );
+		Executor executor = theExecutorManager.getExecutor( theExecutorName );
+		Preconditions.checkArgument( executor != null, "the executor '%s' has not been registered", theExecutorName );
+		this.completionExecutor = executor;
+		return this;
+	}
+
 	/**
 	 * Returns the current value of a header that will be overridden.
 	 * @param theName the header that was overridden
@@ -379,6 +553,14 @@ public class ResourceClient {
 		return methods[ theMethodIndex ];
 	}
 	
+	/**
+	 * The configuration the client was created with.
+	 * @return the configuration of the client
+	 */
+	protected ResourceConfigurationBase<?> getConfiguration( ) {
+		return configuration;
+	}
+	
 	/**
 	 * The underlying http communication client being used.
 	 * @return the underlying communication client being used
@@ -15,6 +15,9 @@
 // ***************************************************************************
 package com.talvish.tales.client.http;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.google.common.base.Strings;
 
 import com.talvish.tales.client.http.ResourceConfigurationBase;
@@ -32,9 +35,72 @@ import com.talvish.tales.system.configuration.annotated.Settings;
 @Settings( )
 abstract public class ResourceConfigurationBase <T extends ResourceConfigurationBase> {
 	
-	@Setting( name="{prefix}.endpoint", required=true )
+	@Setting( name="{prefix}.endpoint" )
 	private String endpoint;
 	
+	@Setting( name="{prefix}.endpoints" )
+	private List<String> endpoints = new ArrayList<String>( );
+	
+	@Setting( name="{prefix}.ejection_failures" )
+	private int ejectionFailures = 5;
+	
+	@Setting( name="{prefix}.ejection_time" )
+	private long ejectionTime = 10000;
+	
+	@Setting( name="{prefix}.maximum_ejection_time" )
+	private long maximumEjectionTime = 300000;
+	
+	@Setting( name="{prefix}.maximum_ejection_percent" )
+	private int maximumEjectionPercent = 50;
+	
+	@Setting( name="{prefix}.latency_weight" )
+	private double latencyWeight = 0.2;
+	
+	@Setting( name="{prefix}.request_timeout" )
+	private long requestTimeout = 0;
+	
+	@Setting( name="{prefix}.breaker_enabled" )
+	private boolean breakerEnabled = false;
+	
+	@Setting( name="{prefix}.breaker_window_size" )
+	private int breakerWindowSize = 100;
+	
+	@Setting( name="{prefix}.breaker_minimum_calls" )
+	private int breakerMinimumCalls = 20;
+	
+	@Setting( name="{prefix}.breaker_failure_rate" )
+	private int breakerFailureRate = 50;
+	
+	@Setting( name="{prefix}.breaker_slow_call_time" )
+	private long breakerSlowCallTime = 0;
+	
+	@Setting( name="{prefix}.breaker_slow_call_rate" )
+	private int breakerSlowCallRate = 80;
+	
+	@Setting( name="{prefix}.breaker_open_time" )
+	private long breakerOpenTime = 5000;
+	
+	@Setting( name="{prefix}.breaker_maximum_open_time" )
+	private long breakerMaximumOpenTime = 60000;
+	
+	@Setting( name="{prefix}.breaker_half_open_calls" )
+	private int breakerHalfOpenCalls = 5;
+	
+	@Setting( name="{prefix}.retry_attempts" )
+	private int retryAttempts = 0;
+	
+	@Setting( name="{prefix}.retry_budget_ratio" )
+	private double retryBudgetRatio = 0.1;
+	
+	@Setting( name="{prefix}.retry_budget_tokens" )
+	private int retryBudgetTokens = 10;
+	
+	@Setting( name="{prefix}.stream_reader_threads" )
+	private int streamReaderThreads = 16;
+	
+	@Setting( name="{prefix}.stream_reader_queue" )
+	private int streamReaderQueue = 64;
+	
 	@Setting( name="{prefix}.allow_untrusted_ssl" )
 	private boolean allowUntrustedSsl = false;
 	
@@ -62,6 +128,396 @@ abstract public class ResourceConfigurationBase <T extends ResourceConfiguration
 		return ( T )this;
 	}
 	
+	/**
+	 * Returns the additional endpoints to communicate with. Requests are
+	 * balanced across these and the endpoint, if one was given.
+	 */
+	public List<String> getEndpoints( ) {
+		return endpoints;
+	}
+	
+	/**
+	 * Sets the additional endpoints to communicate with. Requests are
+	 * balanced across these and the endpoint, if one was given.
+	 * @param theEndpoints the endpoints to communicate with
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setEndpoints( List<String> theEndpoints ) {
+		endpoints = theEndpoints;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the number of consecutive failures before an endpoint
+	 * is ejected, meaning it isn't sent requests for a time. Zero
+	 * means endpoints are never ejected.
+	 */
+	public int getEjectionFailures( ) {
+		return ejectionFailures;
+	}
+	
+	/**
+	 * Sets the number of consecutive failures before an endpoint
+	 * is ejected. Zero means endpoints are never ejected.
+	 * @param theEjectionFailures the number of consecutive failures
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setEjectionFailures( int theEjectionFailures ) {
+		ejectionFailures = theEjectionFailures;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the time, in milliseconds, an endpoint is ejected the first 
+	 * time. The time doubles for each ejection without a success in-between.
+	 */
+	public long getEjectionTime( ) {
+		return ejectionTime;
+	}
+	
+	/**
+	 * Sets the time, in milliseconds, an endpoint is ejected the first time. 
+	 * @param theEjectionTime the time in milliseconds
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setEjectionTime( long theEjectionTime ) {
+		ejectionTime = theEjectionTime;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the maximum time, in milliseconds, an endpoint is ejected.
+	 */
+	public long getMaximumEjectionTime( ) {
+		return maximumEjectionTime;
+	}
+	
+	/**
+	 * Sets the maximum time, in milliseconds, an endpoint is ejected. 
+	 * @param theMaximumEjectionTime the time in milliseconds
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setMaximumEjectionTime( long theMaximumEjectionTime ) {
+		maximumEjectionTime = theMaximumEjectionTime;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the maximum percentage of endpoints that can be ejected at
+	 * once, though a single endpoint can always be ejected if there is 
+	 * more than one endpoint.
+	 */
+	public int getMaximumEjectionPercent( ) {
+		return maximumEjectionPercent;
+	}
+	
+	/**
+	 * Sets the maximum percentage of endpoints that can be ejected at once.
+	 * @param theMaximumEjectionPercent the percentage, from 0 to 100
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setMaximumEjectionPercent( int theMaximumEjectionPercent ) {
+		maximumEjectionPercent = theMaximumEjectionPercent;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the weight, between 0 and 1, the latest latency of an endpoint
+	 * has in the moving average used to choose between endpoints. 
+	 */
+	public double getLatencyWeight( ) {
+		return latencyWeight;
+	}
+	
+	/**
+	 * Sets the weight, between 0 and 1, the latest latency of an endpoint
+	 * has in the moving average used to choose between endpoints. Higher
+	 * values react quicker to changes but are more sensitive to outliers.
+	 * @param theLatencyWeight the weight to use
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setLatencyWeight( double theLatencyWeight ) {
+		latencyWeight = theLatencyWeight;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the time, in milliseconds, a request can take before it fails. Zero means requests do not have a time limit.
+	 */
+	public long getRequestTimeout( ) {
+		return requestTimeout;
+	}
+	
+	/**
+	 * Sets the time, in milliseconds, a request can take before it fails. Zero means requests do not have a time limit.
+	 * @param theRequestTimeout the time in milliseconds
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setRequestTimeout( long theRequestTimeout ) {
+		requestTimeout = theRequestTimeout;
+		return ( T )this;
+	}
+	
+	/**
+	 * Indicates if each method of the client has a circuit breaker, which rejects requests while the method is failing.
+	 * This is off by default.
+	 */
+	public boolean getBreakerEnabled( ) {
+		return breakerEnabled;
+	}
+	
+	/**
+	 * Sets whether each method of the client has a circuit breaker, which rejects requests while the method is failing.
+	 * @param isEnabled true to use circuit breakers, false otherwise
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setBreakerEnabled( boolean isEnabled ) {
+		breakerEnabled = isEnabled;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the number of the most recent requests whose outcomes are used to decide if a circuit breaker opens.
+	 */
+	public int getBreakerWindowSize( ) {
+		return breakerWindowSize;
+	}
+	
+	/**
+	 * Sets the number of the most recent requests whose outcomes are used to decide if a circuit breaker opens.
+	 * @param theBreakerWindowSize the number of requests
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setBreakerWindowSize( int theBreakerWindowSize ) {
+		breakerWindowSize = theBreakerWindowSize;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the minimum number of requests recorded before a circuit breaker can open.
+	 */
+	public int getBreakerMinimumCalls( ) {
+		return breakerMinimumCalls;
+	}
+	
+	/**
+	 * Sets the minimum number of requests recorded before a circuit breaker can open.
+	 * @param theBreakerMinimumCalls the number of requests
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setBreakerMinimumCalls( int theBreakerMinimumCalls ) {
+		breakerMinimumCalls = theBreakerMinimumCalls;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the percentage of recorded requests that must fail for a circuit breaker to open.
+	 */
+	public int getBreakerFailureRate( ) {
+		return breakerFailureRate;
+	}
+	
+	/**
+	 * Sets the percentage of recorded requests that must fail for a circuit breaker to open.
+	 * @param theBreakerFailureRate the percentage, from 1 to 100
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setBreakerFailureRate( int theBreakerFailureRate ) {
+		breakerFailureRate = theBreakerFailureRate;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the time, in milliseconds, after which a request is considered slow. Zero means slow requests are not considered.
+	 */
+	public long getBreakerSlowCallTime( ) {
+		return breakerSlowCallTime;
+	}
+	
+	/**
+	 * Sets the time, in milliseconds, after which a request is considered slow. Zero means slow requests are not considered.
+	 * @param theBreakerSlowCallTime the time in milliseconds
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setBreakerSlowCallTime( long theBreakerSlowCallTime ) {
+		breakerSlowCallTime = theBreakerSlowCallTime;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the percentage of recorded requests that must be slow for a circuit breaker to open.
+	 */
+	public int getBreakerSlowCallRate( ) {
+		return breakerSlowCallRate;
+	}
+	
+	/**
+	 * Sets the percentage of recorded requests that must be slow for a circuit breaker to open.
+	 * @param theBreakerSlowCallRate the percentage, from 1 to 100
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setBreakerSlowCallRate( int theBreakerSlowCallRate ) {
+		breakerSlowCallRate = theBreakerSlowCallRate;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the time, in milliseconds, a circuit breaker stays open the first time. The time doubles each time the breaker opens again without closing in-between.
+	 */
+	public long getBreakerOpenTime( ) {
+		return breakerOpenTime;
+	}
+	
+	/**
+	 * Sets the time, in milliseconds, a circuit breaker stays open the first time.
+	 * @param theBreakerOpenTime the time in milliseconds
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setBreakerOpenTime( long theBreakerOpenTime ) {
+		breakerOpenTime = theBreakerOpenTime;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the maximum time, in milliseconds, a circuit breaker stays open.
+	 */
+	public long getBreakerMaximumOpenTime( ) {
+		return breakerMaximumOpenTime;
+	}
+	
+	/**
+	 * Sets the maximum time, in milliseconds, a circuit breaker stays open.
+	 * @param theBreakerMaximumOpenTime the time in milliseconds
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setBreakerMaximumOpenTime( long theBreakerMaximumOpenTime ) {
+		breakerMaximumOpenTime = theBreakerMaximumOpenTime;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the number of trial requests a half-open circuit breaker lets through to decide if it closes.
+	 */
+	public int getBreakerHalfOpenCalls( ) {
+		return breakerHalfOpenCalls;
+	}
+	
+	/**
+	 * Sets the number of trial requests a half-open circuit breaker lets through to decide if it closes.
+	 * @param theBreakerHalfOpenCalls the number of requests
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setBreakerHalfOpenCalls( int theBreakerHalfOpenCalls ) {
+		breakerHalfOpenCalls = theBreakerHalfOpenCalls;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the maximum number of times a request using an idempotent verb (GET, HEAD, PUT, DELETE or OPTIONS) is retried after failing to communicate or getting a 502, 503 or 504. Zero means requests are not retried.
+	 */
+	public int getRetryAttempts( ) {
+		return retryAttempts;
+	}
+	
+	/**
+	 * Sets the maximum number of times a request using an idempotent verb is retried. Zero means requests are not retried.
+	 * @param theRetryAttempts the number of retries
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setRetryAttempts( int theRetryAttempts ) {
+		retryAttempts = theRetryAttempts;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the fraction of a retry each request, that isn't a retry, adds to the retry budget, which limits retries to that fraction of requests over time.
+	 */
+	public double getRetryBudgetRatio( ) {
+		return retryBudgetRatio;
+	}
+	
+	/**
+	 * Sets the fraction of a retry each request, that isn't a retry, adds to the retry budget.
+	 * @param theRetryBudgetRatio the fraction, greater than 0 and no more than 1
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setRetryBudgetRatio( double theRetryBudgetRatio ) {
+		retryBudgetRatio = theRetryBudgetRatio;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the maximum number of retries the retry budget can hold, which is the most retries that can be made in a burst.
+	 */
+	public int getRetryBudgetTokens( ) {
+		return retryBudgetTokens;
+	}
+	
+	/**
+	 * Sets the maximum number of retries the retry budget can hold.
+	 * @param theRetryBudgetTokens the number of retries
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setRetryBudgetTokens( int theRetryBudgetTokens ) {
+		retryBudgetTokens = theRetryBudgetTokens;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the maximum number of threads reading streamed responses, which is the most streamed responses read at once.
+	 */
+	public int getStreamReaderThreads( ) {
+		return streamReaderThreads;
+	}
+	
+	/**
+	 * Sets the maximum number of threads reading streamed responses.
+	 * @param theStreamReaderThreads the number of threads
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setStreamReaderThreads( int theStreamReaderThreads ) {
+		streamReaderThreads = theStreamReaderThreads;
+		return ( T )this;
+	}
+	
+	/**
+	 * Returns the number of streamed responses that can wait for a thread to read them, after which streamed requests fail.
+	 */
+	public int getStreamReaderQueue( ) {
+		return streamReaderQueue;
+	}
+	
+	/**
+	 * Sets the number of streamed responses that can wait for a thread to read them.
+	 * @param theStreamReaderQueue the number of waiting responses
+	 * @return the configuration object so setters can be chained
+	 */
+	@SuppressWarnings("unchecked")
+	public T setStreamReaderQueue( int theStreamReaderQueue ) {
+		streamReaderQueue = theStreamReaderQueue;
+		return ( T )this;
+	}
+	
 	/**
 	 * Indicates if SSL must be fully trusted and verified. 
 	 * If you are using self-signed certs then you must allow untrusted SSL.
@@ -85,6 +541,25 @@ abstract public class ResourceConfigurationBase <T extends ResourceConfiguration
 	
 	@OnValidation
 	public void validate( ) {
-		Conditions.checkConfiguration( !Strings.isNullOrEmpty( endpoint ), "the endpoint is either null or empty" );
+		Conditions.checkConfiguration( !Strings.isNullOrEmpty( endpoint ) || ( endpoints != null && !endpoints.isEmpty( ) ), "the endpoint is either null or empty and no endpoints were given" );
+		Conditions.checkConfiguration( ejectionFailures >= 0, "the ejection failures cannot be negative" );
+		Conditions.checkConfiguration( ejectionTime > 0, "the ejection time must be greater than zero" );
+		Conditions.checkConfiguration( maximumEjectionTime >= ejectionTime, "the maximum ejection time cannot be less than the ejection time" );
+		Conditions.checkConfiguration( maximumEjectionPercent >= 0 && maximumEjectionPercent <= 100, "the maximum ejection percent must be between 0 and 100" );
+		Conditions.checkConfiguration( latencyWeight > 0 && latencyWeight <= 1, "the latency weight must be greater than 0 and no more than 1" );
+		Conditions.checkConfiguration( requestTimeout >= 0, "the request timeout cannot be negative" );
+		Conditions.checkConfiguration( breakerWindowSize > 0, "the breaker window size must be greater than zero" );
+		Conditions.checkConfiguration( breakerMinimumCalls > 0 && breakerMinimumCalls <= breakerWindowSize, "the breaker minimum calls must be greater than zero and no more than the window size" );
+		Conditions.checkConfiguration( breakerFailureRate > 0 && breakerFailureRate <= 100, "the breaker failure rate must be between 1 and 100" );
+		Conditions.checkConfiguration( breakerSlowCallTime >= 0, "the breaker slow call time cannot be negative" );
+		Conditions.checkConfiguration( breakerSlowCallRate > 0 && breakerSlowCallRate <= 100, "the breaker slow call rate must be between 1 and 100" );
+		Conditions.checkConfiguration( breakerOpenTime > 0, "the breaker open time must be greater than zero" );
+		Conditions.checkConfiguration( breakerMaximumOpenTime >= breakerOpenTime, "the breaker maximum open time cannot be less than the breaker open time" );
+		Conditions.checkConfiguration( breakerHalfOpenCalls > 0, "the breaker half open calls must be greater than zero" );
+		Conditions.checkConfiguration( retryAttempts >= 0, "the retry attempts cannot be negative" );
+		Conditions.checkConfiguration( retryBudgetRatio > 0 && retryBudgetRatio <= 1, "the retry budget ratio must be greater than 0 and no more than 1" );
+		Conditions.checkConfiguration( retryBudgetTokens > 0, "the retry budget tokens must be greater than zero" );
+		Conditions.checkConfiguration( streamReaderThreads > 0, "the stream reader threads must be greater than zero" );
+		Conditions.checkConfiguration( streamReaderQueue > 0, "the stream reader queue must be greater than zero" );
 	}
 }
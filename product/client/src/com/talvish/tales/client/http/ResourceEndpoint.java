@@ -0,0 +1,246 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.client.http;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpStatus;
+
+import com.google.common.base.Preconditions;
+import com.talvish.tales.communication.HttpEndpoint;
+import com.talvish.tales.system.status.MonitorableStatusValue;
+
+/**
+ * One of the endpoints a {@link ResourceClient} balances requests across.
+ * It tracks the requests in-flight, a moving average of the latency and
+ * the failures of the requests sent to it. After enough consecutive failures
+ * the endpoint is ejected, meaning it isn't chosen, for a period of time that
+ * doubles each time it is ejected again without a success in-between.
+ * @author jmolnar
+ *
+ */
+public class ResourceEndpoint {
+	private static final double FAILURE_PENALTY = 10; // how many times its latency a failure costs, so failing endpoints aren't favoured
+	private static final double MAXIMUM_LATENCY = 60000; // the most, in milliseconds, a single request adds to the moving average
+
+	private final HttpEndpoint endpoint;
+	private final ResourceEndpointBalancer balancer;
+
+	private final AtomicInteger inFlight = new AtomicInteger( 0 );
+	private volatile double latency = 0; // the moving average, in milliseconds, with zero meaning not known yet
+	private volatile long ejectedUntil = 0; // the time, in milliseconds, the endpoint can be chosen again
+
+	// the following are only changed while synchronized
+	private int consecutiveFailures = 0;
+	private int consecutiveEjections = 0;
+
+	private final LongAdder requests = new LongAdder( );
+	private final LongAdder failures = new LongAdder( );
+	private final LongAdder timeouts = new LongAdder( );
+	private final LongAdder ejections = new LongAdder( );
+
+	/**
+	 * Constructor taking the endpoint and the balancer it belongs to.
+	 * @param theEndpoint the endpoint requests are sent to
+	 * @param theBalancer the balancer the endpoint belongs to
+	 */
+	ResourceEndpoint( HttpEndpoint theEndpoint, ResourceEndpointBalancer theBalancer ) {
+		Preconditions.checkNotNull( theEndpoint, "need an endpoint" );
+		Preconditions.checkNotNull( theBalancer, "need a balancer" );
+
+		endpoint = theEndpoint;
+		balancer = theBalancer;
+	}
+
+	/**
+	 * The endpoint requests are sent to.
+	 * @return the endpoint
+	 */
+	public HttpEndpoint getEndpoint( ) {
+		return endpoint;
+	}
+
+	/**
+	 * Indicates if the endpoint can be chosen, meaning it
+	 * isn't ejected or its ejection time has passed.
+	 * @param theTime the current time, in milliseconds
+	 * @return true if the endpoint can be chosen, false otherwise
+	 */
+	boolean isAvailable( long theTime ) {
+		return theTime >= ejectedUntil;
+	}
+
+	/**
+	 * The time, in milliseconds, the endpoint can be chosen again.
+	 */
+	long getEjectedUntil( ) {
+		return ejectedUntil;
+	}
+
+	/**
+	 * Sets the time, in milliseconds, the endpoint can be chosen again.
+	 * This is only called by the balancer, while it decides if the 
+	 * endpoint can be ejected.
+	 */
+	void setEjectedUntil( long theTime ) {
+		ejectedUntil = theTime;
+	}
+
+	/**
+	 * The cost of sending another request to the endpoint, which is based
+	 * on the latency and the requests in-flight. Endpoints without a
+	 * known latency have no cost, so they are tried.
+	 * @return the cost of sending a request
+	 */
+	double getCost( ) {
+		return latency * ( inFlight.get( ) + 1 );
+	}
+
+	/**
+	 * Records that a request is being sent to the endpoint.
+	 */
+	void recordSend( ) {
+		inFlight.incrementAndGet( );
+		requests.increment( );
+	}
+
+	/**
+	 * Records the outcome of a request that was sent to the endpoint.
+	 * Failures to communicate, including timeouts, and responses indicating
+	 * the service, or a gateway in front of it, is not available count
+	 * as failures. Failures, since they are often quick, count as a request
+	 * taking much longer than usual. Cancelled requests do not count either way.
+	 * @param theResult the result of the exchange
+	 * @param theLatency the time, in milliseconds, the exchange took
+	 */
+	void recordCompletion( Result theResult, double theLatency ) {
+		inFlight.decrementAndGet( );
+
+		Throwable failure = theResult.getFailure( );
+		if( failure instanceof CancellationException ) {
+			return;
+		}
+		boolean failed;
+		if( failure != null ) {
+			failed = true;
+			if( failure instanceof TimeoutException ) {
+				timeouts.increment( );
+			}
+		} else {
+			int status = theResult.getResponse( ).getStatus( );
+			failed = status == HttpStatus.BAD_GATEWAY_502 || status == HttpStatus.SERVICE_UNAVAILABLE_503 || status == HttpStatus.GATEWAY_TIMEOUT_504;
+		}
+
+		double sample = failed ? Math.max( theLatency, Math.max( latency, 1 ) ) * FAILURE_PENALTY : theLatency;
+		sample = Math.min( sample, MAXIMUM_LATENCY );
+
+		synchronized( this ) {
+			latency = latency == 0 ? sample : latency + balancer.getLatencyWeight( ) * ( sample - latency );
+			if( failed ) {
+				failures.increment( );
+				consecutiveFailures += 1;
+				if( balancer.getEjectionFailures( ) > 0 && consecutiveFailures >= balancer.getEjectionFailures( ) ) {
+					// the time doubles for each ejection without a success in-between
+					long ejectionTime = balancer.getEjectionTime( ) << Math.min( consecutiveEjections, 20 );
+					if( balancer.tryEject( this, Math.min( ejectionTime, balancer.getMaximumEjectionTime( ) ) ) ) {
+						consecutiveEjections += 1;
+						consecutiveFailures = 0;
+						ejections.increment( );
+					}
+				}
+			} else {
+				consecutiveFailures = 0;
+				consecutiveEjections = 0;
+			}
+		}
+	}
+
+	/**
+	 * Returns the endpoint, as a string, requests are sent to.
+	 * @return the endpoint
+	 */
+	@MonitorableStatusValue( name = "endpoint", description = "The endpoint requests are sent to." )
+	public String getEndpointName( ) {
+		return endpoint.toString( );
+	}
+
+	/**
+	 * Indicates if the endpoint is currently ejected.
+	 * @return true if ejected, false otherwise
+	 */
+	@MonitorableStatusValue( name = "ejected", description = "Indicates if the endpoint is currently not being sent requests due to failures." )
+	public boolean isEjected( ) {
+		return !isAvailable( System.currentTimeMillis( ) );
+	}
+
+	/**
+	 * Returns the number of requests currently waiting on the endpoint.
+	 * @return the number of requests in-flight
+	 */
+	@MonitorableStatusValue( name = "in_flight", description = "The number of requests currently waiting on the endpoint." )
+	public int getInFlight( ) {
+		return inFlight.get( );
+	}
+
+	/**
+	 * Returns the moving average, in milliseconds, of the latency of the endpoint.
+	 * @return the latency in milliseconds, or zero if not known yet
+	 */
+	@MonitorableStatusValue( name = "latency", description = "The moving average, in milliseconds, of the time requests to the endpoint take." )
+	public double getLatency( ) {
+		return latency;
+	}
+
+	/**
+	 * Returns the number of requests sent to the endpoint.
+	 * @return the number of requests
+	 */
+	@MonitorableStatusValue( name = "requests", description = "The total number of requests, since the client was created, sent to the endpoint." )
+	public long getRequests( ) {
+		return requests.sum( );
+	}
+
+	/**
+	 * Returns the number of requests to the endpoint that failed.
+	 * @return the number of failures
+	 */
+	@MonitorableStatusValue( name = "failures", description = "The total number of requests, since the client was created, that failed due to communication problems or an unavailable endpoint." )
+	public long getFailures( ) {
+		return failures.sum( );
+	}
+
+	/**
+	 * Returns the number of requests to the endpoint that timed out.
+	 * @return the number of timeouts
+	 */
+	@MonitorableStatusValue( name = "timeouts", description = "The total number of requests, since the client was created, that failed because they timed out." )
+	public long getTimeouts( ) {
+		return timeouts.sum( );
+	}
+
+	/**
+	 * Returns the number of times the endpoint was ejected.
+	 * @return the number of ejections
+	 */
+	@MonitorableStatusValue( name = "ejections", description = "The total number of times, since the client was created, the endpoint was ejected due to consecutive failures." )
+	public long getEjections( ) {
+		return ejections.sum( );
+	}
+}
@@ -0,0 +1,234 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.client.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.talvish.tales.communication.HttpEndpoint;
+import com.talvish.tales.system.status.MonitorableStatusValue;
+import com.talvish.tales.system.status.StatusManager;
+
+/**
+ * Chooses which of the endpoints of a {@link ResourceClient} a request is sent to.
+ * Two endpoints are picked at random and the one with the lower cost, based on
+ * the requests in-flight and the moving average of the latency, is used. This
+ * avoids the herding that comes from always using the least loaded endpoint,
+ * while still steering requests away from slow or busy endpoints. Endpoints
+ * with too many consecutive failures are ejected for a time, though no more
+ * than the configured percentage of endpoints are ejected at once. If all
+ * endpoints are ejected, the one that will be available soonest is used.
+ * @author jmolnar
+ *
+ */
+public class ResourceEndpointBalancer {
+	private final List<ResourceEndpoint> endpoints;
+	private final ResourceEndpoint[] endpointArray;
+
+	private final int ejectionFailures;
+	private final long ejectionTime;
+	private final long maximumEjectionTime;
+	private final int maximumEjections;
+	private final double latencyWeight;
+
+	/**
+	 * Constructor taking the configuration containing the endpoints and
+	 * how endpoints are ejected.
+	 * @param theConfiguration the configuration of the client
+	 */
+	ResourceEndpointBalancer( ResourceConfigurationBase<?> theConfiguration ) {
+		Preconditions.checkNotNull( theConfiguration, "need a configuration" );
+
+		List<String> endpointNames = new ArrayList<String>( );
+		if( !Strings.isNullOrEmpty( theConfiguration.getEndpoint( ) ) ) {
+			endpointNames.add( theConfiguration.getEndpoint( ) );
+		}
+		if( theConfiguration.getEndpoints( ) != null ) {
+			for( String endpointName : theConfiguration.getEndpoints( ) ) {
+				if( !endpointNames.contains( endpointName ) ) {
+					endpointNames.add( endpointName );
+				}
+			}
+		}
+		Preconditions.checkArgument( endpointNames.size( ) > 0, "need at least one endpoint" );
+
+		endpointArray = new ResourceEndpoint[ endpointNames.size( ) ];
+		for( int index = 0; index < endpointArray.length; index += 1 ) {
+			endpointArray[ index ] = new ResourceEndpoint( new HttpEndpoint( endpointNames.get( index ) ), this ); // this will do validation on the endpoint
+		}
+		endpoints = Collections.unmodifiableList( Arrays.asList( endpointArray ) );
+
+		ejectionFailures = theConfiguration.getEjectionFailures( );
+		ejectionTime = theConfiguration.getEjectionTime( );
+		maximumEjectionTime = theConfiguration.getMaximumEjectionTime( );
+		maximumEjections = Math.max( 1, endpointArray.length * theConfiguration.getMaximumEjectionPercent( ) / 100 );
+		latencyWeight = theConfiguration.getLatencyWeight( );
+	}
+
+	/**
+	 * The endpoints requests are balanced across, with the first
+	 * being the endpoint the client considers its main endpoint.
+	 * @return the endpoints
+	 */
+	public List<ResourceEndpoint> getEndpoints( ) {
+		return endpoints;
+	}
+
+	/**
+	 * Chooses the endpoint to send a request to.
+	 * @return the endpoint to use
+	 */
+	ResourceEndpoint choose( ) {
+		int count = endpointArray.length;
+		if( count == 1 ) {
+			return endpointArray[ 0 ];
+		}
+		long time = System.currentTimeMillis( );
+		ThreadLocalRandom random = ThreadLocalRandom.current( );
+
+		// pick two different endpoints
+		int first = random.nextInt( count );
+		int second = random.nextInt( count - 1 );
+		if( second >= first ) {
+			second += 1;
+		}
+		ResourceEndpoint firstEndpoint = endpointArray[ first ];
+		ResourceEndpoint secondEndpoint = endpointArray[ second ];
+		boolean firstAvailable = firstEndpoint.isAvailable( time );
+		boolean secondAvailable = secondEndpoint.isAvailable( time );
+
+		if( firstAvailable && secondAvailable ) {
+			return firstEndpoint.getCost( ) <= secondEndpoint.getCost( ) ? firstEndpoint : secondEndpoint;
+		} else if( firstAvailable ) {
+			return firstEndpoint;
+		} else if( secondAvailable ) {
+			return secondEndpoint;
+		} else {
+			// both were ejected, so we look for any available endpoint
+			// and, failing that, the one that is available soonest
+			ResourceEndpoint soonestEndpoint = null;
+			for( ResourceEndpoint endpoint : endpointArray ) {
+				if( endpoint.isAvailable( time ) ) {
+					return endpoint;
+				} else if( soonestEndpoint == null || endpoint.getEjectedUntil( ) < soonestEndpoint.getEjectedUntil( ) ) {
+					soonestEndpoint = endpoint;
+				}
+			}
+			return soonestEndpoint;
+		}
+	}
+
+	/**
+	 * Ejects the endpoint, if it isn't already ejected and ejecting it 
+	 * doesn't exceed the endpoints allowed to be ejected at once. The 
+	 * check and the ejection happen together, under the lock of the 
+	 * balancer, so endpoints failing at the same time cannot all be 
+	 * ejected. Ejections are rare, so the lock isn't contended.
+	 * @param theEndpoint the endpoint to eject
+	 * @param theEjectionTime the time, in milliseconds, to eject the endpoint for
+	 * @return true if the endpoint was ejected, false otherwise
+	 */
+	synchronized boolean tryEject( ResourceEndpoint theEndpoint, long theEjectionTime ) {
+		long time = System.currentTimeMillis( );
+		if( endpointArray.length > 1 && theEndpoint.isAvailable( time ) && getEjectedCount( time ) < maximumEjections ) {
+			theEndpoint.setEjectedUntil( time + theEjectionTime );
+			return true;
+		} else {
+			return false;
+		}
+	}
+
+	/**
+	 * The number of consecutive failures before an endpoint is ejected.
+	 */
+	int getEjectionFailures( ) {
+		return ejectionFailures;
+	}
+
+	/**
+	 * The time, in milliseconds, an endpoint is ejected for the first time.
+	 */
+	long getEjectionTime( ) {
+		return ejectionTime;
+	}
+
+	/**
+	 * The maximum time, in milliseconds, an endpoint is ejected.
+	 */
+	long getMaximumEjectionTime( ) {
+		return maximumEjectionTime;
+	}
+
+	/**
+	 * The weight, between 0 and 1, given to the latest latency in the moving average.
+	 */
+	double getLatencyWeight( ) {
+		return latencyWeight;
+	}
+
+	/**
+	 * Registers the status of the balancer, using the block name given,
+	 * and the status of each endpoint, using the block name given followed
+	 * by '_endpoint_' and the position of the endpoint.
+	 * @param theStatusManager the status manager to register with
+	 * @param theBlockName the name of the status block for the balancer
+	 */
+	public void registerStatus( StatusManager theStatusManager, String theBlockName ) {
+		Preconditions.checkNotNull( theStatusManager, "need a status manager" );
+		Preconditions.checkArgument( !Strings.isNullOrEmpty( theBlockName ), "need a block name" );
+
+		theStatusManager.register( theBlockName, this );
+		for( int index = 0; index < endpointArray.length; index += 1 ) {
+			theStatusManager.register( theBlockName + "_endpoint_" + index, endpointArray[ index ] );
+		}
+	}
+
+	/**
+	 * Returns the number of endpoints requests are balanced across.
+	 * @return the number of endpoints
+	 */
+	@MonitorableStatusValue( name = "endpoints", description = "The number of endpoints requests are balanced across." )
+	public int getEndpointCount( ) {
+		return endpointArray.length;
+	}
+
+	/**
+	 * Returns the number of endpoints currently ejected.
+	 * @return the number of ejected endpoints
+	 */
+	@MonitorableStatusValue( name = "ejected_endpoints", description = "The number of endpoints currently not being sent requests due to failures." )
+	public int getEjectedCount( ) {
+		return getEjectedCount( System.currentTimeMillis( ) );
+	}
+
+	/**
+	 * Helper method that returns the number of endpoints ejected at the given time.
+	 */
+	private int getEjectedCount( long theTime ) {
+		int count = 0;
+		for( ResourceEndpoint endpoint : endpointArray ) {
+			if( !endpoint.isAvailable( theTime ) ) {
+				count += 1;
+			}
+		}
+		return count;
+	}
+}
@@ -60,6 +60,7 @@ public class ResourceMethod {
 	private final String name; 			// the name given to the method
 	private final String methodPath;	// e.g. sign_in
 	private final String methodUrl;
+	private final String methodReference; // the url without the endpoint
 	private final ResourceMethodReturn returnType;
 	private final HttpVerb httpVerb;
 	
@@ -82,6 +83,8 @@ public class ResourceMethod {
 	private final Map<String,ResourceMethodParameter> externalHeaderParameters = Collections.unmodifiableMap( headerParameters );;
 	
 	private volatile int maxResponseSize		; // the maximum size, in bytes, that the response buffer can hold
+	private volatile boolean streamsResponse = false; // whether responses are read as they arrive instead of being buffered
+	private final ResourceCircuitBreaker circuitBreaker; // rejects requests while the method is failing
 	private final ResourceClient client;
 	
 	/**
@@ -105,7 +108,8 @@ public class ResourceMethod {
 		returnType = new ResourceMethodReturn( theReturnType );// this will do validation (e.g. not null ) of the return type
 		httpVerb = theHttpVerb;
 		methodPath = theMethodPath;
-		methodUrl = generateUrl( theMethodPath, theClient, pathParameterNames );
+		methodReference = generateReference( theMethodPath, theClient, pathParameterNames );
+		methodUrl = theClient.getEndpoint( ).toString( ) + methodReference;
 		
 		pathParameters = new ArrayList<ResourceMethodParameter>( pathParameterNames.size( ) );
 		externalPathParameters = Collections.unmodifiableList( pathParameters );
@@ -123,6 +127,7 @@ public class ResourceMethod {
 		}
 		client = theClient;
 		maxResponseSize = theClient.getDefaultMaxResponseSize();
+		circuitBreaker = new ResourceCircuitBreaker( theName, theClient.getConfiguration( ) );
 	}
 	
 	/**
@@ -160,6 +165,25 @@ public class ResourceMethod {
 		return methodUrl;
 	}
 	
+	/**
+	 * The URL that will be called, without the scheme, host and port
+	 * of the endpoint, so it can be used with any of the endpoints of 
+	 * the client. Like the method url, it may contain Java string 
+	 * formatting codes (e.g %1$s) for path parameters that need replacing.
+	 * @return the URL, without the endpoint, to be called
+	 */
+	public String getMethodReference( ) {
+		return methodReference;
+	}
+	
+	/**
+	 * The circuit breaker that rejects requests to this method while it is failing.
+	 * @return the circuit breaker for the method
+	 */
+	public ResourceCircuitBreaker getCircuitBreaker( ) {
+		return circuitBreaker;
+	}
+	
 	/**
 	 * The HTTP verb (e.g. GET, POST, PUT, etc.) that this method will use.
 	 * @return the HTTP verb to be used to call the service
@@ -189,6 +213,28 @@ public class ResourceMethod {
 		return this;
 	}
 	
+	/**
+	 * Indicates if responses for this method are read as they arrive
+	 * instead of first being buffered in full.
+	 * @return true if responses are streamed, false otherwise
+	 */
+	public final boolean streamsResponse( ) {
+		return this.streamsResponse;
+	}
+	
+	/**
+	 * Sets whether responses for this method are read as they arrive instead of 
+	 * first being buffered in full. Streamed responses are not limited by the 
+	 * maximum response size, which makes this suitable for methods returning
+	 * large values, but they are not kept by a response cache.
+	 * @param shouldStreamResponse true to stream responses, false to buffer them
+	 * @return the ResourceMethod again, so calls can be strung together
+	 */
+	public final ResourceMethod setStreamsResponse( boolean shouldStreamResponse ) {
+		this.streamsResponse = shouldStreamResponse;
+		return this;
+	}
+	
 	/**
 	 * Indicates that a path parameter is expected by the service and it is expecting a particular type.
 	 * Using names is a convenience/debugging mechanism since setting path parameters is done in the 
@@ -428,12 +474,12 @@ public class ResourceMethod {
 	}
 	
 	/**
-	 * Generates a version of the path that can be used for string formatting. 
+	 * Generates a version of the path, without the endpoint, that can be used for string formatting. 
 	 * @param thePath the path to generate a formatting path for
 	 * @param thePathParams collects the list of path parameters found
 	 * @return the usable path
 	 */
-	private String generateUrl( String thePath, ResourceClient theClient, List<String> thePathParams ) {
+	private String generateReference( String thePath, ResourceClient theClient, List<String> thePathParams ) {
 		StringBuilder pathBuilder = new StringBuilder( );
 		
 		Matcher parameterMatcher = PARAMETER_PATTERN.matcher( thePath );
@@ -441,7 +487,6 @@ public class ResourceMethod {
 		
 		// we expect the given values to be URL encoded as needed, and we 
 		// know that a trailing '/' isn't here and the contract root has it
-		pathBuilder.append( theClient.getEndpoint( ).toString( ) ); 
 		pathBuilder.append( theClient.getContractRoot( ) ); 
 		if( !theClient.getContractRoot( ).endsWith( "/") ) {
 			pathBuilder.append( "/" );
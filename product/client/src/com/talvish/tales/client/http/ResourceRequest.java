@@ -16,17 +16,35 @@
 package com.talvish.tales.client.http;
 
 import java.net.HttpCookie;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.jetty.client.HttpResponse;
 import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 import com.talvish.tales.communication.CommunicationException;
+import com.talvish.tales.communication.DependencyException;
+import com.talvish.tales.communication.DependencySubcodes;
+import com.talvish.tales.communication.HeaderConstants;
+import com.talvish.tales.communication.HttpEndpoint;
+import com.talvish.tales.communication.HttpVerb;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.serialization.UrlEncoding;
 
@@ -39,12 +57,19 @@ import com.talvish.tales.serialization.UrlEncoding;
  */
 public class ResourceRequest {
 	private static final Logger logger = LoggerFactory.getLogger( ResourceRequest.class );
+	private static final String CBOR_ACCEPT = HeaderConstants.CBOR_MEDIA_TYPE + ", " + HeaderConstants.JSON_MEDIA_TYPE + ";q=0.5";
 	
 	private final ResourceClient client;
 	private final ResourceMethod method;
-	private final Request request;
+	private volatile Request request; // changes if the request is sent to a different endpoint or retried
+	private volatile ResourceEndpoint endpoint; // chosen each time the request is sent
+	private HttpEndpoint requestEndpoint; // the endpoint the current underlying request addresses
 	private final Object[] pathParameters;
 	private final Map<String,String> bodyParameters;
+
+	private int attempts = 0; // the number of times the request was sent
+	private HttpFields originalHeaders; // kept, if the request can be retried, before the request is sent
+	private List<HttpCookie> originalCookies;
 	
 	/**
 	 * Constructor called by the ResourceClient to indicate a request is going to be tempted.
@@ -78,9 +103,11 @@ public class ResourceRequest {
 		// setup the storage for body parameters
 		bodyParameters = new HashMap<String, String>( theMethod.getBodyParameters().size( ) );
 		
-		// setup the underlying jetty HTTP client
+		// setup the underlying jetty HTTP client against the main endpoint of the 
+		// client, the endpoint actually used is chosen when the request is sent
+		requestEndpoint = client.getEndpoint( );
 		request = client.getHttpClient()
-		.newRequest( String.format( method.getMethodUrl(), pathParameters ) )
+		.newRequest( requestEndpoint.toString( ) + String.format( method.getMethodReference(), pathParameters ) )
 		.method( method.getHttpVerb().getValue() ); 
 	}
 	
@@ -106,6 +133,144 @@ public class ResourceRequest {
 	protected Request getRequest( ) {
 		return request;
 	}
+
+	/**
+	 * Convenience getter to retrieve the endpoint the request was last sent to.
+	 * @return the endpoint the request was last sent to, or null if not sent yet
+	 */
+	protected ResourceEndpoint getEndpoint( ) {
+		return endpoint;
+	}
+	
+	/**
+	 * Sends the underlying request to an endpoint chosen by the balancer of 
+	 * the client, recording the request and its outcome against the endpoint 
+	 * and the circuit breaker of the method. The endpoint is chosen for each 
+	 * attempt, so it reflects the endpoints ejected at the time of sending.
+	 * If the circuit breaker is open, the request isn't sent and the listener 
+	 * is given a {@code DependencyException}.
+	 * @param theListener the listener receiving the response
+	 */
+	void dispatch( Response.CompleteListener theListener ) {
+		ResourceCircuitBreaker breaker = method.getCircuitBreaker( );
+
+		if( !breaker.tryAcquire( ) ) {
+			Request sentRequest = request;
+			DependencyException exception = new DependencyException(
+					DependencyException.Problem.UNAVAILABLE,
+					DependencySubcodes.CIRCUIT_OPEN,
+					String.format( "Resource method '%s' from contract '%s' was not called since its circuit breaker is open.", method.getName( ), client.contractRoot ),
+					null );
+			theListener.onComplete( new Result( sentRequest, exception, new HttpResponse( sentRequest, Collections.emptyList( ) ) ) );
+		} else {
+			if( attempts == 0 ) {
+				client.getRetryBudget( ).deposit( );
+				if( isRetryable( ) ) {
+					// we keep what we need to send the request again
+					originalHeaders = new HttpFields( request.getHeaders( ) );
+					originalCookies = new ArrayList<HttpCookie>( request.getCookies( ) );
+				}
+			}
+			ResourceEndpoint sentEndpoint = client.getEndpointBalancer( ).choose( );
+			if( attempts > 0 ) {
+				// a sent request cannot be sent again, so a new one is made
+				request = newRequest( sentEndpoint, originalHeaders, originalCookies );
+			} else if( sentEndpoint.getEndpoint( ) != requestEndpoint ) {
+				request = newRequest( sentEndpoint, request.getHeaders( ), request.getCookies( ) );
+			}
+			Request sentRequest = request;
+			endpoint = sentEndpoint;
+			attempts += 1;
+			if( client.getRequestTimeout( ) > 0 ) {
+				sentRequest.timeout( client.getRequestTimeout( ), TimeUnit.MILLISECONDS );
+			}
+
+			long startTimestamp = System.nanoTime( );
+			sentEndpoint.recordSend( );
+			sentRequest.onComplete( result -> {
+				double latency = ( ( double )( System.nanoTime( ) - startTimestamp ) ) * 0.000001;
+				sentEndpoint.recordCompletion( result, latency );
+				if( result.getFailure( ) instanceof CancellationException ) {
+					breaker.release( );
+				} else {
+					breaker.record( result.getFailure( ) != null || result.getResponse( ).getStatus( ) >= HttpStatus.INTERNAL_SERVER_ERROR_500, latency );
+				}
+			} );
+			sentRequest.send( theListener );
+		}
+	}
+
+	/**
+	 * Helper method that creates a new underlying request, addressing the 
+	 * given endpoint, with the path, query, content and verb of the current
+	 * underlying request and the given headers and cookies.
+	 */
+	private Request newRequest( ResourceEndpoint theEndpoint, HttpFields theHeaders, List<HttpCookie> theCookies ) {
+		Request oldRequest = request;
+		String query = oldRequest.getQuery( );
+
+		Request newRequest = client.getHttpClient( )
+				.newRequest( theEndpoint.getEndpoint( ).toString( ) + oldRequest.getPath( ) + ( query == null ? "" : "?" + query ) )
+				.method( oldRequest.getMethod( ) );
+		newRequest.getHeaders( ).clear( );
+		newRequest.getHeaders( ).addAll( theHeaders );
+		for( HttpCookie cookie : theCookies ) {
+			newRequest.cookie( cookie );
+		}
+		if( oldRequest.getContent( ) != null ) {
+			newRequest.content( oldRequest.getContent( ) );
+		}
+		requestEndpoint = theEndpoint.getEndpoint( );
+		return newRequest;
+	}
+
+	/**
+	 * Called by the futures when the request completes to see if the request
+	 * should be sent again. The endpoint, likely a different one, is chosen
+	 * when the request is sent again. Requests using idempotent verbs that failed to 
+	 * communicate or got a 502, 503 or 504 are retried, if the retry budget of 
+	 * the client allows it.
+	 * @param theResult the result of sending the request
+	 * @return true if the request should be sent again, false otherwise
+	 */
+	boolean prepareRetry( Result theResult ) {
+		ResourceRetryBudget retryBudget = client.getRetryBudget( );
+		Throwable failure = theResult.getFailure( );
+
+		if( !isRetryable( ) || attempts > retryBudget.getMaximumAttempts( ) ) {
+			return false;
+		} else if( failure != null && ( failure instanceof CancellationException || failure instanceof DependencyException ) ) {
+			return false;
+		} else if( failure == null && !isRetryableStatus( theResult.getResponse( ).getStatus( ) ) ) {
+			return false;
+		} else if( !retryBudget.tryWithdraw( ) ) {
+			return false;
+		} else {
+			logger.info( 
+					"Retrying resource method '{}' from contract '{}' after attempt {} failed.", new Object[] {
+							this.method.getName(),
+							this.client.contractRoot,
+							attempts } );
+			return true;
+		}
+	}
+
+	/**
+	 * Helper method that indicates if the request can be retried, 
+	 * which is based on the verb and the retries allowed.
+	 */
+	private boolean isRetryable( ) {
+		HttpVerb verb = method.getHttpVerb( );
+		return verb != HttpVerb.POST && client.getRetryBudget( ).getMaximumAttempts( ) > 0;
+	}
+
+	/**
+	 * Helper method that indicates if the status is one that means 
+	 * a different attempt may succeed.
+	 */
+	private static boolean isRetryableStatus( int theStatus ) {
+		return theStatus == HttpStatus.BAD_GATEWAY_502 || theStatus == HttpStatus.SERVICE_UNAVAILABLE_503 || theStatus == HttpStatus.GATEWAY_TIMEOUT_504;
+	}
 	
 	/**
 	 * Sets the data to use for a particular query string parameter. 
@@ -192,37 +357,28 @@ public class ResourceRequest {
 	 * will block and return when the results have been received from the service.
 	 * @return returns a structure containing the response from the service
 	 * @throws InterruptedException this occurs if the the request is interrupted
+	 * @throws DependencyException this occurs if the request was rejected by the circuit breaker of the method
 	 */
 	public <T> ResourceResult<T> call( ) throws InterruptedException {
-		logger.info( 
-				"Executing, synchronously, resource method '{}' from contract '{}'.", new Object[] {
-						this.method.getName(),
-						this.client.contractRoot } );
+		if( logger.isDebugEnabled( ) ) {
+			logger.debug( 
+					"Executing, synchronously, resource method '{}' from contract '{}'.", new Object[] {
+							this.method.getName(),
+							this.client.contractRoot } );
+		}
 
-		Future<ResourceResult<T>> future = _send( false );
+		Future<ResourceResult<T>> future = _send( false, new CompletableFuture<ResourceResult<T>>( ) );
 		try {
 			return future.get();
 			
 		} catch( ExecutionException e ) {
 			// we catch these exceptions and do some amount of processing
-			// to not require the caller to handle
-			Throwable cause = e.getCause();
-			if( cause == null ) {
-				throw new CommunicationException( 
-						String.format( "An exception occurred while attempting to communicate with '%s' but the cause was not recorded.",
-								this.method.getMethodUrl( ) ), 
-						e );
-			} else if( cause instanceof TranslationException ) {
-				throw new CommunicationException( 
-						String.format( "Unexpected data while converting response from '%s'. Verify that the defined parameter and return types match what is sent on the wire.", 
-								this.method.getMethodUrl( ) ), e );
-			} else {
-				throw new CommunicationException( 
-						String.format( "A problem of type '%s' with message '%s' occurred while communicating with '%s'.", 
-								cause.getClass().getSimpleName( ), 
-								cause.getMessage(), 
-								this.method.getMethodUrl( ) ) );
+			// to not require the caller to handle, except for requests
+			// that were rejected, which are already what the caller needs
+			if( e.getCause( ) instanceof DependencyException ) {
+				throw ( DependencyException )e.getCause( );
 			}
+			throw generateException( e );
 		}		
 	}
 
@@ -233,21 +389,106 @@ public class ResourceRequest {
 	 * @return the Future that can be used to get the results
 	 */
 	public <T> Future<ResourceResult<T>> send( ) {
-		logger.info( 
-				"Executing, asynchronously, resource method '{}' from contract '{}'.", new Object[] {
-						this.method.getName(),
-						this.client.contractRoot } );
-		return _send( true );
+		if( logger.isDebugEnabled( ) ) {
+			logger.debug( 
+					"Executing, asynchronously, resource method '{}' from contract '{}'.", new Object[] {
+							this.method.getName(),
+							this.client.contractRoot } );
+		}
+		return _send( true, new CompletableFuture<ResourceResult<T>>( ) );
+	}
+
+	/**
+	 * This method is used to perform an asynchronous request to the service. The call
+	 * will not block and no thread waits for the response. The completable future 
+	 * completes when the response arrives, or, with a {@code CommunicationException}, 
+	 * if the request failed, or, with a {@code DependencyException}, if the request
+	 * was rejected by the circuit breaker of the method. If the client has a completion executor, the completable
+	 * future completes, and therefore continuations run, on that executor, otherwise 
+	 * it completes on a thread of the underlying http client, so continuations must 
+	 * not block. Cancelling the completable future aborts the request, unless
+	 * the response is shared, through a response cache, with other requests.
+	 * @return the completable future that completes with the result
+	 */
+	public <T> CompletableFuture<ResourceResult<T>> sendAsync( ) {
+		if( logger.isDebugEnabled( ) ) {
+			logger.debug( 
+					"Executing, asynchronously, resource method '{}' from contract '{}'.", new Object[] {
+							this.method.getName(),
+							this.client.contractRoot } );
+		}
+
+		CompletableFuture<ResourceResult<T>> completion = new CompletableFuture<ResourceResult<T>>( );
+		Future<ResourceResult<T>> future = _send( true, completion );
+
+		// failures are converted the same way synchronous calls convert them
+		Executor executor = client.getCompletionExecutor( );
+		CompletableFuture<ResourceResult<T>> result = new CompletableFuture<ResourceResult<T>>( );
+		if( executor == null ) {
+			completion.whenComplete( ( value, exception ) -> complete( result, value, exception ) );
+		} else {
+			completion.whenCompleteAsync( ( value, exception ) -> complete( result, value, exception ), executor );
+		}
+		// if the caller cancels, the request is no longer needed, 
+		// unless its response is shared with other identical requests
+		result.whenComplete( ( value, exception ) -> {
+			if( result.isCancelled( ) ) {
+				future.cancel( false );
+			}
+		} );
+		return result;
+	}
+
+	/**
+	 * Helper method that completes the completable future given to callers.
+	 */
+	private <T> void complete( CompletableFuture<ResourceResult<T>> theResult, ResourceResult<T> theValue, Throwable theException ) {
+		if( theException == null ) {
+			theResult.complete( theValue );
+		} else if( theException instanceof CancellationException || theException instanceof DependencyException ) {
+			theResult.completeExceptionally( theException );
+		} else if( theException instanceof CompletionException && theException.getCause( ) instanceof DependencyException ) {
+			theResult.completeExceptionally( theException.getCause( ) );
+		} else {
+			theResult.completeExceptionally( generateException( theException instanceof CompletionException ? theException : new CompletionException( theException ) ) );
+		}
+	}
+
+	/**
+	 * Helper method that converts the failure that occurred while 
+	 * making the request into a {@code CommunicationException}.
+	 * @param theException the exception, which wraps the actual failure
+	 * @return the exception to give the caller
+	 */
+	private CommunicationException generateException( Throwable theException ) {
+		Throwable cause = theException.getCause();
+		if( cause == null ) {
+			return new CommunicationException( 
+					String.format( "An exception occurred while attempting to communicate with '%s' but the cause was not recorded.",
+							this.method.getMethodUrl( ) ), 
+					theException );
+		} else if( cause instanceof TranslationException ) {
+			return new CommunicationException( 
+					String.format( "Unexpected data while converting response from '%s'. Verify that the defined parameter and return types match what is sent on the wire.", 
+							this.method.getMethodUrl( ) ), theException );
+		} else {
+			return new CommunicationException( 
+					String.format( "A problem of type '%s' with message '%s' occurred while communicating with '%s'.", 
+							cause.getClass().getSimpleName( ), 
+							cause.getMessage(), 
+							this.method.getMethodUrl( ) ) );
+		}
 	}
 
 	/**
 	 * This is the private method that sets up the actual request to be made to the Tales
 	 * service, returning the future to allow getting at the results.
 	 * @param isAsync indicates if the original request was intended for async or not
+	 * @param theCompletion the completable future to complete with the result
 	 * @return returns a structure containing the exact response from the service
 	 * @throws InterruptedException this occurs if the the request is interrupted
 	 */
-	private <T> Future<ResourceResult<T>> _send( boolean isAsync ) {
+	private <T> Future<ResourceResult<T>> _send( boolean isAsync, CompletableFuture<ResourceResult<T>> theCompletion ) {
 		// check to see if we have any body parameters to deal with
 		if( this.bodyParameters.size() > 0 ) {
 			// create the content provider with the body parameters
@@ -262,10 +503,29 @@ public class ResourceRequest {
 			}
 		}
 
-		// now setup the listener/future, and make the request
-		ResourceResponseFuture<T> future = new ResourceResponseFuture<T>( this, method.getMaxResponseSize(), isAsync );
-		request.send( future );
-		return future;
+		// if the client would like the binary encoding, ask for it
+		// while still allowing json from services that don't have it
+		if( client.requestsCbor( ) ) {
+			request.header( HeaderConstants.ACCEPT, CBOR_ACCEPT );
+		}
+
+		if( method.streamsResponse( ) ) {
+			// the response is read as it arrives, so it isn't buffered or cached
+			ResourceResponseStreamFuture<T> future = new ResourceResponseStreamFuture<T>( this, isAsync, theCompletion );
+			dispatch( future.getListener( ) );
+			return future;
+		} else {
+			// now setup the listener/future, and make the request, which
+			// may be answered by the response cache, if the client has one
+			ResourceResponseFuture<T> future = new ResourceResponseFuture<T>( this, method.getMaxResponseSize(), isAsync, theCompletion );
+			ResourceResponseCache responseCache = client.getResponseCache( );
+			if( responseCache != null && responseCache.isCacheable( this ) ) {
+				responseCache.send( this, future );
+			} else {
+				dispatch( future );
+			}
+			return future;
+		}
 
 	}
 }
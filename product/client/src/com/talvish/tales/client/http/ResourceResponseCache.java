@@ -0,0 +1,419 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.client.http;
+
+import java.net.HttpCookie;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpStatus;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.talvish.tales.communication.HeaderConstants;
+import com.talvish.tales.communication.HttpVerb;
+import com.talvish.tales.system.status.MonitorableStatusValue;
+
+/**
+ * A cache of responses from Tales-enabled services, which a {@link ResourceClient}
+ * uses, if given one, so GET requests the service indicated can be kept, using
+ * the Cache-Control header, don't need to go over the wire. Responses are found
+ * using the verb, path, query string, headers and cookies of the request, along
+ * with the main endpoint of the client, rather than the endpoint the request is 
+ * sent to, so responses are shared across the endpoints of a client. Kept
+ * responses that are no longer fresh, but have an ETag, are revalidated by
+ * sending If-None-Match. Identical requests made while one is outstanding wait
+ * for, and share, the response to the outstanding request instead of making
+ * their own. The outstanding request is only aborted if all those waiting on it
+ * cancel. Responses are evicted, least recently used first, when the memory
+ * used goes past the maximum size. A cache can be shared by more than one client.
+ * @author jmolnar
+ *
+ */
+public class ResourceResponseCache {
+	// rough memory used by an entry beyond its key and content
+	private static final int ENTRY_OVERHEAD = 256;
+
+	private final long maximumSize;
+	private final Cache<String, Entry> entries;
+	private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<String, Flight>( );
+
+	private final LongAdder memory = new LongAdder( );
+	private final LongAdder hits = new LongAdder( );
+	private final LongAdder misses = new LongAdder( );
+	private final LongAdder revalidations = new LongAdder( );
+	private final LongAdder coalesced = new LongAdder( );
+
+	/**
+	 * A response from a service, which may or may not be kept.
+	 * @author jmolnar
+	 *
+	 */
+	static final class Entry {
+		private final byte[] content;
+		private final HttpFields headers;
+		private final CacheControl cacheControl;
+		private final String entityTag;
+		private final long expiration; // the time, in milliseconds, the response is no longer fresh
+		private final int weight;
+
+		/**
+		 * Constructor taking the content and headers from the response.
+		 */
+		private Entry( String theKey, byte[] theContent, HttpFields theHeaders ) {
+			content = theContent;
+			headers = theHeaders;
+
+			String cacheControlHeader = theHeaders.get( HeaderConstants.CACHE_CONTROL );
+			cacheControl = Strings.isNullOrEmpty( cacheControlHeader ) ? null : CacheControl.create( cacheControlHeader );
+			entityTag = theHeaders.get( HeaderConstants.ETAG );
+			if( cacheControl == null || cacheControl.getMaxAge( ) == null || cacheControl.indicatedNoCache( ) ) {
+				expiration = 0;
+			} else {
+				expiration = System.currentTimeMillis( ) + TimeUnit.SECONDS.toMillis( cacheControl.getMaxAge( ) );
+			}
+			int headerLength = 0;
+			for( HttpField header : theHeaders ) {
+				headerLength += header.getName( ).length( ) + ( header.getValue( ) == null ? 0 : header.getValue( ).length( ) );
+			}
+			weight = ( int )Math.min( Integer.MAX_VALUE, 2L * theKey.length( ) + 2L * headerLength + ( theContent == null ? 0 : theContent.length ) + ENTRY_OVERHEAD );
+		}
+
+		/**
+		 * The content of the response, which may be null.
+		 */
+		byte[] getContent( ) {
+			return content;
+		}
+
+		/**
+		 * The headers of the response.
+		 */
+		HttpFields getHeaders( ) {
+			return headers;
+		}
+
+		/**
+		 * Indicates if the service allowed the response to be kept.
+		 */
+		private boolean isStorable( ) {
+			return cacheControl != null &&
+				   !cacheControl.indicatedNoStore( ) &&
+				   !cacheControl.indicatedPrivate( ) &&
+				   ( expiration > 0 || entityTag != null );
+		}
+
+		/**
+		 * Indicates if the response can be used without asking the service.
+		 */
+		private boolean isFresh( ) {
+			return expiration > System.currentTimeMillis( );
+		}
+	}
+
+	/**
+	 * An outstanding request, and the response other
+	 * identical requests are waiting for.
+	 * @author jmolnar
+	 *
+	 */
+	final class Flight {
+		private final String key;
+		private final ResourceRequest request;
+		private final Entry staleEntry;
+		private final CompletableFuture<Entry> response = new CompletableFuture<Entry>( );
+		private final AtomicInteger waiting = new AtomicInteger( 1 ); // the request that started the flight is waiting
+
+		/**
+		 * Constructor taking the key of the request, the request that
+		 * is sent and the kept response, if any, that is being revalidated.
+		 */
+		private Flight( String theKey, ResourceRequest theRequest, Entry theStaleEntry ) {
+			key = theKey;
+			request = theRequest;
+			staleEntry = theStaleEntry;
+		}
+
+		/**
+		 * Adds a request to those waiting for the response, which fails
+		 * if everyone waiting has already cancelled.
+		 * @return true if the request is waiting, false otherwise
+		 */
+		private boolean join( ) {
+			int current = waiting.get( );
+			while( current > 0 ) {
+				if( waiting.compareAndSet( current, current + 1 ) ) {
+					return true;
+				}
+				current = waiting.get( );
+			}
+			return false;
+		}
+
+		/**
+		 * Called when a request waiting for the response is cancelled. If it 
+		 * was the last one waiting, the outstanding request is aborted.
+		 * @return true if the outstanding request was aborted, false otherwise
+		 */
+		boolean leave( ) {
+			if( waiting.decrementAndGet( ) == 0 ) {
+				// new requests shouldn't wait on one being aborted
+				flights.remove( key, this );
+				return request.getRequest( ).abort( new CancellationException( ) );
+			} else {
+				return false;
+			}
+		}
+
+		/**
+		 * Indicates if anyone is still waiting for the response.
+		 * @return true if someone is waiting, false if everyone cancelled
+		 */
+		boolean isWaitedOn( ) {
+			return waiting.get( ) > 0;
+		}
+
+		/**
+		 * Called when the response for the outstanding request is available, which
+		 * keeps the response, if suitable, and then lets everyone waiting have it.
+		 * @param theResponse the response, which may be null if there was a failure
+		 * @param theContent the content of the response, which may be null
+		 * @param theFailure the failure, if any, that occurred
+		 */
+		void complete( Response theResponse, byte[] theContent, Throwable theFailure ) {
+			// new requests, from this point, can go to the service again
+			flights.remove( key, this );
+			if( theFailure != null || theResponse == null ) {
+				response.completeExceptionally( theFailure != null ? theFailure : new IllegalStateException( "response is missing" ) );
+			} else {
+				Entry entry;
+
+				if( theResponse.getStatus( ) == HttpStatus.NOT_MODIFIED_304 && staleEntry != null ) {
+					// the service says what we have is still good, so we
+					// keep the content but use the updated headers
+					HttpFields headers = new HttpFields( staleEntry.headers );
+					for( HttpField header : theResponse.getHeaders( ) ) {
+						headers.put( header );
+					}
+					revalidations.increment( );
+					entry = new Entry( key, staleEntry.content, headers );
+				} else {
+					entry = new Entry( key, theContent, new HttpFields( theResponse.getHeaders( ) ) );
+				}
+				if( theResponse.getStatus( ) == HttpStatus.NOT_MODIFIED_304 && staleEntry == null ) {
+					// we weren't revalidating, so the caller asked for this 
+					// using its own headers, which means it is passed along
+					// but there is nothing to keep
+				} else if( theResponse.getStatus( ) != HttpStatus.NOT_MODIFIED_304 && theResponse.getStatus( ) != HttpStatus.OK_200 ) {
+					// failures are not kept, and if it was
+					// kept before, it won't be kept any more
+					entries.invalidate( key );
+				} else if( entry.isStorable( ) ) {
+					memory.add( entry.weight );
+					entries.put( key, entry );
+				} else {
+					entries.invalidate( key );
+				}
+				response.complete( entry );
+			}
+		}
+	}
+
+	/**
+	 * Constructor taking the approximate maximum memory, in bytes, used to keep responses.
+	 * @param theMaximumSize the maximum memory, in bytes, to use
+	 */
+	public ResourceResponseCache( long theMaximumSize ) {
+		Preconditions.checkArgument( theMaximumSize > 0, "need a maximum size greater than zero" );
+
+		maximumSize = theMaximumSize;
+		entries = CacheBuilder.newBuilder( )
+				.maximumWeight( maximumSize )
+				.weigher( ( String key, Entry entry ) -> entry.weight )
+				.removalListener( notification -> memory.add( -notification.getValue( ).weight ) )
+				.build( );
+	}
+
+	/**
+	 * Sends the request, or uses a kept response or the response of an outstanding
+	 * identical request, and has the future complete with the response.
+	 * @param theRequest the request to send
+	 * @param theFuture the future to complete
+	 */
+	<T> void send( ResourceRequest theRequest, ResourceResponseFuture<T> theFuture ) {
+		String key = generateKey( theRequest );
+		Entry entry = entries.getIfPresent( key );
+
+		if( entry != null && entry.isFresh( ) ) {
+			hits.increment( );
+			theFuture.complete( entry.content, entry.headers, null );
+		} else {
+			Flight newFlight = new Flight( key, theRequest, entry != null && entry.entityTag != null ? entry : null );
+			Flight flight = null;
+
+			while( flight == null ) {
+				flight = flights.putIfAbsent( key, newFlight );
+				if( flight == null ) {
+					// no one else is asking, so we ask the service
+					misses.increment( );
+					flight = newFlight;
+					if( flight.staleEntry != null ) {
+						theRequest.getRequest( ).header( HeaderConstants.IF_NONE_MATCH, flight.staleEntry.entityTag );
+					}
+					theFuture.setFlight( flight, true );
+					theRequest.dispatch( theFuture );
+				} else if( flight.join( ) ) {
+					coalesced.increment( );
+					theFuture.setFlight( flight, false );
+				} else {
+					// everyone waiting on it cancelled, so we try again
+					flights.remove( key, flight );
+					flight = null;
+				}
+			}
+			flight.response.whenComplete( ( response, exception ) -> {
+				if( exception != null ) {
+					theFuture.complete( null, null, exception );
+				} else {
+					theFuture.complete( response.content, response.headers, null );
+				}
+			} );
+		}
+	}
+
+	/**
+	 * Indicates if the request is one whose responses may be kept,
+	 * which are GET requests without a body.
+	 * @param theRequest the request to check
+	 * @return true if responses to the request may be kept, false otherwise
+	 */
+	boolean isCacheable( ResourceRequest theRequest ) {
+		return theRequest.getMethod( ).getHttpVerb( ) == HttpVerb.GET && theRequest.getRequest( ).getContent( ) == null;
+	}
+
+	/**
+	 * Generates the key, for a request, used to find responses. Everything
+	 * the service may look at is part of the key, except the endpoint the 
+	 * request happens to be sent to, which is replaced by the main endpoint 
+	 * of the client, so the responses of all its endpoints are shared.
+	 */
+	private static String generateKey( ResourceRequest theResourceRequest ) {
+		Request theRequest = theResourceRequest.getRequest( );
+		StringBuilder builder = new StringBuilder( 256 );
+
+		builder.append( theRequest.getMethod( ) );
+		builder.append( ' ' );
+		builder.append( theResourceRequest.getClient( ).getEndpoint( ) );
+		builder.append( theRequest.getPath( ) );
+		if( theRequest.getQuery( ) != null ) {
+			builder.append( '?' );
+			builder.append( theRequest.getQuery( ) );
+		}
+		for( HttpField header : theRequest.getHeaders( ) ) {
+			builder.append( '\n' );
+			builder.append( header.getName( ) );
+			builder.append( ": " );
+			builder.append( header.getValue( ) );
+		}
+		for( HttpCookie cookie : theRequest.getCookies( ) ) {
+			builder.append( "\ncookie " );
+			builder.append( cookie.getName( ) );
+			builder.append( '=' );
+			builder.append( cookie.getValue( ) );
+		}
+		return builder.toString( );
+	}
+
+	/**
+	 * Removes all kept responses.
+	 */
+	public void clear( ) {
+		entries.invalidateAll( );
+	}
+
+	/**
+	 * Returns the approximate maximum memory, in bytes, used to keep responses.
+	 * @return the maximum memory in bytes
+	 */
+	@MonitorableStatusValue( name = "response_cache_maximum_memory", description = "The approximate maximum memory, in bytes, used to keep responses." )
+	public long getMaximumMemory( ) {
+		return maximumSize;
+	}
+
+	/**
+	 * Returns the approximate memory, in bytes, used to keep responses.
+	 * @return the memory in bytes
+	 */
+	@MonitorableStatusValue( name = "response_cache_memory", description = "The approximate memory, in bytes, currently used to keep responses." )
+	public long getMemory( ) {
+		return memory.sum( );
+	}
+
+	/**
+	 * Returns the approximate number of responses being kept.
+	 * @return the number of responses
+	 */
+	@MonitorableStatusValue( name = "response_cache_entries", description = "The approximate number of responses currently kept." )
+	public long getEntryCount( ) {
+		return entries.size( );
+	}
+
+	/**
+	 * Returns the number of requests answered using a kept response.
+	 * @return the number of hits
+	 */
+	@MonitorableStatusValue( name = "response_cache_hits", description = "The total number of requests, since the cache was created, answered using a kept response without asking the service." )
+	public long getHits( ) {
+		return hits.sum( );
+	}
+
+	/**
+	 * Returns the number of requests sent to the service.
+	 * @return the number of misses
+	 */
+	@MonitorableStatusValue( name = "response_cache_misses", description = "The total number of requests, since the cache was created, sent to the service, including those revalidating a kept response." )
+	public long getMisses( ) {
+		return misses.sum( );
+	}
+
+	/**
+	 * Returns the number of times the service indicated a kept response was still good.
+	 * @return the number of revalidations
+	 */
+	@MonitorableStatusValue( name = "response_cache_revalidations", description = "The total number of requests, since the cache was created, where the service indicated the kept response could still be used." )
+	public long getRevalidations( ) {
+		return revalidations.sum( );
+	}
+
+	/**
+	 * Returns the number of requests that used the response of an identical outstanding request.
+	 * @return the number of coalesced requests
+	 */
+	@MonitorableStatusValue( name = "response_cache_coalesced", description = "The total number of requests, since the cache was created, that waited for the response of an identical outstanding request instead of asking the service." )
+	public long getCoalesced( ) {
+		return coalesced.sum( );
+	}
+}
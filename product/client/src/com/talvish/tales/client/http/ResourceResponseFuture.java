@@ -15,8 +15,11 @@
 // ***************************************************************************
 package com.talvish.tales.client.http;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CancellationException;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -26,6 +29,8 @@ import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.client.util.BufferingResponseListener;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.MimeTypes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +38,8 @@ import com.google.common.base.Preconditions;
 import com.google.gson.JsonElement;
 import com.talvish.tales.communication.CommunicationException;
 import com.talvish.tales.communication.HeaderConstants;
+import com.talvish.tales.serialization.cbor.CborHelper;
+import com.talvish.tales.serialization.json.JsonReaderHelper;
 
 /**
  * A future for use in doing async requests to a Tales service. This 
@@ -46,7 +53,7 @@ import com.talvish.tales.communication.HeaderConstants;
 public class ResourceResponseFuture<T> extends BufferingResponseListener implements Future<ResourceResult<T>> {
 	private static final Logger logger = LoggerFactory.getLogger( ResourceRequest.class ); // going to leave this on the resource request
 
-    private final CountDownLatch latch = new CountDownLatch(1);
+    private final CompletableFuture<ResourceResult<T>> completion;
     private final ResourceRequest request;
     private final boolean requestedAsync;
 	private ResourceResult<T> objectResult;
@@ -55,6 +62,9 @@ public class ResourceResponseFuture<T> extends BufferingResponseListener impleme
     private volatile boolean cancelled;
 
 	private long startTimestamp;
+	private final int maxLength;
+	private ResourceResponseCache.Flight flight; // set if the response is shared through a response cache
+	private boolean isFlightLeader; // indicates if this future is for the request the flight sends
 
 	/**
 	 * Constructor for use by the ResourceRequest, to setup the Future/Listener.
@@ -73,34 +83,96 @@ public class ResourceResponseFuture<T> extends BufferingResponseListener impleme
 	 * @param requestedAsync indicates if the original caller wanted sync or async operation (which only impacts log entries)
 	 */
     protected ResourceResponseFuture( ResourceRequest theRequest, int theMaxLength, boolean requestedAsync ) {
+        this( theRequest, theMaxLength, requestedAsync, new CompletableFuture<ResourceResult<T>>( ) );
+    }
+
+	/**
+	 * Constructor for use by the ResourceRequest, to setup the Future/Listener.
+	 * @param theRequest all the request information
+	 * @param maxLength the maximum length of the content that will be accepted
+	 * @param requestedAsync indicates if the original caller wanted sync or async operation (which only impacts log entries)
+	 * @param theCompletion the completable future to complete with the result, which this future is based on
+	 */
+    protected ResourceResponseFuture( ResourceRequest theRequest, int theMaxLength, boolean requestedAsync, CompletableFuture<ResourceResult<T>> theCompletion ) {
         super( theMaxLength );
         Preconditions.checkNotNull( theRequest, "the future needs a request to watch" );
+        Preconditions.checkNotNull( theCompletion, "the future needs a completable future to complete" );
         this.request = theRequest;
+        this.maxLength = theMaxLength;
         this.requestedAsync = requestedAsync;
+        this.completion = theCompletion;
         startTimestamp = System.nanoTime(); 
     }
 
+    /**
+     * Called by the response cache to indicate the response is shared 
+     * with other identical requests, and if this future is for the 
+     * request that is sent, which the others are waiting for.
+     * @param theFlight the outstanding request being waited on
+     * @param isLeader true if this future is for the request that is sent
+     */
+    void setFlight( ResourceResponseCache.Flight theFlight, boolean isLeader ) {
+    	this.flight = theFlight;
+    	this.isFlightLeader = isLeader;
+    }
+
     /**
      * The method that process the response from the Tales service (or errors).
      */
-    @SuppressWarnings("unchecked")
 	@Override
     public void onComplete(Result result) {
+    	// if the response is shared, others may want it even if we were cancelled
+    	boolean isWanted = flight == null ? !cancelled : flight.isWaitedOn( );
+    	if( isWanted && request.prepareRetry( result ) ) {
+    		// the request is sent again, with a new listener that
+    		// completes the same completable future as this one
+    		ResourceResponseFuture<T> retryFuture = new ResourceResponseFuture<T>( request, maxLength, requestedAsync, completion );
+    		retryFuture.setFlight( flight, true );
+    		request.dispatch( retryFuture );
+    	} else if( flight != null && isFlightLeader ) {
+    		// the response cache decides what to keep and
+    		// then completes this and any waiting futures
+    		flight.complete( result.getResponse( ), this.getContent( ), result.getFailure( ) );
+    	} else {
+    		complete( this.getContent( ), result.getResponse( ).getHeaders( ), result.getFailure( ) );
+    	}
+    }
+
+    /**
+     * Processes the response, or failure, from the Tales service, whether the 
+     * response came directly from the service or from a response cache.
+     * @param theContent the content of the response, which may be null
+     * @param theHeaders the headers of the response, which may be null if there was a failure
+     * @param theFailure the failure, if any, that occurred
+     */
+    @SuppressWarnings("unchecked")
+    void complete( byte[] theContent, HttpFields theHeaders, Throwable theFailure ) {
     	// first, let's see what failures we had during the work
     	// (which, if we had, will impact the how we do error 
     	// handling below)
-        failure = result.getFailure();
+        failure = theFailure;
         
         // second, we do into the attempt to parse out
         // content that may or may not have come back
         // from the server
-		String responseString = this.getContentAsString();
-		if( responseString != null ) {
+		byte[] responseContent = theContent;
+		if( responseContent != null && responseContent.length > 0 ) {
 			try {
-				logger.trace( "Service return '{}'.", responseString );
-	
-				// grab the response as a string, it should all be json, so let's interpret
-				JsonElement jsonResult = request.getClient( ).jsonParser.parse( responseString );
+				JsonElement jsonResult;
+				String contentType = theHeaders.get( HttpHeader.CONTENT_TYPE );
+
+				if( CborHelper.isCbor( contentType ) ) {
+					logger.trace( "Service return {} bytes of CBOR.", responseContent.length );
+					// the binary encoding reads into the same element tree json does
+					jsonResult = JsonReaderHelper.parse( CborHelper.createReader( new ByteArrayInputStream( responseContent ) ) );
+				} else {
+					String charsetName = contentType == null ? null : MimeTypes.getCharsetFromContentType( contentType );
+					String responseString = new String( responseContent, charsetName == null ? StandardCharsets.UTF_8 : Charset.forName( charsetName ) );
+					logger.trace( "Service return '{}'.", responseString );
+		
+					// grab the response as a string, it should all be json, so let's interpret
+					jsonResult = request.getClient( ).jsonParser.parse( responseString );
+				}
 				// now we need to convert what was returned as a result object ... BUT ..
 				objectResult = ( ResourceResult<T> )request.getClient( ).getResultAdapter().getFromFormatTranslator().translate( jsonResult );
 				// the actual result is not interpreted since we don't the type at registration time so we deal with the result
@@ -115,44 +187,21 @@ public class ResourceResponseFuture<T> extends BufferingResponseListener impleme
 				}
 				
 				// TODO: need to do cookie support
-				HttpFields headers = result.getResponse().getHeaders();
-				String headerName;
-				String headerValue;
-				
-				for( HttpField header : headers ) {
-					headerName = header.getName( );
-					headerValue = header.getValue( );
-					if( objectResult.getHeaders().containsKey( headerName ) ) {
-						// we shouldn't have two of the same headers, but if we do, at least warn
-						logger.warn( 
-								"Duplicate header '{}' found while processing result from resource method '{}' from contract '{}'.", 
-								headerName,
-								request.getMethod().getName(),
-								request.getClient().contractRoot );
-					} else {
-						objectResult.setHeader( headerName, headerValue );
-						switch( headerName ) {
-						case HeaderConstants.CACHE_CONTROL:
-							objectResult.setCacheControl( CacheControl.create( headerValue ) );
-							break;
-						default:
-							// nothing else to do yet
-							break;
-						}
-					}
-				}
+				setHeaders( objectResult, theHeaders, request );
 			} catch( Exception e ) {
 				failure = e;
 				
 			} finally {
 				// status block handling would go here
-				long executionTime = System.nanoTime( ) - startTimestamp;
-				logger.info( 
-						"Executed, {}, resource method '{}' from contract '{}' in {} ms.", new Object[] {
-								this.requestedAsync ? "asynchronously" : "synchronously",
-								request.getMethod( ).getName(),
-								request.getClient( ).contractRoot,
-								( ( double )executionTime ) * 0.000001 } );
+				if( logger.isDebugEnabled( ) ) {
+					long executionTime = System.nanoTime( ) - startTimestamp;
+					logger.debug( 
+							"Executed, {}, resource method '{}' from contract '{}' in {} ms.", new Object[] {
+									this.requestedAsync ? "asynchronously" : "synchronously",
+									request.getMethod( ).getName(),
+									request.getClient( ).contractRoot,
+									( ( double )executionTime ) * 0.000001 } );
+				}
 			}
 			
 		} else if( failure == null ) {
@@ -164,27 +213,76 @@ public class ResourceResponseFuture<T> extends BufferingResponseListener impleme
         
 		// third, we now mark that the result
 		// is available for use.
-        latch.countDown();
+        finish( );
+    }
+
+    /**
+     * Helper method that places the headers from the response into the result.
+     * @param theResult the result to place the headers into
+     * @param theHeaders the headers from the response
+     * @param theRequest the request the response is for, used for logging
+     */
+    static void setHeaders( ResourceResult<?> theResult, HttpFields theHeaders, ResourceRequest theRequest ) {
+		String headerName;
+		String headerValue;
+		
+		for( HttpField header : theHeaders ) {
+			headerName = header.getName( );
+			headerValue = header.getValue( );
+			if( theResult.getHeaders().containsKey( headerName ) ) {
+				// we shouldn't have two of the same headers, but if we do, at least warn
+				logger.warn( 
+						"Duplicate header '{}' found while processing result from resource method '{}' from contract '{}'.", 
+						headerName,
+						theRequest.getMethod().getName(),
+						theRequest.getClient().contractRoot );
+			} else {
+				theResult.setHeader( headerName, headerValue );
+				switch( headerName ) {
+				case HeaderConstants.CACHE_CONTROL:
+					theResult.setCacheControl( CacheControl.create( headerValue ) );
+					break;
+				default:
+					// nothing else to do yet
+					break;
+				}
+			}
+		}
     }
 
     /**
-     * Request to cancel the operation.
+     * Request to cancel the operation. If the response is shared with 
+     * other identical requests, the underlying request is only aborted
+     * if none of the others are still waiting for it.
      * @param mayInterrupt is not used
      * @return returns if the cancel was successful or not
      */
     @Override
     public boolean cancel( boolean mayInterrupt ) {
-        cancelled = true;
-        return this.request.getRequest( ).abort( new CancellationException( ) );
+        boolean aborted;
+        synchronized( this ) {
+        	if( cancelled ) {
+        		return false;
+        	}
+        	cancelled = true;
+        }
+        if( flight != null ) {
+        	completion.cancel( mayInterrupt );
+        	aborted = flight.leave( );
+        } else {
+        	aborted = this.request.getRequest( ).abort( new CancellationException( ) );
+        	completion.cancel( mayInterrupt );
+        }
+        return aborted;
     }
 
     /**
-     * Indicates if this future was cancelled.
+     * Indicates if this future, or the completable future it is based on, was cancelled.
      * @return returns if this future was cancelled
      */
     @Override
     public boolean isCancelled( ) {
-        return cancelled;
+        return cancelled || completion.isCancelled( );
     }
 
     /**
@@ -194,7 +292,7 @@ public class ResourceResponseFuture<T> extends BufferingResponseListener impleme
      */
     @Override
     public boolean isDone( ) {
-        return latch.getCount( ) == 0 || isCancelled( );
+        return completion.isDone( );
     }
 
     /**
@@ -205,8 +303,7 @@ public class ResourceResponseFuture<T> extends BufferingResponseListener impleme
      */
     @Override
     public ResourceResult<T> get() throws InterruptedException, ExecutionException {
-        latch.await() ; // blocking call if the latch hasn't gone down
-        return _get();
+        return completion.get( );
     }
 
     /**
@@ -220,32 +317,27 @@ public class ResourceResponseFuture<T> extends BufferingResponseListener impleme
      */
     @Override
     public ResourceResult<T> get( long theTimeout, TimeUnit theUnit) throws InterruptedException, ExecutionException, TimeoutException {
-        boolean expired = !latch.await( theTimeout, theUnit );
-        if( expired ) {
-            throw new TimeoutException();
-        } else {
-        	return _get();
-        }
+        return completion.get( theTimeout, theUnit );
+    }
+
+    /**
+     * The completable future, completed without waiting on any thread, that 
+     * this future is based on. Cancelling it has the same effect as cancelling 
+     * this future, except that the request isn't aborted.
+     * @return the completable future for the result from the service
+     */
+    CompletableFuture<ResourceResult<T>> getCompletion( ) {
+        return completion;
     }
 
     /**
-     * The underlying implementation of the get requests, which 
-     * will throw exceptions if cancelled or exceptions had 
-     * occurred earlier, otherwise returns the result from the
-     * service
-     * @return the result from the service
-     * @throws ExecutionException an exception that encapsulates errors that occurred while running the request
+     * Makes the result, or the failure, available to those waiting.
      */
-    private ResourceResult<T> _get( ) throws ExecutionException {
-        if( isCancelled ( ) ) {
-        	// if cancelled, we throw the cancellation exception with a potential related cause, if any
-            throw ( CancellationException )new CancellationException ().initCause( failure );
-        } else if (failure != null) {
-        	// if not cancelled, but failed, we throw the execution exception with the original failure reason
-            throw new ExecutionException( failure );
+    private void finish( ) {
+        if( failure != null ) {
+            completion.completeExceptionally( failure );
         } else {
-        	// otherwise, we give our result
-        	return objectResult;
+            completion.complete( objectResult );
         }
     }
 }
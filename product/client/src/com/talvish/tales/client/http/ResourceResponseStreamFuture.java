@@ -0,0 +1,315 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.client.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.InputStreamResponseListener;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.MimeTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.talvish.tales.communication.CommunicationException;
+import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.cbor.CborHelper;
+import com.talvish.tales.serialization.json.JsonReaderHelper;
+
+/**
+ * A future for use in doing async requests to a Tales service, which, unlike
+ * the {@link ResourceResponseFuture}, doesn't buffer the whole response. The
+ * response is read, with a pull parser, as the content arrives, and the value
+ * returned by the method is read directly into its type. The response is
+ * therefore not limited by the method's maximum response size and only a small
+ * amount of the content is held at any point. Reading happens on a thread from
+ * the client's stream reader executor, since reading blocks waiting on content
+ * delivered by the threads of the underlying http client.
+ * @author jmolnar
+ *
+ * @param <T> the type of data that is part of the ResourceResult response
+ */
+public class ResourceResponseStreamFuture<T> implements Future<ResourceResult<T>> {
+	private static final Logger logger = LoggerFactory.getLogger( ResourceRequest.class ); // going to leave this on the resource request
+
+	private static final long MAXIMUM_BUFFERED_CONTENT = 256 * 1024; // content received, but not yet read, before the network is paused
+
+	private final CompletableFuture<ResourceResult<T>> completion;
+	private final StreamListener listener = new StreamListener( );
+	private final ResourceRequest request;
+	private final boolean requestedAsync;
+	private final AtomicBoolean reading = new AtomicBoolean( false );
+	private ResourceResult<T> objectResult;
+
+	private Throwable failure;
+	private volatile boolean cancelled;
+
+	private long startTimestamp;
+
+	/**
+	 * Constructor for use by the ResourceRequest, to setup the Future/Listener.
+	 * @param theRequest all the request information
+	 * @param requestedAsync indicates if the original caller wanted sync or async operation (which only impacts log entries)
+	 * @param theCompletion the completable future to complete with the result, which this future is based on
+	 */
+	protected ResourceResponseStreamFuture( ResourceRequest theRequest, boolean requestedAsync, CompletableFuture<ResourceResult<T>> theCompletion ) {
+		Preconditions.checkNotNull( theRequest, "the future needs a request to watch" );
+		Preconditions.checkNotNull( theCompletion, "the future needs a completable future to complete" );
+		this.request = theRequest;
+		this.requestedAsync = requestedAsync;
+		this.completion = theCompletion;
+		startTimestamp = System.nanoTime();
+	}
+
+	/**
+	 * The listener, given to the underlying request, that receives the response.
+	 * The content is made available, as it arrives, to a stream.
+	 * @author jmolnar
+	 *
+	 */
+	private class StreamListener extends InputStreamResponseListener {
+		StreamListener( ) {
+			super( MAXIMUM_BUFFERED_CONTENT );
+		}
+
+		/**
+		 * Called when the headers of the response arrive, which
+		 * starts reading the content on a separate thread.
+		 */
+		@Override
+		public void onHeaders( Response theResponse ) {
+			super.onHeaders( theResponse );
+			if( reading.compareAndSet( false, true ) ) {
+				try {
+					request.getClient( ).getStreamReaderExecutor( ).execute( ( ) -> read( this.getInputStream( ), theResponse.getHeaders( ) ) );
+				} catch( RejectedExecutionException e ) {
+					failure = e;
+					request.getRequest( ).abort( e );
+					finish( );
+				}
+			}
+		}
+
+		/**
+		 * Called when the exchange is complete, which is only used
+		 * when a failure occurred before the content could be read.
+		 */
+		@Override
+		public void onComplete( Result theResult ) {
+			super.onComplete( theResult );
+			if( reading.compareAndSet( false, true ) ) {
+				// this means we never got the headers, so we don't read
+				// but, since nothing was read, we can send it again
+				if( !cancelled && request.prepareRetry( theResult ) ) {
+					ResourceResponseStreamFuture<T> retryFuture = new ResourceResponseStreamFuture<T>( request, requestedAsync, completion );
+					request.dispatch( retryFuture.getListener( ) );
+					return;
+				}
+				failure = theResult.getFailure( ) != null ? theResult.getFailure( ) : new CommunicationException( String.format( "Have an emtpy result without a recorded failure from '%s'.", request.getMethod( ).getMethodUrl( ) ) );
+				finish( );
+			}
+		}
+	}
+
+	/**
+	 * The listener to give to the underlying request.
+	 * @return the listener receiving the response
+	 */
+	protected Response.Listener getListener( ) {
+		return listener;
+	}
+
+	/**
+	 * Reads the response, as it arrives, into the result.
+	 * @param theStream the stream containing the content as it arrives
+	 * @param theHeaders the headers of the response
+	 */
+	@SuppressWarnings("unchecked")
+	private void read( InputStream theStream, HttpFields theHeaders ) {
+		try {
+			String contentType = theHeaders.get( HttpHeader.CONTENT_TYPE );
+			JsonReader reader;
+
+			if( CborHelper.isCbor( contentType ) ) {
+				// the binary encoding reads the same way json does
+				reader = CborHelper.createReader( theStream );
+			} else {
+				String charsetName = contentType == null ? null : MimeTypes.getCharsetFromContentType( contentType );
+				reader = JsonReaderHelper.createReader( new InputStreamReader( theStream, charsetName == null ? StandardCharsets.UTF_8 : Charset.forName( charsetName ) ) );
+			}
+
+			boolean empty = false;
+			try {
+				reader.peek( );
+			} catch( EOFException e ) {
+				empty = true;
+			}
+			if( empty ) {
+				// this means we don't have any data,
+				// which really shouldn't be possible
+				failure = new CommunicationException( String.format( "Have an emtpy result without a recorded failure from '%s'.", this.request.getMethod( ).getMethodUrl( ) ) );
+			} else {
+				// the envelope, which is small, is collected and then converted like
+				// non-streamed responses but the result value is read directly into
+				// its type since we don't know the type at registration time
+				Translator returnTranslator = request.getClient( ).getJsonFacility( ).getTypeAdapter( request.getMethod( ).getReturn( ).getType( ) ).getFromFormatTranslator( );
+				JsonObject envelope = new JsonObject( );
+				T returnValue = null;
+				String name;
+
+				reader.beginObject( );
+				while( reader.hasNext( ) ) {
+					name = reader.nextName( );
+					if( "return".equals( name ) ) {
+						returnValue = ( T )JsonReaderHelper.read( returnTranslator, reader );
+					} else {
+						envelope.add( name, JsonReaderHelper.parse( reader ) );
+					}
+				}
+				reader.endObject( );
+				if( reader.peek( ) != JsonToken.END_DOCUMENT ) {
+					throw new CommunicationException( String.format( "Did not consume the entire response from '%s'.", this.request.getMethod( ).getMethodUrl( ) ) );
+				}
+
+				ResourceResult<T> newResult = ( ResourceResult<T> )request.getClient( ).getResultAdapter().getFromFormatTranslator().translate( envelope );
+				newResult.setResult( returnValue );
+				ResourceResponseFuture.setHeaders( newResult, theHeaders, request );
+				objectResult = newResult;
+			}
+		} catch( Exception e ) {
+			// the stream exceptions will contain the failure, if the
+			// request failed, otherwise the problem was with the data
+			failure = e;
+
+		} finally {
+			// closing aborts the request if we didn't read everything
+			try {
+				theStream.close( );
+			} catch( IOException e ) {
+				// nothing more we can do
+			}
+			// status block handling would go here
+			if( logger.isDebugEnabled( ) ) {
+				long executionTime = System.nanoTime( ) - startTimestamp;
+				logger.debug(
+						"Executed, {}, resource method '{}' from contract '{}' in {} ms.", new Object[] {
+								this.requestedAsync ? "asynchronously" : "synchronously",
+								request.getMethod( ).getName(),
+								request.getClient( ).contractRoot,
+								( ( double )executionTime ) * 0.000001 } );
+			}
+
+			finish( );
+		}
+	}
+
+	/**
+	 * Request to cancel the operation.
+	 * @param mayInterrupt is not used
+	 * @return returns if the cancel was successful or not
+	 */
+	@Override
+	public boolean cancel( boolean mayInterrupt ) {
+		cancelled = true;
+		boolean aborted = this.request.getRequest( ).abort( new CancellationException( ) );
+		completion.cancel( mayInterrupt );
+		return aborted;
+	}
+
+	/**
+	 * Indicates if this future, or the completable future it is based on, was cancelled.
+	 * @return returns if this future was cancelled
+	 */
+	@Override
+	public boolean isCancelled( ) {
+		return cancelled || completion.isCancelled( );
+	}
+
+	/**
+	 * Indicates if the future is done processing, regardless of whether
+	 * it was successful or not.
+	 * @return returns if the future is done 
+	 */
+	@Override
+	public boolean isDone( ) {
+		return completion.isDone( );
+	}
+
+	/**
+	 * Gets, waiting if needed, the result from the service.
+	 * @return the result from the service.
+	 * @throws ExecutionException thrown if an exception occurred while processing the request
+	 * @throws InterruptedException thrown if the thread running this was interrupted
+	 */
+	@Override
+	public ResourceResult<T> get() throws InterruptedException, ExecutionException {
+		return completion.get( );
+	}
+
+	/**
+	 * Gets, waiting up to the specified time if needed, the result from the service.
+	 * @param theTimeout how long to wait (based on the units)
+	 * @param theUnit the unit of time to use for theTimeout
+	 * @return the result from the service.
+	 * @throws ExecutionException thrown if an exception occurred while processing the request
+	 * @throws InterruptedException thrown if the thread running this was interrupted
+	 * @throws TimeoutException thrown if the timeout period expires and a result isn't available yet
+	 */
+	@Override
+	public ResourceResult<T> get( long theTimeout, TimeUnit theUnit) throws InterruptedException, ExecutionException, TimeoutException {
+		return completion.get( theTimeout, theUnit );
+	}
+
+	/**
+	 * The completable future, completed without waiting on any thread, that 
+	 * this future is based on. Cancelling it has the same effect as cancelling 
+	 * this future, except that the request isn't aborted.
+	 * @return the completable future for the result from the service
+	 */
+	CompletableFuture<ResourceResult<T>> getCompletion( ) {
+		return completion;
+	}
+
+	/**
+	 * Makes the result, or the failure, available to those waiting.
+	 */
+	private void finish( ) {
+		if( failure != null ) {
+			completion.completeExceptionally( failure );
+		} else {
+			completion.complete( objectResult );
+		}
+	}
+}
@@ -0,0 +1,117 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.client.http;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+import com.talvish.tales.system.status.MonitorableStatusValue;
+
+/**
+ * The budget a {@link ResourceClient} has for retrying failed requests, which
+ * keeps retries from multiplying the load on a service that is struggling.
+ * Each request that isn't a retry deposits a fraction of a token, up to a
+ * maximum, and each retry takes a whole token. Retries are only made if there
+ * is a token, so, over time, retries cannot be more than the fraction of the
+ * requests made.
+ * @author jmolnar
+ *
+ */
+public class ResourceRetryBudget {
+	private final int maximumAttempts;
+	private final double ratio;
+	private final double maximumTokens;
+
+	private double tokens; // only used while synchronized
+
+	private final LongAdder retries = new LongAdder( );
+	private final LongAdder exhaustions = new LongAdder( );
+
+	/**
+	 * Constructor taking the configuration that controls retries.
+	 * @param theConfiguration the configuration of the client
+	 */
+	ResourceRetryBudget( ResourceConfigurationBase<?> theConfiguration ) {
+		Preconditions.checkNotNull( theConfiguration, "need a configuration" );
+
+		maximumAttempts = theConfiguration.getRetryAttempts( );
+		ratio = theConfiguration.getRetryBudgetRatio( );
+		maximumTokens = theConfiguration.getRetryBudgetTokens( );
+		tokens = maximumTokens;
+	}
+
+	/**
+	 * The maximum number of times a request is retried.
+	 * @return the maximum number of retries
+	 */
+	public int getMaximumAttempts( ) {
+		return maximumAttempts;
+	}
+
+	/**
+	 * Records that a request, that isn't a retry, is being sent.
+	 */
+	synchronized void deposit( ) {
+		tokens = Math.min( maximumTokens, tokens + ratio );
+	}
+
+	/**
+	 * Takes a token, if available, for a retry.
+	 * @return true if the retry can be made, false otherwise
+	 */
+	boolean tryWithdraw( ) {
+		boolean withdrew;
+		synchronized( this ) {
+			withdrew = tokens >= 1;
+			if( withdrew ) {
+				tokens -= 1;
+			}
+		}
+		if( withdrew ) {
+			retries.increment( );
+		} else {
+			exhaustions.increment( );
+		}
+		return withdrew;
+	}
+
+	/**
+	 * Returns the number of tokens available for retries.
+	 * @return the number of tokens
+	 */
+	@MonitorableStatusValue( name = "retry_budget_tokens", description = "The number of tokens, each allowing a retry, currently available." )
+	public synchronized double getTokens( ) {
+		return tokens;
+	}
+
+	/**
+	 * Returns the number of retries made.
+	 * @return the number of retries
+	 */
+	@MonitorableStatusValue( name = "retries", description = "The total number of retries, since the client was created, made for failed requests." )
+	public long getRetries( ) {
+		return retries.sum( );
+	}
+
+	/**
+	 * Returns the number of retries not made because the budget was used up.
+	 * @return the number of retries not made
+	 */
+	@MonitorableStatusValue( name = "retry_budget_exhaustions", description = "The total number of retries, since the client was created, not made because there were no tokens available." )
+	public long getExhaustions( ) {
+		return exhaustions.sum( );
+	}
+}
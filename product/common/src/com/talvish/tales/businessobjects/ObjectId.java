@@ -15,7 +15,6 @@
 // ***************************************************************************
 package com.talvish.tales.businessobjects;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -57,9 +56,13 @@ public class ObjectId {
 	public static final String	OID_REGEX			= "([0-9a-fA-F]{16})([0-9a-fA-F]{4})([0-9a-fA-F]{12})";
 	public static final Pattern OID_PATTERN			= Pattern.compile( OID_REGEX );
 
+	// the characters used when encoding, which is always upper case
+	private static final char[] HEX_DIGITS			= "0123456789ABCDEF".toCharArray( );
 	
-	// the actual id
-	private final String		_stringForm;
+	// the actual id, created on first request, which means 
+	// it isn't final, but it is safe if more than one 
+	// thread calculates it, since the result is the same
+	private String				_stringForm;
 
 	// the components
 	private final long			_sourceId;
@@ -96,9 +99,19 @@ public class ObjectId {
 		_valueId = theValueId;
 		_typeId = theTypeId;
 		_sourceId = theSourceId;
-		
-		// the ToUpper form of the string
-		_stringForm = String.format( "%016X%04X%012X", _valueId, _typeId, _sourceId );
+	}
+
+	/**
+	 * Private constructor used when parsing and the string 
+	 * form given is the exact form that would be generated.
+	 * @param theValueId the value 
+	 * @param theTypeId the type of the object id
+	 * @param theSourceId the source id, representing who generated it
+	 * @param theStringForm the upper case string form of the id
+	 */
+	private ObjectId( long theValueId, int theTypeId, long theSourceId, String theStringForm )  {
+		this( theValueId, theTypeId, theSourceId, false );
+		_stringForm = theStringForm;
 	}
 
 	/**
@@ -148,19 +161,68 @@ public class ObjectId {
 
 	/**
 	 * Override the hashCode method to return a hash code value
-	 * based on the underlying string.
+	 * based on the individual components.
 	 */
 	@Override
 	public int hashCode( ) {
-		return _stringForm.hashCode( );
+		int hash = ( int )( _valueId ^ ( _valueId >>> 32 ) );
+		
+		hash = 31 * hash + _typeId;
+		hash = 31 * hash + ( int )( _sourceId ^ ( _sourceId >>> 32 ) );
+		return hash;
 	}
 
 	/**
 	 * Override of the toString method to return the underlying string.
+	 * The string is created the first time it is needed.
 	 */
 	@Override
 	public String toString() {
-		return _stringForm;
+		String stringForm = _stringForm;
+		
+		if( stringForm == null ) {
+			char[] characters = new char[ OID_LENGTH ];
+			
+			writeTo( characters, 0 );
+			stringForm = new String( characters );
+			_stringForm = stringForm;
+		}
+		return stringForm;
+	}
+	
+	/**
+	 * Writes the upper case string form of the object id into the
+	 * character array at the offset given. This allows callers to
+	 * write many ids into one buffer without creating strings.
+	 * @param theBuffer the buffer to write into
+	 * @param theOffset the location in the buffer to start writing
+	 * @return the location in the buffer immediately after the id
+	 * @throws IndexOutOfBoundsException if the buffer doesn't have room for the id
+	 */
+	public int writeTo( char[] theBuffer, int theOffset ) {
+		if( theOffset < 0 || theBuffer.length - theOffset < OID_LENGTH ) {
+			throw new IndexOutOfBoundsException( String.format( "buffer of length '%s' does not have room for an object id at offset '%s'", theBuffer.length, theOffset ) );
+		}
+		int offset = theOffset;
+		
+		offset = writeHex( _valueId, 16, theBuffer, offset );
+		offset = writeHex( _typeId, 4, theBuffer, offset );
+		offset = writeHex( _sourceId, 12, theBuffer, offset );
+		return offset;
+	}
+
+	/**
+	 * Helper method that writes the lowest digits of the value as 
+	 * upper case hex, padding with zeros, into the buffer.
+	 */
+	private static int writeHex( long theValue, int theDigits, char[] theBuffer, int theOffset ) {
+		long value = theValue;
+		
+		for( int index = theOffset + theDigits - 1; index >= theOffset; index -= 1 ) {
+			theBuffer[ index ] = HEX_DIGITS[ ( int )( value & 0xF ) ];
+			value >>>= 4;
+		}
+		return theOffset + theDigits;
 	}
 
 	/**
@@ -169,7 +231,7 @@ public class ObjectId {
 	 * @return an ObjectId 
 	 * @throws IllegalArgumentException if the string cannot be parse
 	 */
-	public static ObjectId parse( String theStringForm ) {
+	public static ObjectId parse( CharSequence theStringForm ) {
 		return tryParse( theStringForm, true );
 	}
 	
@@ -178,30 +240,60 @@ public class ObjectId {
 	 * @param theStringForm the string to parse
 	 * @return null if the string could not be parsed, and ObjectId if it could
 	 */
-	public static ObjectId tryParse( String theStringForm ) {
+	public static ObjectId tryParse( CharSequence theStringForm ) {
 		return tryParse( theStringForm, false );
 	}
 
 	/**
 	 * Helper method that will parse a string into an ObjectId and it 
-	 * may or may not except depending on the shoudlExcept parameter
+	 * may or may not except depending on the shoudlExcept parameter.
+	 * The shape checked is the same as {@link #OID_PATTERN} but the
+	 * characters are read directly instead of using the regex.
 	 * @param theStringForm the string to parse
 	 * @param shouldExcept true if the method should except if the values are wrong, false if it should not
 	 * @return null if the string could not be parsed (and shouldExcept is false, since an exception will be raised otherwise), and ObjectId if it could
 	 */
-	private static ObjectId tryParse( String theStringForm, boolean shouldExcept ) {
+	private static ObjectId tryParse( CharSequence theStringForm, boolean shouldExcept ) {
 		ObjectId result = null;
 		
 		if( theStringForm != null ) {
-			Matcher matcher = OID_PATTERN.matcher( theStringForm );
-			if( matcher.matches( ) ) {
-				// set our values, none of which should fail given the regex
-				long valueId = Long.parseLong( matcher.group( 1 ), 16 );
-				int typeId = Integer.parseInt( matcher.group( 2 ), 16 );
-				long sourceId = Long.parseLong( matcher.group( 3 ), 16 );
-	
-				if( isValid( valueId, typeId, sourceId, shouldExcept ) ) {					
-					result = new ObjectId( valueId, typeId, sourceId, false ); // false means don't validate (since I just did)
+			long valueId = 0;
+			long typeId = 0;
+			long sourceId = 0;
+			boolean matches = theStringForm.length( ) == OID_LENGTH;
+			boolean upperCase = true; // used to see if we can keep the string given
+			
+			for( int index = 0; matches && index < OID_LENGTH; index += 1 ) {
+				char character = theStringForm.charAt( index );
+				int digit;
+				
+				if( character >= '0' && character <= '9' ) {
+					digit = character - '0';
+				} else if( character >= 'A' && character <= 'F' ) {
+					digit = character - 'A' + 10;
+				} else if( character >= 'a' && character <= 'f' ) {
+					digit = character - 'a' + 10;
+					upperCase = false;
+				} else {
+					digit = 0;
+					matches = false;
+				}
+				if( index < 16 ) {
+					valueId = ( valueId << 4 ) | digit;
+				} else if( index < 20 ) {
+					typeId = ( typeId << 4 ) | digit;
+				} else {
+					sourceId = ( sourceId << 4 ) | digit;
+				}
+			}
+			if( matches ) {
+				// a value with the top bit set comes out negative, which isValid will reject
+				if( isValid( valueId, ( int )typeId, sourceId, shouldExcept ) ) {
+					if( upperCase && theStringForm instanceof String ) {
+						result = new ObjectId( valueId, ( int )typeId, sourceId, ( String )theStringForm ); // the string is already what we would generate
+					} else {
+						result = new ObjectId( valueId, ( int )typeId, sourceId, false ); // false means don't validate (since I just did)
+					}
 				} // no need to throw exceptions if bad, isValid will
 	
 			} else if( shouldExcept ) {
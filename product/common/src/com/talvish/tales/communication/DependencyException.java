@@ -117,6 +117,7 @@ public class DependencyException extends RuntimeException {
 	}
 	
 	private final Problem problem;
+	private final String subcode;
 	/**
 	 * serialization id
 	 */
@@ -127,6 +128,7 @@ public class DependencyException extends RuntimeException {
 	 */
 	public DependencyException() {
 		problem = Problem.UNKNOWN_ERROR;
+		subcode = null;
 	}
 
 	/**
@@ -135,6 +137,7 @@ public class DependencyException extends RuntimeException {
 	 */
 	public DependencyException(Problem theProblem ) {
 		problem = theProblem;
+		subcode = null;
 	}
 
 	/**
@@ -145,6 +148,7 @@ public class DependencyException extends RuntimeException {
 	public DependencyException( Problem theProblem, String message) {
 		super(message);
 		problem = theProblem;
+		subcode = null;
 	}
 
 	/**
@@ -155,6 +159,7 @@ public class DependencyException extends RuntimeException {
 	public DependencyException( Problem theProblem, Throwable cause) {
 		super(cause);
 		problem = theProblem;
+		subcode = null;
 	}
 
 	/**
@@ -166,6 +171,20 @@ public class DependencyException extends RuntimeException {
 	public DependencyException( Problem theProblem, String message, Throwable cause) {
 		super(message, cause);
 		problem = theProblem;
+		subcode = null;
+	}
+
+	/**
+	 * Constructing taking a code, specific to the problem, the exception that caused the error and a string description.
+	 * @param theProblem the type of failure 
+	 * @param theSubcode a code, specific to the problem, outlining the failure
+	 * @param message the message describing the error
+	 * @param cause the exception that caused the error, which may be null
+	 */
+	public DependencyException( Problem theProblem, String theSubcode, String message, Throwable cause) {
+		super(message, cause);
+		problem = theProblem;
+		subcode = theSubcode;
 	}
 	
 	/**
@@ -175,4 +194,12 @@ public class DependencyException extends RuntimeException {
 	public Problem getProblem( ) {
 		return problem;
 	}
+
+	/**
+	 * A code, specific to the problem, outlining the failure, which may be null.
+	 * @return the subcode or null
+	 */
+	public String getSubcode( ) {
+		return subcode;
+	}
 }
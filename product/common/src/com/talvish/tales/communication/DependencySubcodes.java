@@ -0,0 +1,29 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.communication;
+
+/**
+ * The subcodes used by a {@code DependencyException} to outline the failure.
+ * @author jmolnar
+ *
+ */
+public final class DependencySubcodes {
+	/**
+	 * The request was not sent because the circuit breaker for the remote 
+	 * service, or method on the service, is open due to recent failures.
+	 */
+	public static final String CIRCUIT_OPEN = "CIRCUIT_OPEN";
+}
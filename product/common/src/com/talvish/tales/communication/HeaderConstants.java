@@ -26,6 +26,17 @@ public class HeaderConstants {
 	public static final String USER_AGENT_HEADER = "User-Agent";
 	public static final String ROOT_REQUEST_ID_HEADER = "Root-Request-Id";
 	public static final String PARENT_REQUEST_ID_HEADER = "Parent-Request-Id";
+	public static final String RETRY_AFTER = "Retry-After";
+	
+	// content negotiation related
+	public static final String ACCEPT = "Accept";
+	public static final String CONTENT_TYPE = "Content-Type";
+	public static final String VARY = "Vary";
+	public static final String ACCEPT_ENCODING = "Accept-Encoding";
+	public static final String CONTENT_ENCODING = "Content-Encoding";
+	public static final String JSON_MEDIA_TYPE = "application/json";
+	public static final String JSON_CONTENT_TYPE = JSON_MEDIA_TYPE + "; charset=UTF-8";
+	public static final String CBOR_MEDIA_TYPE = "application/cbor";
 	
 	// CORS related
 	
@@ -33,6 +44,7 @@ public class HeaderConstants {
 	public static final String ORIGIN = "Origin";
 	public static final String ACCESS_CONTROL_REQUEST_METHOD = "Access-Control-Request-Method";
 	public static final String ACCESS_CONTROL_REQUEST_HEADERS = "Access-Control-Request-Headers";
+	public static final String COOKIE = "Cookie";
 	
 	
 	// TODO: if we set the cache-control headers we shoudl also be sending the date field
@@ -41,6 +53,9 @@ public class HeaderConstants {
 
 	// the following below are cache related headers
 	public static final String CACHE_CONTROL = "Cache-Control";
+	public static final String ETAG = "ETag";
+	public static final String IF_NONE_MATCH = "If-None-Match";
+	public static final String WEAK_ETAG_PREFIX = "W/";
 	// client/server shared names/values
 	public static final String CACHE_CONTROL_NO_CACHE_DIRECTIVE = "no-cache";
 	public static final String CACHE_CONTROL_NO_STORE_DIRECTIVE = "no-store";
@@ -20,6 +20,7 @@ import java.util.List;
 import com.talvish.tales.parts.reflection.FieldDescriptor;
 import com.talvish.tales.parts.reflection.ValueType;
 import com.talvish.tales.parts.sites.MemberSite;
+import com.talvish.tales.serialization.MapEncoding;
 import com.talvish.tales.serialization.SerializationField;
 
 /**
@@ -65,6 +66,27 @@ public class DataContractField extends SerializationField<DataContractType, Data
     	super( theName, theKeyTypes, theValueTypes, theFieldSite, theDeclaringType, theContainingType );
     }
 
+    /**
+     * Constructor used to create a map that indicates how it should be encoded.
+     * @param theName the name to give the field
+     * @param theKeyType the type of the key for the map
+     * @param theValueType the type of the value for the map
+     * @param theMapEncoding how the map should be encoded
+     * @param theFieldSite the site information for modifying the field
+     * @param theDeclaringType the contract type this field was declared in
+     * @param theContainingType the class that currently contains the field, which, if not the same as theDeclaringType is a subclass
+     */
+    protected DataContractField( 
+    		String theName, 
+    		List<ValueType<DataContractType, DataContractField>> theKeyTypes, 
+    		List<ValueType<DataContractType, DataContractField>> theValueTypes, 
+    		MapEncoding theMapEncoding,
+    		MemberSite theFieldSite, 
+    		DataContractType theDeclaringType, 
+    		DataContractType theContainingType ) {
+    	super( theName, theKeyTypes, theValueTypes, theMapEncoding, theFieldSite, theDeclaringType, theContainingType );
+    }
+
     /**
      * Clones the existing object but specifying a different current type, which will
      * be a subclass of the original declaring type.
@@ -76,6 +98,7 @@ public class DataContractField extends SerializationField<DataContractType, Data
 	        		this.name,
 	        		this.keyTypes,
 	        		this.valueTypes,
+	        		this.mapEncoding,
 	        		this.site, 
 	        		this.declaringType, 
 	        		theContainingType );
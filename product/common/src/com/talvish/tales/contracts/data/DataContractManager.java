@@ -170,7 +170,7 @@ public class DataContractManager extends SerializationTypeManager< DataContractT
 	            	valueTypes.add( new ValueType<>( declaredValueType, generateType( declaredValueType, aDeclaringInstance ) ) );
 	            }
 	            
-	            dataContractField = new DataContractField( fieldName, keyTypes, valueTypes, fieldSite, theDeclaringType, theDeclaringType ); 
+	            dataContractField = new DataContractField( fieldName, keyTypes, valueTypes, dataMemberAnnotation.mapEncoding( ), fieldSite, theDeclaringType, theDeclaringType ); 
 			
 			} else if( ( Collection.class.isAssignableFrom( fieldClass ) && ( fieldGenericType instanceof ParameterizedType ) ) ) {
 				// if we have a collection (e.g list, set, collection itself, etc)
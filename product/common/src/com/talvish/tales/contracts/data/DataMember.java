@@ -20,6 +20,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import com.talvish.tales.serialization.MapEncoding;
+
 /**
  * This annotation is meant for fields to indicate
  * they are part of a contract.
@@ -46,4 +48,12 @@ public @interface DataMember {
      * @return the types allowed, or empty if directly based on the return type
      */
     Class<?>[] valueTypes( ) default {};
+    /**
+     * An optional indication of how a map is encoded. Maps 
+     * with string keys and a single value type can be encoded
+     * as an object, which is more compact than the key/value
+     * entries used otherwise.
+     * @return how the map is encoded, or default to use the serializer's encoding
+     */
+    MapEncoding mapEncoding( ) default MapEncoding.DEFAULT;
 }
\ No newline at end of file
@@ -0,0 +1,397 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.parts;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.IllegalFieldValueException;
+import org.joda.time.chrono.ISOChronology;
+
+/**
+ * Methods that parse and format common primitive types, like UUIDs and
+ * ISO dates and times, by working on the characters directly instead
+ * of using regular expressions, formatters or intermediate strings.
+ * The parse methods only handle the common forms of the values (e.g.
+ * those generated by the format methods or the types' toString), and
+ * return null for anything else, so callers can fall back to the
+ * full, and slower, parsers which also generate proper errors.
+ * @author jmolnar
+ */
+public final class PrimitiveEncoding {
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray( );
+	private static final int UUID_LENGTH = 36;
+	private static final int DATE_LENGTH = 10;
+
+	/**
+	 * Private constructor since this only has static methods.
+	 */
+	private PrimitiveEncoding( ) {
+	}
+
+	/**
+	 * Formats the UUID in its standard, lower case, 36 character form.
+	 * This gives the same result as {@link UUID#toString()}.
+	 * @param theUuid the UUID to format
+	 * @return the string form of the UUID
+	 */
+	public static String formatUuid( UUID theUuid ) {
+		char[] characters = new char[ UUID_LENGTH ];
+		long mostSignificantBits = theUuid.getMostSignificantBits( );
+		long leastSignificantBits = theUuid.getLeastSignificantBits( );
+
+		writeHex( characters, 0, mostSignificantBits >>> 32, 8 );
+		characters[ 8 ] = '-';
+		writeHex( characters, 9, mostSignificantBits >>> 16, 4 );
+		characters[ 13 ] = '-';
+		writeHex( characters, 14, mostSignificantBits, 4 );
+		characters[ 18 ] = '-';
+		writeHex( characters, 19, leastSignificantBits >>> 48, 4 );
+		characters[ 23 ] = '-';
+		writeHex( characters, 24, leastSignificantBits, 12 );
+		return new String( characters );
+	}
+
+	/**
+	 * Parses a UUID in its standard 36 character form, in upper or lower case.
+	 * @param theCharacters the characters to parse
+	 * @return the UUID, or null if the characters are not in the standard form
+	 */
+	public static UUID parseUuid( CharSequence theCharacters ) {
+		if( theCharacters.length( ) != UUID_LENGTH ||
+			theCharacters.charAt( 8 ) != '-' ||
+			theCharacters.charAt( 13 ) != '-' ||
+			theCharacters.charAt( 18 ) != '-' ||
+			theCharacters.charAt( 23 ) != '-' ) {
+			return null;
+		} else {
+			long part1 = readHex( theCharacters, 0, 8 );
+			long part2 = readHex( theCharacters, 9, 4 );
+			long part3 = readHex( theCharacters, 14, 4 );
+			long part4 = readHex( theCharacters, 19, 4 );
+			long part5 = readHex( theCharacters, 24, 12 );
+
+			if( ( part1 | part2 | part3 | part4 | part5 ) < 0 ) {
+				return null;
+			} else {
+				return new UUID( ( part1 << 32 ) | ( part2 << 16 ) | part3, ( part4 << 48 ) | part5 );
+			}
+		}
+	}
+
+	/**
+	 * Parses an ISO date of the form {@code yyyy-MM-dd}.
+	 * @param theCharacters the characters to parse
+	 * @return the date, or null if the characters are not in the expected form or not a valid date
+	 */
+	public static LocalDate parseLocalDate( CharSequence theCharacters ) {
+		if( theCharacters.length( ) != DATE_LENGTH ) {
+			return null;
+		} else {
+			int year = readDate( theCharacters );
+			if( year < 0 ) {
+				return null;
+			} else {
+				try {
+					return LocalDate.of( year, readDigits( theCharacters, 5, 2 ), readDigits( theCharacters, 8, 2 ) );
+				} catch( DateTimeException e ) {
+					return null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parses an ISO date and time of the form {@code yyyy-MM-ddTHH:mm[:ss[.fffffffff]]},
+	 * which may have an offset that, as with {@code DateTimeFormatter.ISO_DATE_TIME}, is ignored.
+	 * @param theCharacters the characters to parse
+	 * @return the date and time, or null if the characters are not in the expected form or not a valid date and time
+	 */
+	public static LocalDateTime parseLocalDateTime( CharSequence theCharacters ) {
+		ParsedDateTime parsed = parseDateTime( theCharacters, false );
+		if( parsed == null ) {
+			return null;
+		} else {
+			try {
+				return LocalDateTime.of( parsed.year, parsed.month, parsed.day, parsed.hour, parsed.minute, parsed.second, parsed.nanosecond );
+			} catch( DateTimeException e ) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Parses an ISO date and time of the form {@code yyyy-MM-ddTHH:mm[:ss[.fffffffff]]}
+	 * followed by an offset that is either {@code Z} or of the form {@code +HH:mm}.
+	 * @param theCharacters the characters to parse
+	 * @return the date and time, or null if the characters are not in the expected form or not a valid date and time
+	 */
+	public static OffsetDateTime parseOffsetDateTime( CharSequence theCharacters ) {
+		ParsedDateTime parsed = parseDateTime( theCharacters, true );
+		if( parsed == null ) {
+			return null;
+		} else {
+			try {
+				return OffsetDateTime.of( parsed.year, parsed.month, parsed.day, parsed.hour, parsed.minute, parsed.second, parsed.nanosecond, ZoneOffset.ofTotalSeconds( parsed.offset / 1000 ) );
+			} catch( DateTimeException e ) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Parses an ISO date and time, into a Joda DateTime, of the form {@code yyyy-MM-ddTHH:mm[:ss[.fffffffff]]}
+	 * followed by an offset that is either {@code Z} or of the form {@code +HH:mm}. As with
+	 * {@link DateTime#parse(String)}, the DateTime uses the offset as its time zone.
+	 * @param theCharacters the characters to parse
+	 * @return the date and time, or null if the characters are not in the expected form or not a valid date and time
+	 */
+	public static DateTime parseJodaDateTime( CharSequence theCharacters ) {
+		ParsedDateTime parsed = parseDateTime( theCharacters, true );
+		if( parsed == null ) {
+			return null;
+		} else {
+			try {
+				return new DateTime( parsed.year, parsed.month, parsed.day, parsed.hour, parsed.minute, parsed.second, parsed.nanosecond / 1000000, DateTimeZone.forOffsetMillis( parsed.offset ) );
+			} catch( IllegalFieldValueException e ) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Formats a Joda DateTime in the form {@code yyyy-MM-ddTHH:mm:ss.SSS} followed by the
+	 * offset, which gives the same result as {@link DateTime#toString()}.
+	 * @param theDateTime the date and time to format
+	 * @return the string form of the date and time
+	 */
+	public static String formatJodaDateTime( DateTime theDateTime ) {
+		int year = theDateTime.getYear( );
+		int offset = theDateTime.getZone( ).getOffset( theDateTime.getMillis( ) );
+
+		if( year < 0 || year > 9999 || offset % 60000 != 0 || !( theDateTime.getChronology( ) instanceof ISOChronology ) ) {
+			// these are rare enough that we let joda handle them
+			return theDateTime.toString( );
+		} else {
+			char[] characters = new char[ offset == 0 ? 24 : 29 ];
+
+			writeDigits( characters, 0, year, 4 );
+			characters[ 4 ] = '-';
+			writeDigits( characters, 5, theDateTime.getMonthOfYear( ), 2 );
+			characters[ 7 ] = '-';
+			writeDigits( characters, 8, theDateTime.getDayOfMonth( ), 2 );
+			characters[ 10 ] = 'T';
+			writeDigits( characters, 11, theDateTime.getHourOfDay( ), 2 );
+			characters[ 13 ] = ':';
+			writeDigits( characters, 14, theDateTime.getMinuteOfHour( ), 2 );
+			characters[ 16 ] = ':';
+			writeDigits( characters, 17, theDateTime.getSecondOfMinute( ), 2 );
+			characters[ 19 ] = '.';
+			writeDigits( characters, 20, theDateTime.getMillisOfSecond( ), 3 );
+			if( offset == 0 ) {
+				characters[ 23 ] = 'Z';
+			} else {
+				int offsetMinutes = Math.abs( offset / 60000 );
+				characters[ 23 ] = offset < 0 ? '-' : '+';
+				writeDigits( characters, 24, offsetMinutes / 60, 2 );
+				characters[ 26 ] = ':';
+				writeDigits( characters, 27, offsetMinutes % 60, 2 );
+			}
+			return new String( characters );
+		}
+	}
+
+	/**
+	 * Simple private class holding the parts of a parsed date and time.
+	 * @author jmolnar
+	 *
+	 */
+	private static class ParsedDateTime {
+		private int year;
+		private int month;
+		private int day;
+		private int hour;
+		private int minute;
+		private int second;
+		private int nanosecond;
+		private int offset; // in milliseconds
+	}
+
+	/**
+	 * Helper method that parses the parts of an ISO date and time.
+	 * The parts are checked for form but are not checked for valid ranges.
+	 * @param theCharacters the characters to parse
+	 * @param isOffsetRequired true if the offset must be present, false if it is optional
+	 * @return the parsed parts, or null if the characters are not in the expected form
+	 */
+	private static ParsedDateTime parseDateTime( CharSequence theCharacters, boolean isOffsetRequired ) {
+		int length = theCharacters.length( );
+		// the shortest form is yyyy-MM-ddTHH:mm
+		if( length < 16 || theCharacters.charAt( 10 ) != 'T' || theCharacters.charAt( 13 ) != ':' ) {
+			return null;
+		}
+		ParsedDateTime parsed = new ParsedDateTime( );
+
+		parsed.year = readDate( theCharacters );
+		parsed.month = readDigits( theCharacters, 5, 2 );
+		parsed.day = readDigits( theCharacters, 8, 2 );
+		parsed.hour = readDigits( theCharacters, 11, 2 );
+		parsed.minute = readDigits( theCharacters, 14, 2 );
+		if( ( parsed.year | parsed.month | parsed.day | parsed.hour | parsed.minute ) < 0 ) {
+			return null;
+		}
+
+		int index = 16;
+		if( index < length && theCharacters.charAt( index ) == ':' ) {
+			parsed.second = readDigits( theCharacters, index + 1, 2 );
+			if( parsed.second < 0 ) {
+				return null;
+			}
+			index += 3;
+			if( index < length && theCharacters.charAt( index ) == '.' ) {
+				int digit;
+				int digitCount = 0;
+
+				index += 1;
+				while( index < length && ( digit = theCharacters.charAt( index ) - '0' ) >= 0 && digit <= 9 ) {
+					if( digitCount == 9 ) {
+						return null;
+					}
+					parsed.nanosecond = parsed.nanosecond * 10 + digit;
+					digitCount += 1;
+					index += 1;
+				}
+				if( digitCount == 0 ) {
+					return null;
+				}
+				for( ; digitCount < 9; digitCount += 1 ) {
+					parsed.nanosecond *= 10;
+				}
+			}
+		}
+
+		if( index == length ) {
+			return isOffsetRequired ? null : parsed;
+		} else if( theCharacters.charAt( index ) == 'Z' ) {
+			return index + 1 == length ? parsed : null;
+		} else if( index + 6 == length && ( theCharacters.charAt( index ) == '+' || theCharacters.charAt( index ) == '-' ) && theCharacters.charAt( index + 3 ) == ':' ) {
+			int offsetHours = readDigits( theCharacters, index + 1, 2 );
+			int offsetMinutes = readDigits( theCharacters, index + 4, 2 );
+			if( ( offsetHours | offsetMinutes ) < 0 || offsetHours > 18 || offsetMinutes > 59 || ( offsetHours == 18 && offsetMinutes > 0 ) ) {
+				return null;
+			} else {
+				parsed.offset = ( offsetHours * 60 + offsetMinutes ) * 60000;
+				if( theCharacters.charAt( index ) == '-' ) {
+					parsed.offset = -parsed.offset;
+				}
+				return parsed;
+			}
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Helper method that checks the separators of a {@code yyyy-MM-dd} date,
+	 * at the start of the characters, and reads the year.
+	 * @param theCharacters the characters to read from
+	 * @return the year, or -1 if the date is not in the expected form
+	 */
+	private static int readDate( CharSequence theCharacters ) {
+		if( theCharacters.charAt( 4 ) != '-' || theCharacters.charAt( 7 ) != '-' ) {
+			return -1;
+		} else {
+			return readDigits( theCharacters, 0, 4 );
+		}
+	}
+
+	/**
+	 * Helper method that reads a number from a fixed number of decimal digits.
+	 * @param theCharacters the characters to read from
+	 * @param theOffset where to start reading
+	 * @param theCount the number of digits to read
+	 * @return the number, or -1 if a character was not a digit or there were not enough characters
+	 */
+	private static int readDigits( CharSequence theCharacters, int theOffset, int theCount ) {
+		if( theOffset + theCount > theCharacters.length( ) ) {
+			return -1;
+		}
+		int value = 0;
+		int digit;
+		for( int index = theOffset; index < theOffset + theCount; index += 1 ) {
+			digit = theCharacters.charAt( index ) - '0';
+			if( digit < 0 || digit > 9 ) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	/**
+	 * Helper method that reads a number from a fixed number, no more than 15, of hex digits.
+	 * @param theCharacters the characters to read from
+	 * @param theOffset where to start reading
+	 * @param theCount the number of digits to read
+	 * @return the number, or -1 if a character was not a hex digit
+	 */
+	private static long readHex( CharSequence theCharacters, int theOffset, int theCount ) {
+		long value = 0;
+		int digit;
+		for( int index = theOffset; index < theOffset + theCount; index += 1 ) {
+			digit = Character.digit( theCharacters.charAt( index ), 16 );
+			if( digit < 0 ) {
+				return -1;
+			}
+			value = ( value << 4 ) | digit;
+		}
+		return value;
+	}
+
+	/**
+	 * Helper method that writes a number as a fixed number of zero-padded decimal digits.
+	 * @param theCharacters the characters to write to
+	 * @param theOffset where to start writing
+	 * @param theValue the value to write, which must fit in the digits
+	 * @param theCount the number of digits to write
+	 */
+	private static void writeDigits( char[] theCharacters, int theOffset, int theValue, int theCount ) {
+		for( int index = theOffset + theCount - 1; index >= theOffset; index -= 1 ) {
+			theCharacters[ index ] = ( char )( '0' + theValue % 10 );
+			theValue /= 10;
+		}
+	}
+
+	/**
+	 * Helper method that writes the lowest bits of a number as a fixed number of hex digits.
+	 * @param theCharacters the characters to write to
+	 * @param theOffset where to start writing
+	 * @param theValue the value to write
+	 * @param theCount the number of digits to write
+	 */
+	private static void writeHex( char[] theCharacters, int theOffset, long theValue, int theCount ) {
+		for( int index = theOffset + theCount - 1; index >= theOffset; index -= 1 ) {
+			theCharacters[ index ] = HEX_DIGITS[ ( int )( theValue & 0xf ) ];
+			theValue >>>= 4;
+		}
+	}
+}
@@ -15,6 +15,7 @@ public class JavaType {
     private final Type type;
     private final Class<?> underlyingClass;
     private final JavaType supertype;
+    private final int hashCode; // generic types can be costly to hash, so we keep it
 
     /**
      * Constructor taking the type.
@@ -24,6 +25,7 @@ public class JavaType {
     	Preconditions.checkNotNull( theType, "need a type" );
     	
     	type = theType;
+    	hashCode = theType.hashCode( );
     	underlyingClass = TypeUtility.extractClass( theType );    	
     	Preconditions.checkNotNull( underlyingClass, "Attempting to get a reference to a type, '%s' (of type '%s'), whose underlying type could not be retrieved, likely due to a generic type having a type parameter that is also a generic type, or an array using a generic type parameter.", theType.getTypeName(), theType.getClass().getSimpleName( ) );
     	if( underlyingClass.getGenericSuperclass( ) != null ) {
@@ -82,8 +84,11 @@ public class JavaType {
      */
     @Override
     public boolean equals( Object theObject) {
-		if( theObject instanceof JavaType ) {
-			return type.equals( ( ( JavaType )theObject ).type );
+		if( theObject == this ) {
+			return true;
+		} else if( theObject instanceof JavaType ) {
+			JavaType otherType = ( JavaType )theObject;
+			return hashCode == otherType.hashCode && type.equals( otherType.type );
 		} else {
 			return false;
 		}
@@ -95,6 +100,6 @@ public class JavaType {
      */
     @Override
     public int hashCode() {
-    	return type.hashCode();
+    	return hashCode;
     }
 }
@@ -0,0 +1,173 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.parts.sites;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.talvish.tales.parts.reflection.JavaType;
+
+/**
+ * A {@link MemberSite} that wraps a {@link FieldSite} but gets and sets
+ * the field using method handles generated for the field instead of
+ * using reflection. If a handle cannot be generated (e.g. setting a
+ * final field) the wrapped {@link FieldSite} is used instead.
+ * @author jmolnar
+ *
+ */
+public class HandleFieldSite implements MemberSite {
+	private static final MethodType GETTER_TYPE = MethodType.methodType( Object.class, Object.class );
+	private static final MethodType SETTER_TYPE = MethodType.methodType( void.class, Object.class, Object.class );
+
+	private final FieldSite fieldSite;
+	private final MethodHandle getter;
+	private final MethodHandle setter;
+
+	/**
+	 * Constructs the data site based on an existing field site.
+	 * @param theFieldSite the field site to generate accessors for
+	 */
+	public HandleFieldSite( FieldSite theFieldSite ) {
+		Preconditions.checkNotNull( theFieldSite, "need a field site" );
+
+		fieldSite = theFieldSite;
+		getter = generateGetter( theFieldSite );
+		setter = generateSetter( theFieldSite );
+	}
+
+	/**
+	 * Helper method that generates the getter handle, or returns
+	 * null if it could not be generated.
+	 * @param theFieldSite the field site to generate for
+	 * @return the handle or null
+	 */
+	private static MethodHandle generateGetter( FieldSite theFieldSite ) {
+		try {
+			// the field site has already made the field accessible
+			return MethodHandles.lookup( ).unreflectGetter( theFieldSite.getField( ) ).asType( GETTER_TYPE );
+		} catch( IllegalAccessException e ) {
+			return null;
+		}
+	}
+
+	/**
+	 * Helper method that generates the setter handle, or returns
+	 * null if it could not be generated.
+	 * @param theFieldSite the field site to generate for
+	 * @return the handle or null
+	 */
+	private static MethodHandle generateSetter( FieldSite theFieldSite ) {
+		try {
+			// the field site has already made the field accessible
+			return MethodHandles.lookup( ).unreflectSetter( theFieldSite.getField( ) ).asType( SETTER_TYPE );
+		} catch( IllegalAccessException e ) {
+			return null;
+		}
+	}
+
+	/**
+	 * The field site this site wraps.
+	 * @return the wrapped field site
+	 */
+	public FieldSite getFieldSite( ) {
+		return fieldSite;
+	}
+
+	/**
+	 * The class that contains the field this site targets
+	 * @return the class containing the field
+	 */
+	public Class<?> getContainingType( ) {
+		return fieldSite.getContainingType( );
+	}
+
+	/**
+	 * The type of the data in this field.
+	 * @return class representing the type of data
+	 */
+	public JavaType getType( ) {
+		return fieldSite.getType( );
+	}
+
+	/**
+	 * The name of the field this site targets.
+	 * @return the name of the field
+	 */
+	public String getName( ) {
+		return fieldSite.getName( );
+	}
+
+	/**
+	 * Indicates if this particular field should be treated read-only.
+	 * @return
+	 */
+	public boolean isReadOnly( ) {
+		return fieldSite.isReadOnly( );
+	}
+
+    /**
+     * Returns the annotation on the field for the specified type.
+     * @param theAnnotationClass the class of the annotation to get
+     * @return the annotation or null if it doesn't exist
+     */
+    public <A extends Annotation> A getAnnotation( Class<A> theAnnotationClass ) {
+    	return fieldSite.getAnnotation( theAnnotationClass ) ;
+    }
+
+	/**
+	 * Gets data from a field off the source object.
+	 * @param theSource the source object to get data from.
+	 * @return the value from the field off the source object
+	 */
+	public Object getData( Object theSource ) {
+		if( getter == null ) {
+			return fieldSite.getData( theSource );
+		} else {
+			try {
+				return ( Object )getter.invokeExact( theSource );
+			} catch( RuntimeException e ) {
+				// covers the wrong type of source object (class cast) and a null source
+				throw new DataSiteException( String.format( "Could not get data from %s.%s.", fieldSite.getContainingType( ).getName(), fieldSite.getName() ), e );
+			} catch( Throwable e ) {
+				throw Throwables.propagate( e );
+			}
+		}
+	}
+
+	/**
+	 * Sets data on a field of a sink object
+	 * @param theSink the object to set a value on
+	 * @param theValue the value to set the field on the sink object
+	 */
+	public void setData( Object theSink, Object theValue ) {
+		if( setter == null ) {
+			fieldSite.setData( theSink, theValue );
+		} else {
+			try {
+				setter.invokeExact( theSink, theValue );
+			} catch( RuntimeException e ) {
+				// covers the wrong type of value or sink (class cast) and null being set on primitives
+				throw new DataSiteException( String.format( "Could not set data on %s.%s.", fieldSite.getContainingType( ).getName(), fieldSite.getName() ), e );
+			} catch( Throwable e ) {
+				throw Throwables.propagate( e );
+			}
+		}
+	}
+}
@@ -17,6 +17,8 @@ package com.talvish.tales.parts.translators;
 
 import org.joda.time.DateTime;
 
+import com.talvish.tales.parts.PrimitiveEncoding;
+
 public class StringToDateTimeTranslator extends StringToObjectTranslatorBase implements Translator {
 
 	public StringToDateTimeTranslator( ) {
@@ -41,7 +43,11 @@ public class StringToDateTimeTranslator extends StringToObjectTranslatorBase imp
 				if( stringValue.equals("") ) {
 					returnValue = this.emptyValue;
 				} else {
-					returnValue = DateTime.parse( stringValue );
+					// the common form is parsed directly, otherwise we use the full parser
+					returnValue = PrimitiveEncoding.parseJodaDateTime( stringValue );
+					if( returnValue == null ) {
+						returnValue = DateTime.parse( stringValue );
+					}
 				}
 			} catch( IllegalArgumentException e ) {
 				throw new TranslationException( String.format( "Unable to translate '%s' into a datetime.", anObject ), e );
@@ -16,14 +16,10 @@
 package com.talvish.tales.parts.translators;
 
 import java.util.ArrayList;
-import java.util.regex.Pattern;
 
 import com.google.common.base.Preconditions;
 
 public class StringToListTranslator extends StringToObjectTranslatorBase implements Translator {
-	private static final String REPLACE_REGEX = "(\\\\)(.)";
-	private static final Pattern REPLACE_PATTERN = Pattern.compile( REPLACE_REGEX );
-
 	private final char delimiter;
 	private Translator elementTranslator = null;
 	
@@ -93,19 +89,4 @@ public class StringToListTranslator extends StringToObjectTranslatorBase impleme
 		return returnValue;	
 	}
 
-	/**
-	 * Unescapes the string by removing slash characters.
-	 * @param theString the string to unescape.
-	 * @return the unescaped string
-	 */
-	private String unescape( String theString ) {
-		String returnValue = null;
-		
-		if( theString != null ) {
-			returnValue = REPLACE_PATTERN.matcher( theString ).replaceAll( "$2" );
-		}
-		
-		return returnValue;
-	}
-
 }
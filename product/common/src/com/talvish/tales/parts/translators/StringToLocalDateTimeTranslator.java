@@ -19,6 +19,8 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
+import com.talvish.tales.parts.PrimitiveEncoding;
+
 public class StringToLocalDateTimeTranslator extends StringToObjectTranslatorBase implements Translator {
 
 	public StringToLocalDateTimeTranslator( ) {
@@ -43,7 +45,11 @@ public class StringToLocalDateTimeTranslator extends StringToObjectTranslatorBas
 				if( stringValue.equals("") ) {
 					returnValue = this.emptyValue;
 				} else {
-					returnValue = LocalDateTime.parse( stringValue, DateTimeFormatter.ISO_DATE_TIME );
+					// the common form is parsed directly, otherwise we use the full parser
+					returnValue = PrimitiveEncoding.parseLocalDateTime( stringValue );
+					if( returnValue == null ) {
+						returnValue = LocalDateTime.parse( stringValue, DateTimeFormatter.ISO_DATE_TIME );
+					}
 				}
 			} catch( DateTimeParseException e ) {
 				throw new TranslationException( String.format( "Unable to translate '%s' into a datetime.", anObject ), e );
@@ -18,6 +18,8 @@ package com.talvish.tales.parts.translators;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 
+import com.talvish.tales.parts.PrimitiveEncoding;
+
 public class StringToLocalDateTranslator extends StringToObjectTranslatorBase implements Translator {
 
 	public StringToLocalDateTranslator( ) {
@@ -42,7 +44,11 @@ public class StringToLocalDateTranslator extends StringToObjectTranslatorBase im
 				if( stringValue.equals("") ) {
 					returnValue = this.emptyValue;
 				} else {
-					returnValue = LocalDate.parse( stringValue );
+					// the common form is parsed directly, otherwise we use the full parser
+					returnValue = PrimitiveEncoding.parseLocalDate( stringValue );
+					if( returnValue == null ) {
+						returnValue = LocalDate.parse( stringValue );
+					}
 				}
 			} catch( DateTimeParseException e ) {
 				throw new TranslationException( String.format( "Unable to translate '%s' into a datetime.", anObject ), e );
@@ -26,9 +26,6 @@ public class StringToMapTranslator extends StringToObjectTranslatorBase implemen
 	private static final String MAP_REGEX = String.format("(?:\\s*\\[)(%1$s)(?:,)(%1$s)(?:\\]\\s*)", ELEMENT );
 	private static final Pattern MAP_PATTERN = Pattern.compile( MAP_REGEX );
 	
-	private static final String REPLACE_REGEX = "(\\\\)(.)";
-	private static final Pattern REPLACE_PATTERN = Pattern.compile( REPLACE_REGEX );
-	
 
 	private final Translator keyTranslator;
 	private final Translator valueTranslator;
@@ -97,19 +94,4 @@ public class StringToMapTranslator extends StringToObjectTranslatorBase implemen
 		}
 		return returnValue;	
 	}
-	
-	/**
-	 * Unescapes the string by removing slash characters.
-	 * @param theString the string to unescape.
-	 * @return the unescaped string
-	 */
-	private String unescape( String theString ) {
-		String returnValue = null;
-		
-		if( theString != null ) {
-			returnValue = REPLACE_PATTERN.matcher( theString ).replaceAll( "$2" );
-		}
-		
-		return returnValue;
-	}
 }
@@ -32,4 +32,51 @@ public abstract class StringToObjectTranslatorBase extends NullTranslatorBase {
 	public boolean willTrim( ) {
 		return trim;
 	}
+
+	/**
+	 * Unescapes the string by removing the slash character in front of
+	 * escaped characters. A slash that ends the string, or is followed by
+	 * a line terminator, is left in place. If there is nothing to unescape
+	 * the string given is returned.
+	 * @param theString the string to unescape
+	 * @return the unescaped string, or null if the string was null
+	 */
+	protected static String unescape( String theString ) {
+		String returnValue = theString;
+		
+		if( theString != null ) {
+			int slashIndex = theString.indexOf( '\\' );
+			
+			if( slashIndex >= 0 ) {
+				int length = theString.length( );
+				StringBuilder builder = new StringBuilder( length );
+				int copyIndex = 0;
+				
+				while( slashIndex >= 0 && slashIndex < length - 1 ) {
+					if( isLineTerminator( theString.charAt( slashIndex + 1 ) ) ) {
+						// the slash isn't escaping anything, so it stays
+						slashIndex = theString.indexOf( '\\', slashIndex + 1 );
+					} else {
+						builder.append( theString, copyIndex, slashIndex );
+						builder.append( theString.charAt( slashIndex + 1 ) );
+						copyIndex = slashIndex + 2;
+						slashIndex = theString.indexOf( '\\', copyIndex );
+					}
+				}
+				if( copyIndex > 0 ) {
+					builder.append( theString, copyIndex, length );
+					returnValue = builder.toString( );
+				}
+			}
+		}
+		return returnValue;
+	}
+
+	/**
+	 * Helper method that indicates if the character is one of the line
+	 * terminators that cannot be escaped.
+	 */
+	private static boolean isLineTerminator( char theCharacter ) {
+		return theCharacter == '\n' || theCharacter == '\r' || theCharacter == '\u0085' || theCharacter == '\u2028' || theCharacter == '\u2029';
+	}
 }
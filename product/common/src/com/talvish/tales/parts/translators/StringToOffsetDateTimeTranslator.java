@@ -19,6 +19,8 @@ import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
+import com.talvish.tales.parts.PrimitiveEncoding;
+
 public class StringToOffsetDateTimeTranslator extends StringToObjectTranslatorBase implements Translator {
 
 	public StringToOffsetDateTimeTranslator( ) {
@@ -43,7 +45,11 @@ public class StringToOffsetDateTimeTranslator extends StringToObjectTranslatorBa
 				if( stringValue.equals("") ) {
 					returnValue = this.emptyValue;
 				} else {
-					returnValue = OffsetDateTime.parse( stringValue, DateTimeFormatter.ISO_DATE_TIME );
+					// the common form is parsed directly, otherwise we use the full parser
+					returnValue = PrimitiveEncoding.parseOffsetDateTime( stringValue );
+					if( returnValue == null ) {
+						returnValue = OffsetDateTime.parse( stringValue, DateTimeFormatter.ISO_DATE_TIME );
+					}
 				}
 			} catch( DateTimeParseException e ) {
 				throw new TranslationException( String.format( "Unable to translate '%s' into a datetime.", anObject ), e );
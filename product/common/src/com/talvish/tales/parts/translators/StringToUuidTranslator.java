@@ -17,6 +17,8 @@ package com.talvish.tales.parts.translators;
 
 import java.util.UUID;
 
+import com.talvish.tales.parts.PrimitiveEncoding;
+
 /**
  * Class to convert a string to a UUID. If the string
  * cannot be translated a translation exception is thrown. 
@@ -64,7 +66,11 @@ public class StringToUuidTranslator extends StringToObjectTranslatorBase impleme
 					returnValue = this.emptyValue;
 				} 
 				
-				returnValue = UUID.fromString(stringValue);
+				// the standard form is parsed directly, otherwise we use the full parser
+				returnValue = PrimitiveEncoding.parseUuid( stringValue );
+				if( returnValue == null ) {
+					returnValue = UUID.fromString( stringValue );
+				}
 				
 			} catch( ClassCastException e ) {
 				throw new TranslationException( e );
@@ -18,6 +18,8 @@ package com.talvish.tales.parts.translators;
 
 import java.util.UUID;
 
+import com.talvish.tales.parts.PrimitiveEncoding;
+
 /**
  * Translator that converts a UUID into a string.
  * @author jmolnar
@@ -53,7 +55,7 @@ public class UuidToStringTranslator extends NullTranslatorBase implements Transl
 		} else {
 			try {
 				UUID value = ( UUID )anObject;
-				returnValue = value.toString();
+				returnValue = PrimitiveEncoding.formatUuid( value );
 			} catch( ClassCastException e ) {
 				throw new TranslationException( e );
 			}
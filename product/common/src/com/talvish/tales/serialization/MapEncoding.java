@@ -0,0 +1,39 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.serialization;
+
+/**
+ * Used to indicate how maps are serialized.
+ * @author jmolnar
+ *
+ */
+public enum MapEncoding {
+	/**
+	 * Use the encoding the serializer was configured with.
+	 */
+	DEFAULT,
+	/**
+	 * Maps are a list of key/value entries, which supports any
+	 * key type and more than one key or value type.
+	 */
+	ENTRIES,
+	/**
+	 * Maps are an object whose member names are the keys, which 
+	 * is more compact but only supports maps with string keys 
+	 * and a single value type.
+	 */
+	OBJECT
+}
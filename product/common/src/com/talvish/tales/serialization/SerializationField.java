@@ -2,11 +2,14 @@ package com.talvish.tales.serialization;
 
 import java.util.List;
 
+import com.google.common.base.Preconditions;
+
 import com.talvish.tales.parts.reflection.FieldDescriptor;
 import com.talvish.tales.parts.reflection.ValueType;
 import com.talvish.tales.parts.sites.MemberSite;
 
 abstract public class SerializationField <T extends SerializationType<T, F>, F extends SerializationField<T, F>> extends FieldDescriptor<T,F> {
+	protected final MapEncoding mapEncoding;
 
     /**
      * Primary constructor used to create a field that isn't a collection, array or map.
@@ -24,6 +27,7 @@ abstract public class SerializationField <T extends SerializationType<T, F>, F e
     		T theDeclaringType, 
     		T theContainingType ) {
     	super( theName, theFieldValueType, theObjectTypes, theFieldSite, theDeclaringType, theContainingType );
+    	mapEncoding = MapEncoding.DEFAULT;
     }
 
     /**
@@ -43,7 +47,39 @@ abstract public class SerializationField <T extends SerializationType<T, F>, F e
     		MemberSite theFieldSite, 
     		T theDeclaringType, 
     		T theContainingType ) {
+    	this( theName, theKeyTypes, theValueTypes, MapEncoding.DEFAULT, theFieldSite, theDeclaringType, theContainingType );
+    }
+
+    /**
+     * Constructor used to create a map that indicates how it should be encoded.
+     * @param theName the name to give the field
+     * @param theKeyType the type of the key for the map
+     * @param theValueType the type of the value for the map
+     * @param theMapEncoding how the map should be encoded
+     * @param theFieldSite the site information for modifying the field
+     * @param theDeclaringType the contract type this field was declared in
+     * @param theContainingType the class that currently contains the field, which, if not the same as theDeclaringType is a subclass
+     */
+	protected SerializationField( 
+    		String theName, 
+    		List<ValueType<T, F>> theKeyTypes, 
+    		List<ValueType<T, F>> theValueTypes, 
+    		MapEncoding theMapEncoding,
+    		MemberSite theFieldSite, 
+    		T theDeclaringType, 
+    		T theContainingType ) {
     	super( theName, theKeyTypes, theValueTypes, theFieldSite, theDeclaringType, theContainingType );
+    	Preconditions.checkNotNull( theMapEncoding, String.format( "field '%s' is missing the map encoding", theName ) );
+    	mapEncoding = theMapEncoding;
+    }
+
+    /**
+     * Indicates how the map in this field should be encoded, which
+     * is {@code MapEncoding.DEFAULT} if not a map or not indicated.
+     * @return how the map should be encoded
+     */
+    public MapEncoding getMapEncoding( ) {
+    	return this.mapEncoding;
     }
 
     /**
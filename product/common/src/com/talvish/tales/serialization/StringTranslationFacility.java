@@ -32,6 +32,7 @@ import com.talvish.tales.parts.reflection.JavaType;
 import com.talvish.tales.parts.translators.BitSetToStringTranslator;
 import com.talvish.tales.parts.translators.BooleanToStringTranslator;
 import com.talvish.tales.parts.translators.ByteArrayToStringTranslator;
+import com.talvish.tales.parts.translators.DateTimeToStringTranslator;
 import com.talvish.tales.parts.translators.EnumToStringTranslator;
 import com.talvish.tales.parts.translators.ObjectToStringTranslator;
 import com.talvish.tales.parts.translators.StringToBigDecimalTranslator;
@@ -101,7 +102,8 @@ public final class StringTranslationFacility implements Facility {
 
 		
 		Translator toDateTimeTranslator = new StringToDateTimeTranslator( true, null, null );
-		this.registerTranslators( new JavaType( DateTime.class ), toDateTimeTranslator, fromObjectTranslator );
+		Translator fromDateTimeTranslator = new DateTimeToStringTranslator( "" );
+		this.registerTranslators( new JavaType( DateTime.class ), toDateTimeTranslator, fromDateTimeTranslator );
 
 		Translator toOffsetDateTimeTranslator = new StringToOffsetDateTimeTranslator( true,  null,  null );
 		this.registerTranslators( new JavaType( OffsetDateTime.class ), toOffsetDateTimeTranslator, fromObjectTranslator );		
@@ -15,62 +15,214 @@
 // ***************************************************************************
 package com.talvish.tales.serialization;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLDecoder;
-import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.base.Strings;
 
 /**
  * A simple class with common string methods.
+ * The encoding and decoding match {@code URLEncoder} and {@code URLDecoder} 
+ * but the strings are worked on directly, strings that don't need changes
+ * are returned as is, and charsets are looked up once and then cached.
  * @author jmolnar
  */
 public final class UrlEncoding {
+	// the number of charsets, beyond utf-8, we are willing to remember
+	private static final int MAXIMUM_CACHED_CHARSETS = 32;
+	private static final ConcurrentHashMap<String, Charset> charsets = new ConcurrentHashMap<String, Charset>( );
+	
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray( );
+	
     /**
      * URL encodes a string and hides the needed to handle an exception that should never happen.
      */
     public static String encode( String theString ) {
-    	return encode( "UTF-8", theString );
+    	return encode( StandardCharsets.UTF_8, theString );
     }
 
     /**
      * URL encodes a string and hides the needed to handle an exception that should never happen.
      */
     public static String encode( String theEncoding, String theString ) {
-        String encodedString = null;
+    	return encode( getCharset( theEncoding ), theString );
+    }
+
+    /**
+     * URL encodes a string using the charset given.
+     * If nothing needs encoding the string given is returned.
+     */
+    public static String encode( Charset theCharset, String theString ) {
+    	String encodedString = theString;
 
-        if( Strings.isNullOrEmpty( theEncoding ) ) {
-    		theEncoding = "UTF-8";
+    	if( needsEncoding( theString ) ) {
+	    	int length = theString.length( );
+	    	StringBuilder builder = new StringBuilder( length + 16 );
+	    	int index = 0;
+	    	
+	    	while( index < length ) {
+	    		char character = theString.charAt( index );
+	    		
+	    		if( isUnreserved( character ) ) {
+	    			builder.append( character );
+	    			index += 1;
+	    		} else if( character == ' ' ) {
+	    			builder.append( '+' );
+	    			index += 1;
+	    		} else {
+	    			// we convert the full run of characters needing encoding so
+	    			// surrogate pairs and multi-character sequences stay together
+	    			int endIndex = index + 1;
+	    			
+	    			while( endIndex < length && !isUnreserved( theString.charAt( endIndex ) ) && theString.charAt( endIndex ) != ' ' ) {
+	    				endIndex += 1;
+	    			}
+	    			for( byte value : theString.substring( index, endIndex ).getBytes( theCharset ) ) {
+	    				builder.append( '%' );
+	    				builder.append( HEX_DIGITS[ ( value >> 4 ) & 0xF ] );
+	    				builder.append( HEX_DIGITS[ value & 0xF ] );
+	    			}
+	    			index = endIndex;
+	    		}
+	    	}
+	    	encodedString = builder.toString( );
     	}
-        try {
-            encodedString = URLEncoder.encode(theString, theEncoding );
-        } catch( UnsupportedEncodingException e ) {
-            throw new RuntimeException( String.format( "Didn't like '%s' encoding", theEncoding ), e );
-        }
         return encodedString;
     }
 
     /**
-     * URL encodes a string and hides the needed to handle an exception that should never happen.
+     * URL decodes a string and hides the needed to handle an exception that should never happen.
      */
     public static String decode( String theString ) {
-    	return decode( "UTF-8", theString );
+    	return decode( StandardCharsets.UTF_8, theString );
     }
 
     /**
-     * URL encodes a string and hides the needed to handle an exception that should never happen.
+     * URL decodes a string and hides the needed to handle an exception that should never happen.
      */
     public static String decode( String theEncoding, String theString ) {
-        String decodedString = null;
+    	// the string is checked first so the charset isn't needed if there is nothing to do
+    	return needsDecoding( theString ) ? decode( getCharset( theEncoding ), theString ) : theString;
+    }
 
-        if( Strings.isNullOrEmpty( theEncoding ) ) {
-    		theEncoding = "UTF-8";
-    	}
-        try {
-        	decodedString = URLDecoder.decode(theString, theEncoding );
-        } catch( UnsupportedEncodingException e ) {
-            throw new RuntimeException( String.format( "Didn't like '%s' encoding", theEncoding ), e );
+    /**
+     * URL decodes a string using the charset given.
+     * If nothing needs decoding the string given is returned.
+     * @throws IllegalArgumentException if an escape sequence is malformed
+     */
+    public static String decode( Charset theCharset, String theString ) {
+        String decodedString = theString;
+        
+        if( needsDecoding( theString ) ) {
+        	int length = theString.length( );
+        	StringBuilder builder = new StringBuilder( length );
+        	byte[] bytes = null;
+        	int index = 0;
+        	
+        	while( index < length ) {
+        		char character = theString.charAt( index );
+        		
+        		if( character == '+' ) {
+        			builder.append( ' ' );
+        			index += 1;
+        		} else if( character == '%' ) {
+        			// consecutive escapes are collected so multi-byte characters decode properly
+        			if( bytes == null ) {
+        				bytes = new byte[ ( length - index ) / 3 ];
+        			}
+        			int byteCount = 0;
+        			
+        			while( index + 2 < length && theString.charAt( index ) == '%' ) {
+        				int high = Character.digit( theString.charAt( index + 1 ), 16 );
+        				int low = Character.digit( theString.charAt( index + 2 ), 16 );
+        				
+        				if( high < 0 || low < 0 ) {
+        					throw new IllegalArgumentException( String.format( "Illegal hex characters in escape pattern at offset '%s' of '%s'", index, theString ) );
+        				}
+        				bytes[ byteCount ] = ( byte )( ( high << 4 ) | low );
+        				byteCount += 1;
+        				index += 3;
+        			}
+        			if( index < length && theString.charAt( index ) == '%' ) {
+        				throw new IllegalArgumentException( String.format( "Incomplete trailing escape pattern at offset '%s' of '%s'", index, theString ) );
+        			}
+        			builder.append( new String( bytes, 0, byteCount, theCharset ) );
+        		} else {
+        			builder.append( character );
+        			index += 1;
+        		}
+        	}
+        	decodedString = builder.toString( );
         }
         return decodedString;
     }
+
+    /**
+     * Returns the charset for the name given, defaulting to utf-8 if a name isn't given.
+     * Charsets are cached so the lookup by name only happens once.
+     * @throws RuntimeException if the charset isn't supported
+     */
+    public static Charset getCharset( String theEncoding ) {
+    	Charset charset;
+    	
+    	if( Strings.isNullOrEmpty( theEncoding ) || "UTF-8".equalsIgnoreCase( theEncoding ) ) {
+    		charset = StandardCharsets.UTF_8;
+    	} else {
+    		charset = charsets.get( theEncoding );
+    		if( charset == null ) {
+    			try {
+    				charset = Charset.forName( theEncoding );
+    			} catch( IllegalCharsetNameException | UnsupportedCharsetException e ) {
+    				throw new RuntimeException( String.format( "Didn't like '%s' encoding", theEncoding ), e );
+    			}
+    			// names can come from requests, so we only remember so many
+    			if( charsets.size( ) < MAXIMUM_CACHED_CHARSETS ) {
+    				charsets.putIfAbsent( theEncoding, charset );
+    			}
+    		}
+    	}
+    	return charset;
+    }
+
+    /**
+     * Indicates if the string has characters that URL encoding will change.
+     */
+    private static boolean needsEncoding( String theString ) {
+    	int length = theString.length( );
+    	
+    	for( int index = 0; index < length; index += 1 ) {
+    		if( !isUnreserved( theString.charAt( index ) ) ) {
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+
+    /**
+     * Indicates if the string has characters that URL decoding will change.
+     */
+    private static boolean needsDecoding( String theString ) {
+    	int length = theString.length( );
+    	
+    	for( int index = 0; index < length; index += 1 ) {
+    		char character = theString.charAt( index );
+    		if( character == '%' || character == '+' ) {
+    			return true;
+    		}
+    	}
+    	return false;
+    }
+
+    /**
+     * Indicates if the character is left as is by URL encoding.
+     */
+    private static boolean isUnreserved( char theCharacter ) {
+    	return ( theCharacter >= 'a' && theCharacter <= 'z' ) ||
+    			( theCharacter >= 'A' && theCharacter <= 'Z' ) ||
+    			( theCharacter >= '0' && theCharacter <= '9' ) ||
+    			theCharacter == '-' || theCharacter == '_' || theCharacter == '.' || theCharacter == '*';
+    }
 }
@@ -0,0 +1,113 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.serialization.cbor;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.talvish.tales.communication.HeaderConstants;
+
+/**
+ * A utility class containing helper methods for creating CBOR writers
+ * and readers, and for deciding if a caller would like CBOR.
+ * @author jmolnar
+ *
+ */
+public final class CborHelper {
+	/**
+	 * Creates a cbor writer, on top of the stream, that behaves the same
+	 * as the json writers used throughout the system (e.g. nulls are serialized).
+	 * @param theStream the stream to write to
+	 * @return the cbor writer
+	 */
+	public static CborWriter createWriter( OutputStream theStream ) {
+		Preconditions.checkNotNull( theStream, "need a stream" );
+		CborWriter cborWriter = new CborWriter( theStream );
+
+		cborWriter.setSerializeNulls( true );
+		cborWriter.setLenient( true );
+		return cborWriter;
+	}
+
+	/**
+	 * Creates a cbor reader, on top of the stream, that behaves the same
+	 * as the json readers used throughout the system (e.g. it is lenient).
+	 * @param theStream the stream to read from
+	 * @return the cbor reader
+	 */
+	public static CborReader createReader( InputStream theStream ) {
+		Preconditions.checkNotNull( theStream, "need a stream" );
+		CborReader cborReader = new CborReader( theStream );
+
+		cborReader.setLenient( true );
+		return cborReader;
+	}
+
+	/**
+	 * Indicates if the content type is CBOR.
+	 * @param theContentType the value of a content type header, which may be null
+	 * @return true if the content type is CBOR, false otherwise
+	 */
+	public static boolean isCbor( String theContentType ) {
+		if( Strings.isNullOrEmpty( theContentType ) ) {
+			return false;
+		} else {
+			int end = theContentType.indexOf( ';' );
+			return theContentType.substring( 0, end < 0 ? theContentType.length( ) : end ).trim( ).equalsIgnoreCase( HeaderConstants.CBOR_MEDIA_TYPE );
+		}
+	}
+
+	/**
+	 * Indicates if, based on the accept header, the caller prefers CBOR over json.
+	 * This is true if CBOR is listed and json isn't given a higher quality.
+	 * Wildcards are not considered, so callers must ask for CBOR directly.
+	 * @param theAccept the value of the accept header, which may be null
+	 * @return true if CBOR should be sent, false if json should be sent
+	 */
+	public static boolean isPreferred( String theAccept ) {
+		if( Strings.isNullOrEmpty( theAccept ) || theAccept.indexOf( HeaderConstants.CBOR_MEDIA_TYPE ) < 0 ) {
+			return false; // the quick check, since most callers won't ask
+		} else {
+			double cborQuality = 0.0d;
+			double jsonQuality = 0.0d;
+
+			for( String range : theAccept.split( "," ) ) {
+				String[] parts = range.split( ";" );
+				String mediaType = parts[ 0 ].trim( );
+				double quality = 1.0d;
+
+				for( int index = 1; index < parts.length; index += 1 ) {
+					String parameter = parts[ index ].trim( );
+					if( parameter.startsWith( "q=" ) ) {
+						try {
+							quality = Double.parseDouble( parameter.substring( 2 ) );
+						} catch( NumberFormatException e ) {
+							quality = 0.0d; // a bad quality isn't something we can trust
+						}
+					}
+				}
+				if( mediaType.equalsIgnoreCase( HeaderConstants.CBOR_MEDIA_TYPE ) ) {
+					cborQuality = Math.max( cborQuality, quality );
+				} else if( mediaType.equalsIgnoreCase( HeaderConstants.JSON_MEDIA_TYPE ) ) {
+					jsonQuality = Math.max( jsonQuality, quality );
+				}
+			}
+			return cborQuality > 0.0d && cborQuality >= jsonQuality;
+		}
+	}
+}
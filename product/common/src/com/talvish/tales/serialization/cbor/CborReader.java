@@ -0,0 +1,741 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.serialization.cbor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * A {@code JsonReader} that reads CBOR (RFC 7049), a compact binary form of
+ * the json data model, instead of json text. Since it is a {@code JsonReader}
+ * the existing json translators, and Gson's parser, read from it without change.
+ * Map keys must be text strings or integers, which are read as names. Numbers
+ * are given as {@code NUMBER} tokens, including bignums and decimal fractions,
+ * and other tags are ignored so the tagged value is read as is. Byte strings
+ * and undefined simple values are not part of the json data model, so byte
+ * strings are not supported and undefined values are read as nulls.
+ * @author jmolnar
+ *
+ */
+public class CborReader extends JsonReader {
+	private static final int BUFFER_SIZE = 8192;
+
+	// the base class needs a reader, but is never given a chance to use it
+	private static final Reader UNUSED_READER = new Reader( ) {
+		@Override
+		public int read( char[] theCharacters, int theOffset, int theLength ) {
+			throw new IllegalStateException( "The cbor reader does not read text." );
+		}
+		@Override
+		public void close( ) {
+		}
+	};
+
+	private static final int CONTEXT_ARRAY = 1;
+	private static final int CONTEXT_OBJECT = 2;
+
+	private final InputStream stream;
+	private final byte[] buffer = new byte[ BUFFER_SIZE ];
+	private int bufferPosition = 0;
+	private int bufferLimit = 0;
+	private long streamPosition = 0;
+
+	// the containers we are in, how many items remain (or -1 if
+	// indefinite) and, for objects, if a name is expected next
+	private int[] contexts = new int[ 32 ];
+	private long[] remaining = new long[ 32 ];
+	private boolean[] expectingName = new boolean[ 32 ];
+	private int depth = 0;
+
+	// the peeked token, and the details needed to consume it
+	private JsonToken peeked;
+	private int peekedMajorType;
+	private long peekedArgument;
+	private boolean peekedIndefinite;
+	private String peekedNumber;
+	private int documentCount = 0;
+
+	/**
+	 * Constructor taking the stream to read from.
+	 * @param theStream the stream to read from
+	 */
+	public CborReader( InputStream theStream ) {
+		super( UNUSED_READER );
+		Preconditions.checkNotNull( theStream, "need a stream" );
+		stream = theStream;
+	}
+
+	/**
+	 * Returns the type of the next token without consuming it.
+	 */
+	@Override
+	public JsonToken peek( ) throws IOException {
+		if( peeked == null ) {
+			peeked = doPeekToken( );
+		}
+		return peeked;
+	}
+
+	/**
+	 * Consumes the start of an array.
+	 */
+	@Override
+	public void beginArray( ) throws IOException {
+		expectToken( JsonToken.BEGIN_ARRAY );
+		push( CONTEXT_ARRAY, peekedIndefinite ? -1 : peekedArgument );
+		peeked = null;
+	}
+
+	/**
+	 * Consumes the end of an array.
+	 */
+	@Override
+	public void endArray( ) throws IOException {
+		expectToken( JsonToken.END_ARRAY );
+		pop( );
+	}
+
+	/**
+	 * Consumes the start of an object.
+	 */
+	@Override
+	public void beginObject( ) throws IOException {
+		expectToken( JsonToken.BEGIN_OBJECT );
+		push( CONTEXT_OBJECT, peekedIndefinite ? -1 : peekedArgument );
+		peeked = null;
+	}
+
+	/**
+	 * Consumes the end of an object.
+	 */
+	@Override
+	public void endObject( ) throws IOException {
+		expectToken( JsonToken.END_OBJECT );
+		pop( );
+	}
+
+	/**
+	 * Indicates if the current array or object has more values.
+	 */
+	@Override
+	public boolean hasNext( ) throws IOException {
+		JsonToken token = peek( );
+		return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+	}
+
+	/**
+	 * Consumes the next name in an object.
+	 */
+	@Override
+	public String nextName( ) throws IOException {
+		expectToken( JsonToken.NAME );
+		String name;
+		if( peekedMajorType == CborWriter.MAJOR_TYPE_TEXT_STRING ) {
+			name = readText( );
+		} else {
+			name = peekedNumber;
+		}
+		peeked = null;
+		expectingName[ depth - 1 ] = false;
+		return name;
+	}
+
+	/**
+	 * Consumes the next string, or number as a string.
+	 */
+	@Override
+	public String nextString( ) throws IOException {
+		JsonToken token = peek( );
+		String value;
+		if( token == JsonToken.STRING ) {
+			value = readText( );
+		} else if( token == JsonToken.NUMBER ) {
+			value = peekedNumber;
+		} else {
+			throw unexpected( "a string", token );
+		}
+		consumedValue( );
+		return value;
+	}
+
+	/**
+	 * Consumes the next boolean.
+	 */
+	@Override
+	public boolean nextBoolean( ) throws IOException {
+		expectToken( JsonToken.BOOLEAN );
+		boolean value = peekedArgument == CborWriter.SIMPLE_TRUE;
+		consumedValue( );
+		return value;
+	}
+
+	/**
+	 * Consumes the next null.
+	 */
+	@Override
+	public void nextNull( ) throws IOException {
+		expectToken( JsonToken.NULL );
+		consumedValue( );
+	}
+
+	/**
+	 * Consumes the next number, or string, as a double.
+	 */
+	@Override
+	public double nextDouble( ) throws IOException {
+		double value = Double.parseDouble( nextNumberText( ) );
+		consumedValue( );
+		return value;
+	}
+
+	/**
+	 * Consumes the next number, or string, as a long,
+	 * failing if the value isn't a whole number or doesn't fit.
+	 */
+	@Override
+	public long nextLong( ) throws IOException {
+		String text = nextNumberText( );
+		long value;
+		try {
+			value = Long.parseLong( text );
+		} catch( NumberFormatException e ) {
+			try {
+				value = new BigDecimal( text ).longValueExact( );
+			} catch( ArithmeticException | NumberFormatException e2 ) {
+				throw new NumberFormatException( String.format( "Expected a long but was '%s' at %s.", text, getPath( ) ) );
+			}
+		}
+		consumedValue( );
+		return value;
+	}
+
+	/**
+	 * Consumes the next number, or string, as an int,
+	 * failing if the value isn't a whole number or doesn't fit.
+	 */
+	@Override
+	public int nextInt( ) throws IOException {
+		String text = nextNumberText( );
+		int value;
+		try {
+			value = Integer.parseInt( text );
+		} catch( NumberFormatException e ) {
+			try {
+				value = new BigDecimal( text ).intValueExact( );
+			} catch( ArithmeticException | NumberFormatException e2 ) {
+				throw new NumberFormatException( String.format( "Expected an int but was '%s' at %s.", text, getPath( ) ) );
+			}
+		}
+		consumedValue( );
+		return value;
+	}
+
+	/**
+	 * Skips the next value, including all nested values, or the next name.
+	 */
+	@Override
+	public void skipValue( ) throws IOException {
+		JsonToken token = peek( );
+		switch( token ) {
+		case NAME:
+			nextName( );
+			break;
+		case BEGIN_ARRAY:
+			beginArray( );
+			while( hasNext( ) ) {
+				skipValue( );
+			}
+			endArray( );
+			break;
+		case BEGIN_OBJECT:
+			beginObject( );
+			while( hasNext( ) ) {
+				nextName( );
+				skipValue( );
+			}
+			endObject( );
+			break;
+		case STRING:
+			nextString( );
+			break;
+		case NUMBER:
+		case BOOLEAN:
+		case NULL:
+			consumedValue( );
+			break;
+		default:
+			throw unexpected( "a value", token );
+		}
+	}
+
+	/**
+	 * Closes the underlying stream.
+	 */
+	@Override
+	public void close( ) throws IOException {
+		peeked = null;
+		depth = 0;
+		stream.close( );
+	}
+
+	/**
+	 * Returns the position, in bytes, of the reader, since a json path isn't tracked.
+	 */
+	@Override
+	public String getPath( ) {
+		return String.format( "byte %s", streamPosition - ( bufferLimit - bufferPosition ) );
+	}
+
+	/**
+	 * Returns a description of the reader and its position.
+	 */
+	@Override
+	public String toString( ) {
+		return getClass( ).getSimpleName( ) + " at " + getPath( );
+	}
+
+	/**
+	 * Helper method that determines the next token, reading the header of
+	 * the next item and, for numbers, the number itself.
+	 * @return the next token
+	 * @throws IOException thrown if the stream could not be read or was malformed
+	 */
+	private JsonToken doPeekToken( ) throws IOException {
+		if( depth == 0 ) {
+			if( documentCount > 0 ) {
+				if( !fill( 1 ) ) {
+					return JsonToken.END_DOCUMENT;
+				} else if( !isLenient( ) ) {
+					throw syntaxError( "The document can only have a single top-level value." );
+				}
+			} else if( !fill( 1 ) ) {
+				throw new EOFException( "End of input at " + getPath( ) );
+			}
+		} else {
+			int context = contexts[ depth - 1 ];
+			if( remaining[ depth - 1 ] == 0 ) {
+				return context == CONTEXT_ARRAY ? JsonToken.END_ARRAY : JsonToken.END_OBJECT;
+			} else if( remaining[ depth - 1 ] < 0 && peekByte( ) == CborWriter.BREAK ) {
+				return context == CONTEXT_ARRAY ? JsonToken.END_ARRAY : JsonToken.END_OBJECT;
+			}
+		}
+
+		JsonToken token = readHeader( );
+		while( peekedMajorType == CborWriter.MAJOR_TYPE_TAG ) {
+			if( peekedArgument == CborWriter.TAG_POSITIVE_BIGNUM || peekedArgument == CborWriter.TAG_NEGATIVE_BIGNUM ) {
+				boolean negative = peekedArgument == CborWriter.TAG_NEGATIVE_BIGNUM;
+				BigInteger value = readBignum( );
+				peekedNumber = ( negative ? value.negate( ).subtract( BigInteger.ONE ) : value ).toString( );
+				token = JsonToken.NUMBER;
+				break;
+			} else if( peekedArgument == CborWriter.TAG_DECIMAL_FRACTION ) {
+				peekedNumber = readDecimalFraction( ).toString( );
+				token = JsonToken.NUMBER;
+				break;
+			} else {
+				// other tags only add meaning, so we read the tagged value as is
+				token = readHeader( );
+			}
+		}
+		if( token == null ) {
+			throw syntaxError( "Byte strings are not supported." );
+		}
+		if( depth > 0 && contexts[ depth - 1 ] == CONTEXT_OBJECT && expectingName[ depth - 1 ] ) {
+			if( peekedMajorType == CborWriter.MAJOR_TYPE_TEXT_STRING || ( token == JsonToken.NUMBER && peekedMajorType <= CborWriter.MAJOR_TYPE_NEGATIVE_INTEGER ) ) {
+				token = JsonToken.NAME;
+			} else {
+				throw syntaxError( "Object keys must be strings or integers." );
+			}
+		}
+		return token;
+	}
+
+	/**
+	 * Helper method that reads the header of an item, setting the peeked details.
+	 * @return the token for the item
+	 * @throws IOException thrown if the stream could not be read or was malformed
+	 */
+	private JsonToken readHeader( ) throws IOException {
+		int initialByte = readByte( );
+		int majorType = initialByte >>> 5;
+		int additional = initialByte & 0x1f;
+
+		peekedMajorType = majorType;
+		peekedIndefinite = false;
+		peekedNumber = null;
+		if( majorType == CborWriter.MAJOR_TYPE_SIMPLE ) {
+			peekedArgument = additional;
+			switch( additional ) {
+			case CborWriter.SIMPLE_FALSE:
+			case CborWriter.SIMPLE_TRUE:
+				return JsonToken.BOOLEAN;
+			case CborWriter.SIMPLE_NULL:
+			case CborWriter.SIMPLE_UNDEFINED:
+				return JsonToken.NULL;
+			case CborWriter.SIMPLE_FLOAT16:
+				peekedNumber = Double.toString( halfToFloat( ( int )readUnsigned( 2 ) ) );
+				return JsonToken.NUMBER;
+			case CborWriter.SIMPLE_FLOAT32:
+				peekedNumber = Double.toString( Float.intBitsToFloat( ( int )readUnsigned( 4 ) ) );
+				return JsonToken.NUMBER;
+			case CborWriter.SIMPLE_FLOAT64:
+				peekedNumber = Double.toString( Double.longBitsToDouble( readUnsigned( 8 ) ) );
+				return JsonToken.NUMBER;
+			default:
+				throw syntaxError( String.format( "Simple value '%s' is not supported.", additional ) );
+			}
+		}
+
+		if( additional < 24 ) {
+			peekedArgument = additional;
+		} else if( additional < 28 ) {
+			peekedArgument = readUnsigned( 1 << ( additional - 24 ) );
+		} else if( additional == CborWriter.INDEFINITE_LENGTH && majorType >= CborWriter.MAJOR_TYPE_BYTE_STRING && majorType <= CborWriter.MAJOR_TYPE_MAP ) {
+			peekedIndefinite = true;
+			peekedArgument = -1;
+		} else {
+			throw syntaxError( String.format( "Additional information '%s' is not valid for major type '%s'.", additional, majorType ) );
+		}
+
+		switch( majorType ) {
+		case CborWriter.MAJOR_TYPE_UNSIGNED_INTEGER:
+			peekedNumber = peekedArgument >= 0 ? Long.toString( peekedArgument ) : Long.toUnsignedString( peekedArgument );
+			return JsonToken.NUMBER;
+		case CborWriter.MAJOR_TYPE_NEGATIVE_INTEGER:
+			peekedNumber = peekedArgument >= 0 ? Long.toString( -1l - peekedArgument ) : new BigInteger( Long.toUnsignedString( peekedArgument ) ).negate( ).subtract( BigInteger.ONE ).toString( );
+			return JsonToken.NUMBER;
+		case CborWriter.MAJOR_TYPE_TEXT_STRING:
+			return JsonToken.STRING;
+		case CborWriter.MAJOR_TYPE_ARRAY:
+			return JsonToken.BEGIN_ARRAY;
+		case CborWriter.MAJOR_TYPE_MAP:
+			return JsonToken.BEGIN_OBJECT;
+		default:
+			return null; // the caller handles tags and byte strings (which are only used within bignums)
+		}
+	}
+
+	/**
+	 * Helper method that reads the byte string contents of a bignum, after its tag.
+	 * @return the unsigned value of the bignum
+	 * @throws IOException thrown if the stream could not be read or was malformed
+	 */
+	private BigInteger readBignum( ) throws IOException {
+		readHeader( );
+		if( peekedMajorType != CborWriter.MAJOR_TYPE_BYTE_STRING || peekedIndefinite || peekedArgument < 0 || peekedArgument > Integer.MAX_VALUE ) {
+			throw syntaxError( "A bignum must be a byte string." );
+		}
+		return new BigInteger( 1, readBytes( ( int )peekedArgument ) );
+	}
+
+	/**
+	 * Helper method that reads the contents of a decimal fraction, after its tag.
+	 * @return the value of the decimal fraction
+	 * @throws IOException thrown if the stream could not be read or was malformed
+	 */
+	private BigDecimal readDecimalFraction( ) throws IOException {
+		if( readHeader( ) != JsonToken.BEGIN_ARRAY || peekedArgument != 2 ) {
+			throw syntaxError( "A decimal fraction must be an array of two items." );
+		}
+		if( readHeader( ) != JsonToken.NUMBER || peekedMajorType > CborWriter.MAJOR_TYPE_NEGATIVE_INTEGER ) {
+			throw syntaxError( "A decimal fraction must have an integer exponent." );
+		}
+		// the exponent is negated for the scale, so the smallest int isn't allowed either
+		BigInteger exponentValue = new BigInteger( peekedNumber );
+		if( exponentValue.bitLength( ) > 31 || exponentValue.intValue( ) == Integer.MIN_VALUE ) {
+			throw syntaxError( "A decimal fraction has an exponent that is out of range." );
+		}
+		int exponent = exponentValue.intValue( );
+		BigInteger mantissa;
+		JsonToken token = readHeader( );
+		if( token == JsonToken.NUMBER && peekedMajorType <= CborWriter.MAJOR_TYPE_NEGATIVE_INTEGER ) {
+			mantissa = new BigInteger( peekedNumber );
+		} else if( peekedMajorType == CborWriter.MAJOR_TYPE_TAG && ( peekedArgument == CborWriter.TAG_POSITIVE_BIGNUM || peekedArgument == CborWriter.TAG_NEGATIVE_BIGNUM ) ) {
+			boolean negative = peekedArgument == CborWriter.TAG_NEGATIVE_BIGNUM;
+			mantissa = readBignum( );
+			if( negative ) {
+				mantissa = mantissa.negate( ).subtract( BigInteger.ONE );
+			}
+		} else {
+			throw syntaxError( "A decimal fraction must have an integer mantissa." );
+		}
+		return new BigDecimal( mantissa, -exponent );
+	}
+
+	/**
+	 * Helper method that reads the text string that was peeked.
+	 * @return the text
+	 * @throws IOException thrown if the stream could not be read or was malformed
+	 */
+	private String readText( ) throws IOException {
+		if( !peekedIndefinite ) {
+			return readUtf8( peekedArgument );
+		} else {
+			// indefinite text is a series of definite text chunks
+			StringBuilder builder = new StringBuilder( );
+			while( peekByte( ) != CborWriter.BREAK ) {
+				int initialByte = readByte( );
+				int additional = initialByte & 0x1f;
+				if( ( initialByte >>> 5 ) != CborWriter.MAJOR_TYPE_TEXT_STRING || additional > 27 ) {
+					throw syntaxError( "Indefinite text must contain definite text." );
+				}
+				builder.append( readUtf8( additional < 24 ? additional : readUnsigned( 1 << ( additional - 24 ) ) ) );
+			}
+			readByte( );
+			return builder.toString( );
+		}
+	}
+
+	/**
+	 * Helper method that reads UTF-8 encoded text.
+	 * @param theLength the number of bytes to read
+	 * @return the text
+	 * @throws IOException thrown if the stream could not be read or was malformed
+	 */
+	private String readUtf8( long theLength ) throws IOException {
+		if( theLength < 0 || theLength > Integer.MAX_VALUE ) {
+			throw syntaxError( "Text is too long." );
+		}
+		int length = ( int )theLength;
+		if( length <= buffer.length ) {
+			if( !fill( length ) ) {
+				throw new EOFException( "End of input at " + getPath( ) );
+			}
+			String text = new String( buffer, bufferPosition, length, StandardCharsets.UTF_8 );
+			bufferPosition += length;
+			return text;
+		} else {
+			return new String( readBytes( length ), StandardCharsets.UTF_8 );
+		}
+	}
+
+	/**
+	 * Helper method that reads a number of bytes into a new array.
+	 * @param theLength the number of bytes to read
+	 * @return the bytes
+	 * @throws IOException thrown if the stream could not be read
+	 */
+	private byte[] readBytes( int theLength ) throws IOException {
+		byte[] bytes = new byte[ theLength ];
+		int offset = 0;
+		int count;
+		while( offset < theLength ) {
+			if( bufferPosition == bufferLimit && !fill( 1 ) ) {
+				throw new EOFException( "End of input at " + getPath( ) );
+			}
+			count = Math.min( theLength - offset, bufferLimit - bufferPosition );
+			System.arraycopy( buffer, bufferPosition, bytes, offset, count );
+			bufferPosition += count;
+			offset += count;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Helper method that reads an unsigned, big-endian, value.
+	 * @param theCount the number of bytes, 8 or less, to read
+	 * @return the value, which may be negative if the top bit of an 8 byte value is set
+	 * @throws IOException thrown if the stream could not be read
+	 */
+	private long readUnsigned( int theCount ) throws IOException {
+		if( !fill( theCount ) ) {
+			throw new EOFException( "End of input at " + getPath( ) );
+		}
+		long value = 0;
+		for( int index = 0; index < theCount; index += 1 ) {
+			value = ( value << 8 ) | ( buffer[ bufferPosition++ ] & 0xff );
+		}
+		return value;
+	}
+
+	/**
+	 * Helper method that reads a single byte.
+	 * @return the byte, as an unsigned value
+	 * @throws IOException thrown if the stream could not be read
+	 */
+	private int readByte( ) throws IOException {
+		int value = peekByte( );
+		bufferPosition += 1;
+		return value;
+	}
+
+	/**
+	 * Helper method that returns the next byte without consuming it.
+	 * @return the byte, as an unsigned value
+	 * @throws IOException thrown if the stream could not be read
+	 */
+	private int peekByte( ) throws IOException {
+		if( !fill( 1 ) ) {
+			throw new EOFException( "End of input at " + getPath( ) );
+		}
+		return buffer[ bufferPosition ] & 0xff;
+	}
+
+	/**
+	 * Helper method that makes sure the buffer has a number of bytes available.
+	 * @param theCount the number of bytes needed, which must fit in the buffer
+	 * @return true if the bytes are available, false if the stream ended first
+	 * @throws IOException thrown if the stream could not be read
+	 */
+	private boolean fill( int theCount ) throws IOException {
+		if( bufferLimit - bufferPosition >= theCount ) {
+			return true;
+		}
+		// move what is left to the start and read more
+		System.arraycopy( buffer, bufferPosition, buffer, 0, bufferLimit - bufferPosition );
+		bufferLimit -= bufferPosition;
+		bufferPosition = 0;
+		int count;
+		while( bufferLimit < theCount ) {
+			count = stream.read( buffer, bufferLimit, buffer.length - bufferLimit );
+			if( count < 0 ) {
+				return false;
+			}
+			bufferLimit += count;
+			streamPosition += count;
+		}
+		return true;
+	}
+
+	/**
+	 * Helper method that verifies the next token is the one expected.
+	 * @param theToken the token expected
+	 * @throws IOException thrown if the stream could not be read or was malformed
+	 */
+	private void expectToken( JsonToken theToken ) throws IOException {
+		JsonToken token = peek( );
+		if( token != theToken ) {
+			throw unexpected( theToken.toString( ), token );
+		}
+	}
+
+	/**
+	 * Helper method that gets the text of the next number, or string.
+	 * @return the text of the number
+	 * @throws IOException thrown if the stream could not be read or was malformed
+	 */
+	private String nextNumberText( ) throws IOException {
+		JsonToken token = peek( );
+		if( token == JsonToken.NUMBER ) {
+			return peekedNumber;
+		} else if( token == JsonToken.STRING ) {
+			// like json, strings can hold numbers, so we keep it as a number token
+			peekedNumber = readText( );
+			peeked = JsonToken.NUMBER;
+			return peekedNumber;
+		} else {
+			throw unexpected( "a number", token );
+		}
+	}
+
+	/**
+	 * Helper method called when a value has been consumed, which updates
+	 * the current container to know how many values remain.
+	 */
+	private void consumedValue( ) {
+		peeked = null;
+		if( depth == 0 ) {
+			documentCount += 1;
+		} else {
+			int index = depth - 1;
+			if( remaining[ index ] > 0 && ( contexts[ index ] == CONTEXT_ARRAY || !expectingName[ index ] ) ) {
+				remaining[ index ] -= 1;
+			}
+			if( contexts[ index ] == CONTEXT_OBJECT ) {
+				expectingName[ index ] = true;
+			}
+		}
+	}
+
+	/**
+	 * Helper method that enters an array or object.
+	 * @param theContext the context being entered
+	 * @param theCount the number of items, or pairs, in the container, or -1 if indefinite
+	 */
+	private void push( int theContext, long theCount ) {
+		if( depth == contexts.length ) {
+			contexts = Arrays.copyOf( contexts, depth * 2 );
+			remaining = Arrays.copyOf( remaining, depth * 2 );
+			expectingName = Arrays.copyOf( expectingName, depth * 2 );
+		}
+		contexts[ depth ] = theContext;
+		remaining[ depth ] = theCount;
+		expectingName[ depth ] = theContext == CONTEXT_OBJECT;
+		depth += 1;
+	}
+
+	/**
+	 * Helper method that leaves an array or object, consuming the
+	 * break if it was indefinite, and counts it as a consumed value.
+	 * @throws IOException thrown if the stream could not be read
+	 */
+	private void pop( ) throws IOException {
+		if( remaining[ depth - 1 ] < 0 ) {
+			readByte( ); // this is the break
+		}
+		depth -= 1;
+		consumedValue( );
+	}
+
+	/**
+	 * Helper method that converts a half-precision float.
+	 * @param theBits the bits of the half-precision float
+	 * @return the value as a float
+	 */
+	private static float halfToFloat( int theBits ) {
+		int exponent = ( theBits >> 10 ) & 0x1f;
+		int mantissa = theBits & 0x3ff;
+		float value;
+		if( exponent == 0 ) {
+			value = Math.scalb( mantissa, -24 );
+		} else if( exponent == 31 ) {
+			value = mantissa == 0 ? Float.POSITIVE_INFINITY : Float.NaN;
+		} else {
+			value = Math.scalb( mantissa + 1024, exponent - 25 );
+		}
+		return ( theBits & 0x8000 ) != 0 ? -value : value;
+	}
+
+	/**
+	 * Helper method that creates the exception for an unexpected token.
+	 * @param theExpected what was expected
+	 * @param theToken the token found
+	 * @return the exception to throw
+	 */
+	private IllegalStateException unexpected( String theExpected, JsonToken theToken ) {
+		return new IllegalStateException( String.format( "Expected %s but was %s at %s.", theExpected, theToken, getPath( ) ) );
+	}
+
+	/**
+	 * Helper method that creates the exception for malformed input.
+	 * @param theMessage the message describing the problem
+	 * @return the exception to throw
+	 */
+	private MalformedJsonException syntaxError( String theMessage ) {
+		return new MalformedJsonException( theMessage + " At " + getPath( ) + "." );
+	}
+}
@@ -0,0 +1,584 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.serialization.cbor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.talvish.tales.serialization.json.JsonWriterHelper;
+
+/**
+ * A {@code JsonWriter} that writes CBOR (RFC 7049), a compact binary form of
+ * the json data model, instead of json text. Since it is a {@code JsonWriter}
+ * the existing json translators write to it without change. Arrays and objects
+ * are written with indefinite lengths, since sizes aren't known ahead of time,
+ * integers are written in as few bytes as possible, doubles are written as
+ * 32-bit floats when that doesn't lose precision, and numbers that don't fit
+ * are written as bignums or decimal fractions.
+ * @author jmolnar
+ *
+ */
+public class CborWriter extends JsonWriter {
+	static final int MAJOR_TYPE_UNSIGNED_INTEGER = 0;
+	static final int MAJOR_TYPE_NEGATIVE_INTEGER = 1;
+	static final int MAJOR_TYPE_BYTE_STRING = 2;
+	static final int MAJOR_TYPE_TEXT_STRING = 3;
+	static final int MAJOR_TYPE_ARRAY = 4;
+	static final int MAJOR_TYPE_MAP = 5;
+	static final int MAJOR_TYPE_TAG = 6;
+	static final int MAJOR_TYPE_SIMPLE = 7;
+
+	static final int INDEFINITE_LENGTH = 31;
+	static final int BREAK = 0xff;
+
+	static final int SIMPLE_FALSE = 20;
+	static final int SIMPLE_TRUE = 21;
+	static final int SIMPLE_NULL = 22;
+	static final int SIMPLE_UNDEFINED = 23;
+	static final int SIMPLE_FLOAT16 = 25;
+	static final int SIMPLE_FLOAT32 = 26;
+	static final int SIMPLE_FLOAT64 = 27;
+
+	static final int TAG_POSITIVE_BIGNUM = 2;
+	static final int TAG_NEGATIVE_BIGNUM = 3;
+	static final int TAG_DECIMAL_FRACTION = 4;
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final BigInteger MINIMUM_LONG = BigInteger.valueOf( Long.MIN_VALUE );
+	private static final BigInteger MAXIMUM_LONG = BigInteger.valueOf( Long.MAX_VALUE );
+	private static final JsonParser parser = new JsonParser( ); // this is thread safe, so we only need one
+
+	// the base class needs a writer, but is never given a chance to use it
+	private static final Writer UNUSED_WRITER = new Writer( ) {
+		@Override
+		public void write( char[] theCharacters, int theOffset, int theLength ) {
+			throw new IllegalStateException( "The cbor writer does not write text." );
+		}
+		@Override
+		public void flush( ) {
+		}
+		@Override
+		public void close( ) {
+		}
+	};
+
+	private static final int CONTEXT_ARRAY = 1;
+	private static final int CONTEXT_OBJECT = 2;
+
+	private final OutputStream stream;
+	private final byte[] buffer = new byte[ BUFFER_SIZE ];
+	private int bufferPosition = 0;
+
+	private int[] contexts = new int[ 32 ];
+	private int depth = 0;
+	private boolean documentWritten = false;
+	private String deferredName;
+	private boolean closed = false;
+
+	/**
+	 * Constructor taking the stream to write to.
+	 * @param theStream the stream to write to
+	 */
+	public CborWriter( OutputStream theStream ) {
+		super( UNUSED_WRITER );
+		Preconditions.checkNotNull( theStream, "need a stream" );
+		stream = theStream;
+	}
+
+	/**
+	 * Begins writing an array, which continues until {@link #endArray()} is called.
+	 */
+	@Override
+	public JsonWriter beginArray( ) throws IOException {
+		beforeValue( );
+		writeByte( ( MAJOR_TYPE_ARRAY << 5 ) | INDEFINITE_LENGTH );
+		push( CONTEXT_ARRAY );
+		return this;
+	}
+
+	/**
+	 * Ends the current array.
+	 */
+	@Override
+	public JsonWriter endArray( ) throws IOException {
+		pop( CONTEXT_ARRAY );
+		writeByte( BREAK );
+		return this;
+	}
+
+	/**
+	 * Begins writing an object, which continues until {@link #endObject()} is called.
+	 */
+	@Override
+	public JsonWriter beginObject( ) throws IOException {
+		beforeValue( );
+		writeByte( ( MAJOR_TYPE_MAP << 5 ) | INDEFINITE_LENGTH );
+		push( CONTEXT_OBJECT );
+		return this;
+	}
+
+	/**
+	 * Ends the current object.
+	 */
+	@Override
+	public JsonWriter endObject( ) throws IOException {
+		if( deferredName != null ) {
+			throw new IllegalStateException( String.format( "Name '%s' was not given a value.", deferredName ) );
+		}
+		pop( CONTEXT_OBJECT );
+		writeByte( BREAK );
+		return this;
+	}
+
+	/**
+	 * Sets the name of the next value written into the current object.
+	 * The name isn't written until the value is written, so that null
+	 * values can be skipped if nulls aren't being serialized.
+	 */
+	@Override
+	public JsonWriter name( String theName ) throws IOException {
+		Preconditions.checkNotNull( theName, "need a name" );
+		if( depth == 0 || contexts[ depth - 1 ] != CONTEXT_OBJECT || deferredName != null ) {
+			throw new IllegalStateException( String.format( "Name '%s' is not expected here.", theName ) );
+		}
+		deferredName = theName;
+		return this;
+	}
+
+	/**
+	 * Writes a string value, or null if the value is null.
+	 */
+	@Override
+	public JsonWriter value( String theValue ) throws IOException {
+		if( theValue == null ) {
+			return nullValue( );
+		} else {
+			beforeValue( );
+			writeText( theValue );
+			return this;
+		}
+	}
+
+	/**
+	 * Writes a raw json value by parsing it and writing the result.
+	 */
+	@Override
+	public JsonWriter jsonValue( String theValue ) throws IOException {
+		if( theValue == null ) {
+			return nullValue( );
+		} else {
+			JsonWriterHelper.write( parser.parse( theValue ), this );
+			return this;
+		}
+	}
+
+	/**
+	 * Writes a value that was already encoded as CBOR, typically 
+	 * by another CBOR writer, so it doesn't need to be encoded again.
+	 * The bytes must be exactly one complete CBOR data item.
+	 * @param theValue the encoded value
+	 * @return the writer
+	 * @throws IOException thrown if the stream could not be written to
+	 */
+	public JsonWriter encodedValue( byte[] theValue ) throws IOException {
+		Preconditions.checkNotNull( theValue, "need a value" );
+		beforeValue( );
+		if( theValue.length > buffer.length ) {
+			flushBuffer( );
+			stream.write( theValue );
+		} else {
+			ensureCapacity( theValue.length );
+			System.arraycopy( theValue, 0, buffer, bufferPosition, theValue.length );
+			bufferPosition += theValue.length;
+		}
+		return this;
+	}
+
+	/**
+	 * Writes a null value, which, if nulls aren't being serialized,
+	 * causes the name and the value to be skipped.
+	 */
+	@Override
+	public JsonWriter nullValue( ) throws IOException {
+		if( deferredName != null && !getSerializeNulls( ) ) {
+			deferredName = null;
+		} else {
+			beforeValue( );
+			writeByte( ( MAJOR_TYPE_SIMPLE << 5 ) | SIMPLE_NULL );
+		}
+		return this;
+	}
+
+	/**
+	 * Writes a boolean value.
+	 */
+	@Override
+	public JsonWriter value( boolean theValue ) throws IOException {
+		beforeValue( );
+		writeByte( ( MAJOR_TYPE_SIMPLE << 5 ) | ( theValue ? SIMPLE_TRUE : SIMPLE_FALSE ) );
+		return this;
+	}
+
+	/**
+	 * Writes a boolean value, or null if the value is null.
+	 */
+	@Override
+	public JsonWriter value( Boolean theValue ) throws IOException {
+		if( theValue == null ) {
+			return nullValue( );
+		} else {
+			return value( theValue.booleanValue( ) );
+		}
+	}
+
+	/**
+	 * Writes a double value, as a 32-bit float if no precision is lost.
+	 * Unlike json, CBOR is able to represent NaN and infinite values.
+	 */
+	@Override
+	public JsonWriter value( double theValue ) throws IOException {
+		beforeValue( );
+		writeDouble( theValue );
+		return this;
+	}
+
+	/**
+	 * Writes a long value, in as few bytes as possible.
+	 */
+	@Override
+	public JsonWriter value( long theValue ) throws IOException {
+		beforeValue( );
+		writeLong( theValue );
+		return this;
+	}
+
+	/**
+	 * Writes a number value, or null if the value is null, using the
+	 * most compact form that represents the number without loss.
+	 */
+	@Override
+	public JsonWriter value( Number theValue ) throws IOException {
+		if( theValue == null ) {
+			return nullValue( );
+		}
+		beforeValue( );
+		if( theValue instanceof Integer || theValue instanceof Long || theValue instanceof Short || theValue instanceof Byte || theValue instanceof AtomicInteger || theValue instanceof AtomicLong ) {
+			writeLong( theValue.longValue( ) );
+		} else if( theValue instanceof Double || theValue instanceof Float ) {
+			writeDouble( theValue.doubleValue( ) );
+		} else if( theValue instanceof BigInteger ) {
+			writeBigInteger( ( BigInteger )theValue );
+		} else if( theValue instanceof BigDecimal ) {
+			writeBigDecimal( ( BigDecimal )theValue );
+		} else {
+			// this is typically a number parsed from json text, which
+			// holds the text, so we write it based on what the text is
+			String text = theValue.toString( );
+			try {
+				writeLong( Long.parseLong( text ) );
+			} catch( NumberFormatException e ) {
+				try {
+					writeBigDecimal( new BigDecimal( text ) );
+				} catch( NumberFormatException e2 ) {
+					// this handles values like NaN and Infinity
+					writeDouble( theValue.doubleValue( ) );
+				}
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Writes any buffered bytes to the underlying stream and flushes it.
+	 */
+	@Override
+	public void flush( ) throws IOException {
+		if( closed ) {
+			throw new IllegalStateException( "The writer is closed." );
+		}
+		flushBuffer( );
+		stream.flush( );
+	}
+
+	/**
+	 * Writes any buffered bytes and closes the underlying stream.
+	 */
+	@Override
+	public void close( ) throws IOException {
+		if( !closed ) {
+			closed = true;
+			flushBuffer( );
+			stream.close( );
+			if( depth > 0 || !documentWritten ) {
+				throw new IOException( "Incomplete document." );
+			}
+		}
+	}
+
+	/**
+	 * Helper method called before a value is written, which verifies a
+	 * value can be written and writes the deferred name, if there is one.
+	 * @throws IOException thrown if the stream could not be written to
+	 */
+	private void beforeValue( ) throws IOException {
+		if( closed ) {
+			throw new IllegalStateException( "The writer is closed." );
+		} else if( depth == 0 ) {
+			if( documentWritten && !isLenient( ) ) {
+				throw new IllegalStateException( "The document can only have a single top-level value." );
+			}
+			documentWritten = true;
+		} else if( contexts[ depth - 1 ] == CONTEXT_OBJECT ) {
+			if( deferredName == null ) {
+				throw new IllegalStateException( "Values in an object need a name." );
+			}
+			writeText( deferredName );
+			deferredName = null;
+		}
+	}
+
+	/**
+	 * Helper method that enters an array or object.
+	 * @param theContext the context being entered
+	 */
+	private void push( int theContext ) {
+		if( depth == contexts.length ) {
+			contexts = Arrays.copyOf( contexts, depth * 2 );
+		}
+		contexts[ depth ] = theContext;
+		depth += 1;
+	}
+
+	/**
+	 * Helper method that leaves an array or object.
+	 * @param theContext the context expected to be left
+	 */
+	private void pop( int theContext ) {
+		if( depth == 0 || contexts[ depth - 1 ] != theContext ) {
+			throw new IllegalStateException( "Nesting problem." );
+		}
+		depth -= 1;
+	}
+
+	/**
+	 * Helper method that writes a signed long as a CBOR integer.
+	 * @param theValue the value to write
+	 * @throws IOException thrown if the stream could not be written to
+	 */
+	private void writeLong( long theValue ) throws IOException {
+		if( theValue >= 0 ) {
+			writeHeader( MAJOR_TYPE_UNSIGNED_INTEGER, theValue );
+		} else {
+			// negative integers are stored as -1 - n, which always fits
+			writeHeader( MAJOR_TYPE_NEGATIVE_INTEGER, -1l - theValue );
+		}
+	}
+
+	/**
+	 * Helper method that writes a double, as a 32-bit float if no precision is lost.
+	 * @param theValue the value to write
+	 * @throws IOException thrown if the stream could not be written to
+	 */
+	private void writeDouble( double theValue ) throws IOException {
+		float floatValue = ( float )theValue;
+		if( floatValue == theValue || Double.isNaN( theValue ) ) {
+			ensureCapacity( 5 );
+			buffer[ bufferPosition++ ] = ( byte )( ( MAJOR_TYPE_SIMPLE << 5 ) | SIMPLE_FLOAT32 );
+			writeBytes( Float.floatToIntBits( floatValue ), 4 );
+		} else {
+			ensureCapacity( 9 );
+			buffer[ bufferPosition++ ] = ( byte )( ( MAJOR_TYPE_SIMPLE << 5 ) | SIMPLE_FLOAT64 );
+			writeBytes( Double.doubleToLongBits( theValue ), 8 );
+		}
+	}
+
+	/**
+	 * Helper method that writes a big integer as a CBOR integer, if it fits, or as a bignum.
+	 * @param theValue the value to write
+	 * @throws IOException thrown if the stream could not be written to
+	 */
+	private void writeBigInteger( BigInteger theValue ) throws IOException {
+		if( theValue.compareTo( MINIMUM_LONG ) >= 0 && theValue.compareTo( MAXIMUM_LONG ) <= 0 ) {
+			writeLong( theValue.longValue( ) );
+		} else {
+			byte[] magnitude;
+			if( theValue.signum( ) >= 0 ) {
+				writeHeader( MAJOR_TYPE_TAG, TAG_POSITIVE_BIGNUM );
+				magnitude = theValue.toByteArray( );
+			} else {
+				writeHeader( MAJOR_TYPE_TAG, TAG_NEGATIVE_BIGNUM );
+				magnitude = theValue.negate( ).subtract( BigInteger.ONE ).toByteArray( );
+			}
+			// the byte array may have a leading zero for the sign, which cbor doesn't need
+			int offset = magnitude.length > 1 && magnitude[ 0 ] == 0 ? 1 : 0;
+			writeHeader( MAJOR_TYPE_BYTE_STRING, magnitude.length - offset );
+			for( int index = offset; index < magnitude.length; index += 1 ) {
+				writeByte( magnitude[ index ] );
+			}
+		}
+	}
+
+	/**
+	 * Helper method that writes a big decimal as a CBOR integer, if it is one that
+	 * fits, or as a decimal fraction, so the value and precision are kept.
+	 * @param theValue the value to write
+	 * @throws IOException thrown if the stream could not be written to
+	 */
+	private void writeBigDecimal( BigDecimal theValue ) throws IOException {
+		if( theValue.scale( ) == 0 ) {
+			writeBigInteger( theValue.unscaledValue( ) );
+		} else {
+			writeHeader( MAJOR_TYPE_TAG, TAG_DECIMAL_FRACTION );
+			writeHeader( MAJOR_TYPE_ARRAY, 2 );
+			writeLong( -( long )theValue.scale( ) );
+			writeBigInteger( theValue.unscaledValue( ) );
+		}
+	}
+
+	/**
+	 * Helper method that writes a string as UTF-8 text, encoding directly into the buffer.
+	 * @param theValue the value to write
+	 * @throws IOException thrown if the stream could not be written to
+	 */
+	private void writeText( String theValue ) throws IOException {
+		int length = theValue.length( );
+		int byteLength = 0;
+		char character;
+
+		// first we figure out the encoded length
+		for( int index = 0; index < length; index += 1 ) {
+			character = theValue.charAt( index );
+			if( character < 0x80 ) {
+				byteLength += 1;
+			} else if( character < 0x800 ) {
+				byteLength += 2;
+			} else if( Character.isHighSurrogate( character ) && index + 1 < length && Character.isLowSurrogate( theValue.charAt( index + 1 ) ) ) {
+				byteLength += 4;
+				index += 1;
+			} else if( Character.isSurrogate( character ) ) {
+				byteLength += 1; // unpaired surrogates are replaced with '?', as String.getBytes does
+			} else {
+				byteLength += 3;
+			}
+		}
+		writeHeader( MAJOR_TYPE_TEXT_STRING, byteLength );
+
+		// then we encode
+		for( int index = 0; index < length; index += 1 ) {
+			ensureCapacity( 4 );
+			character = theValue.charAt( index );
+			if( character < 0x80 ) {
+				buffer[ bufferPosition++ ] = ( byte )character;
+			} else if( character < 0x800 ) {
+				buffer[ bufferPosition++ ] = ( byte )( 0xc0 | ( character >> 6 ) );
+				buffer[ bufferPosition++ ] = ( byte )( 0x80 | ( character & 0x3f ) );
+			} else if( Character.isHighSurrogate( character ) && index + 1 < length && Character.isLowSurrogate( theValue.charAt( index + 1 ) ) ) {
+				int codePoint = Character.toCodePoint( character, theValue.charAt( index + 1 ) );
+				buffer[ bufferPosition++ ] = ( byte )( 0xf0 | ( codePoint >> 18 ) );
+				buffer[ bufferPosition++ ] = ( byte )( 0x80 | ( ( codePoint >> 12 ) & 0x3f ) );
+				buffer[ bufferPosition++ ] = ( byte )( 0x80 | ( ( codePoint >> 6 ) & 0x3f ) );
+				buffer[ bufferPosition++ ] = ( byte )( 0x80 | ( codePoint & 0x3f ) );
+				index += 1;
+			} else if( Character.isSurrogate( character ) ) {
+				buffer[ bufferPosition++ ] = ( byte )'?';
+			} else {
+				buffer[ bufferPosition++ ] = ( byte )( 0xe0 | ( character >> 12 ) );
+				buffer[ bufferPosition++ ] = ( byte )( 0x80 | ( ( character >> 6 ) & 0x3f ) );
+				buffer[ bufferPosition++ ] = ( byte )( 0x80 | ( character & 0x3f ) );
+			}
+		}
+	}
+
+	/**
+	 * Helper method that writes the initial byte, and any following bytes,
+	 * for a major type and its unsigned argument, in as few bytes as possible.
+	 * @param theMajorType the major type to write
+	 * @param theArgument the argument, treated as unsigned, to write
+	 * @throws IOException thrown if the stream could not be written to
+	 */
+	private void writeHeader( int theMajorType, long theArgument ) throws IOException {
+		ensureCapacity( 9 );
+		int majorType = theMajorType << 5;
+		if( theArgument >= 0 && theArgument < 24 ) {
+			buffer[ bufferPosition++ ] = ( byte )( majorType | ( int )theArgument );
+		} else if( theArgument >= 0 && theArgument <= 0xffl ) {
+			buffer[ bufferPosition++ ] = ( byte )( majorType | 24 );
+			writeBytes( theArgument, 1 );
+		} else if( theArgument >= 0 && theArgument <= 0xffffl ) {
+			buffer[ bufferPosition++ ] = ( byte )( majorType | 25 );
+			writeBytes( theArgument, 2 );
+		} else if( theArgument >= 0 && theArgument <= 0xffffffffl ) {
+			buffer[ bufferPosition++ ] = ( byte )( majorType | 26 );
+			writeBytes( theArgument, 4 );
+		} else {
+			buffer[ bufferPosition++ ] = ( byte )( majorType | 27 );
+			writeBytes( theArgument, 8 );
+		}
+	}
+
+	/**
+	 * Helper method that writes the lowest bytes of a value, in big-endian order,
+	 * presuming the buffer already has the capacity.
+	 * @param theValue the value to write
+	 * @param theCount the number of bytes to write
+	 */
+	private void writeBytes( long theValue, int theCount ) {
+		for( int shift = ( theCount - 1 ) * 8; shift >= 0; shift -= 8 ) {
+			buffer[ bufferPosition++ ] = ( byte )( theValue >>> shift );
+		}
+	}
+
+	/**
+	 * Helper method that writes a single byte.
+	 * @param theValue the byte to write
+	 * @throws IOException thrown if the stream could not be written to
+	 */
+	private void writeByte( int theValue ) throws IOException {
+		ensureCapacity( 1 );
+		buffer[ bufferPosition++ ] = ( byte )theValue;
+	}
+
+	/**
+	 * Helper method that makes sure the buffer has room, flushing if needed.
+	 * @param theCount the number of bytes needed
+	 * @throws IOException thrown if the stream could not be written to
+	 */
+	private void ensureCapacity( int theCount ) throws IOException {
+		if( bufferPosition + theCount > buffer.length ) {
+			flushBuffer( );
+		}
+	}
+
+	/**
+	 * Helper method that writes the buffer to the underlying stream.
+	 * @throws IOException thrown if the stream could not be written to
+	 */
+	private void flushBuffer( ) throws IOException {
+		if( bufferPosition > 0 ) {
+			stream.write( buffer, 0, bufferPosition );
+			bufferPosition = 0;
+		}
+	}
+}
@@ -15,8 +15,12 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json;
 
+import java.io.IOException;
+
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 import com.talvish.tales.parts.sites.TranslatedDataSite;
 import com.talvish.tales.parts.translators.TranslationException;
@@ -86,6 +90,16 @@ public class JsonMemberMap {
 		}
 	}
 	
+	/**
+	 * Writes data for the field, from the instance passed in, to the json writer. 
+	 * @param theInstance the parent object that contains the field
+	 * @param theWriter the json writer to write to
+	 * @throws IOException thrown if the writer could not be written to
+	 */
+	public void writeData( Object theInstance, JsonWriter theWriter ) throws IOException {
+		JsonWriterHelper.write( dataSite.getGetterTranslator( ), dataSite.getDataSite( ).getData( theInstance ), theWriter );
+	}
+	
 	/**
 	 * Sets the data on the field for the instance passed in.
 	 * @param theInstance the parent object that contains the field
@@ -94,4 +108,15 @@ public class JsonMemberMap {
 	public void setData( Object theInstance, JsonElement theValue ) {
 		dataSite.setData( theInstance, theValue ); 
 	}
+	
+	/**
+	 * Reads data for the field, from the json reader, and sets it on the instance passed in.
+	 * The result is the same as setting the data using the parsed JsonElement. 
+	 * @param theInstance the parent object that contains the field
+	 * @param theReader the json reader to read from
+	 * @throws IOException thrown if the reader could not be read from
+	 */
+	public void readData( Object theInstance, JsonReader theReader ) throws IOException {
+		dataSite.getDataSite( ).setData( theInstance, JsonReaderHelper.read( dataSite.getSetterTranslator( ), theReader ) );
+	}
 }
@@ -0,0 +1,128 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.serialization.json;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.talvish.tales.parts.translators.TranslationException;
+import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.json.translators.JsonReadingTranslator;
+
+/**
+ * A utility class containing helper methods for reading 
+ * values directly from a {@code JsonReader}.
+ * @author jmolnar
+ *
+ */
+public final class JsonReaderHelper {
+	private static final JsonParser parser = new JsonParser(); // this is thread safe, so we only need one
+
+	/**
+	 * Creates a json reader, on top of the reader, that accepts
+	 * the same input as the Gson parser used throughout the system
+	 * (e.g. it is lenient).
+	 * @param theReader the reader to read from
+	 * @return the json reader
+	 */
+	public static JsonReader createReader( Reader theReader ) {
+		Preconditions.checkNotNull( theReader, "need a reader" );
+		JsonReader jsonReader = new JsonReader( theReader );
+		
+		// Gson parses JsonElements leniently, so we do the same
+		jsonReader.setLenient( true );
+		return jsonReader;
+	}
+
+	/**
+	 * Reads a whole json document, using the translator. This behaves the same as
+	 * parsing the document into a JsonElement and then translating, including
+	 * treating an empty document as a json null, but if the translator is able 
+	 * to read directly then the JsonElement tree is never created.
+	 * @param theTranslator the translator to convert the json
+	 * @param theReader the json reader to read from
+	 * @return the translated value
+	 */
+	public static Object readDocument( Translator theTranslator, JsonReader theReader ) {
+		try {
+			try {
+				theReader.peek( );
+			} catch( EOFException e ) {
+				// the Gson parser treats an empty document as a json null
+				return theTranslator.translate( JsonNull.INSTANCE );
+			}
+			Object value = read( theTranslator, theReader );
+			if( theReader.peek( ) != JsonToken.END_DOCUMENT ) {
+				throw new TranslationException( "Did not consume the entire json document." );
+			}
+			return value;
+		} catch( IOException | JsonParseException e ) {
+			throw new TranslationException( e );
+		}
+	}
+
+	/**
+	 * Reads the next value from the json reader, using the translator. If the 
+	 * translator is able to read directly then it is used, otherwise the
+	 * value is parsed into a JsonElement which the translator then translates.
+	 * A json null is always given to the translator as a {@code JsonNull}.
+	 * @param theTranslator the translator to convert the json
+	 * @param theReader the json reader to read from
+	 * @return the translated value
+	 * @throws IOException thrown if the reader could not be read from
+	 */
+	public static Object read( Translator theTranslator, JsonReader theReader ) throws IOException {
+		if( theReader.peek( ) == JsonToken.NULL ) {
+			theReader.nextNull( );
+			return theTranslator.translate( JsonNull.INSTANCE );
+		} else if( theTranslator instanceof JsonReadingTranslator ) {
+			return ( ( JsonReadingTranslator )theTranslator ).read( theReader );
+		} else {
+			return theTranslator.translate( parse( theReader ) );
+		}
+	}
+	
+	/**
+	 * Parses the next value from the json reader into a JsonElement.
+	 * @param theReader the json reader to read from
+	 * @return the JsonElement for the value
+	 */
+	public static JsonElement parse( JsonReader theReader ) {
+		return parser.parse( theReader );
+	}
+
+	/**
+	 * Helper method that verifies the next value in the reader is of the expected type.
+	 * @param theReader the json reader to check
+	 * @param theExpectedToken the token expected next
+	 * @param theDescription a description of what is expected, used for the failure message
+	 * @throws IOException thrown if the reader could not be read from
+	 */
+	public static void expect( JsonReader theReader, JsonToken theExpectedToken, String theDescription ) throws IOException {
+		JsonToken token = theReader.peek( );
+		if( token != theExpectedToken ) {
+			throw new TranslationException( String.format( "Attempting to read %s but found '%s' instead.", theDescription, token ) );
+		}
+	}
+}
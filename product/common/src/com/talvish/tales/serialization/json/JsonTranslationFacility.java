@@ -15,6 +15,8 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json;
 
+import java.io.Reader;
+import java.io.StringReader;
 import java.lang.reflect.ParameterizedType;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -26,25 +28,34 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonParser;
 
 import com.talvish.tales.businessobjects.ObjectId;
 import com.talvish.tales.parts.reflection.JavaType;
 import com.talvish.tales.parts.reflection.TypeUtility;
 import com.talvish.tales.parts.reflection.ValueType;
+import com.talvish.tales.parts.sites.FieldSite;
+import com.talvish.tales.parts.sites.HandleFieldSite;
+import com.talvish.tales.parts.sites.MemberSite;
 import com.talvish.tales.parts.sites.TranslatedDataSite;
+import com.talvish.tales.parts.translators.DateTimeToStringTranslator;
 import com.talvish.tales.parts.translators.PassthroughTranslator;
 import com.talvish.tales.parts.translators.StringToEnumTranslator;
-import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.parts.translators.UuidToStringTranslator;
+import com.talvish.tales.serialization.MapEncoding;
 import com.talvish.tales.serialization.Readability;
 import com.talvish.tales.serialization.SerializationField;
 import com.talvish.tales.serialization.SerializationType;
@@ -69,6 +80,7 @@ import com.talvish.tales.serialization.json.translators.JsonObjectToObjectTransl
 import com.talvish.tales.serialization.json.translators.JsonObjectToPolymorphicObjectTranslator;
 import com.talvish.tales.serialization.json.translators.JsonObjectToVoidTranslator;
 import com.talvish.tales.serialization.json.translators.MapToJsonArrayTranslator;
+import com.talvish.tales.serialization.json.translators.MapToJsonObjectTranslator;
 import com.talvish.tales.serialization.json.translators.NumberToJsonPrimitiveTranslator;
 import com.talvish.tales.serialization.json.translators.ObjectToJsonObjectTranslator;
 import com.talvish.tales.serialization.json.translators.ObjectToJsonPrimitiveTranslator;
@@ -76,14 +88,29 @@ import com.talvish.tales.serialization.json.translators.PolymorphicObjectToJsonO
 import com.talvish.tales.serialization.json.translators.StringToJsonPrimitiveTranslator;
 import com.talvish.tales.serialization.json.translators.VoidToJsonObjectTranslator;
 import com.talvish.tales.system.Facility;
+import com.talvish.tales.system.status.MonitorableStatusValue;
 
 /**
  * This class manages translation to/from JSON.
+ * Adapters that are registered are always kept, but adapters that are generated
+ * for composite types (e.g. collections, maps, arrays, enums and data contracts) 
+ * are kept in a bounded cache, keyed by the full type including generic details,
+ * so they are built once but cannot grow without limit.
+ * Maps are written as key/value entries unless the facility, or the data member,
+ * indicates maps with string keys and a single value type are written as objects.
+ * Either form is accepted when reading.
  * @author jmolnar
  *
  */
 public final class JsonTranslationFacility implements Facility {
+	public static final long DEFAULT_MAXIMUM_COMPOSITE_ADAPTERS = 4096l;
+
+	private static final Logger logger = LoggerFactory.getLogger( JsonTranslationFacility.class );
+
 	private final Map<JavaType, TypeFormatAdapter> adapters = new ConcurrentHashMap<>( 16, 0.75f, 1 );
+	private final Cache<JavaType, TypeFormatAdapter> compositeAdapters;
+	private final long maximumCompositeAdapters;
+	private final MapEncoding defaultMapEncoding;
 	
 	// these are using concurrent hash maps for slight protection, but concurrency factor is low
 	// since we don't expect much concurrency and we don't want the memory overhead
@@ -101,18 +128,67 @@ public final class JsonTranslationFacility implements Facility {
 	private final Gson machineGson;
 	private final Gson defaultGson;
 	private final Readability defaultReadability;
-	private final JsonParser parser = new JsonParser( );
+	private final boolean generateAccessors;
 	
 	public JsonTranslationFacility( SerializationTypeSource<?,?> theTypeSource ) {
 		this( theTypeSource, Readability.MACHINE );
 	}
 
 	public JsonTranslationFacility( SerializationTypeSource<?,?> theTypeSource, Readability theDefaultReadability ) {
+		this( theTypeSource, theDefaultReadability, false );
+	}
+
+	/**
+	 * Constructor taking the source of type information, the default readability and 
+	 * whether accessors should be generated for the members of types, when the type 
+	 * maps are generated, instead of using reflection to get and set member values.
+	 * @param theTypeSource the source of type information
+	 * @param theDefaultReadability the default readability for to-string conversions
+	 * @param shouldGenerateAccessors true to generate accessors, false to use reflection
+	 */
+	public JsonTranslationFacility( SerializationTypeSource<?,?> theTypeSource, Readability theDefaultReadability, boolean shouldGenerateAccessors ) {
+		this( theTypeSource, theDefaultReadability, shouldGenerateAccessors, DEFAULT_MAXIMUM_COMPOSITE_ADAPTERS );
+	}
+
+	/**
+	 * Constructor taking the source of type information, the default readability, 
+	 * whether accessors should be generated for the members of types and the 
+	 * maximum number of adapters, generated for composite types, to keep.
+	 * @param theTypeSource the source of type information
+	 * @param theDefaultReadability the default readability for to-string conversions
+	 * @param shouldGenerateAccessors true to generate accessors, false to use reflection
+	 * @param theMaximumCompositeAdapters the maximum number of generated adapters to keep
+	 */
+	public JsonTranslationFacility( SerializationTypeSource<?,?> theTypeSource, Readability theDefaultReadability, boolean shouldGenerateAccessors, long theMaximumCompositeAdapters ) {
+		this( theTypeSource, theDefaultReadability, shouldGenerateAccessors, theMaximumCompositeAdapters, MapEncoding.ENTRIES );
+	}
+
+	/**
+	 * Constructor taking the source of type information, the default readability, 
+	 * whether accessors should be generated for the members of types, the 
+	 * maximum number of adapters, generated for composite types, to keep and
+	 * how maps are encoded when the data member doesn't indicate.
+	 * @param theTypeSource the source of type information
+	 * @param theDefaultReadability the default readability for to-string conversions
+	 * @param shouldGenerateAccessors true to generate accessors, false to use reflection
+	 * @param theMaximumCompositeAdapters the maximum number of generated adapters to keep
+	 * @param theDefaultMapEncoding how maps with string keys and a single value type are encoded by default
+	 */
+	public JsonTranslationFacility( SerializationTypeSource<?,?> theTypeSource, Readability theDefaultReadability, boolean shouldGenerateAccessors, long theMaximumCompositeAdapters, MapEncoding theDefaultMapEncoding ) {
+		Preconditions.checkArgument( theMaximumCompositeAdapters > 0, "maximum composite adapters must be greater than zero" );
+		Preconditions.checkArgument( theDefaultMapEncoding != null && theDefaultMapEncoding != MapEncoding.DEFAULT, "need a specific default map encoding" );
 		// TODO: change more than this, change translators
 		//       and update the string translation facility 
 		//       to do the same, and then using the 
 		//       status servlet
 		defaultReadability = theDefaultReadability;
+		generateAccessors = shouldGenerateAccessors;
+		maximumCompositeAdapters = theMaximumCompositeAdapters;
+		defaultMapEncoding = theDefaultMapEncoding;
+		compositeAdapters = CacheBuilder.newBuilder( )
+				.maximumSize( theMaximumCompositeAdapters )
+				.recordStats( )
+				.build( );
 		
 		humanGson = new GsonBuilder( ).serializeNulls( ).setPrettyPrinting( ).create();
 		machineGson = new GsonBuilder( ).serializeNulls( ).create();
@@ -129,8 +205,6 @@ public final class JsonTranslationFacility implements Facility {
 		Translator voidToJsonTranslator = new VoidToJsonObjectTranslator( );
 		Translator passthroughTranslator = new PassthroughTranslator( );
 
-		// TODO: these could be faster if we went to number directly and then cast into the right type, instead of turning them into strings first
-		
 		JavaType javaType;
 		
 		javaType = new JavaType( int.class );
@@ -203,7 +277,7 @@ public final class JsonTranslationFacility implements Facility {
 				javaType,
 				"datetime", 
 				new JsonElementToStringToChainTranslator( stringTranslators.getFromStringTranslator( javaType ) ),
-				objectToJsonTranslator );
+				new ChainToStringToJsonPrimitiveTranslator( new DateTimeToStringTranslator( ) ) );
 
 		javaType = new JavaType( OffsetDateTime.class );
 		registerJsonElementTranslators( 
@@ -238,7 +312,7 @@ public final class JsonTranslationFacility implements Facility {
 				javaType,
 				"uuid : string", 
 				new JsonElementToStringToChainTranslator( stringTranslators.getFromStringTranslator( javaType ) ),
-				objectToJsonTranslator );
+				new ChainToStringToJsonPrimitiveTranslator( new UuidToStringTranslator( ) ) );
 
 		javaType = new JavaType( ObjectId.class );
 		registerJsonElementTranslators( 
@@ -278,6 +352,15 @@ public final class JsonTranslationFacility implements Facility {
 	public Readability getDefaultReaability( ) {
 		return this.defaultReadability;
 	}
+
+	/**
+	 * Indicates if accessors are generated for the members of types, when the
+	 * type maps are generated, instead of using reflection to get and set values.
+	 * @return true if accessors are generated, false otherwise
+	 */
+	public boolean isGeneratingAccessors( ) {
+		return this.generateAccessors;
+	}
 	
 	/***
 	 * This method is used to add translators into the system for ensuring proper conversion.
@@ -304,6 +387,7 @@ public final class JsonTranslationFacility implements Facility {
 				new JsonElementToStringToChainTranslator( fromStringTranslator ), 
 				new ChainToStringToJsonPrimitiveTranslator( toStringTranslator ) );
 		this.adapters.put( jsonTypeAdapter.getType(), jsonTypeAdapter );
+		this.compositeAdapters.invalidate( jsonTypeAdapter.getType() );
 	}
 
 	/***
@@ -326,6 +410,7 @@ public final class JsonTranslationFacility implements Facility {
 				fromJsonTranslator, 
 				toJsonTranslator );
 		this.adapters.put( jsonTypeAdapter.getType(), jsonTypeAdapter );
+		this.compositeAdapters.invalidate( jsonTypeAdapter.getType() );
 	}
 
 	/**
@@ -380,9 +465,16 @@ public final class JsonTranslationFacility implements Facility {
 		
 			Collection<SerializationField<?,?>> fields = this.typeSource.getSerializedFields( reflectedType );
 			ArrayList<JsonMemberMap> members = new ArrayList<JsonMemberMap>( fields.size() );
+			MemberSite memberSite;
 			
 			// now we iterate over the fields found by the analysis
 			for( SerializationField<?,?> field : fields ) {
+				// if requested, we use generated accessors for the fields instead of reflection
+				if( generateAccessors && field.getSite( ) instanceof FieldSite ) {
+					memberSite = new HandleFieldSite( ( FieldSite )field.getSite( ) );
+				} else {
+					memberSite = field.getSite( );
+				}
 				if( field.isObject( ) && field.getValueTypes().size() > 1 ) {
 					// need a list of type adapters and then when
 					// done we pass the type information
@@ -397,7 +489,7 @@ public final class JsonTranslationFacility implements Facility {
 		            	}
 					}
 					members.add( new JsonMemberMap( field, new TranslatedDataSite(
-							field.getSite(), 
+							memberSite, 
 							new PolymorphicObjectToJsonObjectTranslator( valueTypeAdapters ), 
 							new JsonObjectToPolymorphicObjectTranslator( valueTypeAdapters ) ), typeMap ) );					
 				} else if( field.isCollection( ) && field.getValueTypes().size( ) >  1 ) {
@@ -421,7 +513,7 @@ public final class JsonTranslationFacility implements Facility {
 						members.add( new JsonMemberMap( 
 								field, 
 								new TranslatedDataSite(
-										field.getSite(),
+										memberSite,
 										new ArrayToJsonArrayTranslator( new PolymorphicObjectToJsonObjectTranslator( valueTypeAdapters ) ),
 										new JsonArrayToArrayTranslator( TypeUtility.extractClass( TypeUtility.extractComponentType( field.getSite().getType( ).getType() ) ), new JsonObjectToPolymorphicObjectTranslator( valueTypeAdapters ) ) ), 
 										typeMap ) );
@@ -430,7 +522,7 @@ public final class JsonTranslationFacility implements Facility {
 						members.add( new JsonMemberMap( 
 								field,
 								new TranslatedDataSite(
-										field.getSite(),
+										memberSite,
 										new CollectionToJsonArrayTranslator( new PolymorphicObjectToJsonObjectTranslator( valueTypeAdapters ) ),
 										new JsonArrayToCollectionTranslator( new JsonObjectToPolymorphicObjectTranslator( valueTypeAdapters ), field.getSite().getType( ).getUnderlyingClass() ) ), 
 										typeMap ) );
@@ -465,12 +557,15 @@ public final class JsonTranslationFacility implements Facility {
 		            		keyTypeAdapters.add( jsonTypeAdapter );
 		            	}
 					}
-					// okay so now we need to build the member adapter
+					// okay so now we need to build the member adapter, where 
+					// reading handles either encoding, but writing uses one
 					members.add( new JsonMemberMap(
 							field, 
 							new TranslatedDataSite(
-									field.getSite(),
-									new MapToJsonArrayTranslator( keyTypeAdapters, valueTypeAdapters ),
+									memberSite,
+									getMapEncoding( field ) == MapEncoding.OBJECT ? 
+											new MapToJsonObjectTranslator( valueTypeAdapters.get( 0 ).getToFormatTranslator( ) ) :
+											new MapToJsonArrayTranslator( keyTypeAdapters, valueTypeAdapters ),
 									new JsonArrayToMapTranslator( keyTypeAdapters, valueTypeAdapters, field.getSite( ).getType( ).getUnderlyingClass() ) ),
 									typeMap ) );
 					
@@ -480,7 +575,7 @@ public final class JsonTranslationFacility implements Facility {
 						throw new IllegalStateException( String.format( "Type '%s' on field '%s.%s' could not be analyzed because the type adapter could not be found.", field.getSite().getType().getSimpleName( ), theType.getName( ), field.getSite().getName( ) ) );
 	            	}
 	
-	                members.add( new JsonMemberMap( field, new TranslatedDataSite( field.getSite(), jsonTypeAdapter.getToFormatTranslator( ), jsonTypeAdapter.getFromFormatTranslator( ) ), typeMap ) );
+	                members.add( new JsonMemberMap( field, new TranslatedDataSite( memberSite, jsonTypeAdapter.getToFormatTranslator( ), jsonTypeAdapter.getFromFormatTranslator( ) ), typeMap ) );
 				}
 			}
 			// save the members now that we have them all
@@ -498,7 +593,6 @@ public final class JsonTranslationFacility implements Facility {
 	 * @return the JsonElement representing the object
 	 */
 	public <O> JsonElement toJsonElement( O theObject, JavaType theType ) {
-		// TODO: getToJsonElementTranslator doesn't save items when there is a generic type, so this generates dead objects for some types like collections
 		Preconditions.checkNotNull( theType, "need a type" );
 		TypeFormatAdapter typeAdapter = getTypeAdapter( theType );
 		if( typeAdapter == null ){
@@ -558,22 +652,46 @@ public final class JsonTranslationFacility implements Facility {
 	 * @return the translated object
 	 */
 	public <O> O fromJsonString( String theString, JavaType theType ) {
-		try {
-			return fromJsonElement( parser.parse( theString ), theType );
-		} catch( JsonParseException e ) {
-			throw new TranslationException( e );
-		}
+		Preconditions.checkNotNull( theString, "need a string" );
+		return fromJsonReader( new StringReader( theString ), theType );
+	}
+
+	/**
+	 * Helper method that reads JSON, from the reader, into the object of the specific type. 
+	 * The JSON is read directly into the object, where the translators support it, 
+	 * instead of first being parsed into JsonElements. 
+	 * @param theReader the reader containing the json to translate
+	 * @param theType the type to translate into
+	 * @return the translated object
+	 */
+	@SuppressWarnings("unchecked")
+	public <O> O fromJsonReader( Reader theReader, JavaType theType ) {
+		Preconditions.checkNotNull( theType, "need a type" );
+		TypeFormatAdapter typeAdapter = getTypeAdapter( theType );
+		if( typeAdapter == null ){
+			throw new IllegalArgumentException( String.format( "Unable to find a type adapter for type '%s'.", theType.getName( ) ) );
+		} else {
+			return ( O )JsonReaderHelper.readDocument( typeAdapter.getFromFormatTranslator(), JsonReaderHelper.createReader( theReader ) );
+		}	
 	}
 
 
 	/**
 	 * This method is called to get or generate a type adapter for a type.
+	 * Registered adapters are used first, then previously generated adapters
+	 * and, if neither are found, an adapter is generated and kept for later.
 	 * @param theType the type to translate to
 	 * @return the type adapter for the type
 	 */
 	public TypeFormatAdapter getTypeAdapter( JavaType theType ) {
 		TypeFormatAdapter jsonTypeAdapter = adapters.get( theType );
 		if( jsonTypeAdapter == null ) {
+			jsonTypeAdapter = compositeAdapters.getIfPresent( theType );
+		}
+		if( jsonTypeAdapter == null ) {
+			// we don't use the cache's loading methods since generating
+			// an adapter can recursively ask for adapters, including
+			// the one being generated, for self-referencing types
 	    	if( Map.class.isAssignableFrom( theType.getUnderlyingClass() ) ) {
 	    		if( !( theType.getType() instanceof ParameterizedType ) ) {
 	            	throw new IllegalStateException( String.format( "Unable to create a type adapter for a map because the parameterized type was not given when '%s' generic types are expected.", theType.getUnderlyingClass().getTypeParameters().length ) );
@@ -592,7 +710,9 @@ public final class JsonTranslationFacility implements Facility {
 		            			theType, 
 		            			"map", // TODO: need to generate better
 		            			new JsonArrayToMapTranslator( keyTypeAdapter.getFromFormatTranslator(), valueTypeAdapter.getFromFormatTranslator(), theType.getUnderlyingClass() ),
-		            			new MapToJsonArrayTranslator( keyTypeAdapter.getToFormatTranslator(), valueTypeAdapter.getToFormatTranslator() ) );
+		            			getMapEncoding( theType ) == MapEncoding.OBJECT ?
+		            					new MapToJsonObjectTranslator( valueTypeAdapter.getToFormatTranslator() ) :
+		            					new MapToJsonArrayTranslator( keyTypeAdapter.getToFormatTranslator(), valueTypeAdapter.getToFormatTranslator() ) );
 		            }
 		    	}
 	            
@@ -647,13 +767,134 @@ public final class JsonTranslationFacility implements Facility {
 				}
 			}
 	    	
-	    	// we cache these later
-			adapters.put( jsonTypeAdapter.getType(), jsonTypeAdapter );
+	    	// we cache these for later
+			compositeAdapters.put( jsonTypeAdapter.getType(), jsonTypeAdapter );
 		}
 
 		return jsonTypeAdapter;
 	}
 
+	/**
+	 * Pre-builds the type adapters for the given types, so the
+	 * cost of generating them isn't paid when first used.
+	 * @param theTypes the types to build adapters for
+	 */
+	public void warmUp( Iterable<JavaType> theTypes ) {
+		Preconditions.checkNotNull( theTypes, "need types" );
+		for( JavaType type : theTypes ) {
+			getTypeAdapter( type );
+		}
+	}
+
+	/**
+	 * Pre-builds the type adapters for all data contracts that have been 
+	 * seen so far, which includes those referenced by registered contracts,
+	 * so they are ready before requests are processed. This is typically 
+	 * called when a service has finished starting.
+	 */
+	public void warmUp( ) {
+		Stopwatch stopwatch = Stopwatch.createStarted( );
+		// we copy the keys since generating adapters may add type maps
+		warmUp( new ArrayList<>( typeMaps.keySet( ) ) );
+		logger.info( "Warmed up json type adapters for {} data contract(s) in {} ms, keeping {} generated adapter(s).", typeMaps.size( ), stopwatch.elapsed( TimeUnit.MILLISECONDS ), compositeAdapters.size( ) );
+	}
+
+	/**
+	 * Returns how maps, with string keys and a single value type, are encoded
+	 * when the data member doesn't indicate an encoding.
+	 * @return the default map encoding
+	 */
+	public MapEncoding getDefaultMapEncoding( ) {
+		return defaultMapEncoding;
+	}
+
+	/**
+	 * Returns how the map type, when not in a data member, is encoded.
+	 * Only maps with string keys can be encoded as objects.
+	 * @param theType the map type
+	 * @return the map encoding for the type, which is never {@code MapEncoding.DEFAULT}
+	 */
+	public MapEncoding getMapEncoding( JavaType theType ) {
+		Preconditions.checkNotNull( theType, "need a type" );
+		Preconditions.checkArgument( Map.class.isAssignableFrom( theType.getUnderlyingClass( ) ) && theType.getType( ) instanceof ParameterizedType, "type '%s' is not a parameterized map", theType.getName( ) );
+		
+		if( defaultMapEncoding == MapEncoding.OBJECT && ( ( ParameterizedType )theType.getType( ) ).getActualTypeArguments( )[ 0 ] == String.class ) {
+			return MapEncoding.OBJECT;
+		} else {
+			return MapEncoding.ENTRIES;
+		}
+	}
+
+	/**
+	 * Returns how the map in the field is encoded. Only maps with string 
+	 * keys and a single value type can be encoded as objects, and if 
+	 * a field asks for that otherwise an exception is thrown.
+	 * @param theField the field holding a map
+	 * @return the map encoding for the field, which is never {@code MapEncoding.DEFAULT}
+	 */
+	public MapEncoding getMapEncoding( SerializationField<?,?> theField ) {
+		Preconditions.checkNotNull( theField, "need a field" );
+		Preconditions.checkArgument( theField.isMap( ), "field '%s' is not a map", theField.getName( ) );
+		
+		boolean canBeObject = 
+				theField.getKeyTypes( ).size( ) == 1 && 
+				theField.getKeyTypes( ).get( 0 ).getType( ).getUnderlyingClass( ) == String.class && 
+				theField.getValueTypes( ).size( ) == 1;
+		MapEncoding mapEncoding = theField.getMapEncoding( );
+		
+		if( mapEncoding == MapEncoding.DEFAULT ) {
+			mapEncoding = canBeObject ? defaultMapEncoding : MapEncoding.ENTRIES;
+		} else if( mapEncoding == MapEncoding.OBJECT && !canBeObject ) {
+			throw new IllegalStateException( String.format( "Field '%s.%s' is a map encoded as an object, but it doesn't have string keys and a single value type.", theField.getContainingType( ).getName( ), theField.getName( ) ) );
+		}
+		return mapEncoding;
+	}
+
+	/**
+	 * Returns the maximum number of generated adapters that are kept.
+	 * @return the maximum number of generated adapters
+	 */
+	@MonitorableStatusValue( name = "maximum_composite_adapters", description = "The maximum number of generated adapters, for types like collections, maps and data contracts, that are kept." )
+	public long getMaximumCompositeAdapters( ) {
+		return maximumCompositeAdapters;
+	}
+
+	/**
+	 * Returns the approximate number of generated adapters being kept.
+	 * @return the number of generated adapters
+	 */
+	@MonitorableStatusValue( name = "composite_adapters", description = "The approximate number of generated adapters, for types like collections, maps and data contracts, being kept." )
+	public long getCompositeAdapterCount( ) {
+		return compositeAdapters.size( );
+	}
+
+	/**
+	 * Returns the number of times a generated adapter was found.
+	 * @return the number of hits
+	 */
+	@MonitorableStatusValue( name = "composite_adapter_hits", description = "The total number of times a previously generated adapter was found since the service was started." )
+	public long getCompositeAdapterHits( ) {
+		return compositeAdapters.stats( ).hitCount( );
+	}
+
+	/**
+	 * Returns the number of times a generated adapter was not found.
+	 * @return the number of misses
+	 */
+	@MonitorableStatusValue( name = "composite_adapter_misses", description = "The total number of times an adapter was not found and needed to be generated since the service was started." )
+	public long getCompositeAdapterMisses( ) {
+		return compositeAdapters.stats( ).missCount( );
+	}
+
+	/**
+	 * Returns the number of generated adapters evicted because too many were kept.
+	 * @return the number of evictions
+	 */
+	@MonitorableStatusValue( name = "composite_adapter_evictions", description = "The total number of generated adapters evicted, since the service was started, because the maximum was reached." )
+	public long getCompositeAdapterEvictions( ) {
+		return compositeAdapters.stats( ).evictionCount( );
+	}
+
 	/**
 	 * This method is called to get or generate a translator for the class, and its generic details.
 	 * The translator translates to a JsonEelement from the specified type.
@@ -15,6 +15,7 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -29,6 +30,9 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.serialization.SerializationType;
@@ -83,6 +87,29 @@ public class JsonTypeMap {
 		return jsonObject;
 	}
 	
+	/**
+	 * A helper method that, given an instance of this type of object, 
+	 * will write the json version directly to a json writer. The 
+	 * output is the same as writing the result of {@code getData}.
+	 * @param theInstance the instance of the type to write
+	 * @param theWriter the json writer to write to
+	 * @throws IOException thrown if the writer could not be written to
+	 */
+	public void writeData( Object theInstance, JsonWriter theWriter ) throws IOException {
+		Preconditions.checkNotNull( theInstance, "need a non-null instance");
+		theWriter.beginObject( );
+		for( JsonMemberMap member : members.values() ) {
+			if( member == unmappedNameMember ) {				
+				theWriter.name( unmappedNameMember.getData( theInstance ).getAsString() );
+				unmappedValueMember.writeData( theInstance, theWriter );
+			} else if( member != unmappedValueMember ) {
+				theWriter.name( member.getReflectedField().getName() );
+				member.writeData( theInstance, theWriter );
+			}
+		}
+		theWriter.endObject( );
+	}
+	
 	/**
 	 * A helper method that, given an instance and json data, will
 	 * set data on the instance based on the json data.
@@ -135,6 +162,62 @@ public class JsonTypeMap {
 		// after deserialization, we call the validation hook
 		reflectedType.callValidationHook( theInstance );
 	}
+	
+	/**
+	 * A helper method that, given an instance, will read json data directly 
+	 * from a json reader and set the data on the instance. The result is
+	 * the same as calling {@code setData} with the parsed json object.
+	 * @param theInstance the instance to set
+	 * @param theReader the json reader, positioned at the json object, to read from
+	 * @throws IOException thrown if the reader could not be read from
+	 */
+	public void readData( Object theInstance, JsonReader theReader ) throws IOException {
+		Preconditions.checkNotNull( theInstance, "need a non-null instance");
+		Preconditions.checkNotNull( theReader, "need a non-null reader");
+		if( theReader.peek( ) != JsonToken.BEGIN_OBJECT ) {
+			throw new TranslationException( String.format( "Attempting to read an object of type '%s' but found '%s' instead.", reflectedType.getType().getName(), theReader.peek( ) ) );
+		}
+		
+		JsonMemberMap member = null;
+		String memberName = null;
+		String foundUnmappedMemberName = null;
+		
+		theReader.beginObject( );
+		while( theReader.hasNext( ) ) {
+			memberName = theReader.nextName( );
+			member = members.get( memberName );
+			if( member == null ) {
+				if( unmappedNameMember != null ) {
+					// see setData for details on how unmapped members are handled
+					unmappedNameMember.getDataSite().getDataSite( ).setData( theInstance, memberName );
+					unmappedValueMember.readData( theInstance, theReader );
+					
+					if( foundUnmappedMemberName != null ) {
+						// log a warning since data could be lost
+						logger.warn( "Found json members '{}' and '{}' attempting to assign to the designated unmapped member '{}.{}'.", foundUnmappedMemberName, memberName, this.reflectedType.getType().getName(), this.unmappedNameMember.getReflectedField().getName( ) );
+					}
+					foundUnmappedMemberName = memberName;
+					
+				} else if( strictMatch ) {
+					throw new TranslationException( String.format( "Json for type '%s' refers to a member '%s' that does not exist.", reflectedType.getType().getName(), memberName ) );
+				} else {
+					logger.debug( "Ignoring unknown json member '{}' for type '{}'.", memberName, this.getReflectedType().getName() );
+					theReader.skipValue( );
+				}
+			} else {
+				try {
+					member.readData( theInstance, theReader );
+				} catch( TranslationException e ) {
+					throw new TranslationException( String.format( "Error attempting to set data on member '%s.%s'.",  this.reflectedType.getType().getName(), member.getReflectedField().getName( ) ), e );
+				}
+			}
+		}
+		theReader.endObject( );
+		// call the deserialized hook (this method verifies the hook is there)
+		reflectedType.callDeserializedHook( theInstance );
+		// after deserialization, we call the validation hook
+		reflectedType.callValidationHook( theInstance );
+	}
 
 	/**
 	 * Get a member based on the member name.
@@ -0,0 +1,116 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.serialization.json;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map.Entry;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+import com.talvish.tales.parts.translators.TranslationException;
+import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.Readability;
+import com.talvish.tales.serialization.json.translators.JsonWritingTranslator;
+
+/**
+ * A utility class containing helper methods for writing 
+ * values directly to a {@code JsonWriter}.
+ * @author jmolnar
+ *
+ */
+public final class JsonWriterHelper {
+	/**
+	 * Creates a json writer, on top of the writer, that generates
+	 * the same output as the Gson instances used throughout the system
+	 * (e.g. nulls are serialized and html characters are escaped).
+	 * @param theWriter the writer to write to
+	 * @param theReadability how the json should be formatted
+	 * @return the json writer
+	 */
+	public static JsonWriter createWriter( Writer theWriter, Readability theReadability ) {
+		Preconditions.checkNotNull( theWriter, "need a writer" );
+		JsonWriter jsonWriter = new JsonWriter( theWriter );
+		
+		if( theReadability == Readability.HUMAN ) {
+			jsonWriter.setIndent( "  " );
+		}
+		jsonWriter.setSerializeNulls( true );
+		jsonWriter.setHtmlSafe( true );
+		// Gson writes JsonElements leniently, so we do the same
+		jsonWriter.setLenient( true );
+		return jsonWriter;
+	}
+
+	/**
+	 * Writes the object, using the translator, to the json writer. If the 
+	 * translator is able to write directly then it is used, otherwise the
+	 * translator is used to create a JsonElement which is then written.
+	 * @param theTranslator the translator to convert the object
+	 * @param theObject the object to write
+	 * @param theWriter the json writer to write to
+	 * @throws IOException thrown if the writer could not be written to
+	 */
+	public static void write( Translator theTranslator, Object theObject, JsonWriter theWriter ) throws IOException {
+		if( theTranslator instanceof JsonWritingTranslator ) {
+			( ( JsonWritingTranslator )theTranslator ).write( theObject, theWriter );
+		} else {
+			try {
+				write( ( JsonElement )theTranslator.translate( theObject ), theWriter );
+			} catch( ClassCastException e ) {
+				throw new TranslationException( e );
+			}
+		}
+	}
+	
+	/**
+	 * Writes a JsonElement to the json writer.
+	 * @param theElement the element to write
+	 * @param theWriter the json writer to write to
+	 * @throws IOException thrown if the writer could not be written to
+	 */
+	public static void write( JsonElement theElement, JsonWriter theWriter ) throws IOException {
+		if( theElement == null || theElement.isJsonNull( ) ) {
+			theWriter.nullValue( );
+		} else if( theElement.isJsonPrimitive( ) ) {
+			JsonPrimitive primitive = theElement.getAsJsonPrimitive( );
+			if( primitive.isNumber( ) ) {
+				theWriter.value( primitive.getAsNumber( ) );
+			} else if( primitive.isBoolean( ) ) {
+				theWriter.value( primitive.getAsBoolean( ) );
+			} else {
+				theWriter.value( primitive.getAsString( ) );
+			}
+		} else if( theElement.isJsonArray( ) ) {
+			theWriter.beginArray( );
+			for( JsonElement element : ( JsonArray )theElement ) {
+				write( element, theWriter );
+			}
+			theWriter.endArray( );
+		} else {
+			theWriter.beginObject( );
+			for( Entry<String, JsonElement> entry : ( ( JsonObject )theElement ).entrySet( ) ) {
+				theWriter.name( entry.getKey( ) );
+				write( entry.getValue( ), theWriter );
+			}
+			theWriter.endObject( );
+		}
+	}
+}
@@ -15,14 +15,17 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
 
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonWriter;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.json.JsonWriterHelper;
 
 
 /**
@@ -31,7 +34,7 @@ import com.talvish.tales.parts.translators.Translator;
  * @author jmolnar
  *
  */
-public class ArrayToJsonArrayTranslator implements Translator {
+public class ArrayToJsonArrayTranslator implements JsonWritingTranslator {
 	private final Translator elementTranslator;
 	private final boolean writeSingle;
 
@@ -90,4 +93,29 @@ public class ArrayToJsonArrayTranslator implements Translator {
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Writes the received object as a json array.
+	 * If the object is of the wrong type, a TranslationException will occur.
+	 */
+	@Override
+	public void write( Object anObject, JsonWriter theWriter ) throws IOException {
+		if( anObject == null ) {
+			theWriter.nullValue( );
+		} else if( anObject.getClass( ).isArray() ) {
+			int arrayLength = Array.getLength( anObject ); 
+			if( arrayLength != 1 || !writeSingle) {
+				theWriter.beginArray( );
+				for( int count = 0; count < arrayLength; count += 1 ) {
+					JsonWriterHelper.write( elementTranslator, Array.get( anObject, count ), theWriter );
+				}
+				theWriter.endArray( );
+			} else {
+				// this happens we are allowing the single item arrays to be written out as a non-array
+				JsonWriterHelper.write( elementTranslator, Array.get( anObject, 0 ), theWriter );
+			}
+		} else {
+			throw new TranslationException( String.format( "Received a '%s' instead of an array, so unable to translate into a json array.", anObject.getClass( ).getName( ) ) );
+		}
+	}
 }
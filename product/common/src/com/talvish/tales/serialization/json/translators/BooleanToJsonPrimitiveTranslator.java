@@ -15,8 +15,11 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
+
 import com.google.gson.JsonNull;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
 
@@ -27,7 +30,7 @@ import com.talvish.tales.parts.translators.Translator;
  * @author jmolnar
  *
  */
-public class BooleanToJsonPrimitiveTranslator implements Translator {
+public class BooleanToJsonPrimitiveTranslator implements JsonWritingTranslator {
 	/**
 	 * Empty default constructor.
 	 */
@@ -50,4 +53,21 @@ public class BooleanToJsonPrimitiveTranslator implements Translator {
 			throw new TranslationException( e );
 		}
 	}
+
+	/**
+	 * Writes the received object as a json boolean.
+	 * If the object is of the wrong type, a TranslationException will occur.
+	 */
+	@Override
+	public void write( Object anObject, JsonWriter theWriter ) throws IOException {
+		try {
+			if( anObject == null ) {
+				theWriter.nullValue( );
+			} else {
+				theWriter.value( ( boolean )( Boolean )anObject );
+			}
+		} catch( ClassCastException e ) {
+			throw new TranslationException( e );
+		}
+	}
 }
@@ -15,9 +15,12 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
+
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
 
@@ -27,7 +30,7 @@ import com.talvish.tales.parts.translators.Translator;
  * @author jmolnar
  *
  */
-public class ChainToStringToJsonPrimitiveTranslator implements Translator {
+public class ChainToStringToJsonPrimitiveTranslator implements JsonWritingTranslator {
 	private final Translator chainedTranslator;
 
 	public ChainToStringToJsonPrimitiveTranslator( Translator theChainedTranslator ) {
@@ -52,4 +55,22 @@ public class ChainToStringToJsonPrimitiveTranslator implements Translator {
 			throw new TranslationException( e );
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Writes the received object, after using the chained translator, as a json string.
+	 * If the object is of the wrong type, a TranslationException will occur.
+	 */
+	@Override
+	public void write( Object anObject, JsonWriter theWriter ) throws IOException {
+		try {
+			anObject = chainedTranslator.translate( anObject );
+			if( anObject == null ) {
+				theWriter.nullValue( );
+			} else {
+				theWriter.value( ( String )anObject );
+			}
+		} catch( ClassCastException e ) {
+			throw new TranslationException( e );
+		}
+	}
+}
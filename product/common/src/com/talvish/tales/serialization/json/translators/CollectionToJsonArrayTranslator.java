@@ -15,14 +15,17 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
 import java.util.Collection;
 
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonWriter;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.json.JsonWriterHelper;
 
 
 /**
@@ -31,7 +34,7 @@ import com.talvish.tales.parts.translators.Translator;
  * @author jmolnar
  *
  */
-public class CollectionToJsonArrayTranslator implements Translator {
+public class CollectionToJsonArrayTranslator implements JsonWritingTranslator {
 	private final Translator elementTranslator;
 	
 	/**
@@ -69,4 +72,28 @@ public class CollectionToJsonArrayTranslator implements Translator {
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Writes the received object as a json array.
+	 * If the object is of the wrong type, a TranslationException will occur.
+	 */
+	@Override
+	public void write( Object anObject, JsonWriter theWriter ) throws IOException {
+		if( anObject == null ) {
+			theWriter.nullValue( );
+		} else {
+			try {
+				Collection<?> array = ( Collection<?> )anObject;
+				
+				theWriter.beginArray( );
+				for( Object object : array ) {
+					JsonWriterHelper.write( elementTranslator, object, theWriter );
+				}
+				theWriter.endArray( );
+
+			} catch( ClassCastException e ) {
+				throw new TranslationException( e );
+			}
+		}
+	}
 }
@@ -15,14 +15,19 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
+import java.util.ArrayList;
 
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.json.JsonReaderHelper;
 
 
 /**
@@ -30,7 +35,7 @@ import com.talvish.tales.parts.translators.Translator;
  * @author jmolnar
  *
  */
-public class JsonArrayToArrayTranslator implements Translator {
+public class JsonArrayToArrayTranslator implements JsonReadingTranslator {
 	private final Translator elementTranslator;
 	private final Class<?> elementType;
 	private final boolean readSingles;
@@ -99,4 +104,37 @@ public class JsonArrayToArrayTranslator implements Translator {
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Reads the array directly from the json reader. Since the size 
+	 * isn't known until the end, elements are gathered in a list first.
+	 */
+	@Override
+	public Object read( JsonReader theReader ) throws IOException {
+		try {
+			if( theReader.peek( ) == JsonToken.BEGIN_ARRAY ) {
+				ArrayList<Object> elements = new ArrayList<Object>( );
+
+				theReader.beginArray( );
+				while( theReader.hasNext( ) ) {
+					elements.add( JsonReaderHelper.read( elementTranslator, theReader ) );
+				}
+				theReader.endArray( );
+
+				Object array = Array.newInstance( elementType, elements.size( ) );
+				for( int count = 0; count < elements.size( ); count += 1 ) {
+					Array.set( array, count, elements.get( count ) );
+				}
+				return array;
+			} else if( readSingles ) {
+				Object array = Array.newInstance( elementType, 1 );
+				Array.set( array, 0, JsonReaderHelper.read( elementTranslator, theReader ) );
+				return array;
+			} else {
+				throw new TranslationException( String.format( "Attempt to translate an array but a single object was sent instead." ) );
+			}
+		} catch( IllegalArgumentException e ) {
+			throw new TranslationException( e );
+		}
+	}
 }
@@ -15,6 +15,7 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
@@ -27,8 +28,11 @@ import com.google.common.base.Preconditions;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.json.JsonReaderHelper;
 
 
 /**
@@ -36,7 +40,7 @@ import com.talvish.tales.parts.translators.Translator;
  * @author jmolnar
  *
  */
-public class JsonArrayToCollectionTranslator implements Translator {
+public class JsonArrayToCollectionTranslator implements JsonReadingTranslator {
 	private final Translator elementTranslator;
 	private final Class<?> collectionType;
 	private final Constructor<?> constructor;
@@ -110,4 +114,30 @@ public class JsonArrayToCollectionTranslator implements Translator {
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Reads the collection directly from the json reader.
+	 */
+	@Override
+	public Object read( JsonReader theReader ) throws IOException {
+		JsonReaderHelper.expect( theReader, JsonToken.BEGIN_ARRAY, "an array" );
+		try {
+			@SuppressWarnings("unchecked")
+			Collection<Object> collection = ( Collection<Object> )constructor.newInstance();
+			
+			theReader.beginArray( );
+			while( theReader.hasNext( ) ) {
+				collection.add( JsonReaderHelper.read( elementTranslator, theReader ) );
+			}
+			theReader.endArray( );
+			return collection;
+
+		} catch( ClassCastException e ) {
+			throw new TranslationException( e );
+		} catch( NullPointerException e ) {
+			throw new TranslationException( String.format( "Unable to use null in the collection of type '%s'", collectionType.getName() ), e );
+		} catch (InstantiationException | IllegalArgumentException | InvocationTargetException | IllegalAccessException e) {
+			throw new TranslationException( String.format( "Unable to create a collection of type '%s'", collectionType.getName() ), e );
+		}
+	}
 }
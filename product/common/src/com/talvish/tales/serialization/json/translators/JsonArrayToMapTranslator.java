@@ -15,12 +15,14 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.TreeMap;
 
 import com.google.common.base.Preconditions;
@@ -28,18 +30,24 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
 import com.talvish.tales.serialization.TypeFormatAdapter;
+import com.talvish.tales.serialization.json.JsonReaderHelper;
 
 
 /**
  * Translator that converts a json array containing key/value json object
- * into a Java map object.
+ * into a Java map object. If there is only one key and value type, then
+ * a json object, with the keys as member names, is also converted, which
+ * is the compact form written by {@code MapToJsonObjectTranslator}.
  * @author jmolnar
  *
  */
-public class JsonArrayToMapTranslator implements Translator {
+public class JsonArrayToMapTranslator implements JsonReadingTranslator {
 	// these are used if we have more than one possible element type
 	private final Map<String, TypeFormatAdapter> keyTypeAdapters = new HashMap<>( 2 ); 
 	private final Map<String, TypeFormatAdapter> valueTypeAdapters = new HashMap<>( 2 );
@@ -47,6 +55,7 @@ public class JsonArrayToMapTranslator implements Translator {
 	// these are used if we only have one possible element type
 	private final Translator keyTranslator; 
 	private final Translator valueTranslator;
+	private final boolean stringKeys; // if true, member names are used as keys directly
 	
 	private final Class<?> mapType;
 	private final Constructor<?> constructor;
@@ -62,6 +71,7 @@ public class JsonArrayToMapTranslator implements Translator {
 		
 		keyTranslator = theKeyTranslator;
 		valueTranslator = theValueTranslator;
+		stringKeys = keyTranslator instanceof JsonElementToStringTranslator;
 		
 		// now deal with the type for the map, need to get a constructor
 		if( Modifier.isAbstract( theMapType.getModifiers( ) ) || theMapType.isInterface( ) ) {
@@ -106,6 +116,7 @@ public class JsonArrayToMapTranslator implements Translator {
 		} else {
 			keyTranslator = null;
 		}
+		stringKeys = keyTranslator instanceof JsonElementToStringTranslator;
 		
 		for( TypeFormatAdapter valueTypeAdapter : theValueTypeAdapters ) {
 			Preconditions.checkArgument( !valueTypeAdapters.containsKey( valueTypeAdapter.getName()), String.format( "Attempting to add value type adapter '%s' more than once.", valueTypeAdapter.getType( ).getName()));
@@ -152,65 +163,15 @@ public class JsonArrayToMapTranslator implements Translator {
 			returnValue = null;
 		} else {
 			try {
-				// things to look at later
-				JsonArray jsonArray = ( JsonArray )anObject;
 				@SuppressWarnings("unchecked")
 				Map<Object, Object> map = ( Map<Object,Object> )constructor.newInstance();
-				JsonObject entry;
-				JsonElement key;
-				JsonElement keyType;
-				JsonElement value;
-				JsonElement valueType;
-				TypeFormatAdapter typeAdapter;
-				
-				Translator selectedKeyTranslator;
-				Translator selectedValueTranslator;
 
-				for( JsonElement element : jsonArray ) {
-					entry = ( JsonObject )element;
-					key = entry.get( "key" );
-					keyType = entry.get( "key_type" );
-					value = entry.get( "value" );
-					valueType = entry.get( "value_type" );
-					
-					selectedKeyTranslator = keyTranslator; // set a default, though it could be null
-					selectedValueTranslator = valueTranslator; // set a default, though it could be null
-					
-					if( key == null ) {
-						throw new TranslationException( "Could not find the key to create a proper map." );
-					} else if( value == null ) {
-						throw new TranslationException( "Could not find the value to create a proper map." );
-					} else {
-						if( keyType != null ) {
-							String keyTypeString = keyType.getAsString();
-							typeAdapter = keyTypeAdapters.get( keyTypeString );
-							
-							if( typeAdapter == null ) {
-								throw new TranslationException( String.format( "Json is referring to a key type '%s' that isn't supported.", keyTypeString ) );
-							} else {
-								selectedKeyTranslator = typeAdapter.getFromFormatTranslator();
-							}
-						} 
-						if( valueType != null ) {
-							String valueTypeString = valueType.getAsString();
-							typeAdapter = valueTypeAdapters.get( valueTypeString );
-							
-							if( typeAdapter == null ) {
-								throw new TranslationException( String.format( "Json is referring to a value type '%s' that isn't supported.", valueTypeString ) );
-							} else {
-								selectedValueTranslator = typeAdapter.getFromFormatTranslator();
-							}
-						}
-						if( selectedKeyTranslator == null ) {
-							throw new TranslationException( "An appropriate key type was not provided." );
-						}
-						if( selectedValueTranslator == null ) {
-							throw new TranslationException( "An appropriate value type was not provided." );
-						}
-						map.put( selectedKeyTranslator.translate( key ), selectedValueTranslator.translate( value ) );
-					}
+				if( anObject instanceof JsonObject ) {
+					// the compact form, where the keys are the member names
+					translateMembers( ( JsonObject )anObject, map );
+				} else {
+					translateEntries( ( JsonArray )anObject, map );
 				}
-				
 				returnValue = map;
 
 			} catch( ClassCastException e ) {
@@ -229,4 +190,136 @@ public class JsonArrayToMapTranslator implements Translator {
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Helper method that translates the key/value entries into the map.
+	 * @param theEntries the json array of entries
+	 * @param theMap the map to put the entries into
+	 */
+	private void translateEntries( JsonArray theEntries, Map<Object, Object> theMap ) {
+		JsonObject entry;
+		JsonElement key;
+		JsonElement keyType;
+		JsonElement value;
+		JsonElement valueType;
+		TypeFormatAdapter typeAdapter;
+		
+		Translator selectedKeyTranslator;
+		Translator selectedValueTranslator;
+
+		for( JsonElement element : theEntries ) {
+			entry = ( JsonObject )element;
+			key = entry.get( "key" );
+			keyType = entry.get( "key_type" );
+			value = entry.get( "value" );
+			valueType = entry.get( "value_type" );
+			
+			selectedKeyTranslator = keyTranslator; // set a default, though it could be null
+			selectedValueTranslator = valueTranslator; // set a default, though it could be null
+			
+			if( key == null ) {
+				throw new TranslationException( "Could not find the key to create a proper map." );
+			} else if( value == null ) {
+				throw new TranslationException( "Could not find the value to create a proper map." );
+			} else {
+				if( keyType != null ) {
+					String keyTypeString = keyType.getAsString();
+					typeAdapter = keyTypeAdapters.get( keyTypeString );
+					
+					if( typeAdapter == null ) {
+						throw new TranslationException( String.format( "Json is referring to a key type '%s' that isn't supported.", keyTypeString ) );
+					} else {
+						selectedKeyTranslator = typeAdapter.getFromFormatTranslator();
+					}
+				} 
+				if( valueType != null ) {
+					String valueTypeString = valueType.getAsString();
+					typeAdapter = valueTypeAdapters.get( valueTypeString );
+					
+					if( typeAdapter == null ) {
+						throw new TranslationException( String.format( "Json is referring to a value type '%s' that isn't supported.", valueTypeString ) );
+					} else {
+						selectedValueTranslator = typeAdapter.getFromFormatTranslator();
+					}
+				}
+				if( selectedKeyTranslator == null ) {
+					throw new TranslationException( "An appropriate key type was not provided." );
+				}
+				if( selectedValueTranslator == null ) {
+					throw new TranslationException( "An appropriate value type was not provided." );
+				}
+				theMap.put( selectedKeyTranslator.translate( key ), selectedValueTranslator.translate( value ) );
+			}
+		}
+	}
+
+	/**
+	 * Helper method that translates the members of the compact form into the map.
+	 * @param theMembers the json object whose members are the entries
+	 * @param theMap the map to put the entries into
+	 */
+	private void translateMembers( JsonObject theMembers, Map<Object, Object> theMap ) {
+		verifyObjectForm( );
+		for( Entry<String, JsonElement> member : theMembers.entrySet( ) ) {
+			theMap.put( translateName( member.getKey( ) ), valueTranslator.translate( member.getValue( ) ) );
+		}
+	}
+
+	/**
+	 * Reads the map directly from the json reader. The compact form, a json
+	 * object, is read without creating JsonElements, while the key/value 
+	 * entries are parsed and then translated, since the types may follow
+	 * the keys and values they describe.
+	 */
+	@Override
+	public Object read( JsonReader theReader ) throws IOException {
+		if( theReader.peek( ) != JsonToken.BEGIN_OBJECT ) {
+			return translate( JsonReaderHelper.parse( theReader ) );
+		} else {
+			verifyObjectForm( );
+			try {
+				@SuppressWarnings("unchecked")
+				Map<Object, Object> map = ( Map<Object,Object> )constructor.newInstance();
+	
+				theReader.beginObject( );
+				while( theReader.hasNext( ) ) {
+					Object key = translateName( theReader.nextName( ) );
+					map.put( key, JsonReaderHelper.read( valueTranslator, theReader ) );
+				}
+				theReader.endObject( );
+				return map;
+	
+			} catch( ClassCastException e ) {
+				throw new TranslationException( e );
+			} catch( NullPointerException e ) {
+				throw new TranslationException( String.format( "Unable to use null in the map of type '%s'", mapType.getName() ), e );
+			} catch (InstantiationException | IllegalArgumentException | InvocationTargetException | IllegalAccessException e) {
+				throw new TranslationException( String.format( "Unable to create a map of type '%s'", mapType.getName() ), e );
+			}
+		}
+	}
+	
+	/**
+	 * Helper method that makes sure the map can be read from a json object,
+	 * which requires knowing the key and value types without them being
+	 * written out.
+	 */
+	private void verifyObjectForm( ) {
+		if( keyTranslator == null || valueTranslator == null ) {
+			throw new TranslationException( "A map with more than one key or value type cannot be read from a json object." );
+		}
+	}
+	
+	/**
+	 * Helper method that translates a member name into a key for the map.
+	 * @param theName the member name
+	 * @return the key for the map
+	 */
+	private Object translateName( String theName ) {
+		if( stringKeys ) {
+			return theName;
+		} else {
+			return keyTranslator.translate( new JsonPrimitive( theName ) );
+		}
+	}
 }
@@ -15,19 +15,24 @@
 //***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import com.talvish.tales.parts.translators.NullTranslatorBase;
 import com.talvish.tales.parts.translators.TranslationException;
-import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.json.JsonReaderHelper;
 
 /**
 * A translator that takes a JsonElement and translates it into the desired type.
 * @author jmolnar
 *
 */
-public class JsonElementToIntegerTranslator extends NullTranslatorBase implements Translator {
+public class JsonElementToIntegerTranslator extends NullTranslatorBase implements JsonReadingTranslator {
 	/**
 	 * Constructor taking the value to use if a null.
 	 * @param theNullValue the null value to return if the value translating is null
@@ -53,4 +58,30 @@ public class JsonElementToIntegerTranslator extends NullTranslatorBase implement
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Reads the value directly from the json reader, 
+	 * converting the same way as translating would.
+	 */
+	@Override
+	public Object read( JsonReader theReader ) throws IOException {
+		JsonToken token = theReader.peek( );
+		if( token == JsonToken.NUMBER ) {
+			// this matches how Gson converts parsed numbers
+			String number = theReader.nextString( );
+			try {
+				return Integer.parseInt( number );
+			} catch( NumberFormatException e ) {
+				try {
+					return ( int )Long.parseLong( number );
+				} catch( NumberFormatException e2 ) {
+					return new BigDecimal( number ).intValue( );
+				}
+			}
+		} else if( token == JsonToken.STRING ) {
+			return Integer.parseInt( theReader.nextString( ) );
+		} else {
+			return translate( JsonReaderHelper.parse( theReader ) );
+		}
+	}
 }
\ No newline at end of file
@@ -15,23 +15,27 @@
 //***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import com.talvish.tales.parts.translators.NullTranslatorBase;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.json.JsonReaderHelper;
 
 /**
  * Translates a JsonElement into a List.
  * @author jmolnar
  *
  */
-public class JsonElementToListTranslator extends NullTranslatorBase implements Translator {
+public class JsonElementToListTranslator extends NullTranslatorBase implements JsonReadingTranslator {
 	private Translator elementTranslator = null;
 	
 	/**
@@ -84,4 +88,24 @@ public class JsonElementToListTranslator extends NullTranslatorBase implements T
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Reads the list directly from the json reader.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Override
+	public Object read( JsonReader theReader ) throws IOException {
+		if( theReader.peek( ) != JsonToken.BEGIN_ARRAY ) {
+			throw new TranslationException( String.format( "Attempting to translate '%s' but it is not an array.", JsonReaderHelper.parse( theReader ).toString( ) ) );
+		} else {
+			ArrayList list = new ArrayList( );
+			
+			theReader.beginArray( );
+			while( theReader.hasNext( ) ) {
+				list.add( JsonReaderHelper.read( elementTranslator, theReader ) );
+			}
+			theReader.endArray( );
+			return list;
+		}
+	}
 }
@@ -15,11 +15,16 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
+
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.json.JsonReaderHelper;
 
 /**
  * A translator that calls .getAsString on the object to translate before passing to 
@@ -27,7 +32,7 @@ import com.talvish.tales.parts.translators.Translator;
  * @author jmolnar
  *
  */
-public class JsonElementToStringToChainTranslator implements Translator {
+public class JsonElementToStringToChainTranslator implements JsonReadingTranslator {
 	private final Translator chainedTranslator;
 
 	/**
@@ -67,4 +72,20 @@ public class JsonElementToStringToChainTranslator implements Translator {
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Reads primitive values directly from the json reader as a string, 
+	 * without creating a json element, before passing to the chained translator.
+	 */
+	@Override
+	public Object read( JsonReader theReader ) throws IOException {
+		JsonToken token = theReader.peek( );
+		if( token == JsonToken.STRING || token == JsonToken.NUMBER ) {
+			return chainedTranslator.translate( theReader.nextString( ) );
+		} else if( token == JsonToken.BOOLEAN ) {
+			return chainedTranslator.translate( Boolean.toString( theReader.nextBoolean( ) ) );
+		} else {
+			return translate( JsonReaderHelper.parse( theReader ) );
+		}
+	}
 }
\ No newline at end of file
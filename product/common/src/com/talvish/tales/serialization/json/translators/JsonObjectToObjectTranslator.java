@@ -15,9 +15,12 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
+
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
 import com.talvish.tales.serialization.json.JsonTypeMap;
@@ -28,7 +31,7 @@ import com.talvish.tales.serialization.json.JsonTypeMap;
  * @author jmolnar
  *
  */
-public class JsonObjectToObjectTranslator implements Translator {
+public class JsonObjectToObjectTranslator implements JsonReadingTranslator {
 	private final JsonTypeMap typeMap;
 	/**
 	 * Empty default constructor.
@@ -62,4 +65,18 @@ public class JsonObjectToObjectTranslator implements Translator {
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Reads the object directly from the json reader.
+	 */
+	@Override
+	public Object read( JsonReader theReader ) throws IOException {
+		try {
+			Object returnValue = typeMap.getReflectedType().newInstance();
+			typeMap.readData( returnValue, theReader );
+			return returnValue;
+		} catch( ClassCastException e ) {
+			throw new TranslationException( e );
+		}
+	}
 }
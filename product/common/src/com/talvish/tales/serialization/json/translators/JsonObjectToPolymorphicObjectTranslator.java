@@ -15,6 +15,7 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,11 +25,14 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
 import com.talvish.tales.serialization.TypeFormatAdapter;
+import com.talvish.tales.serialization.json.JsonReaderHelper;
 
-public class JsonObjectToPolymorphicObjectTranslator implements Translator {
+public class JsonObjectToPolymorphicObjectTranslator implements JsonReadingTranslator {
 	private final Map<String, TypeFormatAdapter> typeAdapters = new HashMap<>( 2 );
 
 	/**
@@ -85,4 +89,60 @@ public class JsonObjectToPolymorphicObjectTranslator implements Translator {
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Reads the object directly from the json reader. If the value type
+	 * is found before the value, the value is read directly, otherwise
+	 * the value is parsed and then translated once the type is known.
+	 */
+	@Override
+	public Object read( JsonReader theReader ) throws IOException {
+		JsonReaderHelper.expect( theReader, JsonToken.BEGIN_OBJECT, "a value and value type" );
+
+		String valueTypeString = null;
+		boolean foundValue = false;
+		Object value = null;
+		JsonElement valueJson = null;
+		TypeFormatAdapter typeAdapter = null;
+		
+		theReader.beginObject( );
+		while( theReader.hasNext( ) ) {
+			String name = theReader.nextName( );
+			if( name.equals( "value_type" ) ) {
+				if( theReader.peek( ) == JsonToken.STRING ) {
+					valueTypeString = theReader.nextString( );
+					typeAdapter = typeAdapters.get( valueTypeString );
+				} else {
+					valueTypeString = null;
+					typeAdapter = null;
+					theReader.skipValue( );
+				}
+			} else if( name.equals( "value" ) ) {
+				foundValue = true;
+				if( typeAdapter != null ) {
+					value = JsonReaderHelper.read( typeAdapter.getFromFormatTranslator(), theReader );
+					valueJson = null;
+				} else {
+					valueJson = JsonReaderHelper.parse( theReader );
+				}
+			} else {
+				theReader.skipValue( );
+			}
+		}
+		theReader.endObject( );
+		
+		// the failures are checked in the same order as translate
+		if( valueTypeString == null ) {
+			throw new TranslationException( String.format( "The associate value type is missing." ) );
+		} else if( !foundValue ) {
+			throw new TranslationException( String.format( "The associate value for type '%s' is missing.", valueTypeString ) );
+		} else if( typeAdapter == null ) {
+			throw new TranslationException( String.format( "Json is referring to a type '%s' that isn't supported.", valueTypeString ) );
+		} else if( valueJson != null ) {
+			// the value came before the type so it was parsed
+			return typeAdapter.getFromFormatTranslator().translate( valueJson );
+		} else {
+			return value;
+		}
+	}
 }
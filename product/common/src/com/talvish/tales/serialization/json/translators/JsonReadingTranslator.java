@@ -0,0 +1,41 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.serialization.json.translators;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.talvish.tales.parts.translators.Translator;
+
+/**
+ * A translator that, in addition to translating from Gson JsonElements,
+ * can read directly from a {@code JsonReader}. This allows large values
+ * to be deserialized without first building the JsonElement tree.
+ * The value read must be the same as would be translated had the
+ * JsonElement been parsed first.
+ * @author jmolnar
+ *
+ */
+public interface JsonReadingTranslator extends Translator {
+	/**
+	 * Reads the value directly from the json reader. This is not
+	 * called when the next value in the reader is a json null.
+	 * @param theReader the reader to read from
+	 * @return the value read
+	 * @throws IOException thrown if the reader could not be read from
+	 */
+	Object read( JsonReader theReader ) throws IOException;
+}
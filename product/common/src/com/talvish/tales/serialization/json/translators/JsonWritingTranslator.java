@@ -0,0 +1,40 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.serialization.json.translators;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonWriter;
+import com.talvish.tales.parts.translators.Translator;
+
+/**
+ * A translator that, in addition to translating into Gson JsonElements,
+ * can write directly to a {@code JsonWriter}. This allows large values
+ * to be serialized without first building the JsonElement tree.
+ * The output written must be the same as would be written had the
+ * translated JsonElement been written.
+ * @author jmolnar
+ *
+ */
+public interface JsonWritingTranslator extends Translator {
+	/**
+	 * Writes the value directly to the json writer.
+	 * @param anObject the object to write
+	 * @param theWriter the writer to write to
+	 * @throws IOException thrown if the writer could not be written to
+	 */
+	void write( Object anObject, JsonWriter theWriter ) throws IOException;
+}
@@ -15,6 +15,7 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,9 +26,11 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
 import com.talvish.tales.serialization.TypeFormatAdapter;
+import com.talvish.tales.serialization.json.JsonWriterHelper;
 
 
 /**
@@ -40,7 +43,7 @@ import com.talvish.tales.serialization.TypeFormatAdapter;
  * @author jmolnar
  *
  */
-public class MapToJsonArrayTranslator implements Translator {
+public class MapToJsonArrayTranslator implements JsonWritingTranslator {
 	private final Map<Class<?>, TypeFormatAdapter> keyTypeAdapters = new HashMap<>( 2 );
 	private final Map<Class<?>, TypeFormatAdapter> valueTypeAdapters = new HashMap<>( 2 );
 	
@@ -155,4 +158,62 @@ public class MapToJsonArrayTranslator implements Translator {
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Writes the received object as a json array with a key/value objects.
+	 * If the object is of the wrong type or translator doesn't return JsonElements, a TranslationException will occur.
+	 */
+	@Override
+	public void write( Object anObject, JsonWriter theWriter ) throws IOException {
+		if( anObject == null ) {
+			theWriter.nullValue( );
+		} else {
+			try {
+				Map<?,?> map = ( Map<?,?> )anObject;
+				TypeFormatAdapter typeAdapter;
+				
+				theWriter.beginArray( );
+				for( Entry<?, ?> entry : map.entrySet() ) {
+					theWriter.beginObject( );
+					
+					// write the key side
+					if( keyTranslator == null ) { // meaning we have more than one so didn't pull out the only translator
+						typeAdapter = keyTypeAdapters.get( entry.getKey().getClass( ) );
+						if( typeAdapter == null ) {
+							throw new TranslationException( String.format( "An object of type '%s' was attempting to be converted to a json object as a key in a map, but this object isn't supported", entry.getKey().getClass( ).getName( ) ));
+						} else {
+							theWriter.name( "key_type" );
+							theWriter.value( typeAdapter.getName() );
+							theWriter.name( "key" );
+							JsonWriterHelper.write( typeAdapter.getToFormatTranslator(), entry.getKey( ), theWriter );
+						}
+					} else {
+						theWriter.name( "key" );
+						JsonWriterHelper.write( keyTranslator, entry.getKey( ), theWriter );
+					}
+					
+					// write the value side
+					if( valueTranslator == null ) { // meaning we have more than one so didn't pull out the only translator
+						typeAdapter = valueTypeAdapters.get( entry.getValue().getClass( ) );
+						if( typeAdapter == null ) {
+							throw new TranslationException( String.format( "An object of type '%s' was attempting to be converted to a json object as a value in a map, but this object isn't supported", entry.getValue().getClass( ).getName( ) ));
+						} else {
+							theWriter.name( "value_type" );
+							theWriter.value( typeAdapter.getName() );
+							theWriter.name( "value" );
+							JsonWriterHelper.write( typeAdapter.getToFormatTranslator(), entry.getValue( ), theWriter );
+						}
+					} else {
+						theWriter.name( "value" );
+						JsonWriterHelper.write( valueTranslator, entry.getValue( ), theWriter );
+					}
+					theWriter.endObject( );
+				}
+				theWriter.endArray( );
+
+			} catch( ClassCastException e ) {
+				throw new TranslationException( e );
+			}
+		}
+	}
 }
@@ -0,0 +1,118 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.serialization.json.translators;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.talvish.tales.parts.translators.TranslationException;
+import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.json.JsonWriterHelper;
+
+
+/**
+ * Translator that converts a map with string keys into a json object, where 
+ * the keys are the member names, or, if null, {@code JsonNull}. This is the
+ * compact alternative to {@code MapToJsonArrayTranslator} and, as such, only
+ * supports a single value type. {@code JsonArrayToMapTranslator} reads both.
+ * @author jmolnar
+ *
+ */
+public class MapToJsonObjectTranslator implements JsonWritingTranslator {
+	private final Translator valueTranslator;
+	
+	/**
+	 * Constructor taking the translator for the values of the map.
+	 */
+	public MapToJsonObjectTranslator( Translator theValueTranslator ) {
+		Preconditions.checkNotNull( theValueTranslator, "need a value translator" );
+		
+		valueTranslator = theValueTranslator;
+	}
+
+	/**
+	 * Translates the received object into a json object with a member for each entry.
+	 * If the object is of the wrong type, has keys that aren't strings or the translator 
+	 * doesn't return JsonElements, a TranslationException will occur.
+	 */
+	@Override
+	public Object translate(Object anObject) {
+		Object returnValue;
+		
+		if( anObject == null ) {
+			returnValue = JsonNull.INSTANCE;
+		} else {
+			try {
+				Map<?,?> map = ( Map<?,?> )anObject;
+				JsonObject jsonObject = new JsonObject( );
+				
+				for( Entry<?, ?> entry : map.entrySet() ) {
+					jsonObject.add( getName( entry.getKey( ) ), ( JsonElement )valueTranslator.translate( entry.getValue() ) );
+				}
+				returnValue = jsonObject;
+
+			} catch( ClassCastException e ) {
+				throw new TranslationException( e );
+			}
+		}
+		return returnValue;	
+	}
+
+	/**
+	 * Writes the received object as a json object with a member for each entry.
+	 * If the object is of the wrong type, has keys that aren't strings or the translator 
+	 * doesn't return JsonElements, a TranslationException will occur.
+	 */
+	@Override
+	public void write( Object anObject, JsonWriter theWriter ) throws IOException {
+		if( anObject == null ) {
+			theWriter.nullValue( );
+		} else {
+			try {
+				Map<?,?> map = ( Map<?,?> )anObject;
+				
+				theWriter.beginObject( );
+				for( Entry<?, ?> entry : map.entrySet() ) {
+					theWriter.name( getName( entry.getKey( ) ) );
+					JsonWriterHelper.write( valueTranslator, entry.getValue( ), theWriter );
+				}
+				theWriter.endObject( );
+
+			} catch( ClassCastException e ) {
+				throw new TranslationException( e );
+			}
+		}
+	}
+	
+	/**
+	 * Helper method that gets the member name to use for the key.
+	 * @param theKey the key from the map
+	 * @return the member name
+	 */
+	private String getName( Object theKey ) {
+		if( theKey == null ) {
+			throw new TranslationException( "Unable to use a null key in a map encoded as a json object." );
+		} else {
+			return ( String )theKey;
+		}
+	}
+}
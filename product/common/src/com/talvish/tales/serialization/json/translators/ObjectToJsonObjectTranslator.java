@@ -15,8 +15,11 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
+
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonNull;
+import com.google.gson.stream.JsonWriter;
 import com.talvish.tales.parts.translators.Translator;
 import com.talvish.tales.serialization.json.JsonTypeMap;
 
@@ -27,7 +30,7 @@ import com.talvish.tales.serialization.json.JsonTypeMap;
  * @author jmolnar
  *
  */
-public class ObjectToJsonObjectTranslator implements Translator {
+public class ObjectToJsonObjectTranslator implements JsonWritingTranslator {
 	private final JsonTypeMap typeMap;
 	/**
 	 * Empty default constructor.
@@ -53,4 +56,17 @@ public class ObjectToJsonObjectTranslator implements Translator {
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Writes the received object as a json object.
+	 * If the object is of the wrong type, a TranslationException will occur.
+	 */
+	@Override
+	public void write( Object anObject, JsonWriter theWriter ) throws IOException {
+		if( anObject == null ) {
+			theWriter.nullValue( );
+		} else {
+			typeMap.writeData( anObject, theWriter );
+		}
+	}
 }
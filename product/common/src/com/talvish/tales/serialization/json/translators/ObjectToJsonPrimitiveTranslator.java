@@ -15,8 +15,11 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
+
 import com.google.gson.JsonNull;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
 import com.talvish.tales.parts.translators.Translator;
 
 
@@ -26,7 +29,7 @@ import com.talvish.tales.parts.translators.Translator;
  * @author jmolnar
  *
  */
-public class ObjectToJsonPrimitiveTranslator implements Translator {
+public class ObjectToJsonPrimitiveTranslator implements JsonWritingTranslator {
 	/**
 	 * Empty default constructor.
 	 */
@@ -45,4 +48,16 @@ public class ObjectToJsonPrimitiveTranslator implements Translator {
 			return new JsonPrimitive( anObject.toString( ) );
 		}
 	}
+
+	/**
+	 * Writes the received object as a json string.
+	 */
+	@Override
+	public void write( Object anObject, JsonWriter theWriter ) throws IOException {
+		if( anObject == null ) {
+			theWriter.nullValue( );
+		} else {
+			theWriter.value( anObject.toString( ) );
+		}
+	}
 }
@@ -15,6 +15,7 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,9 +24,10 @@ import com.google.common.base.Preconditions;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.talvish.tales.parts.translators.TranslationException;
-import com.talvish.tales.parts.translators.Translator;
 import com.talvish.tales.serialization.TypeFormatAdapter;
+import com.talvish.tales.serialization.json.JsonWriterHelper;
 
 /**
  * A translator that looks at the type to be translated and picks an appropriate translator.
@@ -35,7 +37,7 @@ import com.talvish.tales.serialization.TypeFormatAdapter;
  * @author jmolnar
  *
  */
-public class PolymorphicObjectToJsonObjectTranslator implements Translator {
+public class PolymorphicObjectToJsonObjectTranslator implements JsonWritingTranslator {
 	private final Map<Class<?>, TypeFormatAdapter> typeAdapters = new HashMap<>( 2 );
 
 	/**
@@ -82,4 +84,28 @@ public class PolymorphicObjectToJsonObjectTranslator implements Translator {
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Writes the received object, using the appropriate type adapter, as a
+	 * json object containing the value type and the value.
+	 * If the object is of the wrong type, a TranslationException will occur.
+	 */
+	@Override
+	public void write( Object anObject, JsonWriter theWriter ) throws IOException {
+		if( anObject == null ) {
+			theWriter.nullValue( );
+		} else {
+			TypeFormatAdapter typeAdapter = typeAdapters.get( anObject.getClass( ) );
+			if( typeAdapter == null ) {
+				throw new TranslationException( String.format( "An object of type '%s' was attempting to be converted to a json object, but this object isn't supported", anObject.getClass( ).getName( ) ));
+			} else {
+				theWriter.beginObject( );
+				theWriter.name( "value_type" );
+				theWriter.value( typeAdapter.getName() );
+				theWriter.name( "value" );
+				JsonWriterHelper.write( typeAdapter.getToFormatTranslator(), anObject, theWriter );
+				theWriter.endObject( );
+			}
+		}
+	}
 }
@@ -15,15 +15,20 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.StringReader;
+
 import com.google.gson.JsonNull;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.json.JsonReaderHelper;
 
 /**
  * A translator that parses a string into {@code JsonElements}s before passing to 
- * another translator.
+ * another translator. If the other translator can read directly from a json
+ * reader, the string is read directly instead, so the JsonElement tree, which
+ * can be many times the size of the string, is never created.
  * @author jmolnar
  *
  */
@@ -41,6 +46,12 @@ public class StringToJsonElementToChainTranslator  implements Translator {
 		Object returnValue;
 		if( anObject == null ) {
 			returnValue = chainedTranslator.translate( JsonNull.INSTANCE );
+		} else if( chainedTranslator instanceof JsonReadingTranslator ) {
+			try {
+				returnValue = JsonReaderHelper.readDocument( chainedTranslator, JsonReaderHelper.createReader( new StringReader( ( String )anObject ) ) );
+			} catch( ClassCastException e ) {
+				throw new TranslationException( e );
+			}
 		} else {
 			try {
 				// NOTE: there is a bug in GSON that if the string is missing an ending curly brace then it doesn't report a json parsing exception
@@ -15,7 +15,10 @@
 // ***************************************************************************
 package com.talvish.tales.serialization.json.translators;
 
+import java.io.IOException;
+
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
 
@@ -27,7 +30,7 @@ import com.talvish.tales.parts.translators.Translator;
  * @author jmolnar
  *
  */
-public class VoidToJsonObjectTranslator implements Translator {
+public class VoidToJsonObjectTranslator implements JsonWritingTranslator {
 	/**
 	 * Empty default constructor.
 	 */
@@ -49,4 +52,18 @@ public class VoidToJsonObjectTranslator implements Translator {
 		}
 		return returnValue;	
 	}
+
+	/**
+	 * Writes an empty json object.
+	 * If the object isn't null, a TranslationException will occur.
+	 */
+	@Override
+	public void write( Object anObject, JsonWriter theWriter ) throws IOException {
+		if( anObject != null ) {
+			throw new TranslationException( String.format( "An object of type '{%s} is attempting to be used as a Void.", anObject.getClass().getName() ) );
+		} else {
+			theWriter.beginObject( );
+			theWriter.endObject( );
+		}
+	}
 }
@@ -0,0 +1,233 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.system;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * An executor that runs each task on its own thread, where threads are
+ * created as needed and reused when idle, and where the number of tasks
+ * running at the same time is limited by a semaphore instead of by the size
+ * of a pool and its queue. Tasks that cannot run because the limit was reached
+ * wait in a queue, which may be much larger than the concurrency limit, and are
+ * run, in order, as running tasks finish. Tasks are only rejected when the queue
+ * is full or the executor was shutdown.
+ * @author jmolnar
+ *
+ */
+public class ConcurrencyLimitedExecutor implements Executor {
+	private static final Logger logger = LoggerFactory.getLogger( ConcurrencyLimitedExecutor.class );
+
+	private final ThreadPoolExecutor threads;
+	private final Semaphore permits;
+	private final int maximumConcurrency;
+	private final int maximumQueueSize;
+
+	private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<Runnable>( );
+	private final AtomicInteger queueDepth = new AtomicInteger( 0 );
+	private final AtomicInteger activeCount = new AtomicInteger( 0 );
+	private final LongAdder rejectedExecutions = new LongAdder( );
+
+	/**
+	 * Constructor taking the parameters needed to limit and run tasks.
+	 * @param theMaximumConcurrency the maximum number of tasks that can run at the same time
+	 * @param theMaximumQueueSize the maximum number of tasks that can wait to run
+	 * @param theKeepAliveTime the time, in milliseconds, an idle thread is kept before it is stopped
+	 * @param theThreadFactory the factory used to create threads
+	 */
+	public ConcurrencyLimitedExecutor( int theMaximumConcurrency, int theMaximumQueueSize, long theKeepAliveTime, ThreadFactory theThreadFactory ) {
+		Preconditions.checkArgument( theMaximumConcurrency > 0, "the maximum concurrency must be greater than zero" );
+		Preconditions.checkArgument( theMaximumQueueSize >= 0, "the maximum queue size cannot be negative" );
+		Preconditions.checkArgument( theKeepAliveTime >= 0, "the keep alive time cannot be negative" );
+		Preconditions.checkNotNull( theThreadFactory, "need a thread factory" );
+
+		maximumConcurrency = theMaximumConcurrency;
+		maximumQueueSize = theMaximumQueueSize;
+		permits = new Semaphore( theMaximumConcurrency );
+		// the threads are handed tasks directly and the permits limit how
+		// many are running, but since a permit is released just before its
+		// thread is idle, the number of threads is not limited to avoid
+		// rejecting a task that was given a permit
+		threads = new ThreadPoolExecutor(
+				0,
+				Integer.MAX_VALUE,
+				theKeepAliveTime,
+				TimeUnit.MILLISECONDS,
+				new SynchronousQueue<Runnable>( ),
+				theThreadFactory );
+	}
+
+	/**
+	 * Executes the task on its own thread if the concurrency limit
+	 * has not been reached, otherwise queues the task to run later.
+	 * @param theTask the task to run
+	 * @throws RejectedExecutionException thrown if the queue is full or the executor was shutdown
+	 */
+	@Override
+	public void execute( Runnable theTask ) {
+		Preconditions.checkNotNull( theTask, "need a task" );
+		if( threads.isShutdown( ) ) {
+			rejectedExecutions.increment( );
+			throw new RejectedExecutionException( "The executor has been shutdown." );
+		} else if( permits.tryAcquire( ) ) {
+			if( !dispatch( theTask ) ) {
+				permits.release( );
+				rejectedExecutions.increment( );
+				// tasks may have been queued while the permit was held
+				drain( );
+				throw new RejectedExecutionException( "The executor has been shutdown." );
+			}
+		} else if( queueDepth.incrementAndGet( ) > maximumQueueSize ) {
+			queueDepth.decrementAndGet( );
+			rejectedExecutions.increment( );
+			throw new RejectedExecutionException( String.format( "The executor has reached its limit of %d running and %d queued tasks.", maximumConcurrency, maximumQueueSize ) );
+		} else {
+			queue.offer( theTask );
+			// a running task may have finished between failing to get a
+			// permit and queuing, so we make sure the queue is looked at
+			drain( );
+		}
+	}
+
+	/**
+	 * Helper method that runs queued tasks while permits are available.
+	 * Queued tasks were already accepted, so if the executor was shutdown
+	 * and a thread cannot be given the task, it is run on the current thread.
+	 */
+	private void drain( ) {
+		Runnable task;
+		while( !queue.isEmpty( ) && permits.tryAcquire( ) ) {
+			task = queue.poll( );
+			if( task == null ) {
+				permits.release( );
+			} else {
+				queueDepth.decrementAndGet( );
+				if( !dispatch( task ) ) {
+					run( task );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Helper method that hands a task, which has a permit, to a thread.
+	 * @param theTask the task to run
+	 * @return true if a thread was given the task, false if the executor was shutdown
+	 */
+	private boolean dispatch( Runnable theTask ) {
+		try {
+			threads.execute( ( ) -> run( theTask ) );
+			return true;
+		} catch( RejectedExecutionException e ) {
+			// this only happens when shutdown
+			return false;
+		}
+	}
+
+	/**
+	 * Helper method that runs the task, and then any queued tasks,
+	 * while holding a permit, releasing the permit when done.
+	 * @param theTask the first task to run
+	 */
+	private void run( Runnable theTask ) {
+		Runnable task = theTask;
+		try {
+			while( task != null ) {
+				activeCount.incrementAndGet( );
+				try {
+					task.run( );
+				} catch( RuntimeException e ) {
+					logger.error( "Task failed with an exception.", e );
+				} finally {
+					activeCount.decrementAndGet( );
+				}
+				task = queue.poll( );
+				if( task != null ) {
+					queueDepth.decrementAndGet( );
+				}
+			}
+		} finally {
+			permits.release( );
+		}
+		// a task may have been queued after the last poll
+		// but before the release, so we look at the queue
+		drain( );
+	}
+
+	/**
+	 * Returns the maximum number of tasks that can run at the same time.
+	 * @return the maximum number of running tasks
+	 */
+	public int getMaximumConcurrency( ) {
+		return maximumConcurrency;
+	}
+
+	/**
+	 * Returns the maximum number of tasks that can wait to run.
+	 * @return the maximum number of queued tasks
+	 */
+	public int getMaximumQueueSize( ) {
+		return maximumQueueSize;
+	}
+
+	/**
+	 * Returns the number of tasks currently running.
+	 * @return the number of running tasks
+	 */
+	public int getActiveCount( ) {
+		return activeCount.get( );
+	}
+
+	/**
+	 * Returns the number of tasks waiting to run.
+	 * @return the number of queued tasks
+	 */
+	public int getQueueDepth( ) {
+		return queueDepth.get( );
+	}
+
+	/**
+	 * Returns the number of tasks that have been rejected.
+	 * @return the number of rejected tasks
+	 */
+	public long getRejectedExecutions( ) {
+		return rejectedExecutions.sum( );
+	}
+
+	/**
+	 * Shuts down the executor so no new tasks are accepted.
+	 * Running and queued tasks will still be run, with queued tasks
+	 * that can no longer be given a new thread run on the thread 
+	 * that takes them from the queue.
+	 */
+	public void shutdown( ) {
+		threads.shutdown( );
+	}
+}
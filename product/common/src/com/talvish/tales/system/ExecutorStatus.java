@@ -0,0 +1,113 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.system;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+import com.talvish.tales.system.status.MonitorableStatusValue;
+
+/**
+ * Status information for an executor, which can be either a {@link ThreadPoolExecutor}
+ * or a {@link ConcurrencyLimitedExecutor}. For thread pool executors the rejected execution
+ * handler is wrapped, when this status is created, so that rejections can be counted.
+ * @author jmolnar
+ *
+ */
+public class ExecutorStatus {
+	private final Executor executor;
+	private final LongAdder rejectedExecutions = new LongAdder( );
+
+	/**
+	 * Constructor taking the executor to report status on.
+	 * @param theExecutor the executor to report status on
+	 */
+	public ExecutorStatus( Executor theExecutor ) {
+		Preconditions.checkNotNull( theExecutor, "need an executor" );
+		Preconditions.checkArgument( theExecutor instanceof ThreadPoolExecutor || theExecutor instanceof ConcurrencyLimitedExecutor, "executor of type '%s' is not supported", theExecutor.getClass( ).getName( ) );
+		executor = theExecutor;
+		if( theExecutor instanceof ThreadPoolExecutor ) {
+			ThreadPoolExecutor threadPool = ( ThreadPoolExecutor )theExecutor;
+			RejectedExecutionHandler handler = threadPool.getRejectedExecutionHandler( );
+			threadPool.setRejectedExecutionHandler( ( task, pool ) -> {
+				recordRejectedExecution( );
+				handler.rejectedExecution( task, pool );
+			} );
+		}
+	}
+
+	/**
+	 * Records a task being rejected by a thread pool executor.
+	 */
+	private void recordRejectedExecution( ) {
+		rejectedExecutions.increment( );
+	}
+
+	/**
+	 * Returns the number of tasks currently running.
+	 * @return the number of running tasks
+	 */
+	@MonitorableStatusValue( name = "active_count", description = "The number of tasks currently running." )
+	public int getActiveCount( ) {
+		if( executor instanceof ThreadPoolExecutor ) {
+			return ( ( ThreadPoolExecutor )executor ).getActiveCount( );
+		} else {
+			return ( ( ConcurrencyLimitedExecutor )executor ).getActiveCount( );
+		}
+	}
+
+	/**
+	 * Returns the maximum number of tasks that can run at the same time.
+	 * @return the maximum number of running tasks
+	 */
+	@MonitorableStatusValue( name = "maximum_active_count", description = "The maximum number of tasks that can run at the same time." )
+	public int getMaximumActiveCount( ) {
+		if( executor instanceof ThreadPoolExecutor ) {
+			return ( ( ThreadPoolExecutor )executor ).getMaximumPoolSize( );
+		} else {
+			return ( ( ConcurrencyLimitedExecutor )executor ).getMaximumConcurrency( );
+		}
+	}
+
+	/**
+	 * Returns the number of tasks waiting to run.
+	 * @return the number of queued tasks
+	 */
+	@MonitorableStatusValue( name = "queue_depth", description = "The number of tasks waiting to run." )
+	public int getQueueDepth( ) {
+		if( executor instanceof ThreadPoolExecutor ) {
+			return ( ( ThreadPoolExecutor )executor ).getQueue( ).size( );
+		} else {
+			return ( ( ConcurrencyLimitedExecutor )executor ).getQueueDepth( );
+		}
+	}
+
+	/**
+	 * Returns the number of tasks that have been rejected.
+	 * @return the number of rejected tasks
+	 */
+	@MonitorableStatusValue( name = "rejected_executions", description = "The total number of tasks rejected since the service was started." )
+	public long getRejectedExecutions( ) {
+		if( executor instanceof ThreadPoolExecutor ) {
+			return rejectedExecutions.sum( );
+		} else {
+			return ( ( ConcurrencyLimitedExecutor )executor ).getRejectedExecutions( );
+		}
+	}
+}
@@ -0,0 +1,291 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.system.status;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * This class limits the number of concurrent operations, where the limit
+ * adapts to the latency measured for the operations, using additive-increase,
+ * multiplicative-decrease (AIMD). Latency is collected over windows, each at
+ * least as long as a couple of operations take, and the limit changes at most
+ * once per window. The average latency of a window is compared to a baseline,
+ * which is the lowest average of the recent windows, so that a lasting change
+ * in latency, or a quick burst, is not treated as normal forever. The limit grows by one when a window's latency stays within a
+ * tolerance of the baseline while the limit is being used, and is cut when
+ * it goes beyond, which is the sign that operations are queuing instead of 
+ * being worked on.
+ * <p>
+ * Operations of different kinds, which naturally take different amounts of 
+ * time, can share a limit by releasing them with the latency usually seen for
+ * their kind, such as the baseline of a limit for just that kind, so the 
+ * limit adapts to how much slower operations are than usual.
+ * @author jmolnar
+ *
+ */
+public class AdaptiveConcurrencyLimit {
+	public static final int DEFAULT_INITIAL_LIMIT = 20;
+	public static final int DEFAULT_MINIMUM_LIMIT = 1;
+	public static final int DEFAULT_MAXIMUM_LIMIT = 1000;
+
+	private static final double BACKOFF_RATIO = 0.9d;
+	private static final double LATENCY_TOLERANCE = 2.0d;
+	private static final int BASELINE_WINDOWS = 20; // the number of recent windows the baseline is the lowest of
+	private static final double SMOOTHING = 0.2d; // how much, per window, the smoothed latency moves towards the window average
+	private static final long MINIMUM_WINDOW = 100000000l; // nanoseconds
+	private static final long MINIMUM_WINDOW_SAMPLES = 10;
+	private static final long MAXIMUM_RETRY_AFTER = 60;
+
+	private final int minimumLimit;
+	private final int maximumLimit;
+
+	private final AtomicInteger inFlight = new AtomicInteger( 0 );
+	private final LongAdder shedOperations = new LongAdder( );
+	private final RatedLong shedOperationRate = new RatedLong( );
+
+	// the current window, which whoever moves the window 
+	// end forward is responsible for closing out
+	private final AtomicLong windowEnd = new AtomicLong( System.nanoTime( ) + MINIMUM_WINDOW );
+	private final LongAdder windowSamples = new LongAdder( );
+	private final DoubleAdder windowLatency = new DoubleAdder( ); // the sum of the raw latencies
+	private final LongAdder windowRelativeSamples = new LongAdder( );
+	private final DoubleAdder windowRelativeLatency = new DoubleAdder( ); // the sum of the latencies, relative to what is usual, if given
+	private final AtomicInteger windowInFlight = new AtomicInteger( 0 ); // the most in flight during the window
+
+	// the following are only updated by whoever closes a window
+	// but are volatile since they are read at any time
+	private volatile double limit;
+	private volatile double baselineLatency = 0;
+	private volatile double smoothedLatency = 0;
+	private volatile boolean isRelative = false;
+	// the following are only used by whoever closes a window
+	private final double[] recentLatencies = new double[ BASELINE_WINDOWS ]; // the averages of the recent windows, used as a ring
+	private int recentPosition = 0;
+	private int recentCount = 0;
+	private boolean isWarm = false;
+
+	/**
+	 * Constructor using the default initial, minimum and maximum limits.
+	 */
+	public AdaptiveConcurrencyLimit( ) {
+		this( DEFAULT_INITIAL_LIMIT, DEFAULT_MINIMUM_LIMIT, DEFAULT_MAXIMUM_LIMIT );
+	}
+
+	/**
+	 * Constructor taking the limits to use.
+	 * @param theInitialLimit the limit to start with
+	 * @param theMinimumLimit the lowest the limit can go
+	 * @param theMaximumLimit the highest the limit can go
+	 */
+	public AdaptiveConcurrencyLimit( int theInitialLimit, int theMinimumLimit, int theMaximumLimit ) {
+		Preconditions.checkArgument( theMinimumLimit > 0, "minimum limit must be greater than zero" );
+		Preconditions.checkArgument( theMaximumLimit >= theMinimumLimit, "maximum limit must not be less than the minimum limit" );
+		Preconditions.checkArgument( theInitialLimit >= theMinimumLimit && theInitialLimit <= theMaximumLimit, "initial limit must be between the minimum and maximum limits" );
+
+		limit = theInitialLimit;
+		minimumLimit = theMinimumLimit;
+		maximumLimit = theMaximumLimit;
+	}
+
+	/**
+	 * Attempts to start an operation, which will succeed if the limit
+	 * has not been reached. If this returns true, either {@code release}
+	 * or {@code cancel} must be called when the operation is done.
+	 * @return true if the operation can start, false if it should be shed
+	 */
+	public boolean tryAcquire( ) {
+		int current = inFlight.get( );
+		while( current < ( int )limit ) {
+			if( inFlight.compareAndSet( current, current + 1 ) ) {
+				windowInFlight.accumulateAndGet( current + 1, Math::max );
+				return true;
+			}
+			current = inFlight.get( );
+		}
+		shedOperations.increment( );
+		shedOperationRate.increment( );
+		return false;
+	}
+
+	/**
+	 * Indicates an operation started with {@code tryAcquire} completed,
+	 * providing the measured latency used to adapt the limit.
+	 * @param theLatency the latency, in nanoseconds, of the operation
+	 */
+	public void release( long theLatency ) {
+		release( theLatency, 0 );
+	}
+
+	/**
+	 * Indicates an operation started with {@code tryAcquire} completed,
+	 * providing the measured latency used to adapt the limit and the 
+	 * latency usually seen for operations of its kind, so operations
+	 * that naturally take different amounts of time can share the limit.
+	 * @param theLatency the latency, in nanoseconds, of the operation
+	 * @param theUsualLatency the latency, in nanoseconds, usually seen for operations of the same kind, or zero if all operations sharing the limit are alike
+	 */
+	public void release( long theLatency, double theUsualLatency ) {
+		inFlight.decrementAndGet( );
+		double latency = theLatency < 0 ? 0 : theLatency;
+
+		windowLatency.add( latency );
+		windowSamples.increment( );
+		if( theUsualLatency > 0 ) {
+			windowRelativeLatency.add( latency / theUsualLatency );
+			windowRelativeSamples.increment( );
+		}
+
+		long time = System.nanoTime( );
+		long end = windowEnd.get( );
+		if( time - end >= 0 && windowSamples.sum( ) >= MINIMUM_WINDOW_SAMPLES ) {
+			// the window is over, but only one caller gets to close it out
+			long nextEnd = time + Math.max( MINIMUM_WINDOW, ( long )( smoothedLatency * 2 ) );
+			if( windowEnd.compareAndSet( end, nextEnd ) ) {
+				closeWindow( );
+			}
+		}
+	}
+
+	/**
+	 * Helper method that, once a window is over, uses the latencies
+	 * collected during the window to adapt the limit.
+	 */
+	private void closeWindow( ) {
+		double baseline = baselineLatency; // read first so we see what the last to close a window did
+		long samples = windowSamples.sumThenReset( );
+		double averageLatency = windowLatency.sumThenReset( ) / Math.max( 1, samples );
+		long relativeSamples = windowRelativeSamples.sumThenReset( );
+		double relativeLatency = windowRelativeLatency.sumThenReset( ) / Math.max( 1, relativeSamples );
+		int mostInFlight = windowInFlight.getAndSet( inFlight.get( ) );
+
+		smoothedLatency = smoothedLatency == 0 ? averageLatency : smoothedLatency + ( averageLatency - smoothedLatency ) * SMOOTHING;
+
+		// if the operations are of different kinds we compare how they did relative
+		// to what is usual for their kind, ignoring those without a usual latency,
+		// and once we do that we don't go back to comparing raw latencies
+		double gradientLatency;
+		if( relativeSamples >= MINIMUM_WINDOW_SAMPLES || ( isRelative && relativeSamples > 0 ) ) {
+			if( !isRelative ) {
+				isRelative = true;
+				recentCount = 0;
+				baseline = 0;
+			}
+			gradientLatency = relativeLatency;
+		} else if( !isRelative ) {
+			gradientLatency = averageLatency;
+		} else {
+			return;
+		}
+		if( !isWarm ) {
+			// the first window favours quick operations, since slower
+			// ones haven't completed yet, so it isn't used
+			isWarm = true;
+			baselineLatency = baseline;
+			return;
+		}
+		recentLatencies[ recentPosition ] = gradientLatency;
+		recentPosition = ( recentPosition + 1 ) % BASELINE_WINDOWS;
+		recentCount = Math.min( recentCount + 1, BASELINE_WINDOWS );
+		double newBaseline = gradientLatency;
+		for( int index = 0; index < recentCount; index += 1 ) {
+			newBaseline = Math.min( newBaseline, recentLatencies[ index ] );
+		}
+		baselineLatency = newBaseline;
+		if( baseline == 0 ) {
+			// nothing to compare to yet
+			return;
+		}
+
+		double currentLimit = limit;
+		if( gradientLatency > baseline * LATENCY_TOLERANCE ) {
+			// latency is growing so we back off quickly
+			limit = Math.max( minimumLimit, currentLimit * BACKOFF_RATIO );
+		} else if( mostInFlight * 2 >= currentLimit ) {
+			// latency is fine and at least half the limit was being used
+			limit = Math.min( maximumLimit, currentLimit + 1.0d );
+		}
+	}
+
+	/**
+	 * Returns the baseline latency, in nanoseconds, operations are compared against 
+	 * to decide if they are queuing, or zero if not known yet. If operations were 
+	 * released with their usual latency, this is relative to the usual latency.
+	 * @return the baseline latency
+	 */
+	public double getBaselineLatency( ) {
+		return baselineLatency;
+	}
+
+	/**
+	 * Indicates an operation started with {@code tryAcquire} did not
+	 * run, so no latency is available to adapt the limit.
+	 */
+	public void cancel( ) {
+		inFlight.decrementAndGet( );
+	}
+
+	/**
+	 * Calculates how long, in seconds, a caller whose operation was shed
+	 * should wait before retrying, based on the smoothed latency of operations
+	 * and how many operations are in flight compared to the limit.
+	 * @return the number of seconds to wait, which is at least 1
+	 */
+	public long calculateRetryAfter( ) {
+		double seconds = smoothedLatency * 0.000000001d * ( ( double )inFlight.get( ) / Math.max( 1.0d, limit ) );
+		return Math.min( MAXIMUM_RETRY_AFTER, Math.max( 1l, ( long )Math.ceil( seconds ) ) );
+	}
+
+	/**
+	 * Returns the current limit on concurrent operations.
+	 * @return the current limit
+	 */
+	@MonitorableStatusValue( name = "concurrency_limit", description = "The current adaptive limit on the number of concurrent requests." )
+	public int getLimit( ) {
+		return ( int )limit;
+	}
+
+	/**
+	 * Returns the number of operations currently running.
+	 * @return the number of running operations
+	 */
+	@MonitorableStatusValue( name = "concurrent_requests", description = "The number of requests currently running." )
+	public int getInFlight( ) {
+		return inFlight.get( );
+	}
+
+	/**
+	 * Returns the number of operations that were shed because the limit was reached.
+	 * @return the number of shed operations
+	 */
+	@MonitorableStatusValue( name = "shed_requests", description = "The total number of requests shed, because the concurrency limit was reached, since the service was started." )
+	public long getShedOperations( ) {
+		return shedOperations.sum( );
+	}
+
+	/**
+	 * Returns the rate of operations being shed.
+	 * @return the current rate of shed operations
+	 */
+	@MonitorableStatusValue( name = "shed_request_rate", description = "The rate, in seconds, of the number of requests shed as measured over 10 seconds." )
+	public double getShedOperationRate( ) {
+		return shedOperationRate.calculateRate( );
+	}
+}
@@ -15,7 +15,7 @@
 // ***************************************************************************
 package com.talvish.tales.system.status;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.google.common.base.Preconditions;
 
@@ -23,13 +23,15 @@ import com.google.common.base.Preconditions;
  * This class is used to calculate an average of a set of values that are calculated
  * within a specified time ranges. The calculation is based on 
  * tracking two measurement intervals.
+ * The intervals are aligned to the time the object was created and
+ * values are kept in striped counters, so adding values does not 
+ * lock, except for the one thread that moves to a new interval.
  * @author jmolnar
  *
  */
 public class AverageLong {
-	private final Object lock = new Object( );
-	
 	private final long intervalPeriod;
+	private final long originTimestamp = System.nanoTime( );
 	
 	/**
 	 * Constructor which will set the measurement over 20 seconds.
@@ -50,70 +52,50 @@ public class AverageLong {
 	}
 	
 	/**
-	 * Simple private class holding start/end timestamp and value being measured.
+	 * Simple private class holding the interval number and value being measured.
 	 * @author jmolnar
 	 *
 	 */
-	private class Interval {
-		private long startTimestamp = 0;
-		private long endTimestamp = 0;
-		private final AtomicLong count = new AtomicLong( 0 );
-		private final AtomicLong value = new AtomicLong( 0 );
+	private static class Interval {
+		private volatile long number = Long.MIN_VALUE;
+		private final LongAdder count = new LongAdder( );
+		private final LongAdder value = new LongAdder( );
 	}
 	
-	private final Interval intervalOne = new Interval( );
-	private final Interval intervalTwo = new Interval( );
+	// the intervals are used alternately, based on the interval number
+	private final Interval[] intervals = new Interval[] { new Interval( ), new Interval( ) };
 	
 	/**
 	 * Calculates the average of the longs based in, as a long
 	 * @return the average of the values
 	 */
 	public long calculateAverage( ) {
-		long currentNanoTime = System.nanoTime();
-
-		long intervalTwoStartTimestamp;
-		long intervalTwoEndTimestamp;
-
-		double intervalOneValue;
-		double intervalOneCount;
-		double intervalTwoValue;
-		double intervalTwoCount;
-
-		long average;
+		long elapsedTime = System.nanoTime() - originTimestamp;
+		long intervalNumber = elapsedTime / intervalPeriod;
 
-		synchronized( lock ) {
-			intervalTwoStartTimestamp = intervalTwo.startTimestamp;
-			intervalTwoEndTimestamp = intervalTwo.endTimestamp;
+		Interval intervalTwo = intervals[ ( int )( intervalNumber & 1l ) ];
+		Interval intervalOne = intervals[ ( int )( ( intervalNumber - 1l ) & 1l ) ];
 
-			if( currentNanoTime > ( intervalTwoEndTimestamp + intervalPeriod ) ) {
-				average = 0;
-				
-			} else {
-				if( currentNanoTime > intervalTwoEndTimestamp ) {
-					intervalTwoStartTimestamp = intervalTwoEndTimestamp;
-					// we don't set the end time, because we don't use it
-					intervalTwoValue = 0;
-					intervalTwoCount = 0; // to ensure it divides right
-					intervalOneValue = intervalTwo.value.get( );
-					intervalOneCount = intervalTwo.count.get( );
+		double intervalOneValue = 0.0d;
+		double intervalOneCount = 0.0d;
+		double intervalTwoValue = 0.0d;
+		double intervalTwoCount = 0.0d;
 
-				} else {
-					intervalTwoValue = intervalTwo.value.get( );
-					intervalTwoCount = intervalTwo.count.get( );
-					intervalOneValue = intervalOne.value.get();
-					intervalOneCount = intervalOne.count.get( );
-				}
-	
-				
-				double periodTwoTimeOverlap = currentNanoTime - intervalTwoStartTimestamp;
-				double periodOnePercentage =  1.0d - ( periodTwoTimeOverlap / (double ) intervalPeriod );
-				double divisor = intervalTwoCount + periodOnePercentage * intervalOneCount;
-				
-				average = ( long ) (divisor == 0.0d ? 0.0d :  ( intervalTwoValue + periodOnePercentage * intervalOneValue ) / divisor );
-			} 
+		// intervals that are not the current or previous interval are stale and have no values
+		if( intervalTwo.number == intervalNumber ) {
+			intervalTwoValue = intervalTwo.value.sum( );
+			intervalTwoCount = intervalTwo.count.sum( );
 		}
-
-		return average;
+		if( intervalOne.number == intervalNumber - 1l ) {
+			intervalOneValue = intervalOne.value.sum( );
+			intervalOneCount = intervalOne.count.sum( );
+		}
+		
+		double periodTwoTimeOverlap = elapsedTime - intervalNumber * intervalPeriod;
+		double periodOnePercentage =  1.0d - ( periodTwoTimeOverlap / (double ) intervalPeriod );
+		double divisor = intervalTwoCount + periodOnePercentage * intervalOneCount;
+				
+		return ( long ) (divisor == 0.0d ? 0.0d :  ( intervalTwoValue + periodOnePercentage * intervalOneValue ) / divisor );
 	}
 
 	/**
@@ -121,38 +103,21 @@ public class AverageLong {
 	 * @param theValue the value to add to the average
 	 */
 	public void add( long theValue ) {
-		long currentNanoTime = System.nanoTime();
-		synchronized( lock ) {
-			long extendedPeriodTwoNanoTime = intervalTwo.endTimestamp + intervalPeriod;
-			
-			if( currentNanoTime > extendedPeriodTwoNanoTime ) {
-				// if the current time is beyond second one +interval
-				// we reset them both time-wise and add to interval
-				intervalTwo.startTimestamp = System.nanoTime();
-				intervalTwo.endTimestamp = intervalTwo.startTimestamp + intervalPeriod;
-				intervalTwo.value.set( theValue );
-				intervalTwo.count.set( 1 );
-				intervalOne.endTimestamp = intervalTwo.startTimestamp;
-				intervalOne.startTimestamp = intervalOne.endTimestamp - intervalPeriod;
-				intervalOne.value.set( 0 );
-				intervalOne.count.set( 0 );
-			} else if( currentNanoTime > intervalTwo.endTimestamp ) {
-				// we are less than the interval two end + the interval length 
-				// so we need to make the second interval become the first interval
-				// reset the new second interval and add to the interval two
-				intervalOne.startTimestamp = intervalTwo.startTimestamp;
-				intervalOne.endTimestamp = intervalTwo.endTimestamp;
-				intervalOne.value.set( intervalTwo.value.get( ) );
-				intervalOne.count.set( intervalTwo.count.get( ) );
-				intervalTwo.startTimestamp = intervalOne.endTimestamp;
-				intervalTwo.endTimestamp = intervalTwo.startTimestamp + intervalPeriod;
-				intervalTwo.value.set( theValue );
-				intervalTwo.count.set( 1 );
-			} else {
-				// just add to second interval
-				intervalTwo.value.addAndGet( theValue );
-				intervalTwo.count.incrementAndGet();
+		long intervalNumber = ( System.nanoTime() - originTimestamp ) / intervalPeriod;
+		Interval interval = intervals[ ( int )( intervalNumber & 1l ) ];
+		
+		if( interval.number != intervalNumber ) {
+			// the interval is stale, so it needs to be reset for the current
+			// interval, which only one thread does
+			synchronized( interval ) {
+				if( interval.number < intervalNumber ) {
+					interval.value.reset( );
+					interval.count.reset( );
+					interval.number = intervalNumber;
+				}
 			}
 		}
+		interval.value.add( theValue );
+		interval.count.increment( );
 	}
 }
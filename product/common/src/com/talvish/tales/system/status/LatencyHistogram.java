@@ -0,0 +1,204 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.system.status;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * This class is used to calculate percentiles, and the maximum, of a set of
+ * values (typically latencies in nanoseconds) recorded within a specified
+ * time range. Values are counted in a fixed set of logarithmic buckets, where
+ * each power of two is split into 16 linear sub-buckets, so calculated
+ * percentiles are within about 6% of the actual value. Values beyond roughly
+ * 73 minutes, in nanoseconds, are counted in the last bucket.
+ * Like {@link AverageLong}, the calculation is based on tracking two
+ * measurement intervals, where the percentiles are calculated over the
+ * current and previous intervals. Recording does not allocate and does not
+ * lock, except for the one thread that moves to a new interval.
+ * @author jmolnar
+ *
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 42;
+	private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + ( MAX_EXPONENT - SUB_BUCKET_BITS + 1 ) * SUB_BUCKET_COUNT;
+
+	private final long intervalPeriod;
+	private final long originTimestamp = System.nanoTime( );
+
+	/**
+	 * Constructor which will set the measurement over 20 seconds.
+	 */
+	public LatencyHistogram( ) {
+		this( 20l * 1000l * 1000l * 1000l );
+	}
+
+	/**
+	 * Constructor taking interval time span to use.
+	 * The total interval time span used to calculate the percentiles.
+	 * @param theTotalIntervalPeriod the length of time for the total measuring period. The interval is in nanoseconds.
+	 */
+	public LatencyHistogram( long theTotalIntervalPeriod ) {
+		Preconditions.checkArgument( theTotalIntervalPeriod > 0, "interval period must be a positive number" );
+		intervalPeriod = theTotalIntervalPeriod / 2l;
+	}
+
+	/**
+	 * Simple private class holding the interval number and the buckets being measured.
+	 * @author jmolnar
+	 *
+	 */
+	private static class Interval {
+		private volatile long number = Long.MIN_VALUE;
+		private final AtomicLongArray buckets = new AtomicLongArray( BUCKET_COUNT );
+		private final AtomicLong maximum = new AtomicLong( 0 );
+	}
+
+	// the intervals are used alternately, based on the interval number
+	private final Interval[] intervals = new Interval[] { new Interval( ), new Interval( ) };
+
+	/**
+	 * Records a value, typically a latency in nanoseconds.
+	 * Negative values are recorded as 0.
+	 * @param theValue the value to record
+	 */
+	public void record( long theValue ) {
+		long value = theValue < 0 ? 0 : theValue;
+		long intervalNumber = ( System.nanoTime() - originTimestamp ) / intervalPeriod;
+		Interval interval = intervals[ ( int )( intervalNumber & 1l ) ];
+
+		if( interval.number != intervalNumber ) {
+			// the interval is stale, so it needs to be reset for the current
+			// interval, which only one thread does
+			synchronized( interval ) {
+				if( interval.number < intervalNumber ) {
+					for( int index = 0; index < BUCKET_COUNT; index += 1 ) {
+						interval.buckets.set( index, 0 );
+					}
+					interval.maximum.set( 0 );
+					interval.number = intervalNumber;
+				}
+			}
+		}
+		interval.buckets.incrementAndGet( bucketIndex( value ) );
+
+		// the maximum rarely changes, so we only try to set it when it is exceeded
+		long maximum = interval.maximum.get( );
+		while( value > maximum && !interval.maximum.compareAndSet( maximum, value ) ) {
+			maximum = interval.maximum.get( );
+		}
+	}
+
+	/**
+	 * Calculates the value at the given percentile, over the current and previous
+	 * intervals. The value returned is the upper bound of the bucket holding the
+	 * percentile, limited to the maximum value recorded.
+	 * @param thePercentile the percentile, which must be greater than 0 and no more than 100
+	 * @return the value at the percentile, or 0 if nothing was recorded
+	 */
+	public long calculatePercentile( double thePercentile ) {
+		Preconditions.checkArgument( thePercentile > 0.0d && thePercentile <= 100.0d, "percentile must be greater than 0 and no more than 100" );
+
+		long intervalNumber = ( System.nanoTime() - originTimestamp ) / intervalPeriod;
+		Interval intervalTwo = intervals[ ( int )( intervalNumber & 1l ) ];
+		Interval intervalOne = intervals[ ( int )( ( intervalNumber - 1l ) & 1l ) ];
+		boolean useIntervalTwo = intervalTwo.number == intervalNumber;
+		boolean useIntervalOne = intervalOne.number == intervalNumber - 1l;
+
+		// take a copy of the counts, since recording continues while calculating
+		long[] counts = new long[ BUCKET_COUNT ];
+		long total = 0;
+		for( int index = 0; index < BUCKET_COUNT; index += 1 ) {
+			if( useIntervalTwo ) {
+				counts[ index ] += intervalTwo.buckets.get( index );
+			}
+			if( useIntervalOne ) {
+				counts[ index ] += intervalOne.buckets.get( index );
+			}
+			total += counts[ index ];
+		}
+		if( total == 0 ) {
+			return 0;
+		} else {
+			long maximum = Math.max( useIntervalTwo ? intervalTwo.maximum.get( ) : 0, useIntervalOne ? intervalOne.maximum.get( ) : 0 );
+			long target = ( long )Math.ceil( total * thePercentile / 100.0d );
+			long seen = 0;
+
+			for( int index = 0; index < BUCKET_COUNT; index += 1 ) {
+				seen += counts[ index ];
+				if( seen >= target ) {
+					return Math.min( bucketUpperBound( index ), maximum );
+				}
+			}
+			return maximum;
+		}
+	}
+
+	/**
+	 * Calculates the maximum value recorded over the current and previous intervals.
+	 * @return the maximum value, or 0 if nothing was recorded
+	 */
+	public long calculateMaximum( ) {
+		long intervalNumber = ( System.nanoTime() - originTimestamp ) / intervalPeriod;
+		Interval intervalTwo = intervals[ ( int )( intervalNumber & 1l ) ];
+		Interval intervalOne = intervals[ ( int )( ( intervalNumber - 1l ) & 1l ) ];
+
+		return Math.max(
+				intervalTwo.number == intervalNumber ? intervalTwo.maximum.get( ) : 0,
+				intervalOne.number == intervalNumber - 1l ? intervalOne.maximum.get( ) : 0 );
+	}
+
+	/**
+	 * Helper method that determines the bucket a value belongs in.
+	 * @param theValue the non-negative value to get the bucket for
+	 * @return the index of the bucket
+	 */
+	private static int bucketIndex( long theValue ) {
+		if( theValue < SUB_BUCKET_COUNT ) {
+			return ( int )theValue;
+		} else {
+			int exponent = 63 - Long.numberOfLeadingZeros( theValue );
+			if( exponent > MAX_EXPONENT ) {
+				return BUCKET_COUNT - 1;
+			} else {
+				// the sub-bucket is taken from the bits just below the highest bit
+				int subBucket = ( int )( theValue >>> ( exponent - SUB_BUCKET_BITS ) ) - SUB_BUCKET_COUNT;
+				return SUB_BUCKET_COUNT + ( exponent - SUB_BUCKET_BITS ) * SUB_BUCKET_COUNT + subBucket;
+			}
+		}
+	}
+
+	/**
+	 * Helper method that determines the largest value that belongs in a bucket.
+	 * @param theIndex the index of the bucket
+	 * @return the largest value in the bucket
+	 */
+	private static long bucketUpperBound( int theIndex ) {
+		if( theIndex < SUB_BUCKET_COUNT ) {
+			return theIndex;
+		} else if( theIndex == BUCKET_COUNT - 1 ) {
+			return Long.MAX_VALUE;
+		} else {
+			int shift = ( theIndex - SUB_BUCKET_COUNT ) / SUB_BUCKET_COUNT;
+			long subBucket = ( theIndex - SUB_BUCKET_COUNT ) % SUB_BUCKET_COUNT;
+			return ( ( SUB_BUCKET_COUNT + subBucket + 1l ) << shift ) - 1l;
+		}
+	}
+}
@@ -15,7 +15,7 @@
 // ***************************************************************************
 package com.talvish.tales.system.status;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.google.common.base.Preconditions;
 
@@ -23,14 +23,16 @@ import com.google.common.base.Preconditions;
  * This class is used to calculate the rate, in seconds, based on the
  * changes made to a long. The calculation is based on 
  * tracking two measurement intervals.
+ * The intervals are aligned to the time the object was created and
+ * values are kept in striped counters, so adding values does not 
+ * lock, except for the one thread that moves to a new interval.
  * @author jmolnar
  *
  */
 public class RatedLong {
-	private final Object lock = new Object( );
-	
 	private final long resultRate;
 	private final long intervalPeriod;
+	private final long originTimestamp = System.nanoTime( );
 	
 	/**
 	 * Constructor which will set the total measurement interval to ten seconds.
@@ -52,60 +54,37 @@ public class RatedLong {
 	}
 	
 	/**
-	 * Simple private class holding start/end timestamp and value being measured.
+	 * Simple private class holding the interval number and value being measured.
 	 * @author jmolnar
 	 *
 	 */
-	private class Interval {
-		private long startTimestamp = 0;
-		private long endTimestamp = 0;
-		private final AtomicLong value = new AtomicLong( 0 );
+	private static class Interval {
+		private volatile long number = Long.MIN_VALUE;
+		private final LongAdder value = new LongAdder( );
 	}
 	
-	private final Interval intervalOne = new Interval( );
-	private final Interval intervalTwo = new Interval( );
+	// the intervals are used alternately, based on the interval number
+	private final Interval[] intervals = new Interval[] { new Interval( ), new Interval( ) };
 	
 	/**
 	 * Calculates the current rate of the long as measured in seconds.
 	 * @return the rate of the value in seconds
 	 */
 	public double calculateRate( ) {
-		long currentNanoTime = System.nanoTime();
-
-		long intervalTwoStartTimestamp;
-		long intervalTwoEndTimestamp;
-
-		double intervalOneValue;
-		double intervalTwoValue;
+		long elapsedTime = System.nanoTime() - originTimestamp;
+		long intervalNumber = elapsedTime / intervalPeriod;
 
-		double rate;
+		Interval intervalTwo = intervals[ ( int )( intervalNumber & 1l ) ];
+		Interval intervalOne = intervals[ ( int )( ( intervalNumber - 1l ) & 1l ) ];
 
-		synchronized( lock ) {
-			intervalTwoStartTimestamp = intervalTwo.startTimestamp;
-			intervalTwoEndTimestamp = intervalTwo.endTimestamp;
-
-			if( currentNanoTime > ( intervalTwoEndTimestamp + intervalPeriod ) ) {
-				rate = 0.0d;
-				
-			} else {
-				if( currentNanoTime > intervalTwoEndTimestamp ) {
-					intervalTwoStartTimestamp = intervalTwoEndTimestamp;
-					// we don't set the end time, because we don't use it
-					intervalTwoValue = 0;
-					intervalOneValue = intervalTwo.value.get( );
-				} else {
-					intervalTwoValue = intervalTwo.value.get( );
-					intervalOneValue = intervalOne.value.get();
-				}
+		// intervals that are not the current or previous interval are stale and have no value
+		double intervalTwoValue = intervalTwo.number == intervalNumber ? intervalTwo.value.sum( ) : 0.0d;
+		double intervalOneValue = intervalOne.number == intervalNumber - 1l ? intervalOne.value.sum( ) : 0.0d;
 				
-				double periodTwoTimeOverlap = currentNanoTime - intervalTwoStartTimestamp;
-				double periodOnePercentage =  1.0d - ( periodTwoTimeOverlap / (double ) intervalPeriod );
+		double periodTwoTimeOverlap = elapsedTime - intervalNumber * intervalPeriod;
+		double periodOnePercentage =  1.0d - ( periodTwoTimeOverlap / (double ) intervalPeriod );
 	
-				rate = (  intervalTwoValue + periodOnePercentage * intervalOneValue ) / ( ( double )resultRate );
-			} 
-		}
-
-		return rate;
+		return (  intervalTwoValue + periodOnePercentage * intervalOneValue ) / ( ( double )resultRate );
 	}
 
 	/**
@@ -120,35 +99,19 @@ public class RatedLong {
 	 * @param theValue the value to add
 	 */
 	public void add( long theValue ) {
-		long currentNanoTime = System.nanoTime();
-		synchronized( lock ) {
-			long extendedPeriodTwoNanoTime = intervalTwo.endTimestamp + intervalPeriod;
-			
-			if( currentNanoTime > extendedPeriodTwoNanoTime ) {
-				// if the current time is beyond second one +interval
-				// we reset them both time-wise and add to period two counter
-				intervalTwo.startTimestamp = System.nanoTime();
-				intervalTwo.endTimestamp = intervalTwo.startTimestamp + intervalPeriod;
-				intervalTwo.value.set( theValue );
-				intervalOne.endTimestamp = intervalTwo.startTimestamp;
-				intervalOne.startTimestamp = intervalOne.endTimestamp - intervalPeriod;
-				intervalOne.value.set( 0 );
-
-			} else if( currentNanoTime > intervalTwo.endTimestamp ) {
-				// we are less than the interval two end + the interval length 
-				// so we need to make the second interval become the first interval
-				// reset the new second interval and increase the interval two value
-				intervalOne.startTimestamp = intervalTwo.startTimestamp;
-				intervalOne.endTimestamp = intervalTwo.endTimestamp;
-				intervalOne.value.set( intervalTwo.value.get( ) );
-				intervalTwo.startTimestamp = intervalOne.endTimestamp;
-				intervalTwo.endTimestamp = intervalTwo.startTimestamp + intervalPeriod;
-				intervalTwo.value.set( theValue );
-
-			} else {
-				// just increment the second interval
-				intervalTwo.value.addAndGet( theValue );
+		long intervalNumber = ( System.nanoTime() - originTimestamp ) / intervalPeriod;
+		Interval interval = intervals[ ( int )( intervalNumber & 1l ) ];
+		
+		if( interval.number != intervalNumber ) {
+			// the interval is stale, so it needs to be reset for the current
+			// interval, which only one thread does
+			synchronized( interval ) {
+				if( interval.number < intervalNumber ) {
+					interval.value.reset( );
+					interval.number = intervalNumber;
+				}
 			}
 		}
+		interval.value.add( theValue );
 	}
 }
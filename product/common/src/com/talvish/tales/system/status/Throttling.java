@@ -15,12 +15,220 @@
 // ***************************************************************************
 package com.talvish.tales.system.status;
 
-// NOTE: not implemented
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * This class throttles operations, per key (e.g. per caller), using a token bucket
+ * for each key. Each bucket holds up to a burst of tokens and is refilled at a set
+ * rate. Rather than tracking tokens and refill times, each bucket tracks a single
+ * value, the time at which the bucket would be full again, which is updated with a
+ * compare-and-set so that checking a bucket does not lock.
+ * The buckets are kept in a map that is bounded in size and evicts buckets that
+ * have not been used for an idle time. The idle time is never less than the time
+ * it takes a bucket to refill, so evicting an idle bucket is the same as keeping
+ * a full bucket. If the map is full, the least recently used buckets are evicted.
+ * Where callers are able to choose their keys, a parent key, which the caller
+ * cannot choose, can be given so that a new bucket is only made if a token can 
+ * be taken from the parent's bucket, which keeps a caller from getting a fresh
+ * bucket, and evicting the buckets of others, by using a new key each time.
+ * @author jmolnar
+ *
+ */
 public class Throttling {
-	// for throttling, what if the bucket size coudl be defined (setting reference maybe?), or maybe a throttle block ... is it related to status?
-	
-	// http://stackoverflow.com/questions/2625790/algorithm-to-calculate-eta-of-a-file-downloading-session
-	// http://en.wikipedia.org/wiki/Leaky_bucket
-	// http://en.wikipedia.org/wiki/Token_bucket
+	/**
+	 * Simple private class holding the time, in nanoseconds, that
+	 * the bucket would be full, if no more tokens are taken.
+	 * @author jmolnar
+	 *
+	 */
+	private static class Bucket {
+		private final AtomicLong fullTimestamp;
+
+		private Bucket( long theTimestamp ) {
+			fullTimestamp = new AtomicLong( theTimestamp );
+		}
+	}
+
+	private final double rate;
+	private final int burst;
+	private final long tokenInterval;
+	private final long burstInterval;
+	private final Cache<String, Bucket> buckets;
+
+	private final LongAdder throttledOperations = new LongAdder( );
+	private final RatedLong throttledOperationRate = new RatedLong( );
+
+	/**
+	 * Constructor taking the parameters for the buckets and the map holding them.
+	 * @param theRate the number of tokens, per second, added to a bucket
+	 * @param theBurst the maximum number of tokens a bucket can hold
+	 * @param theMaximumKeys the maximum number of buckets to keep
+	 * @param theIdleTime the time, in milliseconds, a bucket can go unused before it is evicted
+	 */
+	public Throttling( double theRate, int theBurst, long theMaximumKeys, long theIdleTime ) {
+		Preconditions.checkArgument( theRate > 0.0d, "rate must be greater than zero" );
+		Preconditions.checkArgument( theBurst > 0, "burst must be greater than zero" );
+		Preconditions.checkArgument( theMaximumKeys > 0, "maximum keys must be greater than zero" );
+		Preconditions.checkArgument( theIdleTime >= 0, "idle time cannot be negative" );
+
+		rate = theRate;
+		burst = theBurst;
+		tokenInterval = Math.max( 1l, ( long )( 1000000000.0d / theRate ) );
+		burstInterval = tokenInterval * theBurst;
+		buckets = CacheBuilder.newBuilder( )
+				.maximumSize( theMaximumKeys )
+				.expireAfterAccess( Math.max( theIdleTime, TimeUnit.NANOSECONDS.toMillis( burstInterval ) + 1 ), TimeUnit.MILLISECONDS )
+				.build( );
+	}
+
+	/**
+	 * Attempts to take a token from the bucket for the key.
+	 * @param theKey the key, e.g. the caller, to take the token for
+	 * @return true if a token was available, false if the operation should be throttled
+	 */
+	public boolean tryAcquire( String theKey ) {
+		Preconditions.checkArgument( !Strings.isNullOrEmpty( theKey ), "need a key" );
+
+		long now = System.nanoTime( );
+		Bucket bucket = getBucket( theKey, now );
+		long fullTimestamp;
+		long newFullTimestamp;
+
+		do {
+			fullTimestamp = bucket.fullTimestamp.get( );
+			// taking a token pushes out when the bucket would be full, and if
+			// that is more than a burst away, there were no tokens to take
+			newFullTimestamp = Math.max( fullTimestamp, now ) + tokenInterval;
+			if( newFullTimestamp - now > burstInterval ) {
+				throttledOperations.increment( );
+				throttledOperationRate.increment( );
+				return false;
+			}
+		} while( !bucket.fullTimestamp.compareAndSet( fullTimestamp, newFullTimestamp ) );
+		return true;
+	}
+
+	/**
+	 * Attempts to take a token from the bucket for the key, where, if there
+	 * isn't a bucket for the key yet, a token must first be taken from the
+	 * bucket of the parent key before the bucket for the key is made.
+	 * @param theKey the key, e.g. the caller, to take the token for
+	 * @param theParentKey the key, e.g. the address of the caller, that limits how quickly new keys are seen
+	 * @return true if a token was available, false if the operation should be throttled
+	 */
+	public boolean tryAcquire( String theKey, String theParentKey ) {
+		Preconditions.checkArgument( !Strings.isNullOrEmpty( theKey ), "need a key" );
+		Preconditions.checkArgument( !Strings.isNullOrEmpty( theParentKey ), "need a parent key" );
+
+		if( buckets.getIfPresent( theKey ) == null && !tryAcquire( theParentKey ) ) {
+			return false;
+		} else {
+			return tryAcquire( theKey );
+		}
+	}
+
+	/**
+	 * Calculates how long, in milliseconds, before a token will be
+	 * available in the bucket for the key.
+	 * @param theKey the key, e.g. the caller, to check
+	 * @return the time, in milliseconds, before a token is available, which is 0 if one is available now
+	 */
+	public long calculateWait( String theKey ) {
+		Preconditions.checkArgument( !Strings.isNullOrEmpty( theKey ), "need a key" );
+
+		long now = System.nanoTime( );
+		Bucket bucket = buckets.getIfPresent( theKey );
+		if( bucket == null ) {
+			return 0;
+		} else {
+			long wait = Math.max( bucket.fullTimestamp.get( ), now ) + tokenInterval - now - burstInterval;
+			return wait <= 0 ? 0 : TimeUnit.NANOSECONDS.toMillis( wait - 1 ) + 1;
+		}
+	}
+
+	/**
+	 * Calculates how long, in milliseconds, before a token will be available
+	 * in the bucket for the key, or, if there isn't a bucket for the key yet,
+	 * the bucket for the parent key.
+	 * @param theKey the key, e.g. the caller, to check
+	 * @param theParentKey the key, e.g. the address of the caller, that limits how quickly new keys are seen
+	 * @return the time, in milliseconds, before a token is available, which is 0 if one is available now
+	 */
+	public long calculateWait( String theKey, String theParentKey ) {
+		Preconditions.checkArgument( !Strings.isNullOrEmpty( theKey ), "need a key" );
+		Preconditions.checkArgument( !Strings.isNullOrEmpty( theParentKey ), "need a parent key" );
+
+		return calculateWait( buckets.getIfPresent( theKey ) == null ? theParentKey : theKey );
+	}
+
+	/**
+	 * Helper method that gets the bucket for a key, creating it if needed.
+	 * @param theKey the key to get the bucket for
+	 * @param theTimestamp the current time, in nanoseconds
+	 * @return the bucket for the key
+	 */
+	private Bucket getBucket( String theKey, long theTimestamp ) {
+		Bucket bucket = buckets.getIfPresent( theKey );
+		if( bucket == null ) {
+			// new buckets start full
+			Bucket newBucket = new Bucket( theTimestamp );
+			bucket = buckets.asMap( ).putIfAbsent( theKey, newBucket );
+			if( bucket == null ) {
+				bucket = newBucket;
+			}
+		}
+		return bucket;
+	}
+
+	/**
+	 * Returns the number of tokens, per second, added to a bucket.
+	 * @return the rate tokens are added
+	 */
+	@MonitorableStatusValue( name = "throttling_rate", description = "The number of requests, per second, each caller can make." )
+	public double getRate( ) {
+		return rate;
+	}
+
+	/**
+	 * Returns the maximum number of tokens a bucket can hold.
+	 * @return the maximum tokens in a bucket
+	 */
+	@MonitorableStatusValue( name = "throttling_burst", description = "The number of requests each caller can make at once." )
+	public int getBurst( ) {
+		return burst;
+	}
+
+	/**
+	 * Returns the approximate number of buckets being kept.
+	 * @return the number of buckets
+	 */
+	@MonitorableStatusValue( name = "throttled_callers", description = "The approximate number of callers being tracked for throttling." )
+	public long getKeyCount( ) {
+		return buckets.size( );
+	}
+
+	/**
+	 * Returns the number of operations throttled.
+	 * @return the number of throttled operations
+	 */
+	@MonitorableStatusValue( name = "throttled_requests", description = "The total number of requests throttled since the service was started." )
+	public long getThrottledOperations( ) {
+		return throttledOperations.sum( );
+	}
 
+	/**
+	 * Returns the rate of operations being throttled.
+	 * @return the current rate of throttled operations
+	 */
+	@MonitorableStatusValue( name = "throttled_request_rate", description = "The rate, in seconds, of the number of requests throttled as measured over 10 seconds." )
+	public double getThrottledOperationRate( ) {
+		return throttledOperationRate.calculateRate( );
+	}
 }
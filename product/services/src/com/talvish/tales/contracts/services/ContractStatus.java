@@ -15,54 +15,59 @@
 // ***************************************************************************
 package com.talvish.tales.contracts.services;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
 import com.talvish.tales.system.status.AverageLong;
+import com.talvish.tales.system.status.LatencyHistogram;
 import com.talvish.tales.system.status.MonitorableStatusValue;
 import com.talvish.tales.system.status.RatedLong;
 
 /**
  * Contains status information regarding the associated contract.
+ * Recording is meant to be cheap since it occurs on every request, so
+ * counts use striped counters and the last event times are kept as 
+ * milliseconds, only becoming {@code DateTime}s when retrieved.
  * @author jmolnar
  *
  */
 public class ContractStatus {
-	private AtomicLong clientErrors				= new AtomicLong( 0 );
+	private LongAdder clientErrors				= new LongAdder( );
 	private RatedLong clientErrorRate			= new RatedLong( );
-	private volatile DateTime lastClientError	= null;
+	private volatile long lastClientErrorTimestamp	= 0;
 	
-	private AtomicLong localErrors 				= new AtomicLong( 0 );
+	private LongAdder localErrors 				= new LongAdder( );
 	private RatedLong localErrorRate			= new RatedLong( );
-	private volatile DateTime lastLocalError	= null;
+	private volatile long lastLocalErrorTimestamp	= 0;
 
-	private AtomicLong unavailableErrors 		= new AtomicLong( 0 );
+	private LongAdder unavailableErrors 		= new LongAdder( );
 	private RatedLong unavailableErrorRate		= new RatedLong( );
-	private volatile DateTime lastUnavailableError	= null;
+	private volatile long lastUnavailableErrorTimestamp	= 0;
 
-	private AtomicLong dependentErrors 			= new AtomicLong( 0 );
+	private LongAdder dependentErrors 			= new LongAdder( );
 	private RatedLong dependentErrorRate		= new RatedLong( );
-	private volatile DateTime lastDependentError	= null;
+	private volatile long lastDependentErrorTimestamp	= 0;
 
-	private AtomicLong successes 				= new AtomicLong( 0 );		
+	private LongAdder successes 				= new LongAdder( );		
 	private RatedLong successRate 				= new RatedLong( );
-	private volatile DateTime lastSuccess		= null;
+	private volatile long lastSuccessTimestamp	= 0;
 
-	private AtomicLong requests					= new AtomicLong( 0 );
+	private LongAdder requests					= new LongAdder( );
 	private RatedLong requestRate				= new RatedLong( );
-	private volatile DateTime lastRequest		= null;
+	private volatile long lastRequestTimestamp	= 0;
 	
 	private AverageLong executionTime			= new AverageLong( );
+	private LatencyHistogram executionTimes		= new LatencyHistogram( );
 	
 	/**
 	 * Records that a request was sent to the contract.
 	 */
 	public void recordReceivedRequest( ) {
-		requests.incrementAndGet();
+		requests.increment( );
 		requestRate.increment();
-		lastRequest = new DateTime( DateTimeZone.UTC );
+		lastRequestTimestamp = System.currentTimeMillis( );
 	}
 	
 	/**
@@ -71,24 +76,25 @@ public class ContractStatus {
 	 */
 	public void recordExecutionTime( long theExecutionTime ) {
 		executionTime.add( theExecutionTime );
+		executionTimes.record( theExecutionTime );
 	}
 	
 	/**
 	 * Indicates a successful call occurred.
 	 */
 	public void recordSuccess( ) {
-		successes.incrementAndGet();
+		successes.increment( );
 		successRate.increment();
-		lastSuccess = new DateTime( DateTimeZone.UTC );
+		lastSuccessTimestamp = System.currentTimeMillis( );
 	}
 	/**
 	 * Indicates an unsuccessful call occurred 
 	 * due to the client sending bad data.
 	 */
 	public void recordClientError( ) {
-		clientErrors.incrementAndGet();
+		clientErrors.increment( );
 		clientErrorRate.increment();
-		lastClientError = new DateTime( DateTimeZone.UTC );
+		lastClientErrorTimestamp = System.currentTimeMillis( );
 	}
 	
 	/**
@@ -96,18 +102,18 @@ public class ContractStatus {
 	 * due to some form of local problem.
 	 */
 	public void recordLocalError( ) {
-		localErrors.incrementAndGet();
+		localErrors.increment( );
 		localErrorRate.increment();
-		lastLocalError = new DateTime( DateTimeZone.UTC );
+		lastLocalErrorTimestamp = System.currentTimeMillis( );
 	}
 
 	/**
 	 * Indicates the server indicated it was not available. 
 	 */
 	public void recordUnavailableError( ) {
-		unavailableErrors.incrementAndGet();
+		unavailableErrors.increment( );
 		unavailableErrorRate.increment();
-		lastUnavailableError = new DateTime( DateTimeZone.UTC );
+		lastUnavailableErrorTimestamp = System.currentTimeMillis( );
 	}
 
 	/**
@@ -115,9 +121,9 @@ public class ContractStatus {
 	 * due to a dependent service failing in some way.
 	 */
 	public void recordDependentError( ) {
-		dependentErrors.incrementAndGet();
+		dependentErrors.increment( );
 		dependentErrorRate.increment();
-		lastDependentError = new DateTime( DateTimeZone.UTC );
+		lastDependentErrorTimestamp = System.currentTimeMillis( );
 	}
 
 	/**
@@ -126,7 +132,7 @@ public class ContractStatus {
 	 */
 	@MonitorableStatusValue( name = "requests", description = "Total number of requests since the service was started." )
 	public long getRequest( ) {
-		return requests.get();
+		return requests.sum( );
 	}
 
 	/**
@@ -144,7 +150,7 @@ public class ContractStatus {
 	 */
 	@MonitorableStatusValue( name = "last_request_datetime", description = "The last date and time a request occurred." )
 	public DateTime getLastRequest( ) {
-		return lastRequest;
+		return toDateTime( lastRequestTimestamp );
 	}
 
 	/**
@@ -155,6 +161,51 @@ public class ContractStatus {
 	public double getAvergeExecutionTime( ) {
 		return executionTime.calculateAverage() / 1000000d;
 	}
+
+	/**
+	 * Returns the 50th percentile execution time in milliseconds, as recorded in nanoseconds.
+	 * @return the 50th percentile execution time
+	 */
+	@MonitorableStatusValue( name = "p50_execution_time", description = "The 50th percentile execution time, in milliseconds, as measured in nanoseconds over a 20 second interval." )
+	public double getP50ExecutionTime( ) {
+		return executionTimes.calculatePercentile( 50.0d ) / 1000000d;
+	}
+
+	/**
+	 * Returns the 90th percentile execution time in milliseconds, as recorded in nanoseconds.
+	 * @return the 90th percentile execution time
+	 */
+	@MonitorableStatusValue( name = "p90_execution_time", description = "The 90th percentile execution time, in milliseconds, as measured in nanoseconds over a 20 second interval." )
+	public double getP90ExecutionTime( ) {
+		return executionTimes.calculatePercentile( 90.0d ) / 1000000d;
+	}
+
+	/**
+	 * Returns the 99th percentile execution time in milliseconds, as recorded in nanoseconds.
+	 * @return the 99th percentile execution time
+	 */
+	@MonitorableStatusValue( name = "p99_execution_time", description = "The 99th percentile execution time, in milliseconds, as measured in nanoseconds over a 20 second interval." )
+	public double getP99ExecutionTime( ) {
+		return executionTimes.calculatePercentile( 99.0d ) / 1000000d;
+	}
+
+	/**
+	 * Returns the 99.9th percentile execution time in milliseconds, as recorded in nanoseconds.
+	 * @return the 99.9th percentile execution time
+	 */
+	@MonitorableStatusValue( name = "p999_execution_time", description = "The 99.9th percentile execution time, in milliseconds, as measured in nanoseconds over a 20 second interval." )
+	public double getP999ExecutionTime( ) {
+		return executionTimes.calculatePercentile( 99.9d ) / 1000000d;
+	}
+
+	/**
+	 * Returns the maximum execution time in milliseconds, as recorded in nanoseconds.
+	 * @return the maximum execution time
+	 */
+	@MonitorableStatusValue( name = "maximum_execution_time", description = "The maximum execution time, in milliseconds, as measured in nanoseconds over a 20 second interval." )
+	public double getMaximumExecutionTime( ) {
+		return executionTimes.calculateMaximum( ) / 1000000d;
+	}
 	
 	
 	/**
@@ -163,7 +214,7 @@ public class ContractStatus {
 	 */
 	@MonitorableStatusValue( name = "successes", description = "Total number of successful requests since the service was started." )
 	public long getSuccesses( ) {
-		return successes.get();
+		return successes.sum( );
 	}
 
 	/**
@@ -181,7 +232,7 @@ public class ContractStatus {
 	 */
 	@MonitorableStatusValue( name = "last_success_datetime", description = "The last date and time a successful execution occurred." )
 	public DateTime getLastSuccess( ) {
-		return lastSuccess;
+		return toDateTime( lastSuccessTimestamp );
 	}
 
 	/**
@@ -191,7 +242,7 @@ public class ContractStatus {
 	 */
 	@MonitorableStatusValue( name = "client_errors", description = "Total number of requests that failed since the service was started due to problems with the client data/communication." )
 	public long getClientErrors( ) {
-		return clientErrors.get();
+		return clientErrors.sum( );
 	}
 
 	/**
@@ -209,7 +260,7 @@ public class ContractStatus {
 	 */
 	@MonitorableStatusValue( name = "last_client_error_datetime", description = "The last date and time a client error occurred." )
 	public DateTime getLastClientError( ) {
-		return lastClientError;
+		return toDateTime( lastClientErrorTimestamp );
 	}
 
 	/**
@@ -219,7 +270,7 @@ public class ContractStatus {
 	 */
 	@MonitorableStatusValue( name = "local_errors", description = "Total number of requests that failed since the service was started due to problems within the service itself." )
 	public long getLocalErrors( ) {
-		return localErrors.get( );
+		return localErrors.sum( );
 	}
 
 	/**
@@ -237,7 +288,7 @@ public class ContractStatus {
 	 */
 	@MonitorableStatusValue( name = "last_local_error_datetime", description = "The last date and time a local error occurred." )
 	public DateTime getLastLocalError( ) {
-		return lastLocalError;
+		return toDateTime( lastLocalErrorTimestamp );
 	}
 
 
@@ -248,7 +299,7 @@ public class ContractStatus {
 	 */
 	@MonitorableStatusValue( name = "unavailable_errors", description = "Total number of requests that failed since the service was unable to execute the request." )
 	public long getUnavailableErrors( ) {
-		return unavailableErrors.get( );
+		return unavailableErrors.sum( );
 	}
 
 	/**
@@ -266,7 +317,7 @@ public class ContractStatus {
 	 */
 	@MonitorableStatusValue( name = "last_unavailable_error_datetime", description = "The last date and time an unavailable error occurred." )
 	public DateTime getLastUnavailableError( ) {
-		return lastUnavailableError;
+		return toDateTime( lastUnavailableErrorTimestamp );
 	}
 
 	/**
@@ -276,7 +327,7 @@ public class ContractStatus {
 	 */
 	@MonitorableStatusValue( name = "dependent_errors", description = "Total number of requests that failed since the service was started due to problems with a dependent service/process." )
 	public long getDependentErrors( ) {
-		return dependentErrors.get( );
+		return dependentErrors.sum( );
 	}		
 	
 	/**
@@ -294,6 +345,15 @@ public class ContractStatus {
 	 */
 	@MonitorableStatusValue( name = "last_dependent_error_datetime", description = "The last date and time a dependent error occurred." )
 	public DateTime getLastDependentError( ) {
-		return lastDependentError;
+		return toDateTime( lastDependentErrorTimestamp );
+	}
+
+	/**
+	 * Helper method that converts a timestamp, in milliseconds, into a date time.
+	 * @param theTimestamp the timestamp to convert, where 0 means it never occurred
+	 * @return the date time, or null if the timestamp was 0
+	 */
+	private static DateTime toDateTime( long theTimestamp ) {
+		return theTimestamp == 0 ? null : new DateTime( theTimestamp, DateTimeZone.UTC );
 	}
-}
\ No newline at end of file
+}
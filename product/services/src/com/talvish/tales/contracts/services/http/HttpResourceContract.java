@@ -41,13 +41,36 @@ public class HttpResourceContract extends HttpContract {
 	 * @param theResourceType the type of resource being bound
 	 */
 	public HttpResourceContract( String theName, String theDescription, String[] theVersions, Object theBoundObject, String theBoundPath, ResourceType theResourceType ) {
+		this( theName, theDescription, theVersions, theBoundObject, theBoundPath, theResourceType, false );
+	}
+
+	/**
+	 * The constructor for the contract.
+	 * @param theName the name of the contract
+	 * @param theDescription the optional description of the contract
+	 * @param theVersions the versions supported by the contract
+	 * @param theBoundObject the resource instance being bound
+	 * @param theBoundPath the path the resource is bound to
+	 * @param theResourceType the type of resource being bound
+	 * @param shouldReportConcurrencyLimits if true, the concurrency limits of the resource and its methods are included in the status
+	 */
+	public HttpResourceContract( String theName, String theDescription, String[] theVersions, Object theBoundObject, String theBoundPath, ResourceType theResourceType, boolean shouldReportConcurrencyLimits ) {
 		super( theName, theDescription, theVersions, theBoundObject, theBoundPath );
 	
 		Collection<Subcontract> subcontracts = new ArrayList<Subcontract>( );
 		
 		resourceType = theResourceType;
+		if( shouldReportConcurrencyLimits ) {
+			this.getStatusManager().register( "contract", theResourceType.getConcurrencyLimit( ) );
+		}
 		for( ResourceMethod method : theResourceType.getMethods() ) {
 			this.getStatusManager().register( method.getName(), method.getStatus() );
+			if( shouldReportConcurrencyLimits ) {
+				this.getStatusManager().register( method.getName(), method.getConcurrencyLimit() );
+			}
+			if( method.getResponseCache( ) != null ) {
+				this.getStatusManager().register( method.getName(), method.getResponseCache( ) );
+			}
 			int changeThis;
 			// NOTE: this is a hack job since this isn't the proper parent
 			//       I should see about using ResourceType / Resource Method directly
@@ -35,6 +35,7 @@ import com.talvish.tales.serialization.TypeFormatAdapter;
 import com.talvish.tales.serialization.json.JsonTranslationFacility;
 import com.talvish.tales.serialization.json.translators.ChainToJsonElementToStringTranslator;
 import com.talvish.tales.serialization.json.translators.StringToJsonElementToChainTranslator;
+import com.talvish.tales.services.http.AccessLog;
 import com.talvish.tales.services.http.FailureSubcodes;
 import com.talvish.tales.system.AuthorizationException;
 import com.talvish.tales.system.Facility;
@@ -60,6 +61,7 @@ public final class ResourceFacility implements Facility {
 	private static final Logger logger = LoggerFactory.getLogger( ResourceType.class );
 
 	private final JsonTranslationFacility jsonTranslation;
+	private final AccessLog accessLog;
 	private final HashMap<Class<?>, ExceptionHandler<?>> exceptionHandlers = new HashMap<Class<?>, ExceptionHandler<?>>();
 	
 	/**
@@ -74,15 +76,26 @@ public final class ResourceFacility implements Facility {
 	 * @param theJsonTranslationFacility the JSON translation facility to use
 	 */
 	public ResourceFacility( JsonTranslationFacility theJsonTranslationFacility ) {
+		this( theJsonTranslationFacility, null );
+	}
+
+	/**
+	 * Constructor taking the JSON translation facility to use and 
+	 * the access log that resource method executions are written to.
+	 * @param theJsonTranslationFacility the JSON translation facility to use
+	 * @param theAccessLog the access log to write to, which may be null if executions are not to be logged
+	 */
+	public ResourceFacility( JsonTranslationFacility theJsonTranslationFacility, AccessLog theAccessLog ) {
 		Preconditions.checkNotNull( theJsonTranslationFacility, "need the json translator facilities" );
 		this.jsonTranslation = theJsonTranslationFacility;
+		this.accessLog = theAccessLog;
 		
 		// register some default handlers
 		registerExceptionHandler( DependencyException.class, new ExceptionHandler<DependencyException>() {
 			public ResourceMethodResult toResult( ResourceMethod theMethod, DependencyException theException ) {
 				return new ResourceMethodResult( 
 						DependencyException.Problem.convert( theException.getProblem( ) ),
-						null,
+						theException.getSubcode( ),
 						null,
 						String.format( 
 								"A dependency failure occurred while running '%s.%s'.", 
@@ -173,6 +186,14 @@ public final class ResourceFacility implements Facility {
 		return jsonTranslation;
 	}
 	
+	/**
+	 * Returns the access log that resource method executions are written to.
+	 * @return the access log, or null if executions are not logged
+	 */
+	public AccessLog getAccessLog( ) {
+		return accessLog;
+	}
+	
 	/**
 	 * This method is called to get or generate a translator for the class, and its generic details.
 	 * The translator translates from a string value, as expected by a http request parameter
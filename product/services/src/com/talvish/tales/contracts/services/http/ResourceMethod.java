@@ -16,15 +16,19 @@
 package com.talvish.tales.contracts.services.http;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,8 +47,6 @@ import com.google.gson.JsonParseException;
 import com.talvish.tales.communication.Status;
 import com.talvish.tales.contracts.Subcontract;
 import com.talvish.tales.contracts.services.ContractStatus;
-import com.talvish.tales.contracts.services.http.ResourceMethodParameter.ContextValue;
-import com.talvish.tales.contracts.services.http.ResourceMethodParameter.CookieValue;
 import com.talvish.tales.contracts.services.http.ResourceMethodParameter.ParameterSource;
 import com.talvish.tales.contracts.services.http.ResourceOperation.Mode;
 import com.talvish.tales.parts.RegularExpressionHelper;
@@ -57,10 +59,12 @@ import com.talvish.tales.parts.translators.TranslationException;
 import com.talvish.tales.parts.translators.Translator;
 import com.talvish.tales.serialization.Readability;
 import com.talvish.tales.serialization.TypeFormatAdapter;
-import com.talvish.tales.serialization.UrlEncoding;
 import com.talvish.tales.services.OperationContext;
+import com.talvish.tales.services.http.AccessLog;
+import com.talvish.tales.services.http.AccessLogRecord;
 import com.talvish.tales.services.http.FailureSubcodes;
 import com.talvish.tales.services.http.servlets.ResourceServlet.AsyncState;
+import com.talvish.tales.system.status.AdaptiveConcurrencyLimit;
 
 /**
  * This class represents a method that is mapping from a http request 
@@ -113,6 +117,8 @@ public class ResourceMethod extends Subcontract {
 	private static final Pattern METHODS_PATH_PATTERN = Pattern.compile( METHODS_PATH_REGEX );
 	private static final int METHOD_GROUP = 1;
 	private static final int PATH_GROUP = 2;
+	// characters that can be in a root path that would be interpreted by the regex 
+	private static final String ROOT_PATH_REGEX_CHARS = "\\^$.|?*+()[]{}";
 
 	private final List<String> verbs;
 	private final ResourceOperation.Mode mode;
@@ -120,16 +126,23 @@ public class ResourceMethod extends Subcontract {
 	private final String specifiedPath; // need more here to interpret due to data inside of it
 	private final String orderingPath; // a helper path to determining order of match
 	private final String parameterPath; // a path, mainly for external use, that has just parameter names (no regex's)
+	private final String literalPath; // the leading portion of the path that has no parameters, used for routing
+	private final boolean literal; // indicates the whole path is literal, so the regex isn't needed to match
 	private final String pathRegex;
 	private final Pattern pathPattern;
 	private final ResourceType resourceType;
 	
 	private final List<String> pathParams;
 	private final List<ResourceMethodParameter> methodParameters;
+	private final ResourceMethodParameterBinder[] parameterBinders; // generated from the parameters, used when executing
+	private final boolean usesCookies; // indicates if any parameter needs the cookies from the request
+	private final ResourceMethodCache responseCache; // only available if the method caches its responses
 	private final ResourceMethodReturn methodReturn;
 
 	private final Method method;
+	private final MethodHandle methodHandle; // if available, used instead of the method to invoke
 	private final ContractStatus status = new ContractStatus( );
+	private final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit( );
 	
 	/**
 	 * Package constructor taking in all needed data.
@@ -181,6 +194,8 @@ public class ResourceMethod extends Subcontract {
 				
 		// FIRST, we need to create the proper path to match and save the path references generated
 		String[] paths = generatePaths( specifiedPath, resourceType.getBoundPath(), newPathParams );
+		literalPath = paths[ 3 ];
+		literal = newPathParams.isEmpty( ) && literalPath.equals( paths[ 1 ] );
 		parameterPath = paths[ 2 ];
 		orderingPath = paths[ 1 ];
 		pathRegex = paths[ 0 ];
@@ -277,11 +292,39 @@ public class ResourceMethod extends Subcontract {
 		}
 		
 		methodParameters = Collections.unmodifiableList( newMethodParameters );
+		
+		// now we create the binders that pull the values from requests when executing
+		boolean newUsesCookies = false;
+		parameterBinders = new ResourceMethodParameterBinder[ methodParameters.size( ) ];
+		for( int binderCount = 0; binderCount < parameterBinders.length; binderCount += 1 ) {
+			parameterBinders[ binderCount ] = ResourceMethodParameterBinder.create( methodParameters.get( binderCount ) );
+			newUsesCookies = newUsesCookies || parameterBinders[ binderCount ].usesCookies( );
+		}
+		usesCookies = newUsesCookies;
+
+		// if the method asked to, we keep its serialized responses
+		ResponseCaching responseCaching = method.getAnnotation( ResponseCaching.class );
+		if( responseCaching != null ) {
+			responseCache = new ResourceMethodCache( responseCaching, this, parameterBinders );
+		} else {
+			responseCache = null;
+		}
 
 		// THIRD, look at the return type and make sure we have something appropriate
 
 		JavaType returnType = new JavaType( method.getGenericReturnType( ) );		
 		TypeFormatAdapter typeAdapter;
+		boolean completionStage = false;
+		if( CompletionStage.class.isAssignableFrom( returnType.getUnderlyingClass() ) ) {
+			// if this is a completion stage, the method completes asynchronously so
+			// we use the type the stage completes with, which may be the special
+			// resource response type, to analyze below
+			if( !( returnType.getType( ) instanceof ParameterizedType ) ) {
+				throw new IllegalStateException( String.format( "Return type '%s' on method '%s.%s' could not be analyzed because the type the completion stage completes with is not indicated.", returnType.getSimpleName(), method.getDeclaringClass().getName(), method.getName() ) );
+			}
+			returnType = new JavaType( ( ( ParameterizedType ) returnType.getType() ).getActualTypeArguments( )[ 0 ] );
+			completionStage = true;
+		}
 		if( Void.TYPE.equals( returnType ) ) {
 			// void returns are very simple
 			this.methodReturn = new ResourceMethodReturn( returnType, this );
@@ -294,7 +337,7 @@ public class ResourceMethod extends Subcontract {
 			if( typeAdapter == null ) {
 				throw new IllegalStateException( String.format( "Return type '%s' on method '%s.%s' could not be analyzed because a translator could not be found.", returnType.getSimpleName(), method.getDeclaringClass().getName(), method.getName() ) );
 			} else {
-				this.methodReturn = new ResourceMethodReturn( returnType, true, typeAdapter.getToFormatTranslator(), this );
+				this.methodReturn = new ResourceMethodReturn( returnType, true, completionStage, typeAdapter.getToFormatTranslator(), this );
 			}
 
 		} else {
@@ -303,7 +346,36 @@ public class ResourceMethod extends Subcontract {
 			if( typeAdapter == null ) {
 				throw new IllegalStateException( String.format( "Return type '%s' on method '%s.%s' could not be analyzed because a translator could not be found.", returnType.getSimpleName(), method.getDeclaringClass().getName(), method.getName() ) );
 			} else {
-				this.methodReturn = new ResourceMethodReturn( returnType, false, typeAdapter.getToFormatTranslator(), this );
+				this.methodReturn = new ResourceMethodReturn( returnType, false, completionStage, typeAdapter.getToFormatTranslator(), this );
+			}
+		}
+		
+		// FOURTH, if accessors are being generated, we generate a handle to invoke the method
+		if( theResourceFacility.getJsonFacility().isGeneratingAccessors( ) ) {
+			methodHandle = generateHandle( method );
+		} else {
+			methodHandle = null;
+		}
+	}
+
+	/**
+	 * Helper method that generates a method handle, taking the object and an array
+	 * of parameters, to invoke the method with. If the handle cannot be generated
+	 * null is returned and reflection will be used to invoke the method.
+	 * @param theMethod the method to generate a handle for
+	 * @return the method handle or null
+	 */
+	private static MethodHandle generateHandle( Method theMethod ) {
+		if( Modifier.isStatic( theMethod.getModifiers( ) ) ) {
+			return null;
+		} else {
+			try {
+				return MethodHandles.lookup( )
+						.unreflect( theMethod )
+						.asSpreader( Object[].class, theMethod.getParameterCount( ) )
+						.asType( MethodType.methodType( Object.class, Object.class, Object[].class ) );
+			} catch( IllegalAccessException e ) {
+				return null;
 			}
 		}
 	}
@@ -319,15 +391,17 @@ public class ResourceMethod extends Subcontract {
 	 *   /collection/{id}
 	 *   /collection/find
 	 * </pre>
-	 * ... since '{id}' will match 'find'.
+	 * ... since '{id}' will match 'find'. Finally, 4) a version that 
+	 * contains the leading literal portion of the path, before any
+	 * parameters, which is used to quickly route requests.
 	 * @param thePath the path to generate a regex version of
 	 * @param thePathParams collects the list of path parameters found
-	 * @return three element array with a regex version of the path, the compare/order version of the path and version containing just parameter names
+	 * @return four element array with a regex version of the path, the compare/order version of the path, version containing just parameter names and the leading literal portion of the path
 	 */
 	private static String[] generatePaths( String thePath, String theRootPath, List<String> thePathParams ) {
 		// I hate not having out parameters but want to keep my class fields final 
 		// and don't want to create a class just for a return, so an array it is
-		String[] paths = new String[ 3 ];
+		String[] paths = new String[ 4 ];
 		StringBuilder regexPathBuilder = new StringBuilder( '^' );
 		StringBuilder orderPathBuilder = new StringBuilder( );
 		StringBuilder paramPathBuilder = new StringBuilder( );
@@ -349,6 +423,7 @@ public class ResourceMethod extends Subcontract {
 		// we need to go through the path given, extract and store the parameters given and
 		// create a regex that will be used to match the path given to us by the servlet
 		int lastEnd = 0;
+		int literalEnd = -1;
 		String helper;
 		// we start by looking for strings that match our parameter notion {name}
 		while( parameterMatcher.find( ) ) {
@@ -363,6 +438,10 @@ public class ResourceMethod extends Subcontract {
 				// for the param path, we don't need to worry about escaping either
 				paramPathBuilder.append( helper );
 			}
+			// the first parameter marks the end of the literal portion of the path
+			if( literalEnd < 0 ) {
+				literalEnd = orderPathBuilder.length( );
+			}
 			// get the parameter name
 			paramName = parameterMatcher.group( PARAMETER_NAME_GROUP );
 			// we save the parameter name for later use, the index in the array is important since it will
@@ -411,8 +490,32 @@ public class ResourceMethod extends Subcontract {
 		paths[ 0 ] = regexPathBuilder.toString();
 		paths[ 1 ] = orderPathBuilder.toString();
 		paths[ 2 ] = paramPathBuilder.toString();
+		// the root path isn't escaped in the regex, so if it has regex characters
+		// we cannot presume there is a literal portion to the path at all
+		if( !isLiteralRootPath( theRootPath ) ) {
+			paths[ 3 ] = "";
+		} else if( literalEnd < 0 ) {
+			paths[ 3 ] = paths[ 1 ];
+		} else {
+			paths[ 3 ] = paths[ 1 ].substring( 0, literalEnd );
+		}
 		return  paths;
 	}
+	
+	/**
+	 * Helper method that indicates if the root path has no characters that
+	 * would be treated as regex characters when matching.
+	 * @param theRootPath the root path to check
+	 * @return true if the root path matches literally, false otherwise
+	 */
+	private static boolean isLiteralRootPath( String theRootPath ) {
+		for( int offset = 0; offset < theRootPath.length( ); offset += 1 ) {
+			if( ROOT_PATH_REGEX_CHARS.indexOf( theRootPath.charAt( offset ) ) >= 0 ) {
+				return false;
+			}
+		}
+		return true;
+	}
 
 	/**
 	 * Helper method that creates a parameter for a path reference.
@@ -624,6 +727,27 @@ public class ResourceMethod extends Subcontract {
 		return orderingPath; 
 	}
 	
+	/**
+	 * Package level helper returning the leading portion of the path,
+	 * including root, that doesn't contain parameters. Any request 
+	 * path matching this method must start with this path, which is
+	 * used to build routing structures.
+	 * @return the leading literal portion of the path
+	 */
+	String getLiteralPath( ) {
+		return literalPath;
+	}
+	
+	/**
+	 * Package level helper indicating if the entire path of this method
+	 * is literal, meaning a request matches only if the request path 
+	 * is the same as the literal path.
+	 * @return true if the path has no parameters, false otherwise
+	 */
+	boolean isLiteralPath( ) {
+		return literal;
+	}
+	
 	/**
 	 * The actual regular expression version of the path, including
 	 * root, used when running.
@@ -650,6 +774,24 @@ public class ResourceMethod extends Subcontract {
 		return this.status;
 	}
 
+	/**
+	 * Returns the adaptive limit on concurrent requests for the method, 
+	 * which is only used if the resource was bound with concurrency limiting.
+	 * @return the concurrency limit for this particular method
+	 */
+	public AdaptiveConcurrencyLimit getConcurrencyLimit( ) {
+		return this.concurrencyLimit;
+	}
+
+	/**
+	 * Returns the cache of serialized responses for the method, 
+	 * which is only available if the method is marked with {@link ResponseCaching}.
+	 * @return the response cache for this particular method, or null if responses are not cached
+	 */
+	public ResourceMethodCache getResponseCache( ) {
+		return this.responseCache;
+	}
+
 	/**
 	 * A simple method that will indicate if the resource method will
 	 * match the given path.
@@ -729,6 +871,7 @@ public class ResourceMethod extends Subcontract {
 	 * to match the path if successful, it will execute the method.
 	 * @param theObject the instance to run the method against
 	 * @param theRequest the request to extra URI and parameter information for execution
+	 * @param theStreamResponse if true, the return value is not translated and is instead written directly when the response is written
 	 * @return a result object describing the success or failure
 	 */
 	public ResourceMethodResult execute( 
@@ -738,18 +881,32 @@ public class ResourceMethod extends Subcontract {
 			OperationContext theContext ,
 			Matcher thePathMatcher, 
 			ResourceFacility theResourceFacility, 
-			AsyncState theAsyncState ) {
+			AsyncState theAsyncState,
+			boolean theStreamResponse ) {
 
 		// TODO: move this entire method out
-		logger.info( 
-				"Executing, {}, resource method '{}.{}' (aka '{}').", new Object[]{
-				 theAsyncState != null ? "non-blocking" : "blocking",
-				this.resourceType.getType().getName(), 
-				this.method.getName( ), 
-				this.getName( ) } );
-		StringBuilder loggedParameterBuilder = new StringBuilder( );
+		if( logger.isDebugEnabled( ) ) {
+			logger.debug( 
+					"Executing, {}, resource method '{}.{}' (aka '{}').", new Object[]{
+					 theAsyncState != null ? "non-blocking" : "blocking",
+					this.resourceType.getType().getName(), 
+					this.method.getName( ), 
+					this.getName( ) } );
+		}
+		// the record only holds references to values we already have, so filling it in 
+		// is cheap, and formatting is left to the access log if it decides to write it
+		AccessLog accessLog = theResourceFacility.getAccessLog( );
+		AccessLogRecord accessLogRecord = accessLog == null ? null : accessLog.startRecord( );
+		if( accessLogRecord != null ) {
+			accessLogRecord.setRequest( 
+					theContext.getCurrentRequestId( ), 
+					this.resourceType.getType( ).getName( ), 
+					this.method.getName( ), 
+					this.getName( ), 
+					theAsyncState != null, 
+					theContext.getResponseTarget( ) != Readability.MACHINE );
+		}
 		ResourceMethodResult result = null;
-		int loggedParameters = 0;
 		// start the execution timer		
 		long startTimestamp = System.nanoTime(); 
 		try {
@@ -757,12 +914,21 @@ public class ResourceMethod extends Subcontract {
 			String uri = theRequest.getRequestURI();
 	
 			// if we have a match, we need to generate the parameters to use 
-			Object[] parameters	= new Object[ this.methodParameters.size( ) ];
-			String stringValue;
-			Object actualValue;
-			ParameterSource parameterSource;
-			Map<String, Cookie> cookieMap = null; // set to null since we don't always use it
+			Object[] parameters	= new Object[ this.parameterBinders.length ];
+			// the cookies are only retrieved if a parameter needs them
+			Cookie[] cookies = this.usesCookies ? theRequest.getCookies( ) : null;
+			ResourceMethodParameterBinder binder;
+			String cacheKey = null;
 			
+			// if responses are cached and we have one for the request, we don't need to bind or invoke
+			if( this.responseCache != null ) {
+				cacheKey = this.responseCache.generateKey( theRequest, thePathMatcher, cookies );
+				ResourceMethodCache.Entry cachedResponse = this.responseCache.get( cacheKey );
+				if( cachedResponse != null ) {
+					result = this.responseCache.generateResult( cachedResponse, theContext.getResponseTarget( ) );
+				}
+			}
+
 			// NOTE: I could support the idea of default values here, which would be kind cool
 
 			// NOTE: if I want to support the idea of supporting overloads then I could
@@ -770,117 +936,62 @@ public class ResourceMethod extends Subcontract {
 			//       at the parameters, pull them out, see if they exist . . . then do
 			//       the next one and see
 			
-			for( ResourceMethodParameter parameter : this.methodParameters ) {
-				try {
-					parameterSource = parameter.getSource( );
-					stringValue = null;
-					actualValue = null;
-					if( parameterSource == ParameterSource.CONTEXT ) {
-						// if we have a context parameter, we need to set the context value
-						if( parameter.getContextValue() == ContextValue.HTTP_REQUEST ) {
-							parameters[ parameter.getMethodParamOffset() ] = theRequest;
-						} else if( parameter.getContextValue() == ContextValue.HTTP_RESPONSE ) {
-							parameters[ parameter.getMethodParamOffset() ] = theResponse;
-						} else {
-							// then they want the context
-							parameters[ parameter.getMethodParamOffset() ] = theContext;
-						}
-					} else if( parameterSource == ParameterSource.COOKIE && parameter.getCookieValue() == CookieValue.COOKIE ) {
-						// see if we have the map, otherwise we create the map
-						if( cookieMap == null ) {
-							cookieMap = processCookies( theRequest.getCookies() );
-						}
-						// we know the map was created and so we find the cookie, which may be null
-						parameters[ parameter.getMethodParamOffset() ] = cookieMap.get( parameter.getValueName( ) );
-						
-					} else {
-						// if we have a value parameter source, then we need to retrieve and convert
-						if( parameterSource == ParameterSource.PATH ) {
-							// this means we have a reference to something in the url path
-							stringValue = UrlEncoding.decode( theRequest.getCharacterEncoding( ), thePathMatcher.group( parameter.getPathReference() + 1 ) );
-						} else if( parameterSource == ParameterSource.REQUEST ) {
-							// this means it is a reference to a query string param or post body url encoded item
-							stringValue = theRequest.getParameter( parameter.getValueName() );
-						} else if( parameterSource == ParameterSource.HEADER ) {
-							// this means we have a header reference
-							stringValue = theRequest.getHeader( parameter.getValueName() );
-						} else if( parameterSource == ParameterSource.COOKIE ) {
-							// at this point we know this is a value we are looking for, not a Cookie type
-							// see if we have the map, otherwise we create the map
-							if( cookieMap == null ) {
-								cookieMap = processCookies( theRequest.getCookies() );
-							}
-							// we know the map was created and so we find the cookie
-							Cookie cookie = cookieMap.get( parameter.getValueName( ) );
-							if( cookie != null ) {
-								stringValue = cookie.getValue( );
-							}
-						} else {
-							throw new IllegalStateException( String.format( "Parameter '%s' for request '%s', using path '%s', is using an unsupported source of '%s'.", parameter.getValueName(), this.getName(), this.parameterPath, parameterSource ) );
-						}
-						
-						// the following is for logging purposes
-						if( theContext.getResponseTarget() == Readability.MACHINE ) {
-							if( loggedParameters > 0 ) {
-								loggedParameterBuilder.append( ", " );
-							}
-						} else {
-							loggedParameterBuilder.append( "\n\t" );
-						}
-						loggedParameterBuilder.append( parameter.getValueName( ) );
-						loggedParameterBuilder.append( " = " );
-						if( parameter.isSensitive( ) ) {
-							loggedParameterBuilder.append( "<SENSITIVE>" );
-						} else {
-							loggedParameterBuilder.append( stringValue );
-						}
-						loggedParameters += 1;
-						
-						actualValue = parameter.translate( stringValue );
-						if( actualValue == null && parameter.getType().getUnderlyingClass( ).isPrimitive() ) {
-							// if we have a null value and primitive, we have a problem
-							throw new TranslationException( String.format( "Attempting to set primitive type '%s' to null.", parameter.getType().getName() ) );
-						} else {
-							//TODO: see if there is validation support
-							parameters[ parameter.getMethodParamOffset() ] = actualValue;
-						}
-					}
+			if( result == null ) {
+				for( int binderCount = 0; binderCount < this.parameterBinders.length; binderCount += 1 ) {
+					binder = this.parameterBinders[ binderCount ];
+					try {
+						binder.bind( theRequest, theResponse, theContext, thePathMatcher, cookies, accessLogRecord, parameters );
 					
-				// the exceptions below are handled here since they are definitely about the data coming in so no one else is meant to trap
-				} catch( JsonParseException e ) {
-					// if this happens then we have a problem with what the caller sent so we return now with a failed result
-					result = new ResourceMethodResult( Status.CALLER_BAD_INPUT, null, parameter.getValueName( ), String.format( "Parameter '%s' for request '%s', using path '%s', is not valid JSON.", parameter.getValueName(), this.getName(), this.parameterPath ), e );
-				} catch( TranslationException e) {
-					// if this happens then we have a problem with what the caller sent so we return now with a failed result
-					result = new ResourceMethodResult( Status.CALLER_BAD_INPUT, null, parameter.getValueName( ), String.format( "Parameter '%s' for request '%s', using path '%s', is not the expected format.", parameter.getValueName(), this.getName(), this.parameterPath ), e );
-				} catch( DataSiteException e ) {
-					// if this happens then we passed at least parts of translation, but still saw a failure, typically due to things like attempting to assign
-					// null to a primitive type, etc, so we return now with a failed result
-					result = new ResourceMethodResult( Status.CALLER_BAD_INPUT, null, parameter.getValueName( ), String.format( "Parameter '%s' for request '%s, using path '%s',' was not assignable ... check for null values when they aren't expected (e.g using primitive types).", parameter.getValueName(), this.getName(), this.parameterPath ), e );
+					// the exceptions below are handled here since they are definitely about the data coming in so no one else is meant to trap
+					} catch( JsonParseException e ) {
+						// if this happens then we have a problem with what the caller sent so we return now with a failed result
+						result = new ResourceMethodResult( Status.CALLER_BAD_INPUT, null, binder.getParameter( ).getValueName( ), String.format( "Parameter '%s' for request '%s', using path '%s', is not valid JSON.", binder.getParameter( ).getValueName(), this.getName(), this.parameterPath ), e );
+					} catch( TranslationException e) {
+						// if this happens then we have a problem with what the caller sent so we return now with a failed result
+						result = new ResourceMethodResult( Status.CALLER_BAD_INPUT, null, binder.getParameter( ).getValueName( ), String.format( "Parameter '%s' for request '%s', using path '%s', is not the expected format.", binder.getParameter( ).getValueName(), this.getName(), this.parameterPath ), e );
+					} catch( DataSiteException e ) {
+						// if this happens then we passed at least parts of translation, but still saw a failure, typically due to things like attempting to assign
+						// null to a primitive type, etc, so we return now with a failed result
+						result = new ResourceMethodResult( Status.CALLER_BAD_INPUT, null, binder.getParameter( ).getValueName( ), String.format( "Parameter '%s' for request '%s, using path '%s',' was not assignable ... check for null values when they aren't expected (e.g using primitive types).", binder.getParameter( ).getValueName(), this.getName(), this.parameterPath ), e );
+					}
 				}
 			}
-			// if we have a result we errored out
-			// so we check to make sure before we 
-			// process
+			// if we have a result we errored out, or
+			// had a cached response, so we check to 
+			// make sure before we process
 			if( result == null ) {
 		  		//we have the parameters so invoke the method, which may cause an exception (caught in the outer try)
-				Object typeLessResult = method.invoke( theObject, parameters );
-				if( this.methodReturn.isResourceResponse() ) {
-					ResourceResult<?> resourceResult = ( ResourceResult<?> )typeLessResult; 
-					if( resourceResult == null ) {
+				Object typeLessResult = invoke( theObject, parameters );
+				if( this.methodReturn.isCompletionStage( ) ) {
+					CompletionStage<?> stage = ( CompletionStage<?> )typeLessResult;
+					if( stage == null ) {
 						String methodName = String.format( "%s.%s", 
 								this.getResourceType().getType().getSimpleName(), 
 								this.getMethod( ).getName( ) );
-						result = new ResourceMethodResult( Status.LOCAL_ERROR, null, methodName, String.format( "ResourceResult was null for '%s'.", uri ), null );
+						result = new ResourceMethodResult( Status.LOCAL_ERROR, null, methodName, String.format( "CompletionStage was null for '%s'.", uri ), null );
 					} else {
-						result = new ResourceMethodResult( ( JsonElement )this.methodReturn.translate( resourceResult.getValue( ) ), resourceResult );
+						// the actual result is generated when the stage completes, and 
+						// failures in the stage are handled as if the method threw them
+						result = new ResourceMethodResult( stage.handle( ( value, exception ) -> {
+							if( exception == null ) {
+								try {
+									return generateResult( value, uri, theStreamResponse );
+								} catch( Exception e ) {
+									return generateFailure( e );
+								}
+							} else if( exception instanceof CompletionException && exception.getCause( ) != null ) {
+								return theResourceFacility.toResult( this, exception.getCause( ) );
+							} else {
+								return theResourceFacility.toResult( this, exception );
+							}
+						} ) );
 					}
-				} else if( this.methodReturn.isVoid() ) {
-					// the void return type case is just an unknown empty object
-					result = new ResourceMethodResult( new JsonObject( ), defaultStatus );
 				} else {
-					// the non-void return type case will translate the result
-					result = new ResourceMethodResult( ( JsonElement )this.methodReturn.translate( typeLessResult ), defaultStatus );
+					result = generateResult( typeLessResult, uri, theStreamResponse );
+				}
+				if( cacheKey != null ) {
+					// keep the response, if suitable, for the next request 
+					result = this.responseCache.store( cacheKey, result, theContext.getResponseTarget( ) );
 				}
 			}
 
@@ -890,59 +1001,126 @@ public class ResourceMethod extends Subcontract {
 			result = theResourceFacility.toResult( this, e.getCause( ) ); 
 			
 		} catch( Exception e ) {
-			String methodName = String.format( "%s.%s", 
-					this.getResourceType().getType().getSimpleName(), 
-					this.getMethod( ).getName( ) );
-			String message = String.format( 
-					"Unmanaged exception '%s' occurred while running '%s'.",
-					e.getClass( ).getSimpleName( ), 
-					methodName );
-			logger.error( message, e );
-			result = new ResourceMethodResult( 
-					Status.LOCAL_ERROR, 
-					FailureSubcodes.UNHANDLED_EXCEPTION,
-					methodName,
-					message,
-					e );
+			result = generateFailure( e );
 
 		} finally {
-			// record when we ended
-			long executionTime = System.nanoTime( ) - startTimestamp;
-			status.recordExecutionTime( executionTime );
-			logger.info( 
-					"Executed, {}, resource method '{}.{}' (aka '{}') in {} ms with {} parameter(s) resulting in status '{}'. {}", new Object[] {
-					( theAsyncState != null ? "non-blocking" + ( theAsyncState.hasCompleted() ? " though timed-out" : "" ) : "blocking" ),
-					this.resourceType.getType().getName(),
-					this.method.getName( ), 
-					this.getName( ), 
-					( ( double )executionTime ) * 0.000001, 
-					loggedParameters,
-					result == null ? "unknown" : result.getCode(),
-					loggedParameterBuilder.toString() } );
+			if( result != null && result.isPending( ) ) {
+				// we record when the stage completes, which may be on another thread, so the 
+				// record for this thread is copied since this thread will re-use its record
+				final AccessLogRecord pendingRecord;
+				if( accessLogRecord == null ) {
+					pendingRecord = null;
+				} else {
+					pendingRecord = new AccessLogRecord( );
+					pendingRecord.copyFrom( accessLogRecord );
+				}
+				result.getPendingResult( ).thenAccept( pendingResult -> recordExecution( startTimestamp, theAsyncState, accessLog, pendingRecord, pendingResult ) );
+			} else {
+				recordExecution( startTimestamp, theAsyncState, accessLog, accessLogRecord, result );
+			}
 		}
 		return result;
 	}
 	
 	/**
-	 * Helper method that takes the cookies from the request 
-	 * and creates a map from them.
-	 * @param theCookies the cookies from the request
-	 * @return the map of cookies, mapping name to cookie and if no cookies are found this will return an empty map.
+	 * Helper method that generates the result from the value returned by the method,
+	 * or for completion stages, the value the stage completed with.
+	 * @param theTypeLessResult the value returned
+	 * @param theUri the uri of the request, used for failure messages
+	 * @param theStreamResponse if true, the return value is not translated and is instead written directly when the response is written
+	 * @return the result of the execution
 	 */
-	private Map<String, Cookie> processCookies( Cookie[] theCookies ) {
-		Map<String, Cookie> cookieMap;
-		
-		if( theCookies != null ) {
-			cookieMap = new HashMap<String, Cookie>( theCookies.length );
-			
-			for( Cookie cookie : theCookies ) {
-				cookieMap.put( cookie.getName( ), cookie );
+	private ResourceMethodResult generateResult( Object theTypeLessResult, String theUri, boolean theStreamResponse ) {
+		ResourceMethodResult result;
+		if( this.methodReturn.isResourceResponse() ) {
+			ResourceResult<?> resourceResult = ( ResourceResult<?> )theTypeLessResult; 
+			if( resourceResult == null ) {
+				String methodName = String.format( "%s.%s", 
+						this.getResourceType().getType().getSimpleName(), 
+						this.getMethod( ).getName( ) );
+				result = new ResourceMethodResult( Status.LOCAL_ERROR, null, methodName, String.format( "ResourceResult was null for '%s'.", theUri ), null );
+			} else if( theStreamResponse ) {
+				// the value is written directly to the response later
+				result = new ResourceMethodResult( resourceResult.getValue( ), this.methodReturn, resourceResult );
+			} else {
+				result = new ResourceMethodResult( ( JsonElement )this.methodReturn.translate( resourceResult.getValue( ) ), resourceResult );
 			}
+		} else if( this.methodReturn.isVoid() ) {
+			// the void return type case is just an unknown empty object
+			result = new ResourceMethodResult( new JsonObject( ), defaultStatus );
+		} else if( theStreamResponse ) {
+			// the non-void return type case, when streaming, will write the result directly to the response later
+			result = new ResourceMethodResult( theTypeLessResult, this.methodReturn, defaultStatus );
+		} else {
+			// the non-void return type case will translate the result
+			result = new ResourceMethodResult( ( JsonElement )this.methodReturn.translate( theTypeLessResult ), defaultStatus );
+		}
+		return result;
+	}
+	
+	/**
+	 * Helper method that generates the failure result for exceptions
+	 * that were not thrown by the method itself.
+	 * @param theException the exception that occurred
+	 * @return the failure result
+	 */
+	private ResourceMethodResult generateFailure( Exception theException ) {
+		String methodName = String.format( "%s.%s", 
+				this.getResourceType().getType().getSimpleName(), 
+				this.getMethod( ).getName( ) );
+		String message = String.format( 
+				"Unmanaged exception '%s' occurred while running '%s'.",
+				theException.getClass( ).getSimpleName( ), 
+				methodName );
+		logger.error( message, theException );
+		return new ResourceMethodResult( 
+				Status.LOCAL_ERROR, 
+				FailureSubcodes.UNHANDLED_EXCEPTION,
+				methodName,
+				message,
+				theException );
+	}
+	
+	/**
+	 * Helper method that records the execution time and writes the execution to the access log.
+	 * @param theStartTimestamp the time, in nanoseconds, the execution started
+	 * @param theAsyncState the async state if running non-blocking, null otherwise
+	 * @param theAccessLog the access log to write to, which may be null
+	 * @param theAccessLogRecord the record, with the parameters, to write, which may be null
+	 * @param theResult the result of the execution, which may be null
+	 */
+	private void recordExecution( long theStartTimestamp, AsyncState theAsyncState, AccessLog theAccessLog, AccessLogRecord theAccessLogRecord, ResourceMethodResult theResult ) {
+		long executionTime = System.nanoTime( ) - theStartTimestamp;
+		status.recordExecutionTime( executionTime );
+		if( theAccessLogRecord != null ) {
+			theAccessLogRecord.setResult( 
+					executionTime, 
+					theResult == null ? null : theResult.getCode( ), 
+					theAsyncState != null && theAsyncState.hasCompleted( ) );
+			theAccessLog.write( theAccessLogRecord );
+		}
+	}
+
+	/**
+	 * Helper method that invokes the method, using the generated handle if available, 
+	 * otherwise using reflection. In both cases, exceptions from the method are
+	 * wrapped in an {@code InvocationTargetException}.
+	 * @param theObject the instance to run the method against
+	 * @param theParameters the parameters to the method
+	 * @return the value returned by the method
+	 * @throws IllegalAccessException thrown if the method cannot be accessed
+	 * @throws InvocationTargetException thrown if the method threw an exception
+	 */
+	private Object invoke( Object theObject, Object[] theParameters ) throws IllegalAccessException, InvocationTargetException {
+		if( methodHandle == null ) {
+			return method.invoke( theObject, theParameters );
 		} else {
-			// the getCookies call can return null ...
-			cookieMap = new HashMap<String, Cookie>( 0 );
+			try {
+				return ( Object )methodHandle.invokeExact( theObject, theParameters );
+			} catch( Throwable e ) {
+				throw new InvocationTargetException( e );
+			}
 		}
-		return cookieMap;
 	}
 
 //	/**
@@ -0,0 +1,408 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.contracts.services.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.talvish.tales.communication.HeaderConstants;
+import com.talvish.tales.communication.Status;
+import com.talvish.tales.contracts.services.http.ResourceMethodParameter.ContextValue;
+import com.talvish.tales.contracts.services.http.ResourceMethodParameter.CookieValue;
+import com.talvish.tales.contracts.services.http.ResourceMethodParameter.ParameterSource;
+import com.talvish.tales.serialization.Readability;
+import com.talvish.tales.serialization.cbor.CborHelper;
+import com.talvish.tales.serialization.cbor.CborWriter;
+import com.talvish.tales.serialization.json.JsonWriterHelper;
+import com.talvish.tales.services.http.ParameterConstants;
+import com.talvish.tales.system.status.MonitorableStatusValue;
+
+/**
+ * The cache of serialized responses for a resource method marked with
+ * {@link ResponseCaching}. Responses are found using the version, the
+ * path parameters and the parameters named in the annotation. Responses
+ * are kept until they reach the maximum age or the memory they use is
+ * needed for other responses. Responses that differ by header or cookie
+ * parameters are sent with a Vary header naming them and are private. Responses are kept in the compact form and
+ * are formatted again when written to callers asking for human readability.
+ * @author jmolnar
+ *
+ */
+public class ResourceMethodCache {
+	private static final Logger logger = LoggerFactory.getLogger( ResourceMethodCache.class );
+
+	// rough memory used by an entry beyond its strings
+	private static final int ENTRY_OVERHEAD = 128;
+
+	private final ResourceMethod resourceMethod;
+	private final int maximumAge;
+	private final long maximumSize;
+	private final String[] options;
+	private final String vary; // the request headers, if any, responses differ by
+	private final ResourceMethodParameterBinder[] keyBinders;
+
+	private final Cache<String, Entry> entries;
+	private final LongAdder memory = new LongAdder( );
+
+	/**
+	 * The serialized form of a response.
+	 * @author jmolnar
+	 *
+	 */
+	static final class Entry {
+		private final String value;
+		private final String entityTag;
+		private final Map<String,String> headers;
+		private final long creationTime;
+		private final int weight;
+		private volatile byte[] encodedValue; // the cbor form, created when first needed
+
+		/**
+		 * Constructor taking the serialized json value and the headers to send.
+		 */
+		Entry( String theKey, String theValue, Map<String,String> theHeaders ) {
+			value = theValue;
+			entityTag = String.format( "%s\"%s\"", HeaderConstants.WEAK_ETAG_PREFIX, Hashing.murmur3_128( ).hashString( theValue, StandardCharsets.UTF_8 ) );
+			headers = theHeaders;
+			creationTime = System.currentTimeMillis( );
+			// strings are two bytes a character and the cbor form, if created, is typically smaller than the json form
+			weight = ( int )Math.min( Integer.MAX_VALUE, 2L * theKey.length( ) + 3L * theValue.length( ) + ENTRY_OVERHEAD );
+		}
+
+		/**
+		 * The weak entity tag representing the value.
+		 */
+		String getEntityTag( ) {
+			return entityTag;
+		}
+
+		/**
+		 * The headers, from the original result, to send with the value.
+		 */
+		Map<String,String> getHeaders( ) {
+			return headers;
+		}
+
+		/**
+		 * Writes the value, without serializing it again, unless
+		 * it needs to be formatted for human readability.
+		 * @param theWriter the writer to write to
+		 * @param theReadability the readability the writer was created with
+		 * @throws IOException thrown if the writer could not be written to
+		 */
+		void write( JsonWriter theWriter, Readability theReadability ) throws IOException {
+			if( theWriter instanceof CborWriter ) {
+				byte[] encoded = encodedValue;
+				if( encoded == null ) {
+					// more than one thread may do this, but they all generate the same value
+					ByteArrayOutputStream stream = new ByteArrayOutputStream( value.length( ) );
+					CborWriter cborWriter = CborHelper.createWriter( stream );
+					cborWriter.jsonValue( value );
+					cborWriter.flush( );
+					encoded = stream.toByteArray( );
+					encodedValue = encoded;
+				}
+				( ( CborWriter )theWriter ).encodedValue( encoded );
+			} else if( theReadability == Readability.MACHINE ) {
+				theWriter.jsonValue( value );
+			} else {
+				// the writer formats the value at its current depth, 
+				// the same as if it wasn't kept
+				JsonWriterHelper.write( new JsonParser( ).parse( value ), theWriter );
+			}
+		}
+	}
+
+	/**
+	 * Constructor taking the annotation describing the caching and the method, and binders
+	 * for its parameters, whose responses are being cached.
+	 * @param theAnnotation the annotation on the method
+	 * @param theMethod the method whose responses are cached
+	 * @param theBinders the binders for all parameters of the method
+	 */
+	ResourceMethodCache( ResponseCaching theAnnotation, ResourceMethod theMethod, ResourceMethodParameterBinder[] theBinders ) {
+		Preconditions.checkNotNull( theAnnotation, "need the caching annotation" );
+		Preconditions.checkNotNull( theMethod, "need the method" );
+		Preconditions.checkNotNull( theBinders, "need the parameter binders" );
+		String methodName = String.format( "%s.%s", theMethod.getMethod( ).getDeclaringClass( ).getName( ), theMethod.getMethod( ).getName( ) );
+		Preconditions.checkArgument( theAnnotation.maximumAge( ) > 0, "Method '%s' needs a response caching maximum age greater than zero.", methodName );
+		Preconditions.checkArgument( theAnnotation.maximumSize( ) > 0, "Method '%s' needs a response caching maximum size greater than zero.", methodName );
+
+		// we only cache calls that do not change anything
+		for( String verb : theMethod.getVerbs( ) ) {
+			if( !"GET".equals( verb ) ) {
+				throw new IllegalStateException( String.format( "Method '%s' caches responses but can be called using '%s', when only GET is supported.", methodName, verb ) );
+			}
+		}
+
+		List<ResourceMethodParameterBinder> newKeyBinders = new ArrayList<ResourceMethodParameterBinder>( );
+		// path parameters are always part of the key, and methods working with the request
+		// or response directly are not supported, since they depend on more than we know
+		for( ResourceMethodParameterBinder binder : theBinders ) {
+			ResourceMethodParameter parameter = binder.getParameter( );
+			if( parameter.getSource( ) == ParameterSource.PATH ) {
+				newKeyBinders.add( binder );
+			} else if( parameter.getSource( ) == ParameterSource.CONTEXT && parameter.getContextValue( ) != ContextValue.OPERATION_CONTEXT ) {
+				throw new IllegalStateException( String.format( "Method '%s' caches responses but parameter '%s' uses the http request or response.", methodName, parameter.getMethodParamOffset( ) + 1 ) );
+			}
+		}
+		// then we add the chosen parameters, which must exist
+		for( String parameterName : theAnnotation.parameters( ) ) {
+			ResourceMethodParameterBinder foundBinder = null;
+			for( ResourceMethodParameterBinder binder : theBinders ) {
+				ResourceMethodParameter parameter = binder.getParameter( );
+				if( parameterName.equals( parameter.getValueName( ) ) &&
+					( parameter.getSource( ) == ParameterSource.REQUEST || parameter.getSource( ) == ParameterSource.HEADER || ( parameter.getSource( ) == ParameterSource.COOKIE && parameter.getCookieValue( ) == CookieValue.VALUE ) ) ) {
+					foundBinder = binder;
+					break;
+				}
+			}
+			if( foundBinder == null ) {
+				throw new IllegalStateException( String.format( "Method '%s' caches responses using parameter '%s' but a request, header or cookie value parameter with that name could not be found.", methodName, parameterName ) );
+			} else if( !newKeyBinders.contains( foundBinder ) ) {
+				newKeyBinders.add( foundBinder );
+			}
+		}
+
+		// responses that differ by headers or cookies must say so to shared caches,
+		// and since those values are often particular to a caller, such as a session
+		// or tenant, shared caches are not allowed to keep the responses
+		List<String> varyNames = new ArrayList<String>( );
+		for( ResourceMethodParameterBinder binder : newKeyBinders ) {
+			ResourceMethodParameter parameter = binder.getParameter( );
+			if( parameter.getSource( ) == ParameterSource.HEADER && !varyNames.contains( parameter.getValueName( ) ) ) {
+				varyNames.add( parameter.getValueName( ) );
+			} else if( parameter.getSource( ) == ParameterSource.COOKIE && !varyNames.contains( HeaderConstants.COOKIE ) ) {
+				varyNames.add( HeaderConstants.COOKIE );
+			}
+		}
+		if( theAnnotation.options( ).length == 0 ) {
+			options = new String[] { varyNames.isEmpty( ) ? HeaderConstants.CACHE_CONTROL_PUBLIC_DIRECTIVE : HeaderConstants.CACHE_CONTROL_PRIVATE_DIRECTIVE };
+		} else {
+			for( String option : theAnnotation.options( ) ) {
+				for( String directive : option.split( "," ) ) {
+					if( !varyNames.isEmpty( ) && HeaderConstants.CACHE_CONTROL_PUBLIC_DIRECTIVE.equalsIgnoreCase( directive.trim( ) ) ) {
+						throw new IllegalStateException( String.format( "Method '%s' caches responses that differ by header or cookie parameters, so the responses cannot be public.", methodName ) );
+					}
+				}
+			}
+			options = theAnnotation.options( ).clone( );
+		}
+		vary = varyNames.isEmpty( ) ? null : String.join( ", ", varyNames );
+
+		resourceMethod = theMethod;
+		maximumAge = theAnnotation.maximumAge( );
+		maximumSize = theAnnotation.maximumSize( );
+		keyBinders = newKeyBinders.toArray( new ResourceMethodParameterBinder[ newKeyBinders.size( ) ] );
+		entries = CacheBuilder.newBuilder( )
+				.maximumWeight( maximumSize )
+				.weigher( ( String key, Entry entry ) -> entry.weight )
+				.expireAfterWrite( maximumAge, TimeUnit.SECONDS )
+				.removalListener( notification -> memory.add( -notification.getValue( ).weight ) )
+				.recordStats( )
+				.build( );
+	}
+
+	/**
+	 * Generates the key, from the request, used to find responses.
+	 * @param theRequest the request being executed
+	 * @param thePathMatcher the matcher that matched the request path
+	 * @param theCookies the cookies from the request, which may be null
+	 * @return the key for the request
+	 */
+	String generateKey( HttpServletRequest theRequest, Matcher thePathMatcher, Cookie[] theCookies ) {
+		StringBuilder builder = new StringBuilder( 64 );
+
+		appendKeyValue( theRequest.getParameter( ParameterConstants.VERSION_PARAMETER ), builder );
+		for( ResourceMethodParameterBinder binder : keyBinders ) {
+			appendKeyValue( binder.getStringValue( theRequest, thePathMatcher, theCookies ), builder );
+		}
+		return builder.toString( );
+	}
+
+	/**
+	 * Helper method that adds a value to the key. The length is added
+	 * before the value so different values cannot create the same key.
+	 */
+	private static void appendKeyValue( String theValue, StringBuilder theBuilder ) {
+		if( theValue == null ) {
+			theBuilder.append( '-' );
+		} else {
+			theBuilder.append( theValue.length( ) );
+			theBuilder.append( ':' );
+			theBuilder.append( theValue );
+		}
+	}
+
+	/**
+	 * Returns the response kept for the key.
+	 * @param theKey the key generated from the request
+	 * @return the response or null if there isn't one
+	 */
+	Entry get( String theKey ) {
+		return entries.getIfPresent( theKey );
+	}
+
+	/**
+	 * Generates the result, sent to the caller, for a response that was kept.
+	 * @param theEntry the kept response
+	 * @param theReadability the readability the response is written with
+	 * @return the result to send to the caller
+	 */
+	ResourceMethodResult generateResult( Entry theEntry, Readability theReadability ) {
+		ResourceMethodResult result = new ResourceMethodResult( theEntry, theReadability );
+		long age = TimeUnit.MILLISECONDS.toSeconds( System.currentTimeMillis( ) - theEntry.creationTime );
+
+		result.setCachingEnabled( ( int )Math.max( 0, maximumAge - age ), options );
+		if( vary != null ) {
+			result.getHeaders( ).put( HeaderConstants.VARY, vary );
+		}
+		return result;
+	}
+
+	/**
+	 * Keeps the response for the result, if the result can be kept, and returns
+	 * the result that should be sent to the caller. Only successful results,
+	 * without cookies or their own cache control headers are kept.
+	 * @param theKey the key generated from the request
+	 * @param theResult the result from executing the method
+	 * @param theReadability the readability the response is written with
+	 * @return the result to send to the caller
+	 */
+	ResourceMethodResult store( String theKey, ResourceMethodResult theResult, Readability theReadability ) {
+		if( theResult.isPending( ) ) {
+			return new ResourceMethodResult( theResult.getPendingResult( ).thenApply( pendingResult -> store( theKey, pendingResult, theReadability ) ) );
+		} else if( theResult.getCode( ) != Status.OPERATION_COMPLETED ||
+				   !theResult.getCookies( ).isEmpty( ) ||
+				   theResult.getHeaders( ).containsKey( HeaderConstants.CACHE_CONTROL ) ||
+				   ( theResult.getValue( ) == null && !theResult.isStreamed( ) ) ) {
+			return theResult;
+		} else {
+			StringWriter stringWriter = new StringWriter( );
+			try {
+				JsonWriter jsonWriter = JsonWriterHelper.createWriter( stringWriter, Readability.MACHINE );
+				if( theResult.isStreamed( ) ) {
+					theResult.writeValue( jsonWriter );
+				} else {
+					JsonWriterHelper.write( theResult.getValue( ), jsonWriter );
+				}
+				jsonWriter.flush( );
+			} catch( Exception e ) {
+				// the failure will occur again, and be reported, when the response is written
+				logger.warn( String.format( "Unable to serialize the response of resource method '%s' for caching.", resourceMethod.getName( ) ), e );
+				return theResult;
+			}
+			Entry entry = new Entry( theKey, stringWriter.toString( ), Collections.unmodifiableMap( new HashMap<String,String>( theResult.getHeaders( ) ) ) );
+			memory.add( entry.weight );
+			entries.put( theKey, entry );
+			return generateResult( entry, theReadability );
+		}
+	}
+
+	/**
+	 * Returns the maximum age, in seconds, of kept responses.
+	 * @return the maximum age in seconds
+	 */
+	@MonitorableStatusValue( name = "response_cache_maximum_age", description = "The maximum age, in seconds, responses are kept." )
+	public int getMaximumAge( ) {
+		return maximumAge;
+	}
+
+	/**
+	 * Returns the approximate maximum memory, in bytes, used to keep responses.
+	 * @return the maximum memory in bytes
+	 */
+	@MonitorableStatusValue( name = "response_cache_maximum_memory", description = "The approximate maximum memory, in bytes, used to keep responses." )
+	public long getMaximumMemory( ) {
+		return maximumSize;
+	}
+
+	/**
+	 * Returns the approximate memory, in bytes, used to keep responses.
+	 * @return the memory in bytes
+	 */
+	@MonitorableStatusValue( name = "response_cache_memory", description = "The approximate memory, in bytes, currently used to keep responses." )
+	public long getMemory( ) {
+		return memory.sum( );
+	}
+
+	/**
+	 * Returns the approximate number of responses being kept.
+	 * @return the number of responses
+	 */
+	@MonitorableStatusValue( name = "response_cache_entries", description = "The approximate number of responses currently kept." )
+	public long getEntryCount( ) {
+		return entries.size( );
+	}
+
+	/**
+	 * Returns the number of times a kept response was used.
+	 * @return the number of hits
+	 */
+	@MonitorableStatusValue( name = "response_cache_hits", description = "The total number of requests, since the service was started, answered using a kept response." )
+	public long getHits( ) {
+		return entries.stats( ).hitCount( );
+	}
+
+	/**
+	 * Returns the number of times a kept response was not found.
+	 * @return the number of misses
+	 */
+	@MonitorableStatusValue( name = "response_cache_misses", description = "The total number of requests, since the service was started, that needed to run the method." )
+	public long getMisses( ) {
+		return entries.stats( ).missCount( );
+	}
+
+	/**
+	 * Returns the ratio of requests answered using a kept response.
+	 * @return the hit rate, between 0 and 1
+	 */
+	@MonitorableStatusValue( name = "response_cache_hit_rate", description = "The ratio, since the service was started, of requests answered using a kept response." )
+	public double getHitRate( ) {
+		return entries.stats( ).hitRate( );
+	}
+
+	/**
+	 * Returns the number of responses removed because they expired or to make room for others.
+	 * @return the number of evictions
+	 */
+	@MonitorableStatusValue( name = "response_cache_evictions", description = "The total number of responses, since the service was started, removed because they reached the maximum age or to make room for other responses." )
+	public long getEvictions( ) {
+		return entries.stats( ).evictionCount( );
+	}
+}
@@ -0,0 +1,335 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.contracts.services.http;
+
+import java.util.regex.Matcher;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.common.base.Preconditions;
+import com.talvish.tales.contracts.services.http.ResourceMethodParameter.ContextValue;
+import com.talvish.tales.contracts.services.http.ResourceMethodParameter.CookieValue;
+import com.talvish.tales.parts.translators.TranslationException;
+import com.talvish.tales.serialization.UrlEncoding;
+import com.talvish.tales.services.OperationContext;
+import com.talvish.tales.services.http.AccessLogRecord;
+
+/**
+ * The class used by resource methods to take a value from a request and
+ * place it into the parameters used to call the method. A binder is created,
+ * for each parameter, when the resource method is created, so decisions about
+ * where the value comes from and how it is checked are made once instead of
+ * on each request.
+ * @author jmolnar
+ *
+ */
+abstract class ResourceMethodParameterBinder {
+	private static final String SENSITIVE_VALUE = "<SENSITIVE>";
+
+	protected final ResourceMethodParameter parameter;
+	protected final int methodParamOffset;
+
+	/**
+	 * Constructor taking the parameter the binder is for.
+	 * @param theParameter the parameter to bind
+	 */
+	protected ResourceMethodParameterBinder( ResourceMethodParameter theParameter ) {
+		Preconditions.checkNotNull( theParameter, "need a parameter" );
+
+		parameter = theParameter;
+		methodParamOffset = theParameter.getMethodParamOffset( );
+	}
+
+	/**
+	 * The parameter this binder is for.
+	 */
+	public ResourceMethodParameter getParameter( ) {
+		return parameter;
+	}
+
+	/**
+	 * Indicates if the binder needs the cookies from the request.
+	 */
+	public boolean usesCookies( ) {
+		return false;
+	}
+
+	/**
+	 * Gets the string form of the value for the parameter from the request, 
+	 * before it is translated. This is null for parameters that don't have 
+	 * string values, like context parameters.
+	 * @param theRequest the request being executed
+	 * @param thePathMatcher the matcher that matched the request path
+	 * @param theCookies the cookies from the request, which may be null
+	 * @return the string form of the value, which may be null
+	 */
+	public String getStringValue( HttpServletRequest theRequest, Matcher thePathMatcher, Cookie[] theCookies ) {
+		return null;
+	}
+
+	/**
+	 * Gets the value for the parameter from the request and places it into the parameters.
+	 * Problems with the value sent by the caller are raised as exceptions, e.g.
+	 * a {@code TranslationException}.
+	 * @param theRequest the request being executed
+	 * @param theResponse the response for the request
+	 * @param theContext the operation context for the request
+	 * @param thePathMatcher the matcher that matched the request path
+	 * @param theCookies the cookies from the request, which is null if the request had none or no binders use cookies
+	 * @param theAccessLogRecord the access log record to add the parameter to, which may be null
+	 * @param theParameters the parameters to place the value into
+	 */
+	public abstract void bind(
+			HttpServletRequest theRequest,
+			HttpServletResponse theResponse,
+			OperationContext theContext,
+			Matcher thePathMatcher,
+			Cookie[] theCookies,
+			AccessLogRecord theAccessLogRecord,
+			Object[] theParameters );
+
+	/**
+	 * Creates the binder suitable for the parameter.
+	 * @param theParameter the parameter to create a binder for
+	 * @return the binder for the parameter
+	 * @throws IllegalStateException if the source of the parameter isn't supported
+	 */
+	public static ResourceMethodParameterBinder create( ResourceMethodParameter theParameter ) {
+		Preconditions.checkNotNull( theParameter, "need a parameter" );
+
+		switch( theParameter.getSource( ) ) {
+		case CONTEXT:
+			if( theParameter.getContextValue( ) == ContextValue.HTTP_REQUEST ) {
+				return new RequestContextBinder( theParameter );
+			} else if( theParameter.getContextValue( ) == ContextValue.HTTP_RESPONSE ) {
+				return new ResponseContextBinder( theParameter );
+			} else {
+				return new OperationContextBinder( theParameter );
+			}
+		case PATH:
+			return new PathBinder( theParameter );
+		case REQUEST:
+			return new RequestBinder( theParameter );
+		case HEADER:
+			return new HeaderBinder( theParameter );
+		case COOKIE:
+			if( theParameter.getCookieValue( ) == CookieValue.COOKIE ) {
+				return new CookieBinder( theParameter );
+			} else {
+				return new CookieValueBinder( theParameter );
+			}
+		default:
+			throw new IllegalStateException( String.format( "Parameter '%s' for resource method '%s' is using an unsupported source of '%s'.", theParameter.getValueName( ), theParameter.getResourceMethod( ).getName( ), theParameter.getSource( ) ) );
+		}
+	}
+
+	/**
+	 * Helper method that finds the cookie with the given name. Requests
+	 * have few cookies so a scan is used instead of building a map. If
+	 * more than one cookie has the name, the last one is used.
+	 * @param theCookies the cookies, which may be null
+	 * @param theName the name of the cookie to find
+	 * @return the cookie or null if not found
+	 */
+	protected static Cookie findCookie( Cookie[] theCookies, String theName ) {
+		if( theCookies != null ) {
+			for( int index = theCookies.length - 1; index >= 0; index -= 1 ) {
+				if( theName.equals( theCookies[ index ].getName( ) ) ) {
+					return theCookies[ index ];
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The base class for binders that get a string value from
+	 * the request and then translate it into the parameter type.
+	 * @author jmolnar
+	 *
+	 */
+	private static abstract class ValueBinder extends ResourceMethodParameterBinder {
+		private final String valueName;
+		private final boolean sensitive;
+		private final boolean primitive;
+
+		protected ValueBinder( ResourceMethodParameter theParameter ) {
+			super( theParameter );
+			valueName = theParameter.getValueName( );
+			sensitive = theParameter.isSensitive( );
+			primitive = theParameter.getType( ).getUnderlyingClass( ).isPrimitive( );
+		}
+
+		/**
+		 * Gets the string form of the value from the request.
+		 */
+		protected abstract String getValue( HttpServletRequest theRequest, Matcher thePathMatcher, Cookie[] theCookies, String theValueName );
+
+		@Override
+		public final String getStringValue( HttpServletRequest theRequest, Matcher thePathMatcher, Cookie[] theCookies ) {
+			return getValue( theRequest, thePathMatcher, theCookies, valueName );
+		}
+
+		@Override
+		public final void bind( HttpServletRequest theRequest, HttpServletResponse theResponse, OperationContext theContext, Matcher thePathMatcher, Cookie[] theCookies, AccessLogRecord theAccessLogRecord, Object[] theParameters ) {
+			String stringValue = getValue( theRequest, thePathMatcher, theCookies, valueName );
+
+			// the following is for logging purposes
+			if( theAccessLogRecord != null ) {
+				theAccessLogRecord.addParameter( valueName, sensitive ? SENSITIVE_VALUE : stringValue );
+			}
+			Object actualValue = parameter.translate( stringValue );
+			if( actualValue == null && primitive ) {
+				// if we have a null value and primitive, we have a problem
+				throw new TranslationException( String.format( "Attempting to set primitive type '%s' to null.", parameter.getType().getName() ) );
+			} else {
+				//TODO: see if there is validation support
+				theParameters[ methodParamOffset ] = actualValue;
+			}
+		}
+	}
+
+	/**
+	 * Binds parameters that refer to something in the url path.
+	 */
+	private static final class PathBinder extends ValueBinder {
+		private final int pathGroup;
+
+		PathBinder( ResourceMethodParameter theParameter ) {
+			super( theParameter );
+			pathGroup = theParameter.getPathReference( ) + 1;
+		}
+
+		@Override
+		protected String getValue( HttpServletRequest theRequest, Matcher thePathMatcher, Cookie[] theCookies, String theValueName ) {
+			return UrlEncoding.decode( theRequest.getCharacterEncoding( ), thePathMatcher.group( pathGroup ) );
+		}
+	}
+
+	/**
+	 * Binds parameters that refer to a query string parameter or post body url encoded item.
+	 */
+	private static final class RequestBinder extends ValueBinder {
+		RequestBinder( ResourceMethodParameter theParameter ) {
+			super( theParameter );
+		}
+
+		@Override
+		protected String getValue( HttpServletRequest theRequest, Matcher thePathMatcher, Cookie[] theCookies, String theValueName ) {
+			return theRequest.getParameter( theValueName );
+		}
+	}
+
+	/**
+	 * Binds parameters that refer to a header.
+	 */
+	private static final class HeaderBinder extends ValueBinder {
+		HeaderBinder( ResourceMethodParameter theParameter ) {
+			super( theParameter );
+		}
+
+		@Override
+		protected String getValue( HttpServletRequest theRequest, Matcher thePathMatcher, Cookie[] theCookies, String theValueName ) {
+			return theRequest.getHeader( theValueName );
+		}
+	}
+
+	/**
+	 * Binds parameters that refer to the value of a cookie.
+	 */
+	private static final class CookieValueBinder extends ValueBinder {
+		CookieValueBinder( ResourceMethodParameter theParameter ) {
+			super( theParameter );
+		}
+
+		@Override
+		public boolean usesCookies( ) {
+			return true;
+		}
+
+		@Override
+		protected String getValue( HttpServletRequest theRequest, Matcher thePathMatcher, Cookie[] theCookies, String theValueName ) {
+			Cookie cookie = findCookie( theCookies, theValueName );
+			return cookie == null ? null : cookie.getValue( );
+		}
+	}
+
+	/**
+	 * Binds parameters that want the cookie itself, which may be null.
+	 */
+	private static final class CookieBinder extends ResourceMethodParameterBinder {
+		private final String valueName;
+
+		CookieBinder( ResourceMethodParameter theParameter ) {
+			super( theParameter );
+			valueName = theParameter.getValueName( );
+		}
+
+		@Override
+		public boolean usesCookies( ) {
+			return true;
+		}
+
+		@Override
+		public void bind( HttpServletRequest theRequest, HttpServletResponse theResponse, OperationContext theContext, Matcher thePathMatcher, Cookie[] theCookies, AccessLogRecord theAccessLogRecord, Object[] theParameters ) {
+			theParameters[ methodParamOffset ] = findCookie( theCookies, valueName );
+		}
+	}
+
+	/**
+	 * Binds parameters that want the http request.
+	 */
+	private static final class RequestContextBinder extends ResourceMethodParameterBinder {
+		RequestContextBinder( ResourceMethodParameter theParameter ) {
+			super( theParameter );
+		}
+
+		@Override
+		public void bind( HttpServletRequest theRequest, HttpServletResponse theResponse, OperationContext theContext, Matcher thePathMatcher, Cookie[] theCookies, AccessLogRecord theAccessLogRecord, Object[] theParameters ) {
+			theParameters[ methodParamOffset ] = theRequest;
+		}
+	}
+
+	/**
+	 * Binds parameters that want the http response.
+	 */
+	private static final class ResponseContextBinder extends ResourceMethodParameterBinder {
+		ResponseContextBinder( ResourceMethodParameter theParameter ) {
+			super( theParameter );
+		}
+
+		@Override
+		public void bind( HttpServletRequest theRequest, HttpServletResponse theResponse, OperationContext theContext, Matcher thePathMatcher, Cookie[] theCookies, AccessLogRecord theAccessLogRecord, Object[] theParameters ) {
+			theParameters[ methodParamOffset ] = theResponse;
+		}
+	}
+
+	/**
+	 * Binds parameters that want the operation context.
+	 */
+	private static final class OperationContextBinder extends ResourceMethodParameterBinder {
+		OperationContextBinder( ResourceMethodParameter theParameter ) {
+			super( theParameter );
+		}
+
+		@Override
+		public void bind( HttpServletRequest theRequest, HttpServletResponse theResponse, OperationContext theContext, Matcher thePathMatcher, Cookie[] theCookies, AccessLogRecord theAccessLogRecord, Object[] theParameters ) {
+			theParameters[ methodParamOffset ] = theContext;
+		}
+	}
+}
@@ -15,9 +15,15 @@
 // ***************************************************************************
 package com.talvish.tales.contracts.services.http;
 
+import java.io.IOException;
+import java.util.concurrent.CompletionStage;
+
 import com.google.common.base.Preconditions;
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+import com.talvish.tales.communication.HeaderConstants;
 import com.talvish.tales.communication.Status;
+import com.talvish.tales.serialization.Readability;
 
 /**
  * This class represents the result of an execution of a resource method.
@@ -28,6 +34,12 @@ import com.talvish.tales.communication.Status;
  *
  */
 public class ResourceMethodResult extends HttpResult<JsonElement,ResourceMethodResult> {
+	private final Object streamedValue;
+	private final ResourceMethodReturn streamedReturn;
+	private final CompletionStage<ResourceMethodResult> pendingResult;
+	private final ResourceMethodCache.Entry cachedValue;
+	private final Readability cachedReadability;
+
 	/**
 	 * Modified copy constructor taking a different value.
 	 * @param theValue the value to use
@@ -36,6 +48,37 @@ public class ResourceMethodResult extends HttpResult<JsonElement,ResourceMethodR
 	ResourceMethodResult( JsonElement theValue, HttpResult<?,?> theOriginal ) {
 		Preconditions.checkNotNull( theOriginal, "the original result must not be null" );
 		this.value = theValue;
+		this.streamedValue = null;
+		this.streamedReturn = null;
+		this.pendingResult = null;
+		this.cachedValue = null;
+		this.cachedReadability = null;
+		this.headers = theOriginal.headers;
+		this.cookies = theOriginal.cookies;
+		this.code = theOriginal.code;
+		this.subcode = theOriginal.subcode;
+		this.subject = theOriginal.subject;
+		this.message = theOriginal.message;
+		this.exception = theOriginal.exception;
+	}
+
+	/**
+	 * Modified copy constructor taking a value that has not been translated.
+	 * The value will be written directly to the response, using the return 
+	 * translator, instead of being translated into a JsonElement first.
+	 * @param theValue the untranslated value to use, which may be null
+	 * @param theReturn the return of the method, used to write the value
+	 * @param theOriginal the original result to clone
+	 */
+	ResourceMethodResult( Object theValue, ResourceMethodReturn theReturn, HttpResult<?,?> theOriginal ) {
+		Preconditions.checkNotNull( theReturn, "the return must not be null" );
+		Preconditions.checkNotNull( theOriginal, "the original result must not be null" );
+		this.value = null;
+		this.streamedValue = theValue;
+		this.streamedReturn = theReturn;
+		this.pendingResult = null;
+		this.cachedValue = null;
+		this.cachedReadability = null;
 		this.headers = theOriginal.headers;
 		this.cookies = theOriginal.cookies;
 		this.code = theOriginal.code;
@@ -45,10 +88,38 @@ public class ResourceMethodResult extends HttpResult<JsonElement,ResourceMethodR
 		this.exception = theOriginal.exception;
 	}
 
+	/**
+	 * Constructor taking a value that has not been translated.
+	 * The value will be written directly to the response, using the return 
+	 * translator, instead of being translated into a JsonElement first.
+	 * @param theValue the untranslated value to use, which may be null
+	 * @param theReturn the return of the method, used to write the value
+	 * @param theStatus the status of the result
+	 */
+	ResourceMethodResult( Object theValue, ResourceMethodReturn theReturn, Status theStatus ) {
+		Preconditions.checkNotNull( theReturn, "the return must not be null" );
+		this.value = null;
+		this.streamedValue = theValue;
+		this.streamedReturn = theReturn;
+		this.pendingResult = null;
+		this.cachedValue = null;
+		this.cachedReadability = null;
+		this.code = theStatus;
+		this.subcode = null;
+		this.subject = null;
+		this.message = null;
+		this.exception = null;
+	}
+
 
 	ResourceMethodResult( JsonElement theValue, Status theStatus ) {
 		Preconditions.checkNotNull( theValue, "need a value" );
 		this.value = theValue;
+		this.streamedValue = null;
+		this.streamedReturn = null;
+		this.pendingResult = null;
+		this.cachedValue = null;
+		this.cachedReadability = null;
 		this.code = theStatus;
 		this.subcode = null;
 		this.subject = null;
@@ -66,6 +137,11 @@ public class ResourceMethodResult extends HttpResult<JsonElement,ResourceMethodR
 	ResourceMethodResult( Status theCode, String theSubcode, String theSubject, String theMessage, Throwable theException ) {
 		Preconditions.checkNotNull( theCode, "need a status code" );
 		this.value = null;
+		this.streamedValue = null;
+		this.streamedReturn = null;
+		this.pendingResult = null;
+		this.cachedValue = null;
+		this.cachedReadability = null;
 		this.code = theCode;
 		this.subcode = theSubcode;
 		this.subject = theSubject;
@@ -84,10 +160,104 @@ public class ResourceMethodResult extends HttpResult<JsonElement,ResourceMethodR
 		Preconditions.checkNotNull( theValue, "need a value" );
 		Preconditions.checkNotNull( theCode, "need a status code" );
 		this.value = theValue;
+		this.streamedValue = null;
+		this.streamedReturn = null;
+		this.pendingResult = null;
+		this.cachedValue = null;
+		this.cachedReadability = null;
 		this.code = theCode;
 		this.subcode = theSubcode;
 		this.subject = theSubject;
 		this.message = theMessage;
 		this.exception = theException;
 	}
+
+	/**
+	 * Constructor used when the method returned a {@code CompletionStage} 
+	 * and therefore the actual result is not yet available.
+	 * @param thePendingResult the stage that completes with the actual result
+	 */
+	ResourceMethodResult( CompletionStage<ResourceMethodResult> thePendingResult ) {
+		Preconditions.checkNotNull( thePendingResult, "need a pending result" );
+		this.value = null;
+		this.streamedValue = null;
+		this.streamedReturn = null;
+		this.pendingResult = thePendingResult;
+		this.cachedValue = null;
+		this.cachedReadability = null;
+		this.code = Status.UNKNOWN;
+		this.subcode = null;
+		this.subject = null;
+		this.message = null;
+		this.exception = null;
+	}
+
+	/**
+	 * Constructor used when the response was previously kept, 
+	 * so the value is already serialized.
+	 * @param theCachedValue the kept response
+	 * @param theReadability the readability the response is written with
+	 */
+	ResourceMethodResult( ResourceMethodCache.Entry theCachedValue, Readability theReadability ) {
+		Preconditions.checkNotNull( theCachedValue, "need a cached value" );
+		Preconditions.checkNotNull( theReadability, "need a readability" );
+		this.value = null;
+		this.streamedValue = null;
+		this.streamedReturn = null;
+		this.pendingResult = null;
+		this.cachedValue = theCachedValue;
+		this.cachedReadability = theReadability;
+		this.headers.putAll( theCachedValue.getHeaders( ) );
+		this.headers.put( HeaderConstants.ETAG, theCachedValue.getEntityTag( ) );
+		this.code = Status.OPERATION_COMPLETED;
+		this.subcode = null;
+		this.subject = null;
+		this.message = null;
+		this.exception = null;
+	}
+
+	/**
+	 * Indicates if the method has not finished executing and the 
+	 * actual result is available, later, from {@code getPendingResult}.
+	 * @return true if the result is pending, false otherwise
+	 */
+	public boolean isPending( ) {
+		return pendingResult != null;
+	}
+
+	/**
+	 * Returns the stage that completes with the actual result. This is 
+	 * only valid if {@code isPending} returns true. The stage does not
+	 * complete exceptionally, failures are converted into results.
+	 * @return the stage that completes with the actual result
+	 */
+	public CompletionStage<ResourceMethodResult> getPendingResult( ) {
+		Preconditions.checkState( pendingResult != null, "the result is not pending" );
+		return pendingResult;
+	}
+
+	/**
+	 * Indicates if the value was not translated and instead 
+	 * needs to be written directly using {@code writeValue}.
+	 * This is also true if the value was previously serialized.
+	 * @return true if the value is to be written directly, false otherwise
+	 */
+	public boolean isStreamed( ) {
+		return streamedReturn != null || cachedValue != null;
+	}
+
+	/**
+	 * Writes the untranslated value directly to the json writer.
+	 * This is only valid if {@code isStreamed} returns true.
+	 * @param theWriter the json writer to write to
+	 * @throws IOException thrown if the writer could not be written to
+	 */
+	public void writeValue( JsonWriter theWriter ) throws IOException {
+		Preconditions.checkState( streamedReturn != null || cachedValue != null, "the result value is not streamed" );
+		if( cachedValue != null ) {
+			cachedValue.write( theWriter, cachedReadability );
+		} else {
+			streamedReturn.write( streamedValue, theWriter );
+		}
+	}
 }
@@ -15,9 +15,13 @@
 // ***************************************************************************
 package com.talvish.tales.contracts.services.http;
 
+import java.io.IOException;
+
 import com.google.common.base.Preconditions;
+import com.google.gson.stream.JsonWriter;
 import com.talvish.tales.parts.reflection.JavaType;
 import com.talvish.tales.parts.translators.Translator;
+import com.talvish.tales.serialization.json.JsonWriterHelper;
 
 /**
  * This class represents the return type of an exposed method.
@@ -30,6 +34,7 @@ public class ResourceMethodReturn {
 	private final JavaType type;
 	private final boolean isVoid;
 	private final boolean isResultWrapper;
+	private final boolean isCompletionStage;
 	private final Translator valueTranslator;
 	
 	/**
@@ -48,6 +53,7 @@ public class ResourceMethodReturn {
 		valueTranslator = null;
 		resourceMethod = theMethod;
 		isResultWrapper = false;
+		isCompletionStage = false;
 	}
 
 	/**
@@ -60,12 +66,26 @@ public class ResourceMethodReturn {
 	 * @param theMethod the method this is a return value
 	 */
 	ResourceMethodReturn( JavaType theType, boolean resultWrapper, Translator theValueTranslator, ResourceMethod theMethod ) {
+		this( theType, resultWrapper, false, theValueTranslator, theMethod );
+	}
+
+	/**
+	 * Constructor used when a type is being returned, though 
+	 * there is no indication if it is a complex or simple type.
+	 * @param theType the type of the return values, which for a completion stage is the type the stage completes with
+	 * @param resultWrapper if true, indicates that when the data comes back, it has a ResourceResult wrapper
+	 * @param completionStage if true, indicates that the method returns a CompletionStage that completes with the data
+	 * @param theValueTranslator the translator that will be used to translate the result values
+	 * @param theMethod the method this is a return value
+	 */
+	ResourceMethodReturn( JavaType theType, boolean resultWrapper, boolean completionStage, Translator theValueTranslator, ResourceMethod theMethod ) {
 		Preconditions.checkNotNull( theType, "need a type" );
 		Preconditions.checkNotNull( theValueTranslator, "need a translator" );
 		Preconditions.checkNotNull( theMethod, "need a method" );
 		
 		type = theType;
 		isResultWrapper = resultWrapper;
+		isCompletionStage = completionStage;
 		isVoid = false;
 		valueTranslator = theValueTranslator;
 		resourceMethod = theMethod;
@@ -97,7 +117,17 @@ public class ResourceMethodReturn {
 	}
 	
 	/**
-	 * The return type of the method.
+	 * Indicates the method returns a {@code CompletionStage} and the data, or
+	 * ResourceResult wrapper, is available when the stage completes.
+	 * @return true if a completion stage, false otherwise
+	 */
+	public boolean isCompletionStage( ) {
+		return isCompletionStage;
+	}
+	
+	/**
+	 * The return type of the method, which for completion stages
+	 * is the type the stage completes with.
 	 * @return the return type
 	 */
 	public JavaType getType( ) {
@@ -113,4 +143,15 @@ public class ResourceMethodReturn {
 	public Object translate( Object theObject ) {
 		return valueTranslator.translate( theObject );
 	}
+
+	/**
+	 * This is called to write results, using the assigned translator,
+	 * directly to a json writer instead of creating a translated object.
+	 * @param theObject the object to write
+	 * @param theWriter the json writer to write to
+	 * @throws IOException thrown if the writer could not be written to
+	 */
+	public void write( Object theObject, JsonWriter theWriter ) throws IOException {
+		JsonWriterHelper.write( valueTranslator, theObject, theWriter );
+	}
 }
\ No newline at end of file
@@ -0,0 +1,238 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.contracts.services.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A precompiled routing structure over an ordered list of resource methods.
+ * The methods are placed in a tree based on the literal segments at the
+ * start of their paths. Methods without parameters are found using a
+ * simple lookup on the full path. When a request comes in, the tree is walked
+ * using the segments of the request path to find the small set of candidate
+ * methods and only those candidates have their regular expressions run.
+ * The candidates are evaluated in the same order as the original list so
+ * the resulting match is the same as looking at every method in the list.
+ * @author jmolnar
+ *
+ */
+public class ResourceRouteTree {
+	/**
+	 * A node in the tree representing a single literal segment of a path.
+	 * @author jmolnar
+	 *
+	 */
+	private static class Node {
+		private final Map<String, Node> children = new HashMap<String, Node>( 2 );
+		private int[] candidates = EMPTY_CANDIDATES;
+
+		/**
+		 * Gets the child node for the segment, creating it if needed.
+		 * @param theSegment the segment to get the node for
+		 * @return the child node
+		 */
+		private Node getOrCreateChild( String theSegment ) {
+			Node child = children.get( theSegment );
+			if( child == null ) {
+				child = new Node( );
+				children.put( theSegment, child );
+			}
+			return child;
+		}
+	}
+
+	private static final int[] EMPTY_CANDIDATES = new int[ 0 ];
+
+	private final List<ResourceMethod> methods;
+	private final Node root = new Node( );
+	private final Map<String, int[]> literalMethods = new HashMap<String, int[]>( );
+
+	/**
+	 * Constructor taking the ordered list of methods to route against.
+	 * The order of the list is important since it is used to break
+	 * ties when more than one method matches a request.
+	 * @param theMethods the ordered methods to route against
+	 */
+	public ResourceRouteTree( List<ResourceMethod> theMethods ) {
+		Preconditions.checkNotNull( theMethods, "need methods" );
+
+		methods = Collections.unmodifiableList( new ArrayList<ResourceMethod>( theMethods ) );
+
+		ResourceMethod method;
+		for( int index = 0; index < methods.size( ); index += 1 ) {
+			method = methods.get( index );
+			if( method.isLiteralPath( ) ) {
+				// no parameters in the path, so a straight lookup will do
+				literalMethods.put( method.getLiteralPath( ), append( literalMethods.get( method.getLiteralPath( ) ), index ) );
+			} else {
+				// otherwise we walk down the complete literal segments and
+				// at the node we end up on we save the method as a candidate
+				String literalPath = method.getLiteralPath( );
+				Node node = root;
+				int segmentStart = 0;
+				int segmentEnd = literalPath.indexOf( '/', segmentStart );
+
+				while( segmentEnd >= 0 ) {
+					node = node.getOrCreateChild( literalPath.substring( segmentStart, segmentEnd ) );
+					segmentStart = segmentEnd + 1;
+					segmentEnd = literalPath.indexOf( '/', segmentStart );
+				}
+				node.candidates = append( node.candidates, index );
+			}
+		}
+	}
+
+	/**
+	 * Helper method that adds an index to the end of an array of indices.
+	 * @param theIndices the current indices, which may be null
+	 * @param theIndex the index to add
+	 * @return the new set of indices
+	 */
+	private static int[] append( int[] theIndices, int theIndex ) {
+		int[] newIndices;
+		if( theIndices == null ) {
+			newIndices = new int[] { theIndex };
+		} else {
+			newIndices = Arrays.copyOf( theIndices, theIndices.length + 1 );
+			newIndices[ theIndices.length ] = theIndex;
+		}
+		return newIndices;
+	}
+
+	/**
+	 * Returns the ordered methods this tree routes against.
+	 * @return the list of methods
+	 */
+	public List<ResourceMethod> getMethods( ) {
+		return methods;
+	}
+
+	/**
+	 * Returns the method at the particular index, which is
+	 * typically the path index from the match status.
+	 * @param theIndex the index of the method to get
+	 * @return the method at the index
+	 */
+	public ResourceMethod getMethod( int theIndex ) {
+		return methods.get( theIndex );
+	}
+
+	/**
+	 * Finds the method that best fits the request. Best fit is the method,
+	 * with a matching path, that has the fewest request parameter misses
+	 * and the most request parameter matches, and where there is a tie the
+	 * earliest method in the list is used.
+	 * @param theRequest the request to match against
+	 * @return the best fit method information, or null if nothing matches
+	 */
+	public ResourceMethod.MatchStatus match( HttpServletRequest theRequest ) {
+		String uri = theRequest.getRequestURI( );
+		int[] literalCandidates = literalMethods.get( uri );
+
+		// we walk the tree using the segments of the request
+		// and collect candidates from each node along the way
+		int[] candidates = null;
+		int candidateCount = 0;
+		Node node = root;
+		int segmentStart = 0;
+		int segmentEnd;
+
+		while( node != null ) {
+			if( node.candidates.length > 0 ) {
+				if( candidates == null ) {
+					candidates = node.candidates;
+					candidateCount = node.candidates.length;
+				} else {
+					candidates = merge( candidates, candidateCount, node.candidates );
+					candidateCount += node.candidates.length;
+				}
+			}
+			segmentEnd = uri.indexOf( '/', segmentStart );
+			if( segmentEnd < 0 ) {
+				node = null;
+			} else {
+				node = node.children.get( uri.substring( segmentStart, segmentEnd ) );
+				segmentStart = segmentEnd + 1;
+			}
+		}
+		if( literalCandidates != null ) {
+			if( candidates == null ) {
+				candidates = literalCandidates;
+				candidateCount = literalCandidates.length;
+			} else {
+				candidates = merge( candidates, candidateCount, literalCandidates );
+				candidateCount += literalCandidates.length;
+			}
+		}
+
+		// now we run the candidates, in order, to find the best fit
+		ResourceMethod.MatchStatus currentStatus = null;
+		ResourceMethod.MatchStatus bestStatus = null;
+		int index;
+
+		for( int candidate = 0; candidate < candidateCount; candidate += 1 ) {
+			index = candidates[ candidate ];
+			currentStatus = methods.get( index ).match( theRequest, index );
+			if( currentStatus != null ) {
+				if( ( bestStatus == null ) ||
+					( bestStatus.getParameterMisses() > currentStatus.getParameterMisses( ) && bestStatus.getParameterMatches() <= currentStatus.getParameterMatches( ) ) ||
+					( bestStatus.getParameterMisses() >= currentStatus.getParameterMisses( ) && bestStatus.getParameterMatches() < currentStatus.getParameterMatches( ) ) ) {
+					bestStatus = currentStatus;
+				}
+			}
+		}
+		return bestStatus;
+	}
+
+	/**
+	 * Helper method that merges two sorted sets of indices into
+	 * a new sorted array, so candidates are kept in list order.
+	 * @param theFirst the first set of indices
+	 * @param theFirstCount the number of indices to use from the first set
+	 * @param theSecond the second set of indices
+	 * @return the merged, sorted indices
+	 */
+	private static int[] merge( int[] theFirst, int theFirstCount, int[] theSecond ) {
+		int[] merged = new int[ theFirstCount + theSecond.length ];
+		int firstOffset = 0;
+		int secondOffset = 0;
+		int mergedOffset = 0;
+
+		while( firstOffset < theFirstCount && secondOffset < theSecond.length ) {
+			if( theFirst[ firstOffset ] < theSecond[ secondOffset ] ) {
+				merged[ mergedOffset++ ] = theFirst[ firstOffset++ ];
+			} else {
+				merged[ mergedOffset++ ] = theSecond[ secondOffset++ ];
+			}
+		}
+		while( firstOffset < theFirstCount ) {
+			merged[ mergedOffset++ ] = theFirst[ firstOffset++ ];
+		}
+		while( secondOffset < theSecond.length ) {
+			merged[ mergedOffset++ ] = theSecond[ secondOffset++ ];
+		}
+		return merged;
+	}
+}
@@ -27,6 +27,7 @@ import java.util.regex.Pattern;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.talvish.tales.contracts.Contract;
+import com.talvish.tales.system.status.AdaptiveConcurrencyLimit;
 
 /**
  * This class represents an object that is mapped as an external HTTP resource. 
@@ -45,6 +46,7 @@ public class ResourceType extends Contract {
 	private final Class<?> boundClass;
 	private final String boundPath;
 	private final ResourceOperation.Mode mode;
+	private final AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit( );
 	
 	private static final String ROOT_PATH_REGEX = String.format( "/(?:%1$s/)*((?:%1$s)/?)?", ResourceMethod.SEGMENT_COMPONENT_REGEX );
 	private static final Pattern ROOT_PATH_PATTERN = Pattern.compile( ROOT_PATH_REGEX );
@@ -104,6 +106,15 @@ public class ResourceType extends Contract {
 	public ResourceOperation.Mode getMode( ) {
 		return mode;
 	}
+
+	/**
+	 * Returns the adaptive limit on concurrent requests across all methods,
+	 * which is only used if the resource was bound with concurrency limiting.
+	 * @return the concurrency limit for the resource
+	 */
+	public AdaptiveConcurrencyLimit getConcurrencyLimit( ) {
+		return concurrencyLimit;
+	}
 	
 	/**
 	 * A helper method that is called by the underlying system that creates
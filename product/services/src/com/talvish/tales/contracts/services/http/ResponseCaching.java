@@ -0,0 +1,62 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.contracts.services.http;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An indication that the serialized responses of a GET resource method
+ * are kept, so repeated calls, with the same version, path parameters and
+ * chosen parameters, don't need to run the method. Responses are sent with
+ * an ETag and callers sending a matching If-None-Match get a 304 back.
+ * Only successful results, without cookies or their own cache control
+ * headers, are kept. Responses that differ by header or cookie parameters
+ * are sent with a Vary header naming them and, since those values are
+ * often particular to a caller, cannot be marked public.
+ * @author jmolnar
+ *
+ */
+@Retention( RetentionPolicy.RUNTIME)
+@Target( ElementType.METHOD )
+public @interface ResponseCaching {
+	/**
+	 * The maximum time, in seconds, a response is kept, which
+	 * is also the max-age callers are told they can keep it.
+	 */
+	int maximumAge( );
+
+	/**
+	 * The names of the request, header or cookie parameters, in addition
+	 * to path parameters, whose values make responses different.
+	 * Parameters not listed are not considered when finding a response.
+	 */
+	String[] parameters( ) default { };
+
+	/**
+	 * The approximate maximum memory, in bytes, used to keep responses.
+	 */
+	long maximumSize( ) default 4 * 1024 * 1024;
+
+	/**
+	 * The cache control options, in addition to max-age, sent to callers.
+	 * If not set, responses are public unless header or cookie parameters
+	 * make them different, in which case they are private.
+	 */
+	String[] options( ) default { };
+}
@@ -26,6 +26,12 @@ public final class ConfigurationConstants {
 	
 	public static final String SERVICE_TYPE = "service.type";
 	
+	// serialization settings
+	
+	public static final String SERIALIZATION_GENERATE_ACCESSORS = "service.serialization.generate_accessors";
+	public static final String SERIALIZATION_MAXIMUM_COMPOSITE_ADAPTERS = "service.serialization.maximum_composite_adapters";
+	public static final String SERIALIZATION_COMPACT_MAPS = "service.serialization.compact_maps";
+	
 	// key store settings
 	
 	public static final String SECURITY_KEY_STORES = "service.security.key_stores";
@@ -46,6 +52,16 @@ public final class ConfigurationConstants {
 	public static final String HTTP_INTERFACE_SSL_KEY_STORE = INTERFACES + ".%s.ssl.key_store"; 
 	public static final String HTTP_INTERFACE_SSL_CERT_ALIAS = INTERFACES + ".%s.ssl.cert_alias";
 	public static final String HTTP_INTERFACE_CONNECTOR = INTERFACES + ".%s.connector";
+	public static final String HTTP_INTERFACE_THROTTLING_RATE = INTERFACES + ".%s.throttling.rate";
+	public static final String HTTP_INTERFACE_THROTTLING_BURST = INTERFACES + ".%s.throttling.burst";
+	public static final String HTTP_INTERFACE_THROTTLING_KEY = INTERFACES + ".%s.throttling.key";
+	public static final String HTTP_INTERFACE_THROTTLING_MAXIMUM_CALLERS = INTERFACES + ".%s.throttling.maximum_callers";
+	public static final String HTTP_INTERFACE_THROTTLING_IDLE_TIME = INTERFACES + ".%s.throttling.idle_time";
+	
+	// access log settings
+	
+	public static final String ACCESS_LOG_BUFFER_SIZE = "service.access_log.buffer_size";
+	public static final String ACCESS_LOG_SUCCESS_SAMPLING = "service.access_log.success_sampling";
 	
 	// connector settings
 
@@ -55,12 +71,14 @@ public final class ConfigurationConstants {
 	
 	public static final String THREAD_POOLS = "service.thread_pools";
 
+	public static final String THREAD_POOL_TYPE = THREAD_POOLS + ".%s.type";
 	public static final String THREAD_POOL_THREAD_NAME_PREFIX = THREAD_POOLS + ".%s.thread_name_prefix";
 	public static final String THREAD_POOL_THREAD_PRIORITY = THREAD_POOLS + ".%s.thread_priority";
 	public static final String THREAD_POOL_THREAD_IS_DAEMON = THREAD_POOLS + ".%s.is_daemon";
 	
 	public static final String THREAD_POOL_CORE_SIZE = THREAD_POOLS + ".%s.core_size";
 	public static final String THREAD_POOL_MAX_SIZE = THREAD_POOLS + ".%s.max_size";
+	public static final String THREAD_POOL_MAX_QUEUE_SIZE = THREAD_POOLS + ".%s.max_queue_size";
 	public static final String THREAD_POOL_KEEP_ALIVE_TIME = THREAD_POOLS + ".%s.keep_alive_time";
 	public static final String THREAD_POOL_PRESTART_CORE = THREAD_POOLS + ".%s.prestart_core";
 }
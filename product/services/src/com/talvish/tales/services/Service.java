@@ -57,7 +57,10 @@ import com.talvish.tales.contracts.services.http.ResourceFacility;
 import com.talvish.tales.parts.naming.LowerCaseValidator;
 import com.talvish.tales.parts.naming.NameManager;
 import com.talvish.tales.parts.naming.NameValidator;
+import com.talvish.tales.serialization.MapEncoding;
+import com.talvish.tales.serialization.Readability;
 import com.talvish.tales.serialization.json.JsonTranslationFacility;
+import com.talvish.tales.services.http.AccessLog;
 import com.talvish.tales.services.http.ConnectorConfiguration;
 import com.talvish.tales.services.http.ConnectorConfigurationManager;
 import com.talvish.tales.services.http.HttpInterface;
@@ -68,11 +71,13 @@ import com.talvish.tales.services.http.servlets.ConfigurationServlet;
 import com.talvish.tales.services.http.servlets.ContractsServlet;
 import com.talvish.tales.services.http.servlets.ControlServlet;
 import com.talvish.tales.services.http.servlets.StatusServlet;
+import com.talvish.tales.system.ConcurrencyLimitedExecutor;
 import com.talvish.tales.system.ConfigurableThreadFactory;
 import com.talvish.tales.system.ExecutionLifecycleListener;
 import com.talvish.tales.system.ExecutionLifecycleListeners;
 import com.talvish.tales.system.ExecutionLifecycleState;
 import com.talvish.tales.system.ExecutorManager;
+import com.talvish.tales.system.ExecutorStatus;
 import com.talvish.tales.system.Facility;
 import com.talvish.tales.system.FacilityManager;
 import com.talvish.tales.system.SimpleFacilityManager;
@@ -81,6 +86,7 @@ import com.talvish.tales.system.configuration.ConfigurationManager;
 import com.talvish.tales.system.configuration.annotated.RegisteredCollection;
 import com.talvish.tales.system.status.MonitorableStatusValue;
 import com.talvish.tales.system.status.RatedLong;
+import com.talvish.tales.system.status.StatusBlock;
 import com.talvish.tales.system.status.StatusManager;
 
 /**
@@ -211,6 +217,7 @@ public abstract class Service implements Runnable {
 	protected final FacilityManager facilityManager = new SimpleFacilityManager( );
 
 	private final ExecutionLifecycleListeners listeners = new ExecutionLifecycleListeners( );
+	private AccessLog accessLog;
 	private ExecutionLifecycleState lifecycleState	= ExecutionLifecycleState.CREATED;
 	
 	private final PeriodFormatter timeFormatter = new PeriodFormatterBuilder()
@@ -616,12 +623,26 @@ public abstract class Service implements Runnable {
 			// required (or nice for overrides) for facilities about to be added
 			onInitializeConfiguration();
 			
-			// now add the json facility (used by servlets, admin, etc)
-			JsonTranslationFacility jsonFacility = new JsonTranslationFacility( new DataContractTypeSource( ) );
+			// now add the json facility (used by servlets, admin, etc), which may generate
+			// accessors for data contract members and resource methods instead of using reflection
+			// and may write maps with string keys as json objects instead of key/value entries
+			JsonTranslationFacility jsonFacility = new JsonTranslationFacility( 
+					new DataContractTypeSource( ), 
+					Readability.MACHINE, 
+					theConfigurationManager.getBooleanValue( ConfigurationConstants.SERIALIZATION_GENERATE_ACCESSORS, false ),
+					theConfigurationManager.getLongValue( ConfigurationConstants.SERIALIZATION_MAXIMUM_COMPOSITE_ADAPTERS, JsonTranslationFacility.DEFAULT_MAXIMUM_COMPOSITE_ADAPTERS ),
+					theConfigurationManager.getBooleanValue( ConfigurationConstants.SERIALIZATION_COMPACT_MAPS, false ) ? MapEncoding.OBJECT : MapEncoding.ENTRIES );
 			this.facilityManager.addFacility( JsonTranslationFacility.class, jsonFacility);
+			statusManager.register( "serialization", jsonFacility );
+			
+			// setup the access log, which resource methods write their executions to
+			accessLog = new AccessLog( 
+					theConfigurationManager.getIntegerValue( ConfigurationConstants.ACCESS_LOG_BUFFER_SIZE, AccessLog.DEFAULT_BUFFER_SIZE ),
+					theConfigurationManager.getIntegerValue( ConfigurationConstants.ACCESS_LOG_SUCCESS_SAMPLING, AccessLog.DEFAULT_SUCCESS_SAMPLING ) );
+			statusManager.register( "access_log", accessLog );
 			
 			// add the resource facility (used by our servlets/pieces for admin, but others can as well)
-			ResourceFacility resourceFacility = new ResourceFacility( jsonFacility );
+			ResourceFacility resourceFacility = new ResourceFacility( jsonFacility, accessLog );
 			this.facilityManager.addFacility( ResourceFacility.class, resourceFacility );
 
 			// we now load up some re-usable items 
@@ -693,6 +714,10 @@ public abstract class Service implements Runnable {
 	        // initialization and registration
 			onStart( );
 			
+			// contracts are registered by now, so we make sure the
+			// json adapters they need are built before requests arrive
+			jsonFacility.warmUp( );
+
 			// now start the interfaces that were registered
 			logger.info( "Starting all interfaces for '{}'.", this.getCanonicalName( ) );
 			this.interfaceManager.start();
@@ -820,6 +845,7 @@ public abstract class Service implements Runnable {
 			for( String threadPoolName : threadPools ) {
 				executor = loadThreadPool( threadPoolName );
 				executorManager.register( threadPoolName, executor );
+				registerThreadPoolStatus( threadPoolName, executor );
 			}
 		}
 		// now we see if the standard thread pool has been configured and if
@@ -841,12 +867,28 @@ public abstract class Service implements Runnable {
 				executor.prestartAllCoreThreads();
 			}
 	    	executorManager.register( ThreadingConstants.DEFAULT_THREAD_POOL, executor );
+	    	registerThreadPoolStatus( ThreadingConstants.DEFAULT_THREAD_POOL, executor );
 		}
 		// we register this regardless of having any loaded this
 		// allows others to manual register if they so desire
 		this.facilityManager.addFacility( ExecutorManager.class, executorManager );
 	}
 	
+	/**
+	 * Private method that registers the status of a thread pool, using a block
+	 * named after the thread pool, if the name is a valid status block name.
+	 * @param theName the name of the thread pool
+	 * @param theExecutor the thread pool
+	 */
+	private void registerThreadPoolStatus( String theName, Executor theExecutor ) {
+		String blockName = "thread_pool_" + theName;
+		if( NameManager.getValidator( StatusBlock.STATUS_BLOCK_NAME_VALIDATOR ).isValid( blockName ) ) {
+			statusManager.register( blockName, new ExecutorStatus( theExecutor ) );
+		} else {
+			logger.warn( "Status for thread pool '{}' will not be available since '{}' is not a valid status block name.", theName, blockName );
+		}
+	}
+	
 	/**
 	 * Private method that will load and create the thread pool configuration
 	 * for a particular thread pools.
@@ -855,6 +897,9 @@ public abstract class Service implements Runnable {
 	 */
 	private Executor loadThreadPool( String theName ) {
 		// we get the settings to make the executor, which includes using defaults (except for core threads have to be specified if something is going to be specified)
+		String type = getConfigurationManager( ).getStringValue( 
+				String.format( ConfigurationConstants.THREAD_POOL_TYPE, theName ),
+				ThreadingConstants.DEFAULT_THREAD_POOL_TYPE );
     	int coreThreads = getConfigurationManager( ).getIntegerValue( 
     			String.format( ConfigurationConstants.THREAD_POOL_CORE_SIZE, theName ) );
     	int maxThreads = getConfigurationManager( ).getIntegerValue(
@@ -877,18 +922,40 @@ public abstract class Service implements Runnable {
     			String.format( ConfigurationConstants.THREAD_POOL_THREAD_IS_DAEMON, theName ), 
     			ThreadingConstants.DEFAULT_IS_DAEMON );
 
-    	ThreadPoolExecutor executor = new ThreadPoolExecutor(
-    			coreThreads, 
-    			maxThreads, 
-    			keepAliveTime,
-                TimeUnit.MILLISECONDS, 
-                new ArrayBlockingQueue<Runnable>( maxThreads ),
-                new ConfigurableThreadFactory( prefix, priority, isDaemon ) );
-    	
-    	if( prestartCore ) {
-    		executor.prestartAllCoreThreads();
+    	if( ThreadingConstants.THREAD_POOL_TYPE_THREAD_PER_TASK.equals( type ) ) {
+    		// each task gets its own thread, with the max size limiting how many 
+    		// run at once and the rest waiting in a queue that is not tied to the max size
+        	int maxQueueSize = getConfigurationManager( ).getIntegerValue( 
+        			String.format( ConfigurationConstants.THREAD_POOL_MAX_QUEUE_SIZE, theName ), 
+        			ThreadingConstants.DEFAULT_THREAD_PER_TASK_MAX_QUEUE_SIZE );
+
+        	return new ConcurrencyLimitedExecutor(
+        			maxThreads,
+        			maxQueueSize,
+        			keepAliveTime,
+        			new ConfigurableThreadFactory( prefix, priority, isDaemon ) );
+    		
+    	} else if( ThreadingConstants.THREAD_POOL_TYPE_BOUNDED.equals( type ) ) {
+        	int maxQueueSize = getConfigurationManager( ).getIntegerValue( 
+        			String.format( ConfigurationConstants.THREAD_POOL_MAX_QUEUE_SIZE, theName ), 
+        			maxThreads );
+
+        	ThreadPoolExecutor executor = new ThreadPoolExecutor(
+	    			coreThreads, 
+	    			maxThreads, 
+	    			keepAliveTime,
+	                TimeUnit.MILLISECONDS, 
+	                new ArrayBlockingQueue<Runnable>( maxQueueSize ),
+	                new ConfigurableThreadFactory( prefix, priority, isDaemon ) );
+	    	
+	    	if( prestartCore ) {
+	    		executor.prestartAllCoreThreads();
+	    	}
+			return executor;
+			
+    	} else {
+    		throw new ConfigurationException( String.format( "Thread pool '%s' is using an unsupported type of '%s'.", theName, type ) );
     	}
-		return executor;
 	}
 
 	/**
@@ -949,6 +1016,10 @@ public abstract class Service implements Runnable {
 			
 			// now let subclasses override, if any
 			onStop( );
+			// and write out what remains in the access log
+			if( accessLog != null ) {
+				accessLog.stop( );
+			}
 			executionPeriod = status.calculateRunningTime();
 			status.recordStop( );
 			this.lifecycleState = ExecutionLifecycleState.STOPPED;
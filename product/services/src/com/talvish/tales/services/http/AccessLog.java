@@ -0,0 +1,246 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.services.http;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.talvish.tales.system.status.MonitorableStatusValue;
+
+/**
+ * The access log records the execution of requests. Callers fill in the record
+ * for the current thread, as the request executes, and then write it. Writing
+ * copies the record into a fixed size ring buffer, which a background thread
+ * formats and sends to the logger, so the request path does not format strings.
+ * Failures are always written, but successes are only written for one in every
+ * so many requests, based on the sampling, which by default is none of them.
+ * If the ring buffer is full, records are dropped rather than waiting.
+ * @author jmolnar
+ *
+ */
+public class AccessLog {
+	public static final int DEFAULT_BUFFER_SIZE = 1024;
+	public static final int DEFAULT_SUCCESS_SAMPLING = 0;
+
+	private static final Logger logger = LoggerFactory.getLogger( AccessLog.class );
+	private static final long WRITER_WAIT_TIME = 100l * 1000l * 1000l;
+
+	private static final ThreadLocal<AccessLogRecord> threadRecords = ThreadLocal.withInitial( AccessLogRecord::new );
+
+	/**
+	 * Simple private class holding a record in the ring buffer and the
+	 * sequence used to know if the record is free to be written or read.
+	 * @author jmolnar
+	 *
+	 */
+	private static class Slot {
+		private final AccessLogRecord record = new AccessLogRecord( );
+		private volatile long sequence;
+
+		private Slot( long theSequence ) {
+			sequence = theSequence;
+		}
+	}
+
+	private final int successSampling;
+	private final Slot[] slots;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong( 0 );
+	private long head = 0; // only used by the writer thread
+
+	private final Thread writer;
+	private volatile boolean running = true;
+	private volatile boolean waiting = false;
+
+	private final LongAdder writtenRecords = new LongAdder( );
+	private final LongAdder droppedRecords = new LongAdder( );
+
+	/**
+	 * Constructor using the default buffer size and sampling.
+	 */
+	public AccessLog( ) {
+		this( DEFAULT_BUFFER_SIZE, DEFAULT_SUCCESS_SAMPLING );
+	}
+
+	/**
+	 * Constructor taking the size of the ring buffer and the sampling for successes.
+	 * @param theBufferSize the number of records the ring buffer holds, which is rounded up to a power of two
+	 * @param theSuccessSampling successes are written for one in this many requests, where 0 means successes are not written
+	 */
+	public AccessLog( int theBufferSize, int theSuccessSampling ) {
+		Preconditions.checkArgument( theBufferSize > 0 && theBufferSize <= ( 1 << 30 ), "buffer size must be greater than zero and no more than 2^30" );
+		Preconditions.checkArgument( theSuccessSampling >= 0, "success sampling cannot be negative" );
+
+		int size = Integer.highestOneBit( theBufferSize );
+		if( size < theBufferSize ) {
+			size <<= 1;
+		}
+		slots = new Slot[ size ];
+		for( int index = 0; index < size; index += 1 ) {
+			slots[ index ] = new Slot( index );
+		}
+		mask = size - 1;
+		successSampling = theSuccessSampling;
+
+		writer = new Thread( this::drain, "access_log_writer" );
+		writer.setDaemon( true );
+		writer.start( );
+	}
+
+	/**
+	 * Gets the record for the current thread, cleared so it can be filled in.
+	 * The record should not be held onto after it is written, since it will be
+	 * re-used by the next request on the thread.
+	 * @return the record for the current thread
+	 */
+	public AccessLogRecord startRecord( ) {
+		AccessLogRecord record = threadRecords.get( );
+		record.reset( );
+		return record;
+	}
+
+	/**
+	 * Writes the record if it is a failure or if the success was sampled.
+	 * The record is copied so the caller can re-use the record.
+	 * @param theRecord the record to write
+	 */
+	public void write( AccessLogRecord theRecord ) {
+		if( shouldWrite( theRecord ) ) {
+			long sequence = tail.get( );
+			Slot slot;
+
+			do {
+				slot = slots[ ( int )( sequence & mask ) ];
+				if( slot.sequence != sequence ) {
+					if( slot.sequence < sequence ) {
+						// the writer hasn't caught up, so the buffer is full
+						droppedRecords.increment( );
+						return;
+					}
+					// another thread claimed the slot, so try the next one
+					sequence = tail.get( );
+				} else if( tail.compareAndSet( sequence, sequence + 1 ) ) {
+					break;
+				} else {
+					sequence = tail.get( );
+				}
+			} while( true );
+
+			slot.record.copyFrom( theRecord );
+			slot.sequence = sequence + 1; // publishes the record to the writer
+			if( waiting ) {
+				LockSupport.unpark( writer );
+			}
+		}
+	}
+
+	/**
+	 * Helper method that decides if a record should be written.
+	 * @param theRecord the record to check
+	 * @return true if the record should be written, false otherwise
+	 */
+	private boolean shouldWrite( AccessLogRecord theRecord ) {
+		if( !running || !logger.isInfoEnabled( ) ) {
+			return false;
+		} else if( theRecord.getStatus( ) == null || !theRecord.getStatus( ).isSuccess( ) ) {
+			return true;
+		} else if( successSampling == 0 ) {
+			return false;
+		} else {
+			return successSampling == 1 || ThreadLocalRandom.current( ).nextInt( successSampling ) == 0;
+		}
+	}
+
+	/**
+	 * The method run by the writer thread, which formats and logs records
+	 * as they are published, until the log is stopped.
+	 */
+	private void drain( ) {
+		StringBuilder builder = new StringBuilder( 256 );
+		Slot slot;
+
+		while( running || slots[ ( int )( head & mask ) ].sequence == head + 1 ) {
+			slot = slots[ ( int )( head & mask ) ];
+			if( slot.sequence == head + 1 ) {
+				try {
+					builder.setLength( 0 );
+					slot.record.format( builder );
+					logger.info( builder.toString( ) );
+					writtenRecords.increment( );
+				} catch( RuntimeException e ) {
+					droppedRecords.increment( );
+				} finally {
+					slot.record.reset( );
+					slot.sequence = head + slots.length; // frees the slot for the next lap
+					head += 1;
+				}
+			} else {
+				waiting = true;
+				// check again, since a record may have been published before waiting was set
+				if( slot.sequence != head + 1 && running ) {
+					LockSupport.parkNanos( this, WRITER_WAIT_TIME );
+				}
+				waiting = false;
+			}
+		}
+	}
+
+	/**
+	 * Stops the access log, writing any records already in the ring buffer.
+	 */
+	public void stop( ) {
+		running = false;
+		LockSupport.unpark( writer );
+		try {
+			writer.join( WRITER_WAIT_TIME / 1000000l * 10l );
+		} catch( InterruptedException e ) {
+			Thread.currentThread( ).interrupt( );
+		}
+	}
+
+	/**
+	 * Returns the number of successes that are sampled.
+	 * @return successes are written for one in this many requests, where 0 means successes are not written
+	 */
+	@MonitorableStatusValue( name = "success_sampling", description = "Successful requests are written to the access log for one in this many requests, where 0 means they are not written." )
+	public int getSuccessSampling( ) {
+		return successSampling;
+	}
+
+	/**
+	 * Returns the number of records written to the log.
+	 * @return the number of records written
+	 */
+	@MonitorableStatusValue( name = "written_records", description = "The total number of records written to the access log since the service was started." )
+	public long getWrittenRecords( ) {
+		return writtenRecords.sum( );
+	}
+
+	/**
+	 * Returns the number of records dropped because the ring buffer was full.
+	 * @return the number of records dropped
+	 */
+	@MonitorableStatusValue( name = "dropped_records", description = "The total number of records dropped, because the access log could not keep up, since the service was started." )
+	public long getDroppedRecords( ) {
+		return droppedRecords.sum( );
+	}
+}
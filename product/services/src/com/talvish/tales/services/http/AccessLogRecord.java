@@ -0,0 +1,170 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.services.http;
+
+import java.util.Arrays;
+
+import com.talvish.tales.communication.Status;
+
+/**
+ * A record of the execution of a request, that is written to the {@link AccessLog}.
+ * Records are re-used, both per thread and within the access log, so the fields
+ * are only references to values that already exist for the request and nothing
+ * is formatted until the access log writes the record.
+ * @author jmolnar
+ *
+ */
+public class AccessLogRecord {
+	private static final int INITIAL_PARAMETER_CAPACITY = 8;
+
+	private String requestId;
+	private String typeName;
+	private String methodName;
+	private String name;
+	private boolean nonBlocking;
+	private boolean timedOut;
+	private boolean readable;
+	private long executionTime;
+	private Status status;
+
+	private int parameterCount;
+	private String[] parameterNames = new String[ INITIAL_PARAMETER_CAPACITY ];
+	private String[] parameterValues = new String[ INITIAL_PARAMETER_CAPACITY ];
+
+	/**
+	 * Default constructor.
+	 */
+	public AccessLogRecord( ) {
+	}
+
+	/**
+	 * Sets the request and what is being executed.
+	 * @param theRequestId the id of the request
+	 * @param theTypeName the name of the type being executed against
+	 * @param theMethodName the name of the method being executed
+	 * @param theName the name the method is exposed as
+	 * @param isNonBlocking indicates if the execution was non-blocking
+	 * @param isReadable indicates if the parameters should be formatted for people to read
+	 */
+	public void setRequest( String theRequestId, String theTypeName, String theMethodName, String theName, boolean isNonBlocking, boolean isReadable ) {
+		requestId = theRequestId;
+		typeName = theTypeName;
+		methodName = theMethodName;
+		name = theName;
+		nonBlocking = isNonBlocking;
+		readable = isReadable;
+	}
+
+	/**
+	 * Sets the outcome of the execution.
+	 * @param theExecutionTime the time, in nanoseconds, the execution took
+	 * @param theStatus the resulting status, which may be null if not known
+	 * @param isTimedOut indicates if the execution was non-blocking and timed-out
+	 */
+	public void setResult( long theExecutionTime, Status theStatus, boolean isTimedOut ) {
+		executionTime = theExecutionTime;
+		status = theStatus;
+		timedOut = isTimedOut;
+	}
+
+	/**
+	 * Adds a parameter that was given to the execution.
+	 * @param theName the name of the parameter
+	 * @param theValue the value of the parameter, which may be null
+	 */
+	public void addParameter( String theName, String theValue ) {
+		if( parameterCount == parameterNames.length ) {
+			parameterNames = Arrays.copyOf( parameterNames, parameterCount * 2 );
+			parameterValues = Arrays.copyOf( parameterValues, parameterCount * 2 );
+		}
+		parameterNames[ parameterCount ] = theName;
+		parameterValues[ parameterCount ] = theValue;
+		parameterCount += 1;
+	}
+
+	/**
+	 * Returns the resulting status of the execution.
+	 * @return the resulting status, which may be null if not known
+	 */
+	public Status getStatus( ) {
+		return status;
+	}
+
+	/**
+	 * Clears the record so it can be re-used.
+	 * References are cleared so values are not held onto.
+	 */
+	public void reset( ) {
+		requestId = null;
+		typeName = null;
+		methodName = null;
+		name = null;
+		nonBlocking = false;
+		timedOut = false;
+		readable = false;
+		executionTime = 0;
+		status = null;
+		Arrays.fill( parameterNames, 0, parameterCount, null );
+		Arrays.fill( parameterValues, 0, parameterCount, null );
+		parameterCount = 0;
+	}
+
+	/**
+	 * Copies the values of another record into this record.
+	 * @param theRecord the record to copy from
+	 */
+	public void copyFrom( AccessLogRecord theRecord ) {
+		reset( );
+		requestId = theRecord.requestId;
+		typeName = theRecord.typeName;
+		methodName = theRecord.methodName;
+		name = theRecord.name;
+		nonBlocking = theRecord.nonBlocking;
+		timedOut = theRecord.timedOut;
+		readable = theRecord.readable;
+		executionTime = theRecord.executionTime;
+		status = theRecord.status;
+		for( int index = 0; index < theRecord.parameterCount; index += 1 ) {
+			addParameter( theRecord.parameterNames[ index ], theRecord.parameterValues[ index ] );
+		}
+	}
+
+	/**
+	 * Formats the record into the builder.
+	 * @param theBuilder the builder to format into
+	 */
+	public void format( StringBuilder theBuilder ) {
+		theBuilder.append( "Executed, " );
+		if( nonBlocking ) {
+			theBuilder.append( timedOut ? "non-blocking though timed-out" : "non-blocking" );
+		} else {
+			theBuilder.append( "blocking" );
+		}
+		theBuilder.append( ", resource method '" ).append( typeName ).append( '.' ).append( methodName );
+		theBuilder.append( "' (aka '" ).append( name ).append( "') for request '" ).append( requestId );
+		theBuilder.append( "' in " ).append( ( ( double )executionTime ) * 0.000001 );
+		theBuilder.append( " ms with " ).append( parameterCount );
+		theBuilder.append( " parameter(s) resulting in status '" ).append( status == null ? "unknown" : status.name( ) ).append( "'." );
+		for( int index = 0; index < parameterCount; index += 1 ) {
+			if( readable ) {
+				theBuilder.append( "\n\t" );
+			} else {
+				theBuilder.append( index == 0 ? " " : ", " );
+			}
+			theBuilder.append( parameterNames[ index ] ).append( " = " ).append( parameterValues[ index ] );
+		}
+	}
+}
@@ -0,0 +1,265 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.services.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.talvish.tales.communication.HeaderConstants;
+
+/**
+ * An output stream, created by {@code HttpCompression}, that holds what is 
+ * written until the minimum size is reached, at which point the response is
+ * marked as compressed and everything is compressed as it is written. If the
+ * minimum is never reached, what was held is written as is when finished.
+ * The stream must be finished, or released if the response is abandoned, 
+ * so the deflater it uses can be returned to the pool.
+ * @author jmolnar
+ *
+ */
+public class CompressingOutputStream extends OutputStream {
+	private static final int BUFFER_SIZE = 8192;
+	private static final byte[] GZIP_HEADER = new byte[] { 0x1f, ( byte )0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+	
+	private final HttpServletResponse response;
+	private final HttpCompression compression;
+	private final String encoding;
+	private final boolean isGzip;
+	
+	private byte[] held;
+	private int heldCount;
+	
+	private OutputStream output;
+	private Deflater deflater;
+	private CRC32 crc;
+	private byte[] buffer;
+
+	private long uncompressedBytes;
+	private long compressedBytes;
+	private long compressionTime;
+	private boolean compressed = false;
+	private boolean finished = false;
+	
+	/**
+	 * Constructor used by {@code HttpCompression}.
+	 * @param theResponse the response to write to
+	 * @param theCompression the compression that owns the deflater pool
+	 * @param theEncoding the encoding to use
+	 */
+	CompressingOutputStream( HttpServletResponse theResponse, HttpCompression theCompression, String theEncoding ) {
+		response = theResponse;
+		compression = theCompression;
+		encoding = theEncoding;
+		isGzip = HttpCompression.GZIP_ENCODING.equals( theEncoding );
+	}
+	
+	/**
+	 * Indicates if the response was compressed, which is only known once finished.
+	 * @return true if compressed, false otherwise
+	 */
+	public boolean isCompressed( ) {
+		return compressed;
+	}
+	
+	/**
+	 * The number of bytes written to the stream, before compression.
+	 * @return the number of bytes before compression
+	 */
+	public long getUncompressedBytes( ) {
+		return uncompressedBytes;
+	}
+	
+	/**
+	 * The number of bytes written to the response, after compression.
+	 * @return the number of bytes after compression
+	 */
+	public long getCompressedBytes( ) {
+		return compressedBytes;
+	}
+	
+	/**
+	 * The time, in nanoseconds, spent compressing.
+	 * @return the time spent compressing
+	 */
+	public long getCompressionTime( ) {
+		return compressionTime;
+	}
+
+	@Override
+	public void write( int theByte ) throws IOException {
+		write( new byte[] { ( byte )theByte }, 0, 1 );
+	}
+	
+	@Override
+	public void write( byte[] theBytes, int theOffset, int theLength ) throws IOException {
+		if( finished ) {
+			throw new IOException( "Cannot write to a finished stream." );
+		} else if( theLength > 0 ) {
+			uncompressedBytes += theLength;
+			if( !compressed ) {
+				if( heldCount + theLength < compression.getMinimumSize( ) ) {
+					// not enough to compress yet, so we hold onto it
+					if( held == null ) {
+						held = new byte[ Math.min( compression.getMinimumSize( ), BUFFER_SIZE ) ];
+					} else if( heldCount + theLength > held.length ) {
+						byte[] newHeld = new byte[ Math.min( compression.getMinimumSize( ), Math.max( held.length * 2, heldCount + theLength ) ) ];
+						System.arraycopy( held, 0, newHeld, 0, heldCount );
+						held = newHeld;
+					}
+					System.arraycopy( theBytes, theOffset, held, heldCount, theLength );
+					heldCount += theLength;
+					return;
+				} else {
+					startCompressing( );
+				}
+			}
+			deflate( theBytes, theOffset, theLength );
+		}
+	}
+
+	/**
+	 * Flushing is ignored, since flushing compressed data hurts compression and
+	 * the response is expected to be written as a whole. 
+	 */
+	@Override
+	public void flush( ) throws IOException {
+	}
+
+	/**
+	 * Finishes the stream, which is the same as calling {@code finish}.
+	 * The underlying response stream is not closed.
+	 */
+	@Override
+	public void close( ) throws IOException {
+		finish( );
+	}
+	
+	/**
+	 * Finishes the stream, writing out anything held or not yet compressed, 
+	 * and returning the deflater to the pool.
+	 * @throws IOException thrown if the response could not be written to
+	 */
+	public void finish( ) throws IOException {
+		if( !finished ) {
+			finished = true;
+			try {
+				if( compressed ) {
+					long startTime = System.nanoTime( );
+					deflater.finish( );
+					while( !deflater.finished( ) ) {
+						writeDeflated( );
+					}
+					compressionTime += System.nanoTime( ) - startTime;
+					if( isGzip ) {
+						writeTrailer( );
+					}
+				} else if( heldCount > 0 ) {
+					response.getOutputStream( ).write( held, 0, heldCount );
+					compressedBytes = heldCount;
+				}
+			} finally {
+				release( );
+			}
+		}
+	}
+	
+	/**
+	 * Returns the deflater to the pool without writing anything further,
+	 * which is used when the response is being abandoned.
+	 */
+	public void release( ) {
+		finished = true;
+		if( deflater != null ) {
+			compression.release( deflater, encoding );
+			deflater = null;
+		}
+		held = null;
+	}
+	
+	/**
+	 * Helper method that marks the response as compressed and 
+	 * compresses everything held so far.
+	 * @throws IOException thrown if the response could not be written to
+	 */
+	private void startCompressing( ) throws IOException {
+		// the response isn't committed, since nothing has been written, so
+		// we can still indicate the encoding
+		response.setHeader( HeaderConstants.CONTENT_ENCODING, encoding );
+
+		compressed = true;
+		output = response.getOutputStream( );
+		deflater = compression.acquire( encoding );
+		buffer = new byte[ BUFFER_SIZE ];
+		if( isGzip ) {
+			crc = new CRC32( );
+			output.write( GZIP_HEADER );
+			compressedBytes += GZIP_HEADER.length;
+		}
+		if( heldCount > 0 ) {
+			deflate( held, 0, heldCount );
+		}
+		held = null;
+	}
+	
+	/**
+	 * Helper method that compresses the bytes, writing out what is ready.
+	 * @throws IOException thrown if the response could not be written to
+	 */
+	private void deflate( byte[] theBytes, int theOffset, int theLength ) throws IOException {
+		long startTime = System.nanoTime( );
+		if( isGzip ) {
+			crc.update( theBytes, theOffset, theLength );
+		}
+		deflater.setInput( theBytes, theOffset, theLength );
+		while( !deflater.needsInput( ) ) {
+			writeDeflated( );
+		}
+		compressionTime += System.nanoTime( ) - startTime;
+	}
+	
+	/**
+	 * Helper method that writes out the next set of compressed bytes.
+	 * @throws IOException thrown if the response could not be written to
+	 */
+	private void writeDeflated( ) throws IOException {
+		int count = deflater.deflate( buffer, 0, buffer.length );
+		if( count > 0 ) {
+			output.write( buffer, 0, count );
+			compressedBytes += count;
+		}
+	}
+	
+	/**
+	 * Helper method that writes the gzip trailer, the checksum and size, in little endian.
+	 * @throws IOException thrown if the response could not be written to
+	 */
+	private void writeTrailer( ) throws IOException {
+		long checksum = crc.getValue( );
+		long size = uncompressedBytes & 0xffffffffl;
+		byte[] trailer = new byte[ 8 ];
+		
+		for( int index = 0; index < 4; index += 1 ) {
+			trailer[ index ] = ( byte )( checksum >>> ( index * 8 ) );
+			trailer[ index + 4 ] = ( byte )( size >>> ( index * 8 ) );
+		}
+		output.write( trailer );
+		compressedBytes += trailer.length;
+	}
+}
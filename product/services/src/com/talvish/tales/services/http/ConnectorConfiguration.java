@@ -61,6 +61,15 @@ public class ConnectorConfiguration {
 
 	@Setting( name="{prefix}.{name}.max_form_content_size" )
 	private Integer maxFormContentSize; 
+
+	@Setting( name="{prefix}.{name}.response_compression" )
+	private Boolean responseCompression; // whether responses are compressed, when callers accept it
+	
+	@Setting( name="{prefix}.{name}.response_compression_minimum_size" )
+	private Integer responseCompressionMinimumSize; // the size, in bytes, before responses are compressed
+	
+	@Setting( name="{prefix}.{name}.response_compression_deflate" )
+	private Boolean responseCompressionDeflate; // whether deflate, in addition to gzip, is used
 	
 	
 	// TODO: the HttpConnectionFactory in Jetty has an input buffer size, not sure if we need to set that somehow?
@@ -155,4 +164,25 @@ public class ConnectorConfiguration {
 	public Integer getMaxFormContentSize() {
 		return maxFormContentSize;
 	}
+
+	/**
+	 * @return whether responses are compressed
+	 */
+	public Boolean getResponseCompression() {
+		return responseCompression;
+	}
+
+	/**
+	 * @return the minimum size, in bytes, of compressed responses
+	 */
+	public Integer getResponseCompressionMinimumSize() {
+		return responseCompressionMinimumSize;
+	}
+
+	/**
+	 * @return whether deflate, in addition to gzip, is used for compressed responses
+	 */
+	public Boolean getResponseCompressionDeflate() {
+		return responseCompressionDeflate;
+	}
 }
@@ -34,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
+import com.talvish.tales.communication.HeaderConstants;
 import com.talvish.tales.communication.HttpStatus;
 import com.talvish.tales.communication.Status;
 import com.talvish.tales.contracts.services.http.HttpContract;
@@ -110,7 +111,8 @@ public abstract class ContractServletHolder extends ServletHolder {
 	 * This is the method called to handling a request.
 	 * This implementation traps exceptions to report failures
 	 * in a consistent fashion and ensures that proper versions
-	 * are being used and that the interface isn't suspended.
+	 * are being used, that the interface isn't suspended
+	 * and that the caller isn't being throttled.
 	 */
 	@Override
 	public void handle(
@@ -144,19 +146,34 @@ public abstract class ContractServletHolder extends ServletHolder {
 						"bound interface is currently suspended", 
 						null );
 				logger.warn( "Not executing an operation on contract '{}' since interface '{}' is suspended.", contract.getName(), this.httpInterface.getName( ) );
+			} else if( this.httpInterface.getThrottling( ) != null && !this.httpInterface.getThrottling( ).tryAcquire( httpRequest ) ) {
+				httpResponse.setHeader( HeaderConstants.RETRY_AFTER, Long.toString( this.httpInterface.getThrottling( ).calculateRetryAfter( httpRequest ) ) );
+				ResponseHelper.writeFailure( 
+						httpRequest, 
+						httpResponse, 
+						Status.LOCAL_UNAVAILABLE,
+						FailureSubcodes.THROTTLED,
+						"too many requests from the caller", 
+						null );
+				// this is debug since it happens on every throttled request, 
+				// the throttling status shows how often it is happening
+				if( logger.isDebugEnabled( ) ) {
+					logger.debug( "Not executing an operation on contract '{}' since the caller is being throttled on interface '{}'.", contract.getName(), this.httpInterface.getName( ) );
+				}
 			} else if( !filterContract( httpRequest, httpResponse, version ) ) {
 				// not filtered, so we can do default handling, which 
 				// ultimately means let the bound servlet handle it
 
-				// let's log some items if we have info enabled
-				if( logger.isInfoEnabled( ) ) {
-					logger.info( "Attempting a request for contract '{}/{}'.", this.contract.getName(), version );
+				// let's log some items if we have debug enabled, since
+				// the access log is meant for tracking requests normally
+				if( logger.isDebugEnabled( ) ) {
+					logger.debug( "Attempting a request for contract '{}/{}'.", this.contract.getName(), version );
 					
 					Enumeration<?> names = theRequest.getHeaderNames();
 					
 					while( names.hasMoreElements() ) {
 						String name = ( String )names.nextElement();
-						logger.info( "Found header '{}' with value '{}'", name, theRequest.getHeader( name ) );
+						logger.debug( "Found header '{}' with value '{}'", name, theRequest.getHeader( name ) );
 					}
 				}
 				
@@ -225,13 +242,15 @@ public abstract class ContractServletHolder extends ServletHolder {
 		long executionTime = context.calculateElapsedTime();
 		contract.getStatus().recordExecutionTime( executionTime );
 
-		logger.info( 
-				"Processed, {}, a request for contract '{}/{}' in {} ms resulting in http status {}.", new Object[]{
-				wasAsync ? "non-blocking" : "blocking",
-				this.contract.getName(), 
-				theRequest.getParameter( "version" ), 
-				( ( double )executionTime ) * 0.000001, 
-				status } );
+		if( logger.isDebugEnabled( ) ) {
+			logger.debug( 
+					"Processed, {}, a request for contract '{}/{}' in {} ms resulting in http status {}.", new Object[]{
+					wasAsync ? "non-blocking" : "blocking",
+					this.contract.getName(), 
+					theRequest.getParameter( "version" ), 
+					( ( double )executionTime ) * 0.000001, 
+					status } );
+		}
 
 	}
 }
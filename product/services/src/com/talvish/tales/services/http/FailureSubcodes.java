@@ -21,4 +21,6 @@ public final class FailureSubcodes {
 	public static final String INTERFACE_SUSPENDED = "INTERFACE_SUSPENDED";
 	public static final String UNHANDLED_EXCEPTION = "UNHANDLED_EXCEPTION";
 	public static final String UNKNOWN_REQUEST = "UNKNOWN_REQUEST";
+	public static final String CONCURRENCY_LIMITED = "CONCURRENCY_LIMITED";
+	public static final String THROTTLED = "THROTTLED";
 }
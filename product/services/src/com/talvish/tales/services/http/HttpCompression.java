@@ -0,0 +1,192 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.services.http;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+
+/**
+ * This class compresses the responses of an http interface, when the caller
+ * accepts a compressed response and the response is large enough to be worth 
+ * compressing. Gzip is always supported and deflate is optionally supported.
+ * Deflaters are kept in pools, since each holds native memory that would
+ * otherwise be allocated, and only released by finalization, for each response.
+ * @author jmolnar
+ *
+ */
+public class HttpCompression {
+	public static final String GZIP_ENCODING = "gzip";
+	public static final String DEFLATE_ENCODING = "deflate";
+	
+	public static final int DEFAULT_MINIMUM_SIZE = 1024;
+	public static final int DEFAULT_POOL_SIZE = 64;
+
+	private final int minimumSize;
+	private final boolean allowDeflate;
+	private final int level;
+	
+	private final BlockingQueue<Deflater> gzipDeflaters;
+	private final BlockingQueue<Deflater> deflateDeflaters;
+
+	/**
+	 * Constructor taking the minimum size of responses to compress and whether deflate is allowed.
+	 * @param theMinimumSize the minimum size, in bytes, a response must be before it is compressed
+	 * @param shouldAllowDeflate true if deflate, in addition to gzip, may be used
+	 */
+	public HttpCompression( int theMinimumSize, boolean shouldAllowDeflate ) {
+		this( theMinimumSize, shouldAllowDeflate, Deflater.DEFAULT_COMPRESSION, DEFAULT_POOL_SIZE );
+	}
+
+	/**
+	 * Constructor taking the minimum size of responses to compress, whether deflate is allowed,
+	 * the compression level and the number of deflaters kept for each encoding.
+	 * @param theMinimumSize the minimum size, in bytes, a response must be before it is compressed
+	 * @param shouldAllowDeflate true if deflate, in addition to gzip, may be used
+	 * @param theLevel the compression level, from 0 to 9, or -1 for the default level
+	 * @param thePoolSize the maximum number of idle deflaters kept for each encoding
+	 */
+	public HttpCompression( int theMinimumSize, boolean shouldAllowDeflate, int theLevel, int thePoolSize ) {
+		Preconditions.checkArgument( theMinimumSize >= 0, "minimum size cannot be negative" );
+		Preconditions.checkArgument( theLevel >= Deflater.DEFAULT_COMPRESSION && theLevel <= Deflater.BEST_COMPRESSION, "level must be between -1 and 9" );
+		Preconditions.checkArgument( thePoolSize > 0, "pool size must be greater than zero" );
+		
+		minimumSize = theMinimumSize;
+		allowDeflate = shouldAllowDeflate;
+		level = theLevel;
+		gzipDeflaters = new ArrayBlockingQueue<>( thePoolSize );
+		deflateDeflaters = new ArrayBlockingQueue<>( thePoolSize );
+	}
+	
+	/**
+	 * Returns the minimum size, in bytes, a response must be before it is compressed.
+	 * @return the minimum size of a compressed response
+	 */
+	public int getMinimumSize( ) {
+		return minimumSize;
+	}
+	
+	/**
+	 * Indicates if deflate, in addition to gzip, may be used.
+	 * @return true if deflate may be used, false otherwise
+	 */
+	public boolean allowsDeflate( ) {
+		return allowDeflate;
+	}
+	
+	/**
+	 * Selects the encoding to use for a response based on the accept encoding
+	 * header sent by the caller. Gzip is preferred over deflate when the caller
+	 * doesn't prefer one over the other.
+	 * @param theAcceptEncoding the value of the accept encoding header, which may be null
+	 * @return the encoding to use or null if the response shouldn't be compressed
+	 */
+	public String selectEncoding( String theAcceptEncoding ) {
+		if( Strings.isNullOrEmpty( theAcceptEncoding ) ) {
+			return null;
+		} else {
+			double gzipQuality = -1.0d; // negative means not mentioned
+			double deflateQuality = -1.0d;
+			double anyQuality = -1.0d;
+			
+			for( String coding : theAcceptEncoding.split( "," ) ) {
+				String[] parts = coding.split( ";" );
+				String name = parts[ 0 ].trim( );
+				double quality = 1.0d;
+				
+				for( int index = 1; index < parts.length; index += 1 ) {
+					String parameter = parts[ index ].trim( );
+					if( parameter.startsWith( "q=" ) ) {
+						try {
+							quality = Double.parseDouble( parameter.substring( 2 ) );
+						} catch( NumberFormatException e ) {
+							quality = 0.0d; // a bad quality isn't something we can trust
+						}
+					}
+				}
+				if( name.equalsIgnoreCase( GZIP_ENCODING ) || name.equalsIgnoreCase( "x-gzip" ) ) {
+					gzipQuality = Math.max( gzipQuality, quality );
+				} else if( name.equalsIgnoreCase( DEFLATE_ENCODING ) ) {
+					deflateQuality = Math.max( deflateQuality, quality );
+				} else if( name.equals( "*" ) ) {
+					anyQuality = Math.max( anyQuality, quality );
+				}
+			}
+			// anything not mentioned gets the quality of the wildcard
+			if( gzipQuality < 0.0d ) {
+				gzipQuality = anyQuality;
+			}
+			if( deflateQuality < 0.0d || !allowDeflate ) {
+				deflateQuality = allowDeflate ? anyQuality : 0.0d;
+			}
+			if( gzipQuality > 0.0d && gzipQuality >= deflateQuality ) {
+				return GZIP_ENCODING;
+			} else if( deflateQuality > 0.0d ) {
+				return DEFLATE_ENCODING;
+			} else {
+				return null;
+			}
+		}
+	}
+	
+	/**
+	 * Creates a stream, for the response, that compresses what is written once
+	 * the minimum size is reached, and otherwise writes it as is when finished.
+	 * @param theResponse the response to write to
+	 * @param theEncoding the encoding, from {@code selectEncoding}, to use 
+	 * @return the stream to write the response to
+	 */
+	public CompressingOutputStream createStream( HttpServletResponse theResponse, String theEncoding ) {
+		Preconditions.checkNotNull( theResponse, "need a response" );
+		Preconditions.checkArgument( GZIP_ENCODING.equals( theEncoding ) || DEFLATE_ENCODING.equals( theEncoding ), "encoding '%s' is not supported", theEncoding );
+		return new CompressingOutputStream( theResponse, this, theEncoding );
+	}
+
+	/**
+	 * Gets a deflater, from the pool if one is available, for the encoding.
+	 * Gzip has the deflater write raw data, since the gzip header and
+	 * trailer are written separately, while deflate has zlib wrapping.
+	 * @param theEncoding the encoding the deflater is for
+	 * @return the deflater to use
+	 */
+	Deflater acquire( String theEncoding ) {
+		boolean isGzip = GZIP_ENCODING.equals( theEncoding );
+		Deflater deflater = ( isGzip ? gzipDeflaters : deflateDeflaters ).poll( );
+		
+		if( deflater == null ) {
+			deflater = new Deflater( level, isGzip );
+		}
+		return deflater;
+	}
+	
+	/**
+	 * Returns a deflater to the pool, for the encoding, or releases its memory
+	 * if the pool is full.
+	 * @param theDeflater the deflater to return
+	 * @param theEncoding the encoding the deflater was acquired for
+	 */
+	void release( Deflater theDeflater, String theEncoding ) {
+		theDeflater.reset( );
+		if( !( GZIP_ENCODING.equals( theEncoding ) ? gzipDeflaters : deflateDeflaters ).offer( theDeflater ) ) {
+			theDeflater.end( );
+		}
+	}
+}
@@ -152,6 +152,8 @@ public class HttpInterface extends HttpInterfaceBase {
     	// make sure we have the executor and the timeout
     	String executorName = theConfiguration.getThreadPoolName() == null ? ThreadingConstants.DEFAULT_THREAD_POOL : theConfiguration.getThreadPoolName( );
     	long executionTimeout = theConfiguration.getExecutionTimeout() == null ? ThreadingConstants.DEFAULT_KEEP_ALIVE_TIME :  theConfiguration.getExecutionTimeout();
+    	boolean streamResponses = theConfiguration.getStreamResponses( ) == null ? false : theConfiguration.getStreamResponses( );
+    	boolean limitConcurrency = theConfiguration.getLimitConcurrency( ) == null ? false : theConfiguration.getLimitConcurrency( );
 
     	// now get the executor to use
     	ExecutorManager executorManager = this.getService().getExecutorManager();
@@ -185,18 +187,34 @@ public class HttpInterface extends HttpInterfaceBase {
     	}
     	configurationBuilder.append( executionTimeout );
 
+    	if( theConfiguration.getStreamResponses( ) == null || theConfiguration == ResourceConfiguration.DEFAULT_CONFIGURATION ) {
+    		configurationBuilder.append( "\n\tStream Responses (default): " );
+    	} else {
+    		configurationBuilder.append( "\n\tStream Responses: " );
+    	}
+    	configurationBuilder.append( streamResponses );
+
+    	if( theConfiguration.getLimitConcurrency( ) == null || theConfiguration == ResourceConfiguration.DEFAULT_CONFIGURATION ) {
+    		configurationBuilder.append( "\n\tLimit Concurrency (default): " );
+    	} else {
+    		configurationBuilder.append( "\n\tLimit Concurrency: " );
+    	}
+    	configurationBuilder.append( limitConcurrency );
+
     	// so now we need to create the servlet we will run within
     	ResourceServlet servlet = new ResourceServlet( 
     			theResource, 
     			resourceType, 
     			resourceFacility, 
     			executor, 
-    			executionTimeout );
+    			executionTimeout,
+    			streamResponses,
+    			limitConcurrency );
     	
     	logger.info( "Binding resource '{}' on interface '{}' to http path '{}' using configuration: {}", contractAnnotation.name(), this.getName(), fullPath, configurationBuilder.toString( ) );
     	
     	// create the resource contract representing this
-    	HttpContract contract = new HttpResourceContract( contractAnnotation.name( ), contractAnnotation.description( ),contractAnnotation.versions( ), theResource, fullPath, resourceType );
+    	HttpContract contract = new HttpResourceContract( contractAnnotation.name( ), contractAnnotation.description( ),contractAnnotation.versions( ), theResource, fullPath, resourceType, limitConcurrency );
     	// register for later validation
     	this.getContractManager( ).register( contract );
     	// and now properly save the servlet to a context
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
@@ -57,6 +58,7 @@ import com.talvish.tales.system.ExecutionLifecycleState;
 import com.talvish.tales.system.configuration.ConfigurationException;
 import com.talvish.tales.system.status.MonitorableStatusValue;
 import com.talvish.tales.system.status.RatedLong;
+import com.talvish.tales.system.status.Throttling;
 
 /**
  * This class represents a host/port that servlets can be bound to. 
@@ -73,6 +75,11 @@ public abstract class HttpInterfaceBase extends InterfaceBase {
 		private AtomicLong badUrls				= new AtomicLong( 0 );
 		private RatedLong badUrlRate			= new RatedLong( );
 		
+		private LongAdder compressedResponses	= new LongAdder( );
+		private LongAdder uncompressedBytes		= new LongAdder( );
+		private LongAdder compressedBytes		= new LongAdder( );
+		private LongAdder compressionTime		= new LongAdder( );
+		
 		/**
 		 * Default empty constructor.
 		 */
@@ -87,6 +94,19 @@ public abstract class HttpInterfaceBase extends InterfaceBase {
 			badUrlRate.increment();
 		}
 
+		/**
+		 * Records that a response was compressed.
+		 * @param theUncompressedBytes the size of the response before compression
+		 * @param theCompressedBytes the size of the response after compression
+		 * @param theCompressionTime the time, in nanoseconds, spent compressing
+		 */
+		public void recordCompression( long theUncompressedBytes, long theCompressedBytes, long theCompressionTime ) {
+			compressedResponses.increment( );
+			uncompressedBytes.add( theUncompressedBytes );
+			compressedBytes.add( theCompressedBytes );
+			compressionTime.add( theCompressionTime );
+		}
+
 		/**
 		 * Returns the number of bad url requests on the interface.
 		 * @return the number of bad url requests
@@ -104,6 +124,42 @@ public abstract class HttpInterfaceBase extends InterfaceBase {
 		public double getBadUrlRate( ) {
 			return this.badUrlRate.calculateRate();
 		}
+		
+		/**
+		 * Returns the number of responses that were compressed.
+		 * @return the number of compressed responses
+		 */
+		@MonitorableStatusValue( name = "compressed_responses", description = "The total number of responses the interface has compressed since the interface was started." )
+		public long getCompressedResponses( ) {
+			return this.compressedResponses.sum( );
+		}
+		
+		/**
+		 * Returns the number of bytes, before compression, of the compressed responses.
+		 * @return the number of bytes before compression
+		 */
+		@MonitorableStatusValue( name = "compression_uncompressed_bytes", description = "The total number of bytes, before compression, of the responses the interface has compressed since the interface was started." )
+		public long getUncompressedBytes( ) {
+			return this.uncompressedBytes.sum( );
+		}
+		
+		/**
+		 * Returns the number of bytes, after compression, of the compressed responses.
+		 * @return the number of bytes after compression
+		 */
+		@MonitorableStatusValue( name = "compression_compressed_bytes", description = "The total number of bytes, after compression, of the responses the interface has compressed since the interface was started." )
+		public long getCompressedBytes( ) {
+			return this.compressedBytes.sum( );
+		}
+		
+		/**
+		 * Returns the total time, in milliseconds, spent compressing responses.
+		 * @return the time spent compressing
+		 */
+		@MonitorableStatusValue( name = "compression_time", description = "The total time, in milliseconds, the interface has spent compressing responses since the interface was started." )
+		public double getCompressionTime( ) {
+			return ( ( double )this.compressionTime.sum( ) ) * 0.000001;
+		}
 	}
 	
 	private static final Logger logger = LoggerFactory.getLogger( HttpInterfaceBase.class );
@@ -115,6 +171,8 @@ public abstract class HttpInterfaceBase extends InterfaceBase {
 	private final ServletContextHandler servletContext;
 
 	private final Status status = new Status( );
+	private final HttpThrottling throttling;
+	private final HttpCompression compression;
 	
 	// TODO: add a constructor that takes the parameters manually instead of loaded from the configuration
 	
@@ -218,12 +276,47 @@ public abstract class HttpInterfaceBase extends InterfaceBase {
     		logger.info( "Interface '{}' is set to use the default max form content size of '{}'.", this.getName( ), servletContext.getMaxFormContentSize( ) );
 		}
 		
+		// now we setup response compression based on the connector definition
+		if( connectorConfiguration.getResponseCompression( ) != null && connectorConfiguration.getResponseCompression( ) ) {
+			int minimumSize = connectorConfiguration.getResponseCompressionMinimumSize( ) != null ? connectorConfiguration.getResponseCompressionMinimumSize( ) : HttpCompression.DEFAULT_MINIMUM_SIZE;
+			boolean allowDeflate = connectorConfiguration.getResponseCompressionDeflate( ) != null && connectorConfiguration.getResponseCompressionDeflate( );
+			
+			if( minimumSize < 0 ) {
+				throw new ConfigurationException( String.format( "Interface '%s' has a negative response compression minimum size.", theName ) );
+			}
+			compression = new HttpCompression( minimumSize, allowDeflate );
+			logger.info( "Interface '{}' is compressing responses, of at least {} bytes, using {}.", theName, minimumSize, allowDeflate ? "gzip or deflate" : "gzip" );
+		} else {
+			compression = null;
+		}
+		
 		// save these for servlets to access
 		servletContext.setAttribute( AttributeConstants.INTERFACE_SERVLET_CONTEXT, this );
 		servletContext.setAttribute( AttributeConstants.SERVICE_SERVLET_CONTEXT, getService( ) );
 
+		// load up the throttling, which is only used if a rate is set
+		String throttlingRateName = String.format( ConfigurationConstants.HTTP_INTERFACE_THROTTLING_RATE, theName );
+		if( getService( ).getConfigurationManager().contains( throttlingRateName ) ) {
+			double rate = getService( ).getConfigurationManager( ).getDoubleValue( throttlingRateName );
+			int burst = getService( ).getConfigurationManager( ).getIntegerValue( String.format( ConfigurationConstants.HTTP_INTERFACE_THROTTLING_BURST, theName ), HttpThrottling.DEFAULT_BURST );
+			String key = getService( ).getConfigurationManager( ).getStringValue( String.format( ConfigurationConstants.HTTP_INTERFACE_THROTTLING_KEY, theName ), HttpThrottling.REMOTE_ADDRESS_KEY );
+			long maximumCallers = getService( ).getConfigurationManager( ).getLongValue( String.format( ConfigurationConstants.HTTP_INTERFACE_THROTTLING_MAXIMUM_CALLERS, theName ), HttpThrottling.DEFAULT_MAXIMUM_CALLERS );
+			long idleTime = getService( ).getConfigurationManager( ).getLongValue( String.format( ConfigurationConstants.HTTP_INTERFACE_THROTTLING_IDLE_TIME, theName ), HttpThrottling.DEFAULT_IDLE_TIME );
+
+			if( rate <= 0.0d || burst <= 0 || maximumCallers <= 0 || idleTime < 0 ) {
+				throw new ConfigurationException( String.format( "Interface '%s' has invalid throttling settings.", theName ) );
+			}
+			throttling = new HttpThrottling( key, new Throttling( rate, burst, maximumCallers, idleTime ) );
+			logger.info( "Interface '{}' is throttling callers, keyed by '{}', to {} requests per second with a burst of {}.", theName, key, rate, burst );
+		} else {
+			throttling = null;
+		}
+
 		// get the status blocks setup
 		getStatusManager().register( "interface", status );
+		if( throttling != null ) {
+			getStatusManager().register( "throttling", throttling.getThrottling( ) );
+		}
 	}
 	
 	/**
@@ -234,6 +327,33 @@ public abstract class HttpInterfaceBase extends InterfaceBase {
 		return this.endpoints;
 	}
 	
+	/**
+	 * Returns the throttling applied to callers of this interface.
+	 * @return the throttling, or null if the interface is not throttled
+	 */
+	public final HttpThrottling getThrottling( ) {
+		return this.throttling;
+	}
+	
+	/**
+	 * Returns the compression applied to responses of this interface.
+	 * @return the compression, or null if responses are not compressed
+	 */
+	public final HttpCompression getCompression( ) {
+		return this.compression;
+	}
+	
+	/**
+	 * Method that can be called externally to indicate a response
+	 * was compressed on the interface.
+	 * @param theUncompressedBytes the size of the response before compression
+	 * @param theCompressedBytes the size of the response after compression
+	 * @param theCompressionTime the time, in nanoseconds, spent compressing
+	 */
+	public final void recordCompression( long theUncompressedBytes, long theCompressedBytes, long theCompressionTime ) {
+		this.status.recordCompression( theUncompressedBytes, theCompressedBytes, theCompressionTime );
+	}
+	
 	/**
 	 * Returns the servlet context backing this interface.
 	 * @return the servlet context
@@ -116,12 +116,14 @@ class HttpServletServer extends Server {
 		// TODO: consider storing the remote IP OR modifying the referrer/agent so we can track where it came from
 		// TODO can we be explicit about this in the Wrapper and not use attributes ?
 		requestWrapper.setAttribute( AttributeConstants.OPERATION_REQUEST_CONTEXT, operationContext );
-		logger.info( 
-				"Request of type '{}' received with the associated operation context information\n\troot request id = {}\n\tcalling request id = {}\n\tcurrent request id = {}", 
-				request.getMethod(),
-				operationContext.getRootRequestId(),
-				operationContext.getParentRequestId(),
-				operationContext.getCurrentRequestId() );
+		if( logger.isDebugEnabled( ) ) {
+			logger.debug( 
+					"Request of type '{}' received with the associated operation context information\n\troot request id = {}\n\tcalling request id = {}\n\tcurrent request id = {}", 
+					request.getMethod(),
+					operationContext.getRootRequestId(),
+					operationContext.getParentRequestId(),
+					operationContext.getCurrentRequestId() );
+		}
 		super.handle(target, baseRequest, requestWrapper, response);
 		// error handling here isn't possible (try/catch around super.handle) since 
 		// jetty traps the exception prior to it coming back here
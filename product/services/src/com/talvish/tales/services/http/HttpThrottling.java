@@ -0,0 +1,198 @@
+// ***************************************************************************
+// *  Copyright 2016 Joseph Molnar
+// *
+// *  Licensed under the Apache License, Version 2.0 (the "License");
+// *  you may not use this file except in compliance with the License.
+// *  You may obtain a copy of the License at
+// *
+// *      http://www.apache.org/licenses/LICENSE-2.0
+// *
+// *  Unless required by applicable law or agreed to in writing, software
+// *  distributed under the License is distributed on an "AS IS" BASIS,
+// *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// *  See the License for the specific language governing permissions and
+// *  limitations under the License.
+// ***************************************************************************
+package com.talvish.tales.services.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.talvish.tales.system.configuration.ConfigurationException;
+import com.talvish.tales.system.status.Throttling;
+
+/**
+ * This class throttles the requests coming into an http interface, per caller.
+ * The caller is determined from the request using one of the following keys:
+ * <ul>
+ * <li>{@code remote_address}, the remote address of the request, which is the default</li>
+ * <li>{@code header:<name>}, the value of the named header</li>
+ * <li>{@code jwt_claim:<name>}, the value of the named claim in the bearer token of the authorization header</li>
+ * </ul>
+ * If the header or claim is missing, the remote address is used instead.
+ * The value of the header or claim is combined with the remote address, and a
+ * value not seen recently is only accepted if the remote address isn't being
+ * throttled, so a caller sending a new value each time is throttled as though
+ * keyed by its address and can't push out the buckets of other callers.
+ * <p>
+ * The bearer token is not verified, and headers can be set to anything, so 
+ * these keys should only be used when the value is trusted, such as a header
+ * set, or a token verified, by a gateway in front of the service.
+ * @author jmolnar
+ *
+ */
+public class HttpThrottling {
+	public static final String REMOTE_ADDRESS_KEY = "remote_address";
+	public static final String HEADER_KEY_PREFIX = "header:";
+	public static final String JWT_CLAIM_KEY_PREFIX = "jwt_claim:";
+
+	public static final int DEFAULT_BURST = 10;
+	public static final long DEFAULT_MAXIMUM_CALLERS = 100000l;
+	public static final long DEFAULT_IDLE_TIME = 5l * 60l * 1000l;
+
+	private static final String AUTHORIZATION_HEADER = "Authorization";
+	private static final String BEARER_PREFIX = "Bearer ";
+
+	private final String key;
+	private final String headerName;
+	private final String claimName;
+	private final Throttling throttling;
+
+	/**
+	 * Constructor taking the key to use to determine the caller and the throttling to apply.
+	 * @param theKey the key to use to determine the caller
+	 * @param theThrottling the throttling to apply to callers
+	 */
+	public HttpThrottling( String theKey, Throttling theThrottling ) {
+		Preconditions.checkArgument( !Strings.isNullOrEmpty( theKey ), "need a key" );
+		Preconditions.checkNotNull( theThrottling, "need throttling" );
+
+		if( theKey.equals( REMOTE_ADDRESS_KEY ) ) {
+			headerName = null;
+			claimName = null;
+		} else if( theKey.startsWith( HEADER_KEY_PREFIX ) && theKey.length( ) > HEADER_KEY_PREFIX.length( ) ) {
+			headerName = theKey.substring( HEADER_KEY_PREFIX.length( ) );
+			claimName = null;
+		} else if( theKey.startsWith( JWT_CLAIM_KEY_PREFIX ) && theKey.length( ) > JWT_CLAIM_KEY_PREFIX.length( ) ) {
+			headerName = AUTHORIZATION_HEADER;
+			claimName = theKey.substring( JWT_CLAIM_KEY_PREFIX.length( ) );
+		} else {
+			throw new ConfigurationException( String.format( "Throttling key '%s' is not supported.", theKey ) );
+		}
+		key = theKey;
+		throttling = theThrottling;
+	}
+
+	/**
+	 * Returns the key used to determine the caller.
+	 * @return the key used to determine the caller
+	 */
+	public String getKey( ) {
+		return key;
+	}
+
+	/**
+	 * Returns the throttling applied to callers.
+	 * @return the throttling applied to callers
+	 */
+	public Throttling getThrottling( ) {
+		return throttling;
+	}
+
+	/**
+	 * Attempts to let the request through, which will fail
+	 * if the caller making the request has made too many requests.
+	 * @param theRequest the request to check
+	 * @return true if the request can run, false if it should be throttled
+	 */
+	public boolean tryAcquire( HttpServletRequest theRequest ) {
+		String address = theRequest.getRemoteAddr( );
+		String caller = determineCaller( theRequest );
+
+		if( caller == null ) {
+			return throttling.tryAcquire( address );
+		} else {
+			return throttling.tryAcquire( caller, address );
+		}
+	}
+
+	/**
+	 * Calculates how long, in seconds, the caller making the request
+	 * should wait before making another request.
+	 * @param theRequest the request that was throttled
+	 * @return the number of seconds to wait, which is at least 1
+	 */
+	public long calculateRetryAfter( HttpServletRequest theRequest ) {
+		String address = theRequest.getRemoteAddr( );
+		String caller = determineCaller( theRequest );
+		long wait = caller == null ? throttling.calculateWait( address ) : throttling.calculateWait( caller, address );
+
+		return Math.max( 1l, ( wait + 999l ) / 1000l );
+	}
+
+	/**
+	 * Helper method that determines the caller of a request, from the header
+	 * or claim, combined with the remote address of the request.
+	 * @param theRequest the request to get the caller for
+	 * @return the caller of the request, or null if keyed by the remote address or the header or claim is missing
+	 */
+	private String determineCaller( HttpServletRequest theRequest ) {
+		String caller = null;
+
+		if( headerName != null ) {
+			String value = theRequest.getHeader( headerName );
+			if( claimName == null ) {
+				caller = value;
+			} else {
+				caller = extractClaim( value );
+			}
+		}
+		if( Strings.isNullOrEmpty( caller ) ) {
+			return null;
+		} else {
+			// addresses don't contain spaces, so this can't collide with an address
+			return theRequest.getRemoteAddr( ) + " " + caller;
+		}
+	}
+
+	/**
+	 * Helper method that pulls the claim out of a bearer token without verifying the token.
+	 * @param theAuthorization the value of the authorization header
+	 * @return the value of the claim, or null if it is missing or the token is malformed
+	 */
+	private String extractClaim( String theAuthorization ) {
+		if( theAuthorization == null || !theAuthorization.regionMatches( true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length( ) ) ) {
+			return null;
+		} else {
+			String token = theAuthorization.substring( BEARER_PREFIX.length( ) ).trim( );
+			int start = token.indexOf( '.' );
+			int end = start < 0 ? -1 : token.indexOf( '.', start + 1 );
+
+			if( end < 0 ) {
+				return null;
+			} else {
+				try {
+					String payload = new String( Base64.getUrlDecoder( ).decode( token.substring( start + 1, end ) ), StandardCharsets.UTF_8 );
+					JsonElement element = new JsonParser( ).parse( payload );
+					if( element.isJsonObject( ) ) {
+						JsonElement claim = ( ( JsonObject )element ).get( claimName );
+						if( claim != null && claim.isJsonPrimitive( ) ) {
+							return claim.getAsString( );
+						}
+					}
+					return null;
+				} catch( RuntimeException e ) {
+					// a malformed token means we fall back to the remote address
+					return null;
+				}
+			}
+		}
+	}
+}
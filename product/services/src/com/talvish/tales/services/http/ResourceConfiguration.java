@@ -27,10 +27,14 @@ public class ResourceConfiguration {
 	// this is the default configuration
 	final static ResourceConfiguration DEFAULT_CONFIGURATION = new ResourceConfiguration( )
 		.setThreadPoolName( ThreadingConstants.DEFAULT_THREAD_POOL )
-		.setExecutionTimeout( ThreadingConstants.DEFAULT_RESOURCE_EXECUTION_TIMEOUT );
+		.setExecutionTimeout( ThreadingConstants.DEFAULT_RESOURCE_EXECUTION_TIMEOUT )
+		.setStreamResponses( false )
+		.setLimitConcurrency( false );
 	
 	private String threadPoolName;
 	private Long executionTimeout;
+	private Boolean streamResponses;
+	private Boolean limitConcurrency;
 	
 	/**
 	 * Standard default constructor.
@@ -74,4 +78,50 @@ public class ResourceConfiguration {
 		executionTimeout = theExecutionTimeout;
 		return this;
 	}	
+
+	/**
+	 * Indicates if method results are written directly to the response, as
+	 * they are serialized, instead of first being translated into json objects. 
+	 * Streaming reduces memory use and the time to the first byte for large results
+	 * but if a failure occurs after the response has started being sent, the 
+	 * caller will receive a truncated response instead of a failure status.
+	 * @return true if responses are streamed, false if not, or null, if default will be used
+	 */
+	public Boolean getStreamResponses( ) {
+		return streamResponses;
+	}
+
+	/**
+	 * Sets whether method results are written directly to the response, as
+	 * they are serialized, instead of first being translated into json objects. 
+	 * @param shouldStreamResponses true to stream responses, false if not, or null, if the default will be used
+	 * @return returns this configuration object so things can be chained together
+	 */
+	public ResourceConfiguration setStreamResponses( Boolean shouldStreamResponses ) {
+		streamResponses = shouldStreamResponses;
+		return this;
+	}	
+
+	/**
+	 * Indicates if requests are shed, with a 503 and a Retry-After header, when the
+	 * number of concurrent requests on the resource, or on a method, reaches its limit.
+	 * The limits adapt to the latency of requests, growing slowly while latency stays
+	 * low and shrinking quickly when latency grows, which keeps latency stable during
+	 * traffic spikes instead of letting requests queue.
+	 * @return true if concurrency is limited, false if not, or null, if default will be used
+	 */
+	public Boolean getLimitConcurrency( ) {
+		return limitConcurrency;
+	}
+
+	/**
+	 * Sets whether requests are shed, with a 503 and a Retry-After header, when the
+	 * number of concurrent requests on the resource, or on a method, reaches its limit.
+	 * @param shouldLimitConcurrency true to limit concurrency, false if not, or null, if the default will be used
+	 * @return returns this configuration object so things can be chained together
+	 */
+	public ResourceConfiguration setLimitConcurrency( Boolean shouldLimitConcurrency ) {
+		limitConcurrency = shouldLimitConcurrency;
+		return this;
+	}	
 }
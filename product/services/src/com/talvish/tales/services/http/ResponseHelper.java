@@ -15,8 +15,11 @@
 // ***************************************************************************
 package com.talvish.tales.services.http;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Map.Entry;
 
 import javax.servlet.http.Cookie;
@@ -27,16 +30,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.talvish.tales.communication.HeaderConstants;
 import com.talvish.tales.communication.HttpStatus;
 import com.talvish.tales.communication.Status;
 import com.talvish.tales.contracts.services.http.ResourceMethod;
 import com.talvish.tales.contracts.services.http.ResourceMethodResult;
-import com.talvish.tales.serialization.Readability;
+import com.talvish.tales.serialization.cbor.CborHelper;
+import com.talvish.tales.serialization.json.JsonWriterHelper;
 import com.talvish.tales.services.OperationContext;
 import com.talvish.tales.services.OperationContext.Details;
 
@@ -49,10 +52,6 @@ import com.talvish.tales.services.OperationContext.Details;
 public class ResponseHelper {
 	private static final Logger logger = LoggerFactory.getLogger( ResponseHelper.class );
 	
-	private static final Gson machineGson = new GsonBuilder( ).serializeNulls( ).create();
-	private static final Gson humanGson = new GsonBuilder( ).serializeNulls( ).setPrettyPrinting( ).create();
-
-	
 	/**
 	 * Helper method for writing out the options response.
 	 * @param theRequest the request that was made
@@ -122,6 +121,28 @@ public class ResponseHelper {
 	 * @param theException the exception that indicates the the failure
 	 */
 	private static void _writeResponse( HttpServletRequest theRequest, HttpServletResponse theResponse, JsonElement theObject, Status theCode, String theSubcode, String theSubject, String theMessage, Throwable theException ) {
+		_writeResponse( theRequest, theResponse, theObject, null, theCode, theSubcode, theSubject, theMessage, theException );
+	}
+
+	/**
+	 * Shared helper method to write a response to the caller. The response is 
+	 * written directly to the response writer. If a streamed result is given, 
+	 * its value is serialized as it is written, and if that fails before the 
+	 * response was committed, a failure response is sent instead. The response
+	 * is written as CBOR, instead of json, if the caller prefers it, and is
+	 * compressed if the interface compresses responses and the caller accepts it.
+	 * @param theRequest the request object used 
+	 * @param theResponse The response object used to write back to the caller
+	 * @param theObject the value to return, used if there is no streamed result
+	 * @param theStreamedResult the result whose value is written directly, which may be null
+	 * @param theFailure the type of failure seen
+	 * @param theSubcode the code, specific to the caller, to return
+	 * @param theMessage the message to indicate back to the caller
+	 * @param theException the exception that indicates the the failure
+	 */
+	private static void _writeResponse( HttpServletRequest theRequest, HttpServletResponse theResponse, JsonElement theObject, ResourceMethodResult theStreamedResult, Status theCode, String theSubcode, String theSubject, String theMessage, Throwable theException ) {
+		CompressingOutputStream compressingStream = null;
+		
 		try {
 			;
 			Preconditions.checkNotNull( theResponse, "Need a response object." );
@@ -129,26 +150,85 @@ public class ResponseHelper {
 			
 			OperationContext operationContext = ( OperationContext )theRequest.getAttribute( AttributeConstants.OPERATION_REQUEST_CONTEXT );
 
+			// the caller can ask for the more compact binary form instead of json
+			boolean writeCbor = CborHelper.isPreferred( theRequest.getHeader( HeaderConstants.ACCEPT ) );
+
 			// get the status code to use based on the error from the communication request
 			theResponse.setStatus( HttpStatus.convert( theCode ).getCode( ) );
-			setCommonHeaders( theResponse );
+			setCommonHeaders( theResponse, writeCbor );
 
-			JsonObject bodyObject = new JsonObject( );
+			// the caller may also accept a compressed response, if the interface compresses
+			HttpInterfaceBase httpInterface = theRequest.getServletContext( ) == null ? null : ( HttpInterfaceBase )theRequest.getServletContext( ).getAttribute( AttributeConstants.INTERFACE_SERVLET_CONTEXT );
+			HttpCompression compression = httpInterface == null ? null : httpInterface.getCompression( );
+			if( compression != null ) {
+				theResponse.addHeader( HeaderConstants.VARY, HeaderConstants.ACCEPT_ENCODING );
+				String encoding = compression.selectEncoding( theRequest.getHeader( HeaderConstants.ACCEPT_ENCODING ) );
+				if( encoding != null ) {
+					compressingStream = compression.createStream( theResponse, encoding );
+				}
+			}
 
+			// we write directly to the response instead of creating a string first
+			JsonWriter bodyWriter;
+			if( writeCbor ) {
+				bodyWriter = CborHelper.createWriter( compressingStream != null ? compressingStream : theResponse.getOutputStream( ) );
+			} else if( compressingStream != null ) {
+				bodyWriter = JsonWriterHelper.createWriter( new OutputStreamWriter( compressingStream, StandardCharsets.UTF_8 ), operationContext.getResponseTarget( ) );
+			} else {
+				bodyWriter = JsonWriterHelper.createWriter( theResponse.getWriter( ), operationContext.getResponseTarget( ) );
+			}
+			
+			bodyWriter.beginObject( );
 			// add the main value/result to return
-			bodyObject.add( "return", theObject );
+			bodyWriter.name( "return" );
+			if( theStreamedResult != null ) {
+				theStreamedResult.writeValue( bodyWriter );
+			} else {
+				JsonWriterHelper.write( theObject, bodyWriter );
+			}
 			// now add all the operation related values
-			addResultMetadata( theRequest, operationContext, theCode, theSubcode, theSubject, theMessage, theException, bodyObject );			
-			
-			Gson targetGson = operationContext.getResponseTarget() == Readability.HUMAN ? humanGson: machineGson;
-			theResponse.getWriter().write( targetGson.toJson( bodyObject ) );
+			JsonObject metadataObject = new JsonObject( );
+			addResultMetadata( theRequest, operationContext, theCode, theSubcode, theSubject, theMessage, theException, metadataObject );			
+			for( Entry<String,JsonElement> entry : metadataObject.entrySet( ) ) {
+				bodyWriter.name( entry.getKey( ) );
+				JsonWriterHelper.write( entry.getValue( ), bodyWriter );
+			}
+			bodyWriter.endObject( );
+			if( writeCbor || compressingStream != null ) {
+				bodyWriter.flush( ); // the cbor and stream writers buffer what they write
+			}
+			if( compressingStream != null ) {
+				compressingStream.finish( );
+				if( compressingStream.isCompressed( ) ) {
+					httpInterface.recordCompression( compressingStream.getUncompressedBytes( ), compressingStream.getCompressedBytes( ), compressingStream.getCompressionTime( ) );
+				}
+			}
 			
 		} catch( Exception e ) {
-			// if we cannot write back, then we have to log
-			// and we need to build up some form of alert and send as well
-			logger.warn(
-					String.format( "An error occurred while attempting to send a response of type '%s' with message '%s' to the caller.", theCode, theMessage ),
-					e );
+			if( theStreamedResult != null && !( e instanceof IOException ) && !theResponse.isCommitted( ) ) {
+				// the value could not be serialized, but since nothing has been 
+				// sent to the caller yet we can clear and send a failure instead
+				String message = String.format( 
+						"Unmanaged exception '%s' occurred while writing the response for '%s'.",
+						e.getClass( ).getSimpleName( ), 
+						theRequest.getRequestURI( ) );
+				logger.error( message, e );
+				theResponse.reset( );
+				if( compressingStream != null ) {
+					compressingStream.release( ); // the failure response gets its own
+				}
+				_writeResponse( theRequest, theResponse, null, null, Status.LOCAL_ERROR, FailureSubcodes.UNHANDLED_EXCEPTION, null, message, e );
+			} else {
+				// if we cannot write back, then we have to log
+				// and we need to build up some form of alert and send as well
+				logger.warn(
+						String.format( "An error occurred while attempting to send a response of type '%s' with message '%s' to the caller.", theCode, theMessage ),
+						e );
+			}
+		} finally {
+			if( compressingStream != null ) {
+				compressingStream.release( ); // makes sure the deflater goes back to the pool
+			}
 		}
 		// IF we have DEBUG turned on then we can 
 		//    send more over the wire
@@ -200,15 +280,57 @@ public class ResponseHelper {
 			theResponse.addCookie( entry.getValue() );
 		}
 		
-		_writeResponse(
-				theRequest, 
-				theResponse, 
-				theResult.getValue( ),
-				theResult.getCode( ), 
-				theResult.getSubcode( ), 
-				theResult.getSubject( ),
-				theResult.getMessage( ), 
-				theResult.getException( ) );
+		String entityTag = theResult.getCode( ) == Status.OPERATION_COMPLETED ? theResult.getHeaders( ).get( HeaderConstants.ETAG ) : null;
+		if( entityTag != null && matchesEntityTag( theRequest.getHeader( HeaderConstants.IF_NONE_MATCH ), entityTag ) ) {
+			// the caller already has the response, so we only send the status and headers
+			theResponse.setStatus( HttpStatus.convert( Status.OPERATION_NOT_MODIFIED ).getCode( ) );
+			theResponse.addHeader( HeaderConstants.VARY, HeaderConstants.ACCEPT );
+			HttpInterfaceBase httpInterface = theRequest.getServletContext( ) == null ? null : ( HttpInterfaceBase )theRequest.getServletContext( ).getAttribute( AttributeConstants.INTERFACE_SERVLET_CONTEXT );
+			if( httpInterface != null && httpInterface.getCompression( ) != null ) {
+				theResponse.addHeader( HeaderConstants.VARY, HeaderConstants.ACCEPT_ENCODING );
+			}
+		} else {
+			_writeResponse(
+					theRequest, 
+					theResponse, 
+					theResult.getValue( ),
+					theResult.isStreamed( ) ? theResult : null,
+					theResult.getCode( ), 
+					theResult.getSubcode( ), 
+					theResult.getSubject( ),
+					theResult.getMessage( ), 
+					theResult.getException( ) );
+		}
+	}
+	
+	/**
+	 * Helper method that indicates if an entity tag is in the If-None-Match
+	 * header sent by the caller. Entity tags are compared weakly, meaning the 
+	 * weak indicator is ignored, as is appropriate for If-None-Match.
+	 * @param theHeader the value of the If-None-Match header, which may be null
+	 * @param theEntityTag the entity tag of the response
+	 * @return true if the header contains the entity tag, false otherwise
+	 */
+	private static boolean matchesEntityTag( String theHeader, String theEntityTag ) {
+		if( theHeader == null ) {
+			return false;
+		} else {
+			String entityTag = stripWeakPrefix( theEntityTag );
+			for( String headerTag : theHeader.split( "," ) ) {
+				headerTag = headerTag.trim( );
+				if( "*".equals( headerTag ) || entityTag.equals( stripWeakPrefix( headerTag ) ) ) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+	
+	/**
+	 * Helper method that removes the weak indicator from an entity tag.
+	 */
+	private static String stripWeakPrefix( String theEntityTag ) {
+		return theEntityTag.startsWith( HeaderConstants.WEAK_ETAG_PREFIX ) ? theEntityTag.substring( HeaderConstants.WEAK_ETAG_PREFIX.length( ) ) : theEntityTag;
 	}
 	
 	/**
@@ -270,7 +392,18 @@ public class ResponseHelper {
 	 * @param theResponse the response object to set headers into
 	 */
 	public static void setCommonHeaders( HttpServletResponse theResponse ) {
-		theResponse.setContentType( "application/json; charset=UTF-8" ); // facebook does text/json
+		setCommonHeaders( theResponse, false );
+	}
+
+	/**
+	 * Helper method that writes common headers into the response.
+	 * @param theResponse the response object to set headers into
+	 * @param isCbor true if the response is written as CBOR, false if it is written as json
+	 */
+	public static void setCommonHeaders( HttpServletResponse theResponse, boolean isCbor ) {
+		theResponse.setContentType( isCbor ? HeaderConstants.CBOR_MEDIA_TYPE : HeaderConstants.JSON_CONTENT_TYPE ); // facebook does text/json
+		// the response depends on what the caller accepts, which caches need to know
+		theResponse.addHeader( HeaderConstants.VARY, HeaderConstants.ACCEPT );
 		// if we do not have cache control headers, we set the default
 		if( !theResponse.containsHeader( HeaderConstants.CACHE_CONTROL ) ) {
 			theResponse.setHeader( HeaderConstants.CACHE_CONTROL, HeaderConstants.CACHE_CONTROL_DEFAULT_DIRECTIVE ); // NOTE: this could be derived based on the data going back
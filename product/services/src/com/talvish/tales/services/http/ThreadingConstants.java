@@ -22,12 +22,18 @@ package com.talvish.tales.services.http;
  */
 public final class ThreadingConstants {
 	public static final String DEFAULT_THREAD_POOL = "default";
+	
+	public static final String THREAD_POOL_TYPE_BOUNDED = "bounded";
+	public static final String THREAD_POOL_TYPE_THREAD_PER_TASK = "thread_per_task";
+	public static final String DEFAULT_THREAD_POOL_TYPE = THREAD_POOL_TYPE_BOUNDED;
+
 	public static final long DEFAULT_RESOURCE_EXECUTION_TIMEOUT = 10000;
 	
 	public static final int DEFAULT_CORE_THREADS_FACTOR = 10;
 	public static final int DEFAULT_MAX_THREAD_FACTOR = 2;
 	public static final long DEFAULT_KEEP_ALIVE_TIME = 60000l;
 	public static final boolean DEFAULT_PRESTART_CORE = false;
+	public static final int DEFAULT_THREAD_PER_TASK_MAX_QUEUE_SIZE = Integer.MAX_VALUE;
 	public static final int DEFAULT_THREAD_PRIORITY = Thread.NORM_PRIORITY;
 	public static final boolean DEFAULT_IS_DAEMON = false;
 }
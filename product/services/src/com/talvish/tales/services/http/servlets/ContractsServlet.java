@@ -16,8 +16,10 @@
 package com.talvish.tales.services.http.servlets;
 
 import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import javax.servlet.ServletException;
@@ -39,6 +41,7 @@ import com.talvish.tales.contracts.services.http.ResourceMethod;
 import com.talvish.tales.contracts.services.http.ResourceMethodParameter;
 import com.talvish.tales.contracts.services.http.ServletContract;
 import com.talvish.tales.contracts.services.http.ResourceMethodParameter.ParameterSource;
+import com.talvish.tales.parts.reflection.JavaType;
 import com.talvish.tales.serialization.json.JsonMemberMap;
 import com.talvish.tales.serialization.json.JsonTranslationFacility;
 import com.talvish.tales.serialization.json.JsonTypeMap;
@@ -239,12 +242,19 @@ public class ContractsServlet extends AdministrationServlet {
 					subcontractObject.add( "verbs", verbArray );
 					subcontractObject.addProperty( "path", method.getParameterPath( ) );
 					subcontractObject.addProperty( "return_type", theJsonFacility.generateTypeName( method.getReturn().getType( ), jsonTypeMaps ) );
+					if( isMap( method.getReturn( ).getType( ) ) ) {
+						subcontractObject.addProperty( "return_map_encoding", theJsonFacility.getMapEncoding( method.getReturn( ).getType( ) ).toString( ) );
+					}
 					parameterArray = new JsonArray( );
 					for( ResourceMethodParameter parameter : method.getParameters( ) ) {
 						if( parameter.getSource( ) != ParameterSource.CONTEXT ) {
 							parameterObject = new JsonObject( );
 							parameterObject.addProperty( "name", parameter.getValueName( ) );
 							parameterObject.addProperty( "type", theJsonFacility.generateTypeName( parameter.getType( ), jsonTypeMaps ) );
+							if( isMap( parameter.getType( ) ) ) {
+								// either encoding is accepted, but this is the one that is expected
+								parameterObject.addProperty( "map_encoding", theJsonFacility.getMapEncoding( parameter.getType( ) ).toString( ) );
+							}
 							parameterObject.addProperty( "source", parameter.getSource( ).toString( ) );
 							parameterArray.add( parameterObject );
 						}
@@ -269,7 +279,8 @@ public class ContractsServlet extends AdministrationServlet {
 					typeMemberObject = new JsonObject( );
 					typeMemberObject.addProperty( "name", memberMap.getReflectedField().getName( ) );
 					if( memberMap.getReflectedField().isMap( ) ) { // we are a hashmap of some kind
-						// we have key types, value types
+						// we have key types, value types, and can be encoded as entries or an object
+						typeMemberObject.addProperty( "map_encoding", theJsonFacility.getMapEncoding( memberMap.getReflectedField( ) ).toString( ) );
 					} else if( memberMap.getReflectedField( ).isCollection() ) { // we are an array or collection
 						// we have value types
 					} else { // we are an object
@@ -288,4 +299,13 @@ public class ContractsServlet extends AdministrationServlet {
 		
 		return contractObject;
 	}
+	
+	/**
+	 * Helper method that indicates if the type is a map with type information.
+	 * @param theType the type to check
+	 * @return true if a map with type information, false otherwise
+	 */
+	private static boolean isMap( JavaType theType ) {
+		return Map.class.isAssignableFrom( theType.getUnderlyingClass( ) ) && theType.getType( ) instanceof ParameterizedType;
+	}
 }
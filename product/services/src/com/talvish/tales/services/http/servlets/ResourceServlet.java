@@ -34,6 +34,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.google.common.base.Preconditions;
+import com.talvish.tales.communication.HeaderConstants;
 import com.talvish.tales.communication.HttpStatus;
 import com.talvish.tales.communication.Status;
 import com.talvish.tales.contracts.ContractVersion;
@@ -41,6 +42,7 @@ import com.talvish.tales.contracts.services.http.ResourceFacility;
 import com.talvish.tales.contracts.services.http.ResourceMethod;
 import com.talvish.tales.contracts.services.http.ResourceMethodResult;
 import com.talvish.tales.contracts.services.http.ResourceOperation;
+import com.talvish.tales.contracts.services.http.ResourceRouteTree;
 import com.talvish.tales.contracts.services.http.ResourceType;
 import com.talvish.tales.contracts.services.http.ResourceOperation.Mode;
 import com.talvish.tales.services.OperationContext;
@@ -48,6 +50,7 @@ import com.talvish.tales.services.http.AttributeConstants;
 import com.talvish.tales.services.http.FailureSubcodes;
 import com.talvish.tales.services.http.ParameterConstants;
 import com.talvish.tales.services.http.ResponseHelper;
+import com.talvish.tales.system.status.AdaptiveConcurrencyLimit;
 
 
 /**
@@ -112,11 +115,11 @@ public class ResourceServlet extends HttpServlet {
 	
 	// TODO: have the methods, from the resource type, listed per contract 
 
-	private Map<String,List<ResourceMethod>> getMethods = new HashMap<String,List<ResourceMethod>>( );
-	private Map<String,List<ResourceMethod>> postMethods = new HashMap<String,List<ResourceMethod>>( );
-	private Map<String,List<ResourceMethod>> putMethods = new HashMap<String,List<ResourceMethod>>( );
-	private Map<String,List<ResourceMethod>> deleteMethods = new HashMap<String,List<ResourceMethod>>( );
-	private Map<String,List<ResourceMethod>> headMethods = new HashMap<String,List<ResourceMethod>>( );
+	private final Map<String,ResourceRouteTree> getMethods;
+	private final Map<String,ResourceRouteTree> postMethods;
+	private final Map<String,ResourceRouteTree> putMethods;
+	private final Map<String,ResourceRouteTree> deleteMethods;
+	private final Map<String,ResourceRouteTree> headMethods;
 
     private final Object resource;
     private final ResourceType resourceType;
@@ -124,6 +127,8 @@ public class ResourceServlet extends HttpServlet {
     
     private final Executor executor;
     private final long executionTimeout; // TODO: curious about timing out the non-async calls
+    private final boolean streamResponses;
+    private final boolean limitConcurrency;
 
     
     /**
@@ -131,6 +136,25 @@ public class ResourceServlet extends HttpServlet {
      * about the resource.
      */
     public ResourceServlet( Object theResource, ResourceType theResourceType, ResourceFacility theFacility, Executor theExecutor, long theExecutionTimeout ) {
+    	this( theResource, theResourceType, theFacility, theExecutor, theExecutionTimeout, false );
+    }
+
+    /**
+     * Constructor taking the two main objects needed, the resource and the information
+     * about the resource, along with whether method results are written directly 
+     * to the response instead of first being translated into json objects.
+     */
+    public ResourceServlet( Object theResource, ResourceType theResourceType, ResourceFacility theFacility, Executor theExecutor, long theExecutionTimeout, boolean shouldStreamResponses ) {
+    	this( theResource, theResourceType, theFacility, theExecutor, theExecutionTimeout, shouldStreamResponses, false );
+    }
+
+    /**
+     * Constructor taking the two main objects needed, the resource and the information
+     * about the resource, along with whether method results are written directly 
+     * to the response and whether requests are shed, with a 503 and a Retry-After header,
+     * when the adaptive concurrency limit of the resource or method is reached.
+     */
+    public ResourceServlet( Object theResource, ResourceType theResourceType, ResourceFacility theFacility, Executor theExecutor, long theExecutionTimeout, boolean shouldStreamResponses, boolean shouldLimitConcurrency ) {
     	Preconditions.checkNotNull( theResource, "need the resource" );
     	Preconditions.checkNotNull( theResourceType, "need a resource type" );
     	Preconditions.checkNotNull(theFacility, "the resource type '%s' needs a resource facility", theResourceType.getName( ) );
@@ -141,22 +165,25 @@ public class ResourceServlet extends HttpServlet {
     	resourceType = theResourceType;
     	resourceFacility = theFacility;
     	
-    	filterMethods( theResourceType.getGetMethods(), getMethods );
-    	filterMethods( theResourceType.getPostMethods(), postMethods );
-    	filterMethods( theResourceType.getPutMethods(), putMethods );
-    	filterMethods( theResourceType.getDeleteMethods(), deleteMethods );
-    	filterMethods( theResourceType.getHeadMethods(), headMethods );
+    	getMethods = filterMethods( theResourceType.getGetMethods() );
+    	postMethods = filterMethods( theResourceType.getPostMethods() );
+    	putMethods = filterMethods( theResourceType.getPutMethods() );
+    	deleteMethods = filterMethods( theResourceType.getDeleteMethods() );
+    	headMethods = filterMethods( theResourceType.getHeadMethods() );
 
     	executor = theExecutor;
     	executionTimeout = theExecutionTimeout;
+    	streamResponses = shouldStreamResponses;
+    	limitConcurrency = shouldLimitConcurrency;
     }
     
     /**
-     * Filters methods into the particular right map
+     * Filters methods into a map, by version, of route trees. 
      * @param theMethods the methods to filter
-     * @param theContractMap the map to filter into
+     * @return the map of versions to route trees
      */
-    private void filterMethods( List<ResourceMethod> theMethods, Map<String,List<ResourceMethod>> theContractMap ) {
+    private Map<String,ResourceRouteTree> filterMethods( List<ResourceMethod> theMethods ) {
+    	Map<String,List<ResourceMethod>> theContractMap = new HashMap<String,List<ResourceMethod>>( );
     	for( ResourceMethod method : theMethods ) {
     		for( ContractVersion contractVersion : method.getSupportedVersions( ) ) {
     			String stringContractVersion = contractVersion.getVersionString( );
@@ -169,6 +196,12 @@ public class ResourceServlet extends HttpServlet {
     			contractMethods.add( method );
     		}
     	}
+    	// now we build the route trees, which maintain the order of the lists
+    	Map<String,ResourceRouteTree> routeTrees = new HashMap<String,ResourceRouteTree>( theContractMap.size( ) );
+    	for( Map.Entry<String,List<ResourceMethod>> entry : theContractMap.entrySet( ) ) {
+    		routeTrees.put( entry.getKey( ), new ResourceRouteTree( entry.getValue( ) ) );
+    	}
+    	return routeTrees;
     }
     
 	/**
@@ -263,54 +296,22 @@ public class ResourceServlet extends HttpServlet {
 	 * @param theMethods the set of methods to go through
 	 * @return the matching method, if found
 	 */
-	private ResourceMethod getMatchedMethod( HttpServletRequest theRequest, Map<String,List<ResourceMethod>> theMethods ) {
+	private ResourceMethod getMatchedMethod( HttpServletRequest theRequest, Map<String,ResourceRouteTree> theMethods ) {
 		ResourceMethod method = null;
 		ResourceMethod.MatchStatus bestStatus = null;
 		
 		// grab the version of the resource methods that are appropriate
-		List<ResourceMethod> specificMethods = theMethods.get( theRequest.getParameter( ParameterConstants.VERSION_PARAMETER ) );
+		ResourceRouteTree specificMethods = theMethods.get( theRequest.getParameter( ParameterConstants.VERSION_PARAMETER ) );
 
 		// if we got the methods, then find the particular one
 		if( specificMethods != null ) {
-			bestStatus = getMatchStatus( theRequest, specificMethods );
+			bestStatus = specificMethods.match( theRequest );
 		}
 		if( bestStatus != null ) {
-			method = specificMethods.get( bestStatus.getPathIndex( ) );
+			method = specificMethods.getMethod( bestStatus.getPathIndex( ) );
 		}
 		return method;
 	}
-	
-	/**
-	 * Helper method that gets the best fit method based on a set of methods.
-	 * @param theRequest the request, to help make comparisons
-	 * @param theSpecificMethods the methods that will be analyzed to find a best fit
-	 * @return the best fit method information
-	 */
-	private ResourceMethod.MatchStatus getMatchStatus( HttpServletRequest theRequest, List<ResourceMethod> theSpecificMethods ) {
-		ResourceMethod.MatchStatus currentStatus = null;
-		ResourceMethod.MatchStatus bestStatus = null;
-		int pathIndex = 0;
-		
-		// if we got the methods, then find the particular one
-		if( theSpecificMethods != null ) {
-			for( ResourceMethod method : theSpecificMethods ) {
-				currentStatus = method.match(theRequest, pathIndex );
-				if( currentStatus != null ) {
-					if( ( bestStatus == null ) || 
-						( bestStatus.getParameterMisses() > currentStatus.getParameterMisses( ) && bestStatus.getParameterMatches() <= currentStatus.getParameterMatches( ) ) || 
-						( bestStatus.getParameterMisses() >= currentStatus.getParameterMisses( ) && bestStatus.getParameterMatches() < currentStatus.getParameterMatches( ) ) ) {
-						bestStatus = currentStatus;
-//						if( bestStatus.getParameterMisses() == 0 && bestStatus.getParameterMatches() == method.getParameters().size( ) ) {
-//							// short circuit if we have an exact match <- this didn't work because I don't have a count for non-used parameters
-//							break;
-//						}
-					}
-				}
-				pathIndex += 1;
-			}
-		}
-		return bestStatus;
-	}
 
 	/**
 	 * Private method that implements the work for the http verb methods by running against the methods. 
@@ -318,24 +319,26 @@ public class ResourceServlet extends HttpServlet {
 	 * @param theResponse the http response object
 	 * @param theMethods the methods which will be looked at to try to find one to run
 	 */
-	private void doCall(HttpServletRequest theRequest, HttpServletResponse theResponse, Map<String,List<ResourceMethod>> theMethods ) throws ServletException, IOException {
+	private void doCall(HttpServletRequest theRequest, HttpServletResponse theResponse, Map<String,ResourceRouteTree> theMethods ) throws ServletException, IOException {
 		ResourceMethodResult result = null;
 		ResourceMethod.MatchStatus bestStatus = null;
 		
 		// grab the version of the resource methods that are appropriate
-		List<ResourceMethod> specificMethods = theMethods.get( theRequest.getParameter( ParameterConstants.VERSION_PARAMETER ) );
+		ResourceRouteTree specificMethods = theMethods.get( theRequest.getParameter( ParameterConstants.VERSION_PARAMETER ) );
 
 		// if we got the methods, then find the particular one
 		if( specificMethods != null ) {
-			bestStatus = getMatchStatus( theRequest, specificMethods );
+			bestStatus = specificMethods.match( theRequest );
 		}
 
-		// if we found the particular method, let's run it
-		if( bestStatus != null ) {
-			ResourceMethod method = specificMethods.get( bestStatus.getPathIndex( ) );
+		// if we found the particular method, let's run it, unless
+		// it is shed because we are at the concurrency limit
+		if( bestStatus != null && acquireConcurrency( theRequest, theResponse, specificMethods.getMethod( bestStatus.getPathIndex( ) ) ) ) {
+			ResourceMethod method = specificMethods.getMethod( bestStatus.getPathIndex( ) );
 			Matcher pathMatcher = bestStatus.getPathMatcher();
 			OperationContext operationContext = ( OperationContext )theRequest.getAttribute( AttributeConstants.OPERATION_REQUEST_CONTEXT );
 			ResourceOperation.Mode executionMode = method.getUsableMode();
+			long startTimestamp = System.nanoTime( );
 
 			// so at this point we need to collect up the 
 			// request into an object and queue it, if it is async
@@ -350,40 +353,7 @@ public class ResourceServlet extends HttpServlet {
 				//		 shut it down, though behaviour may be call specific
 
 				// need to indicate we are going async
-				AsyncContext asyncContext = theRequest.startAsync();
-				AsyncState asyncState = new AsyncState( asyncContext );
-				
-				asyncContext.setTimeout( executionTimeout );
-				asyncContext.addListener( new AsyncListener( ) {
-					@Override
-					public void onTimeout(AsyncEvent theEvent) throws IOException {
-						// we set completed, and this call was the call to set it
-						// then we can write our failures and set to completed
-						if( asyncState.setCompleted( ) ) {
-							ResponseHelper.writeFailure( theRequest, theResponse, Status.LOCAL_TIMEOUT, null, String.format( "Timed-out executing resource method '%s.%s'.", resourceType.getName( ), method.getName( ) ), null );
-							theEvent.getAsyncContext().complete( );
-						}
-					}
-					@Override
-					public void onStartAsync(AsyncEvent theEvent) throws IOException {
-						// nothing to do here
-					}
-					
-					@Override
-					public void onError(AsyncEvent theEvent) throws IOException {
-						// we set completed, and this call was the call to set it
-						// then we can write our failures and set to completed
-						if( asyncState.setCompleted( ) ) {
-							ResponseHelper.writeFailure( theRequest, theResponse, Status.LOCAL_ERROR, FailureSubcodes.UNHANDLED_EXCEPTION, String.format( "Unknown exception executing resource method '%s.%s'.", resourceType.getName( ), method.getName( ) ), theEvent.getThrowable() );
-							theEvent.getAsyncContext().complete( );
-						}
-					}
-					
-					@Override
-					public void onComplete(AsyncEvent theEvent) throws IOException {
-						updateCompletionStatus( method, ( HttpServletResponse )theEvent.getSuppliedResponse( ) );
-					}
-				});
+				AsyncState asyncState = startAsync( theRequest, theResponse, method, startTimestamp );
 
 				// now we place it in the queue for background handling
 				// which, if we have hit our limit, will throw the
@@ -394,52 +364,184 @@ public class ResourceServlet extends HttpServlet {
 					// at this point we queue for execution 
 					executor.execute( ( ) -> {
 						ResourceMethodResult asyncResult = null;
-						asyncResult = method.execute( resource, theRequest, theResponse, operationContext, pathMatcher, resourceFacility, asyncState );
-						// check to make sure that an error/timeout/response has already happened
-						if( asyncState.setCompleted( ) ) {
-							if( asyncResult != null ) {
-								ResponseHelper.writeResponse( theRequest, theResponse, asyncResult );
-							} else {
-								ResponseHelper.writeFailure( theRequest, theResponse, Status.CALLER_NOT_FOUND, FailureSubcodes.UNKNOWN_REQUEST, String.format( "Path '%s' maps to resource '%s.%s' but execution did not return a result.", theRequest.getRequestURL().toString( ), resourceType.getName( ), method.getName( ) ), null );
-							}
-							asyncContext.complete( );
-						}
+						asyncResult = method.execute( resource, theRequest, theResponse, operationContext, pathMatcher, resourceFacility, asyncState, streamResponses );
+						completeAsync( theRequest, theResponse, method, asyncState, asyncResult );
 					} );
 
 				} catch( RejectedExecutionException e ) {
-					// TODO: it makes sense, if we can approximate time period, to give a retry header back on when  
-					//       to come back given how busy things are ... may want to give control on this mind you
-					//       curious if the time period for retry could be a combination of length of queue and 
-					//		 average length of execution on the contract along with some other factor
-					
 					// we set completed, and this call was the call to set it
-					// then we can write our failures and set to completed
+					// then we can write our failures and set to completed, 
+					// indicating when to come back based on how busy we are
 					if( asyncState.setCompleted( ) ) {
+						theResponse.setHeader( HeaderConstants.RETRY_AFTER, Long.toString( resourceType.getConcurrencyLimit( ).calculateRetryAfter( ) ) );
 						ResponseHelper.writeFailure(theRequest, theResponse, Status.LOCAL_UNAVAILABLE, null, String.format( "Service too busy to execute '%s.", theRequest.getRequestURL().toString( ) ), null );
-						asyncContext.complete( );
+						asyncState.getContext( ).complete( );
 					}
 				}
 
 			} else {
 				// update we have a call attempt being made
 				updateAttemptStatus( method );;
-				result = method.execute( resource, theRequest, theResponse, operationContext, pathMatcher, resourceFacility, null );
-				if( result != null ) {
-					try {
-						ResponseHelper.writeResponse(theRequest, theResponse, result);
-					} finally {
-						// update status, which we only do if we have a match
-						updateCompletionStatus( method, theResponse );
+				boolean completesAsync = false;
+				try {
+					result = method.execute( resource, theRequest, theResponse, operationContext, pathMatcher, resourceFacility, null, streamResponses );
+					if( result != null && result.isPending( ) ) {
+						// the method returned a completion stage, so though it was called 
+						// on this thread we now go async to wait for the stage to complete
+						AsyncState asyncState = startAsync( theRequest, theResponse, method, startTimestamp );
+						completesAsync = true;
+						completeAsync( theRequest, theResponse, method, asyncState, result );
+					} else if( result != null ) {
+						try {
+							ResponseHelper.writeResponse(theRequest, theResponse, result);
+						} finally {
+							// update status, which we only do if we have a match
+							updateCompletionStatus( method, theResponse );
+						}
+					} else {
+						ResponseHelper.writeFailure(theRequest, theResponse, Status.CALLER_NOT_FOUND, FailureSubcodes.UNKNOWN_REQUEST, String.format( "Path '%s' maps to resource '%s.%s' but execution did not return a result.", theRequest.getRequestURL().toString( ), this.resourceType.getName( ), method.getName( ) ), null );
+					}
+				} finally {
+					// if async, this happens when the async context completes
+					if( !completesAsync ) {
+						releaseConcurrency( method, startTimestamp );
 					}
-				} else {
-					ResponseHelper.writeFailure(theRequest, theResponse, Status.CALLER_NOT_FOUND, FailureSubcodes.UNKNOWN_REQUEST, String.format( "Path '%s' maps to resource '%s.%s' but execution did not return a result.", theRequest.getRequestURL().toString( ), this.resourceType.getName( ), method.getName( ) ), null );
 				}
 			}
-		} else {
+		} else if( bestStatus == null ) {
 			ResponseHelper.writeFailure(theRequest, theResponse, Status.CALLER_NOT_FOUND, FailureSubcodes.UNKNOWN_REQUEST, String.format( "Path '%s' maps to resource '%s' but an operation could not be found.", theRequest.getRequestURL().toString( ), this.resourceType.getName( ) ), null );
 		}
    	}
 	
+	/**
+	 * Private helper method that puts the request into async mode, setting
+	 * the execution timeout and the listener that handles time-outs, errors 
+	 * and updating the status on completion.
+	 * @param theRequest the http request object
+	 * @param theResponse the http response object
+	 * @param theMethod the method being executed
+	 * @param theStartTimestamp the time, in nanoseconds, the request started running
+	 * @return the state used to track completion of the request
+	 */
+	private AsyncState startAsync( HttpServletRequest theRequest, HttpServletResponse theResponse, ResourceMethod theMethod, long theStartTimestamp ) {
+		AsyncContext asyncContext = theRequest.startAsync();
+		AsyncState asyncState = new AsyncState( asyncContext );
+		
+		asyncContext.setTimeout( executionTimeout );
+		asyncContext.addListener( new AsyncListener( ) {
+			@Override
+			public void onTimeout(AsyncEvent theEvent) throws IOException {
+				// we set completed, and this call was the call to set it
+				// then we can write our failures and set to completed
+				if( asyncState.setCompleted( ) ) {
+					ResponseHelper.writeFailure( theRequest, theResponse, Status.LOCAL_TIMEOUT, null, String.format( "Timed-out executing resource method '%s.%s'.", resourceType.getName( ), theMethod.getName( ) ), null );
+					theEvent.getAsyncContext().complete( );
+				}
+			}
+			@Override
+			public void onStartAsync(AsyncEvent theEvent) throws IOException {
+				// nothing to do here
+			}
+			
+			@Override
+			public void onError(AsyncEvent theEvent) throws IOException {
+				// we set completed, and this call was the call to set it
+				// then we can write our failures and set to completed
+				if( asyncState.setCompleted( ) ) {
+					ResponseHelper.writeFailure( theRequest, theResponse, Status.LOCAL_ERROR, FailureSubcodes.UNHANDLED_EXCEPTION, String.format( "Unknown exception executing resource method '%s.%s'.", resourceType.getName( ), theMethod.getName( ) ), theEvent.getThrowable() );
+					theEvent.getAsyncContext().complete( );
+				}
+			}
+			
+			@Override
+			public void onComplete(AsyncEvent theEvent) throws IOException {
+				updateCompletionStatus( theMethod, ( HttpServletResponse )theEvent.getSuppliedResponse( ) );
+				releaseConcurrency( theMethod, theStartTimestamp );
+			}
+		});
+		return asyncState;
+	}
+	
+	/**
+	 * Private helper method that writes the result of an async execution and completes 
+	 * the async context, unless a time-out or error has already completed it. If the 
+	 * result is pending, because the method returned a completion stage, this is done
+	 * when the stage completes.
+	 * @param theRequest the http request object
+	 * @param theResponse the http response object
+	 * @param theMethod the method that was executed
+	 * @param theAsyncState the state used to track completion of the request
+	 * @param theResult the result of the execution, which may be null
+	 */
+	private void completeAsync( HttpServletRequest theRequest, HttpServletResponse theResponse, ResourceMethod theMethod, AsyncState theAsyncState, ResourceMethodResult theResult ) {
+		if( theResult != null && theResult.isPending( ) ) {
+			theResult.getPendingResult( ).whenComplete( ( pendingResult, exception ) -> {
+				if( exception == null ) {
+					completeAsync( theRequest, theResponse, theMethod, theAsyncState, pendingResult );
+				} else if( theAsyncState.setCompleted( ) ) {
+					ResponseHelper.writeFailure( theRequest, theResponse, Status.LOCAL_ERROR, FailureSubcodes.UNHANDLED_EXCEPTION, String.format( "Unknown exception executing resource method '%s.%s'.", resourceType.getName( ), theMethod.getName( ) ), exception );
+					theAsyncState.getContext( ).complete( );
+				}
+			} );
+		// check to make sure that an error/timeout/response has already happened
+		} else if( theAsyncState.setCompleted( ) ) {
+			if( theResult != null ) {
+				ResponseHelper.writeResponse( theRequest, theResponse, theResult );
+			} else {
+				ResponseHelper.writeFailure( theRequest, theResponse, Status.CALLER_NOT_FOUND, FailureSubcodes.UNKNOWN_REQUEST, String.format( "Path '%s' maps to resource '%s.%s' but execution did not return a result.", theRequest.getRequestURL().toString( ), resourceType.getName( ), theMethod.getName( ) ), null );
+			}
+			theAsyncState.getContext( ).complete( );
+		}
+	}
+
+	/**
+	 * Private helper method that, if limiting concurrency, attempts to start a request 
+	 * within the concurrency limits of both the resource and the method. If either
+	 * limit has been reached, the request is shed by writing a failure along with a 
+	 * Retry-After header indicating when to come back.
+	 * @param theRequest the http request object
+	 * @param theResponse the http response object
+	 * @param theMethod the method to be executed
+	 * @return true if the request can run, false if it was shed
+	 */
+	private boolean acquireConcurrency( HttpServletRequest theRequest, HttpServletResponse theResponse, ResourceMethod theMethod ) {
+		boolean acquired = true;
+		if( limitConcurrency ) {
+			AdaptiveConcurrencyLimit limit = resourceType.getConcurrencyLimit( );
+			if( !limit.tryAcquire( ) ) {
+				acquired = false;
+			} else if( !theMethod.getConcurrencyLimit( ).tryAcquire( ) ) {
+				limit.cancel( );
+				limit = theMethod.getConcurrencyLimit( );
+				acquired = false;
+			}
+			if( !acquired ) {
+				updateAttemptStatus( theMethod );
+				theResponse.setHeader( HeaderConstants.RETRY_AFTER, Long.toString( limit.calculateRetryAfter( ) ) );
+				ResponseHelper.writeFailure( theRequest, theResponse, Status.LOCAL_UNAVAILABLE, FailureSubcodes.CONCURRENCY_LIMITED, String.format( "Service too busy to execute resource method '%s.%s'.", resourceType.getName( ), theMethod.getName( ) ), null );
+				updateCompletionStatus( theMethod, theResponse );
+			}
+		}
+		return acquired;
+	}
+
+	/**
+	 * Private helper method that, if limiting concurrency, indicates a request 
+	 * started with {@code acquireConcurrency} is done, so the limits can adapt.
+	 * Since the methods of a resource take different amounts of time, the resource
+	 * limit is given the latency relative to what is usual for the method.
+	 * @param theMethod the method that was executed
+	 * @param theStartTimestamp the time, in nanoseconds, the request started running
+	 */
+	private void releaseConcurrency( ResourceMethod theMethod, long theStartTimestamp ) {
+		if( limitConcurrency ) {
+			long latency = System.nanoTime( ) - theStartTimestamp;
+			AdaptiveConcurrencyLimit methodLimit = theMethod.getConcurrencyLimit( );
+			methodLimit.release( latency );
+			resourceType.getConcurrencyLimit( ).release( latency, methodLimit.getBaselineLatency( ) );
+		}
+	}
+	
 	/**
 	 * Private helper method that tracks that a method was called.
 	 * @param theMethod the method being called